@@ -4,6 +4,7 @@ import com.pbl6.microservices.customer_service.client.dto.MovieServiceResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 
 import java.util.UUID;
 
@@ -23,4 +24,11 @@ public interface MovieServiceClient {
      */
     @GetMapping("/api/v1/movies/{id}")
     MovieServiceResponse getMovieById(@PathVariable("id") UUID id);
+
+    /**
+     * Count a new favorite towards trending movies
+     * Calls: POST /api/internal/movies/{movieId}/favorites
+     */
+    @PostMapping("/api/internal/movies/{movieId}/favorites")
+    void recordFavorite(@PathVariable("movieId") UUID movieId);
 }
@@ -58,6 +58,12 @@ public class FavoriteServiceImpl implements FavoriteService {
         } catch (Exception e) {
             log.debug("Failed to send favorite add event: {}", e.getMessage());
         }
+        // Best-effort: count the favorite towards trending movies
+        try {
+            movieServiceClient.recordFavorite(request.getMovieId());
+        } catch (Exception e) {
+            log.debug("Failed to record favorite for trending: {}", e.getMessage());
+        }
         return toResponse(favorite);
     }
 
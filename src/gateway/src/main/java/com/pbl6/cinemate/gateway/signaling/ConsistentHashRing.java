@@ -0,0 +1,93 @@
+package com.pbl6.cinemate.gateway.signaling;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring of node ids.
+ * <p>
+ * Every node is placed at {@code virtualNodes} points, so adding or removing a
+ * node only moves the keys between it and its ring neighbours and keys spread
+ * evenly across nodes. The hash is computed in-process and is the same on
+ * every gateway replica.
+ */
+public final class ConsistentHashRing {
+
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(new long[0], new String[0]);
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(long[] points, String[] owners) {
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing empty() {
+        return EMPTY;
+    }
+
+    public static ConsistentHashRing of(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            return EMPTY;
+        }
+        List<Point> placed = new ArrayList<>(nodeIds.size() * virtualNodes);
+        for (String nodeId : nodeIds) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                placed.add(new Point(hash(nodeId + "#" + replica), nodeId));
+            }
+        }
+        // ties are broken by node id so every gateway builds the same ring
+        placed.sort(Comparator.comparingLong(Point::hash).thenComparing(Point::nodeId));
+        long[] points = new long[placed.size()];
+        String[] owners = new String[placed.size()];
+        for (int i = 0; i < placed.size(); i++) {
+            points[i] = placed.get(i).hash();
+            owners[i] = placed.get(i).nodeId();
+        }
+        return new ConsistentHashRing(points, owners);
+    }
+
+    /**
+     * @return up to {@code count} distinct nodes for {@code key}, walking the ring clockwise
+     */
+    public List<String> candidates(String key, int count) {
+        List<String> result = new ArrayList<>(count);
+        if (points.length == 0) {
+            return result;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        int start = index >= 0 ? index : -index - 1;
+        for (int step = 0; step < points.length && result.size() < count; step++) {
+            String owner = owners[(start + step) % points.length];
+            if (!result.contains(owner)) {
+                result.add(owner);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 64-bit FNV-1a over UTF-8 with the MurmurHash3 finalizer, which spreads the
+     * similar strings used for virtual nodes across the whole ring.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Point(long hash, String nodeId) {
+    }
+}
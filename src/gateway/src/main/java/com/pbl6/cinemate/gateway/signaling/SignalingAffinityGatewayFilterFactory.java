@@ -0,0 +1,53 @@
+package com.pbl6.cinemate.gateway.signaling;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import java.net.URI;
+import java.util.Objects;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * {@code SignalingAffinity} route filter: sends a signaling connection to the
+ * node {@link SignalingNodeRegistry} picks for its {@code movieId}, so the
+ * peers of one movie share a node. Connections without a {@code movieId}, or
+ * arriving while no node is known, keep the route's own URI.
+ * <p>
+ * Runs right after the route URI has been resolved and before the WebSocket
+ * routing filter opens the upstream connection.
+ */
+@Component
+public class SignalingAffinityGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    private static final String PARAM_MOVIE_ID = "movieId";
+    private final SignalingNodeRegistry registry;
+
+    public SignalingAffinityGatewayFilterFactory(SignalingNodeRegistry registry) {
+        super(Object.class);
+        this.registry = Objects.requireNonNull(registry, "registry must not be null");
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            String movieId = exchange.getRequest().getQueryParams().getFirst(PARAM_MOVIE_ID);
+            URI routed = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+            if (movieId == null || routed == null) {
+                return chain.filter(exchange);
+            }
+            registry.route(movieId).ifPresent(node -> exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR,
+                    UriComponentsBuilder.fromUri(routed)
+                            .scheme(node.address().getScheme())
+                            .host(node.address().getHost())
+                            .port(node.address().getPort())
+                            .build(true)
+                            .toUri()));
+            return chain.filter(exchange);
+        }, RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1);
+    }
+}
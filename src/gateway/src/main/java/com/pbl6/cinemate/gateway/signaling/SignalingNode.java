@@ -0,0 +1,13 @@
+package com.pbl6.cinemate.gateway.signaling;
+
+import java.net.URI;
+
+/**
+ * A live signaling node as last published in its {@code signaling:node:{nodeId}:info} hash.
+ */
+public record SignalingNode(String id, URI address, int sessions, int capacity) {
+
+    public double load() {
+        return capacity > 0 ? (double) sessions / capacity : 1.0;
+    }
+}
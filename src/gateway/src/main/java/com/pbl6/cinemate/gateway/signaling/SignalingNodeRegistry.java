@@ -0,0 +1,147 @@
+package com.pbl6.cinemate.gateway.signaling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Live signaling nodes and the hash ring built from them.
+ * <p>
+ * Signaling nodes heartbeat into {@code signaling:nodes} and publish their
+ * address, session count and capacity in {@code signaling:node:{nodeId}:info}
+ * (see {@code StreamingRedisKeys} in the shared kernel, which the gateway does
+ * not depend on). Membership is re-read every {@code refresh-interval}, so
+ * nodes join and leave the ring without a gateway restart.
+ * <p>
+ * A movie's connections go to the first node clockwise from the movie id. Once
+ * that node is above {@code spill-threshold} of its capacity they go to the
+ * second node instead, if it is less loaded, so a hot movie spans two nodes
+ * rather than saturating one.
+ */
+@Component
+public class SignalingNodeRegistry {
+
+    private static final String NODES_KEY = "signaling:nodes";
+    private static final String NODE_PREFIX = "signaling:node:";
+    private static final String INFO_SUFFIX = ":info";
+    private static final String FIELD_ADDRESS = "address";
+    private static final String FIELD_SESSIONS = "sessions";
+    private static final String FIELD_CAPACITY = "capacity";
+    private static final Logger log = LoggerFactory.getLogger(SignalingNodeRegistry.class);
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final SignalingRoutingProperties properties;
+    private final Counter primaryRoutes;
+    private final Counter spilledRoutes;
+    private volatile Membership membership = new Membership(ConsistentHashRing.empty(), Map.of());
+    private Disposable refresher;
+
+    public SignalingNodeRegistry(
+            ReactiveStringRedisTemplate redisTemplate,
+            SignalingRoutingProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingRoutingProperties must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.primaryRoutes = meterRegistry.counter("gateway.signaling.routes", "target", "primary");
+        this.spilledRoutes = meterRegistry.counter("gateway.signaling.routes", "target", "spill");
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher = Flux.interval(properties.refreshInterval())
+                .startWith(0L)
+                .concatMap(tick -> refresh()
+                        .onErrorResume(e -> {
+                            log.warn("Failed to refresh signaling nodes, keeping previous ring: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * @return the node that should hold {@code movieId}'s next connection, or
+     * empty when no node is known
+     */
+    public Optional<SignalingNode> route(String movieId) {
+        Membership current = membership;
+        List<String> candidates = current.ring().candidates(movieId, 2);
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+        SignalingNode primary = current.nodes().get(candidates.get(0));
+        if (candidates.size() > 1 && primary.load() >= properties.spillThreshold()) {
+            SignalingNode secondary = current.nodes().get(candidates.get(1));
+            if (secondary.load() < primary.load()) {
+                spilledRoutes.increment();
+                return Optional.of(secondary);
+            }
+        }
+        primaryRoutes.increment();
+        return Optional.of(primary);
+    }
+
+    private Mono<Void> refresh() {
+        double cutoff = System.currentTimeMillis() - properties.nodeDeadAfter().toMillis();
+        return redisTemplate.opsForZSet()
+                .rangeByScore(NODES_KEY, Range.rightUnbounded(Range.Bound.inclusive(cutoff)))
+                .concatMap(nodeId -> redisTemplate.<String, String>opsForHash()
+                        .entries(NODE_PREFIX + nodeId + INFO_SUFFIX)
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                        .flatMap(info -> Mono.justOrEmpty(parse(nodeId, info))))
+                .collectList()
+                .doOnNext(nodes -> {
+                    Map<String, SignalingNode> byId = nodes.stream()
+                            .collect(Collectors.toUnmodifiableMap(SignalingNode::id, Function.identity()));
+                    if (!byId.keySet().equals(membership.nodes().keySet())) {
+                        log.info("Signaling nodes changed: {}", byId.keySet());
+                    }
+                    membership = new Membership(ConsistentHashRing.of(byId.keySet(), properties.virtualNodes()),
+                            byId);
+                })
+                .then();
+    }
+
+    private static Optional<SignalingNode> parse(String nodeId, Map<String, String> info) {
+        String address = info.get(FIELD_ADDRESS);
+        if (address == null || address.isBlank()) {
+            // heartbeat seen but info not yet written, or expired
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new SignalingNode(nodeId, URI.create(address),
+                    Integer.parseInt(info.getOrDefault(FIELD_SESSIONS, "0")),
+                    Integer.parseInt(info.getOrDefault(FIELD_CAPACITY, "0"))));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring signaling node {} with malformed info {}", nodeId, info);
+            return Optional.empty();
+        }
+    }
+
+    private record Membership(ConsistentHashRing ring, Map<String, SignalingNode> nodes) {
+    }
+}
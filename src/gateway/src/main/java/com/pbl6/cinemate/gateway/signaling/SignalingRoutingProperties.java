@@ -0,0 +1,22 @@
+package com.pbl6.cinemate.gateway.signaling;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Movie-affinity routing of {@code /ws/signaling} connections.
+ *
+ * @param refreshInterval how often signaling node membership is re-read from Redis
+ * @param nodeDeadAfter   nodes whose last heartbeat is older than this are left out of the ring
+ * @param virtualNodes    points each node gets on the hash ring
+ * @param spillThreshold  share of its capacity above which a movie's primary node spills new
+ *                        connections to the movie's second node
+ */
+@ConfigurationProperties(prefix = "gateway.signaling")
+public record SignalingRoutingProperties(
+        Duration refreshInterval,
+        Duration nodeDeadAfter,
+        int virtualNodes,
+        double spillThreshold) {
+}
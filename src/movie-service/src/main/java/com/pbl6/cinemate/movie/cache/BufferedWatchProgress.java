@@ -0,0 +1,43 @@
+package com.pbl6.cinemate.movie.cache;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The latest watch progress a viewer reported for a movie, not yet written to
+ * {@code watch_history}.
+ *
+ * @param lastWatchedPosition in seconds
+ * @param totalDuration       in seconds
+ * @param updatedAt           when the progress was reported
+ */
+public record BufferedWatchProgress(UUID customerId, UUID movieId, long lastWatchedPosition, long totalDuration,
+        Instant updatedAt) {
+
+    static BufferedWatchProgress parse(String field, String value) {
+        int separator = field.indexOf(':');
+        String[] parts = value.split(":");
+        return new BufferedWatchProgress(
+                UUID.fromString(field.substring(0, separator)),
+                UUID.fromString(field.substring(separator + 1)),
+                Long.parseLong(parts[0]),
+                Long.parseLong(parts[1]),
+                Instant.ofEpochMilli(Long.parseLong(parts[2])));
+    }
+
+    static String field(UUID customerId, UUID movieId) {
+        return customerId + ":" + movieId;
+    }
+
+    String field() {
+        return field(customerId, movieId);
+    }
+
+    String value() {
+        return lastWatchedPosition + ":" + totalDuration + ":" + updatedAt.toEpochMilli();
+    }
+
+    public double progressPercent() {
+        return totalDuration > 0 ? (double) lastWatchedPosition / totalDuration * 100 : 0.0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pbl6.cinemate.movie.cache;
+
+import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
+
+/**
+ * A movie's catalog document stamped with the version it was built at.
+ * <p>
+ * In the local cache a document without a movie is a tombstone: it marks the
+ * version a movie was invalidated at, so a slower reader cannot put back a
+ * document built before that change.
+ *
+ * @param version value of the movie's version counter when the build started
+ * @param movie   the assembled detail, without viewer-specific data
+ */
+public record CatalogDocument(long version, MovieInfoResponse movie) {
+
+    static CatalogDocument tombstone(long version) {
+        return new CatalogDocument(version, null);
+    }
+
+    boolean isTombstone() {
+        return movie == null;
+    }
+}
@@ -0,0 +1,336 @@
+package com.pbl6.cinemate.movie.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
+import com.pbl6.cinemate.movie.dto.response.MovieResponse;
+import com.pbl6.cinemate.movie.entity.Movie;
+import com.pbl6.cinemate.movie.repository.MovieDetailRepository;
+import com.pbl6.cinemate.movie.util.MovieUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read model of the catalog: one fully assembled {@link MovieInfoResponse}
+ * document per movie, so detail and listing reads skip the relation queries.
+ * <p>
+ * Documents live in two levels, a bounded in-process cache and Redis
+ * ({@code catalog:movie:{id}}), and carry the value of the movie's version
+ * counter ({@code catalog:movie:{id}:version}) read before they were built. A
+ * Redis document is used only while its version is still current, which one
+ * {@code MGET} of both keys tells. Writers publish a
+ * {@link com.pbl6.cinemate.movie.event.CatalogChangedEvent}; once it commits,
+ * {@link #refresh} bumps the versions, tells every instance to drop its local
+ * copy on {@value #INVALIDATION_CHANNEL} and rebuilds the documents. The
+ * local TTL bounds staleness if an invalidation message is lost.
+ */
+@Slf4j
+@Service
+public class CatalogReadModel {
+
+    public static final String INVALIDATION_CHANNEL = "catalog:invalidate";
+    private static final String KEY_PREFIX = "catalog:movie:";
+    private static final String VERSION_SUFFIX = ":version";
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MovieDetailRepository movieDetailRepository;
+    private final Duration remoteTtl;
+    private final Cache<UUID, CatalogDocument> local;
+    private final Timer reads;
+    private final Counter localHits;
+    private final Counter remoteHits;
+    private final Counter misses;
+
+    public CatalogReadModel(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            MovieDetailRepository movieDetailRepository, MeterRegistry meterRegistry,
+            @Value("${catalog.cache.local-ttl}") Duration localTtl,
+            @Value("${catalog.cache.local-max-size}") long localMaxSize,
+            @Value("${catalog.cache.remote-ttl}") Duration remoteTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.movieDetailRepository = movieDetailRepository;
+        this.remoteTtl = remoteTtl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        this.reads = Timer.builder("catalog.reads")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.localHits = meterRegistry.counter("catalog.documents", "source", "local");
+        this.remoteHits = meterRegistry.counter("catalog.documents", "source", "redis");
+        this.misses = meterRegistry.counter("catalog.documents", "source", "database");
+    }
+
+    public Optional<MovieInfoResponse> find(UUID movieId) {
+        return Optional.ofNullable(load(List.of(movieId)).get(movieId));
+    }
+
+    /**
+     * @return documents in the order of {@code movieIds}, skipping movies that
+     * do not exist
+     */
+    public List<MovieInfoResponse> findAll(List<UUID> movieIds) {
+        Map<UUID, MovieInfoResponse> documents = load(movieIds);
+        return movieIds.stream().map(documents::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Listing responses in the order of {@code movies}, with actors and
+     * directors as id and name only.
+     */
+    public List<MovieResponse> toResponses(List<Movie> movies) {
+        return findAll(movies.stream().map(Movie::getId).toList()).stream()
+                .map(movie -> MovieUtils.mapToMovieResponse(movie, false))
+                .toList();
+    }
+
+    /**
+     * Invalidates and rebuilds the documents of committed changes.
+     */
+    public void refresh(Collection<UUID> movieIds) {
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(movieIds));
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<UUID, Long> versions = new HashMap<>();
+        try {
+            List<Object> bumped = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                ids.forEach(id -> stringConnection.incr(versionKey(id)));
+                return null;
+            });
+            for (int i = 0; i < ids.size(); i++) {
+                versions.put(ids.get(i), ((Number) bumped.get(i)).longValue());
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                versions.forEach((id, version) -> stringConnection.publish(INVALIDATION_CHANNEL, id + ":" + version));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // other instances keep their copies until the local TTL expires
+            log.error("Failed to invalidate catalog documents {}: {}", ids, e.getMessage());
+            ids.forEach(local::invalidate);
+            return;
+        }
+        versions.forEach(this::invalidateLocal);
+
+        Map<UUID, CatalogDocument> rebuilt = build(versions);
+        List<UUID> removed = ids.stream().filter(id -> !rebuilt.containsKey(id)).toList();
+        try {
+            store(rebuilt);
+            if (!removed.isEmpty()) {
+                redisTemplate.delete(removed.stream().map(CatalogReadModel::documentKey).toList());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to store rebuilt catalog documents {}: {}", ids, e.getMessage());
+        }
+        log.debug("Refreshed catalog documents {}", versions);
+    }
+
+    /**
+     * Handles a message from {@value #INVALIDATION_CHANNEL}.
+     *
+     * @return the invalidated movie, or {@code null} if the message is malformed
+     */
+    public UUID onInvalidation(String message) {
+        int separator = message.lastIndexOf(':');
+        try {
+            UUID movieId = UUID.fromString(message.substring(0, separator));
+            invalidateLocal(movieId, Long.parseLong(message.substring(separator + 1)));
+            return movieId;
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            log.warn("Ignoring malformed catalog invalidation: {}", message);
+            return null;
+        }
+    }
+
+    private Map<UUID, MovieInfoResponse> load(Collection<UUID> movieIds) {
+        Timer.Sample sample = Timer.start();
+        Map<UUID, MovieInfoResponse> documents = new HashMap<>();
+        List<UUID> remote = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(movieIds)) {
+            CatalogDocument cached = local.getIfPresent(id);
+            if (cached != null && !cached.isTombstone()) {
+                documents.put(id, cached.movie());
+                localHits.increment();
+            } else {
+                remote.add(id);
+            }
+        }
+        if (!remote.isEmpty()) {
+            Map<UUID, Long> stale = loadRemote(remote, documents);
+            if (!stale.isEmpty()) {
+                Map<UUID, CatalogDocument> rebuilt = build(stale);
+                rebuilt.forEach((id, document) -> documents.put(id, document.movie()));
+                misses.increment(stale.size());
+                try {
+                    store(rebuilt);
+                } catch (DataAccessException e) {
+                    log.warn("Failed to store catalog documents: {}", e.getMessage());
+                }
+            }
+        }
+        sample.stop(reads);
+        return documents;
+    }
+
+    /**
+     * Reads documents and their version counters in one {@code MGET}. A
+     * version counter that does not parse is deleted, so its movie is rebuilt
+     * as version 0 and the next {@link #refresh} can count from there again.
+     *
+     * @return movies whose Redis document is missing or outdated, with the
+     * current version to stamp the rebuilt document with
+     */
+    private Map<UUID, Long> loadRemote(List<UUID> ids, Map<UUID, MovieInfoResponse> documents) {
+        Map<UUID, Long> stale = new HashMap<>();
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        ids.forEach(id -> {
+            keys.add(versionKey(id));
+            keys.add(documentKey(id));
+        });
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+        } catch (DataAccessException e) {
+            log.warn("Catalog cache unavailable, reading from database: {}", e.getMessage());
+            values = null;
+        }
+        List<String> corrupt = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = ids.get(i);
+            String rawVersion = values != null ? values.get(2 * i) : null;
+            Long version = parseVersion(id, rawVersion);
+            if (version == null) {
+                corrupt.add(versionKey(id));
+                stale.put(id, 0L);
+                continue;
+            }
+            CatalogDocument document = values != null ? parse(id, values.get(2 * i + 1)) : null;
+            if (document != null && document.version() == version) {
+                documents.put(id, document.movie());
+                putLocal(id, document);
+                remoteHits.increment();
+            } else {
+                stale.put(id, version);
+            }
+        }
+        if (!corrupt.isEmpty()) {
+            try {
+                redisTemplate.delete(corrupt);
+            } catch (DataAccessException e) {
+                log.warn("Failed to reset catalog versions {}: {}", corrupt, e.getMessage());
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Builds the documents of existing movies with a single query.
+     */
+    private Map<UUID, CatalogDocument> build(Map<UUID, Long> versions) {
+        Map<UUID, CatalogDocument> documents = new HashMap<>();
+        movieDetailRepository.findAllById(versions.keySet()).forEach(movie -> {
+            CatalogDocument document = new CatalogDocument(versions.get(movie.id()), movie);
+            documents.put(movie.id(), document);
+            putLocal(movie.id(), document);
+        });
+        return documents;
+    }
+
+    private void store(Map<UUID, CatalogDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        Map<String, String> serialized = new HashMap<>();
+        documents.forEach((id, document) -> {
+            try {
+                serialized.put(documentKey(id), objectMapper.writeValueAsString(document));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize catalog document {}: {}", id, e.getMessage());
+            }
+        });
+        long ttl = remoteTtl.toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            serialized.forEach((key, value) -> stringConnection.setEx(key, ttl, value));
+            return null;
+        });
+    }
+
+    private CatalogDocument parse(UUID id, String raw) {
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(raw, CatalogDocument.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable catalog document {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the version counter's value, 0 if it is missing, or {@code null}
+     * if it is not a number
+     */
+    private Long parseVersion(UUID id, String raw) {
+        if (raw == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException e) {
+            log.warn("Discarding unreadable catalog version {} of movie {}", raw, id);
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the newer of the cached and the given document, so a document
+     * built before an invalidation cannot replace its tombstone.
+     */
+    private void putLocal(UUID id, CatalogDocument document) {
+        local.asMap().compute(id, (key, current) -> current == null || current.version() <= document.version()
+                ? document
+                : current);
+    }
+
+    private void invalidateLocal(UUID id, long version) {
+        local.asMap().compute(id, (key, current) -> current != null && current.version() >= version
+                ? current
+                : CatalogDocument.tombstone(version));
+    }
+
+    private static String documentKey(UUID movieId) {
+        return KEY_PREFIX + movieId;
+    }
+
+    private static String versionKey(UUID movieId) {
+        return KEY_PREFIX + movieId + VERSION_SUFFIX;
+    }
+}
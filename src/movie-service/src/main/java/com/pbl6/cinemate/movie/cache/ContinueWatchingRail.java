@@ -0,0 +1,164 @@
+package com.pbl6.cinemate.movie.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A customer's most recently watched movies, for the "continue watching"
+ * rail.
+ * <p>
+ * Each rail is a sorted set of movie ids scored by when they were last
+ * watched ({@code watch:continue:{customerId}}) plus a hash of their progress
+ * ({@code watch:continue:{customerId}:progress}), trimmed to
+ * {@code watch-progress.rail-size} movies. The hash also holds a marker field,
+ * so it exists exactly while the rail is loaded: progress reports only update
+ * loaded rails, and a rail that expired or was never built is rebuilt from
+ * history on its next read. Both keys share a hash tag, so scripts touching
+ * them run on one node of a cluster.
+ */
+@Slf4j
+@Service
+public class ContinueWatchingRail {
+
+    private static final String KEY_PREFIX = "watch:continue:";
+    private static final String PROGRESS_SUFFIX = ":progress";
+    private static final String LOADED_FIELD = "loaded";
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> continueWatchingRecordScript;
+    private final int size;
+    private final Duration ttl;
+
+    public ContinueWatchingRail(StringRedisTemplate redisTemplate, RedisScript<Long> continueWatchingRecordScript,
+            @Value("${watch-progress.rail-size}") int size,
+            @Value("${watch-progress.rail-ttl}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.continueWatchingRecordScript = continueWatchingRecordScript;
+        this.size = size;
+        this.ttl = ttl;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void record(UUID customerId, Entry entry) {
+        redisTemplate.execute(continueWatchingRecordScript,
+                List.of(recencyKey(customerId), progressKey(customerId)),
+                entry.movieId().toString(),
+                Long.toString(entry.watchedAt().toEpochMilli()),
+                entry.progress(),
+                Integer.toString(size),
+                Long.toString(ttl.toSeconds()));
+    }
+
+    /**
+     * @return up to {@code limit} entries, most recently watched first, or
+     * empty if the rail is not loaded
+     */
+    public Optional<List<Entry>> find(UUID customerId, int limit) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zRevRangeWithScores(recencyKey(customerId), 0, limit - 1L);
+            stringConnection.hGetAll(progressKey(customerId));
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        Map<String, String> progress = (Map<String, String>) results.get(1);
+        if (progress == null || progress.isEmpty()) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        Set<TypedTuple<String>> recent = (Set<TypedTuple<String>>) results.get(0);
+        List<Entry> entries = new ArrayList<>(recent.size());
+        for (TypedTuple<String> member : recent) {
+            String value = progress.get(member.getValue());
+            if (value != null) {
+                entries.add(Entry.parse(member.getValue(), member.getScore().longValue(), value));
+            }
+        }
+        return Optional.of(entries);
+    }
+
+    /**
+     * Replaces the rail with {@code entries}, keeping the {@link #size()}
+     * most recent.
+     */
+    public void load(UUID customerId, Collection<Entry> entries) {
+        Map<String, String> progress = new HashMap<>();
+        progress.put(LOADED_FIELD, "");
+        List<Entry> kept = entries.stream()
+                .sorted((a, b) -> b.watchedAt().compareTo(a.watchedAt()))
+                .limit(size)
+                .toList();
+        kept.forEach(entry -> progress.put(entry.movieId().toString(), entry.progress()));
+        String recencyKey = recencyKey(customerId);
+        String progressKey = progressKey(customerId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.del(recencyKey, progressKey);
+            kept.forEach(entry -> stringConnection.zAdd(recencyKey, entry.watchedAt().toEpochMilli(),
+                    entry.movieId().toString()));
+            stringConnection.hMSet(progressKey, progress);
+            stringConnection.expire(recencyKey, ttl.toSeconds());
+            stringConnection.expire(progressKey, ttl.toSeconds());
+            return null;
+        });
+        log.debug("Loaded continue-watching rail of customer {} with {} movies", customerId, kept.size());
+    }
+
+    public void remove(UUID customerId, UUID movieId) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zRem(recencyKey(customerId), movieId.toString());
+            stringConnection.hDel(progressKey(customerId), movieId.toString());
+            return null;
+        });
+    }
+
+    private static String recencyKey(UUID customerId) {
+        return KEY_PREFIX + "{" + customerId + "}";
+    }
+
+    private static String progressKey(UUID customerId) {
+        return recencyKey(customerId) + PROGRESS_SUFFIX;
+    }
+
+    /**
+     * A movie on the rail and how far the customer got.
+     */
+    public record Entry(UUID movieId, long lastWatchedPosition, long totalDuration, Instant watchedAt) {
+
+        static Entry parse(String movieId, long watchedAt, String progress) {
+            int separator = progress.indexOf(':');
+            return new Entry(UUID.fromString(movieId),
+                    Long.parseLong(progress.substring(0, separator)),
+                    Long.parseLong(progress.substring(separator + 1)),
+                    Instant.ofEpochMilli(watchedAt));
+        }
+
+        String progress() {
+            return lastWatchedPosition + ":" + totalDuration;
+        }
+
+        public double progressPercent() {
+            return totalDuration > 0 ? (double) lastWatchedPosition / totalDuration * 100 : 0.0;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.pbl6.cinemate.movie.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Write-behind buffer for watch-progress heartbeats.
+ * <p>
+ * Players report progress every few seconds; each report only overwrites the
+ * viewer's field in one Redis hash ({@value #PENDING_KEY}, field
+ * {@code customerId:movieId}), so the latest report wins and every instance
+ * reads it back. The flush job upserts the pending fields into
+ * {@code watch_history} in batches and then removes each field only if it
+ * still holds the flushed value, so a report arriving mid-flush is kept for
+ * the next one.
+ * <p>
+ * Deleting a viewer's history leaves a tombstone
+ * ({@code watch:progress:deleted:customerId:movieId}, holding the deletion
+ * time) for one flush lease, so a flush that read the progress before the
+ * deletion does not write it back.
+ */
+@Slf4j
+@Service
+public class WatchProgressBuffer {
+
+    public static final String PENDING_KEY = "watch:progress:pending";
+    private static final String TOMBSTONE_PREFIX = "watch:progress:deleted:";
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> hashCompareAndDeleteScript;
+    private final Duration tombstoneTtl;
+    private final Counter reports;
+
+    public WatchProgressBuffer(StringRedisTemplate redisTemplate, RedisScript<Long> hashCompareAndDeleteScript,
+            MeterRegistry meterRegistry, @Value("${watch-progress.flush-lease}") Duration tombstoneTtl) {
+        this.redisTemplate = redisTemplate;
+        this.hashCompareAndDeleteScript = hashCompareAndDeleteScript;
+        this.tombstoneTtl = tombstoneTtl;
+        this.reports = meterRegistry.counter("watch.progress.reports");
+    }
+
+    public void put(BufferedWatchProgress progress) {
+        redisTemplate.opsForHash().put(PENDING_KEY, progress.field(), progress.value());
+        reports.increment();
+    }
+
+    /**
+     * @return the progress reported since the last flush, if any
+     */
+    public Optional<BufferedWatchProgress> find(UUID customerId, UUID movieId) {
+        String field = BufferedWatchProgress.field(customerId, movieId);
+        Object value = redisTemplate.opsForHash().get(PENDING_KEY, field);
+        return Optional.ofNullable(value).map(pending -> BufferedWatchProgress.parse(field, pending.toString()));
+    }
+
+    /**
+     * Scans the whole buffer, so only for cold paths.
+     *
+     * @return every progress the customer reported since the last flush
+     */
+    public List<BufferedWatchProgress> findByCustomer(UUID customerId) {
+        List<BufferedWatchProgress> pending = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(customerId + ":*").count(1000).build();
+        try (Cursor<Map.Entry<Object, Object>> entries = redisTemplate.opsForHash().scan(PENDING_KEY, options)) {
+            entries.forEachRemaining(entry -> pending.add(
+                    BufferedWatchProgress.parse(entry.getKey().toString(), entry.getValue().toString())));
+        }
+        return pending;
+    }
+
+    /**
+     * Drops the progress of a history entry about to be deleted. Call before
+     * deleting the row: a flush that writes the row back afterwards finds the
+     * tombstone when it checks again.
+     */
+    public void discard(UUID customerId, UUID movieId) {
+        String field = BufferedWatchProgress.field(customerId, movieId);
+        redisTemplate.opsForValue().set(TOMBSTONE_PREFIX + field,
+                Long.toString(Instant.now().toEpochMilli()), tombstoneTtl);
+        redisTemplate.opsForHash().delete(PENDING_KEY, field);
+    }
+
+    /**
+     * @return the entries of {@code progress} reported before their history
+     * was deleted
+     */
+    public Set<BufferedWatchProgress> deleted(List<BufferedWatchProgress> progress) {
+        if (progress.isEmpty()) {
+            return Set.of();
+        }
+        List<String> keys = progress.stream().map(entry -> TOMBSTONE_PREFIX + entry.field()).toList();
+        List<String> tombstones = redisTemplate.opsForValue().multiGet(keys);
+        Set<BufferedWatchProgress> deleted = new HashSet<>();
+        for (int i = 0; i < progress.size(); i++) {
+            String deletedAt = tombstones != null ? tombstones.get(i) : null;
+            if (deletedAt != null && progress.get(i).updatedAt().toEpochMilli() <= Long.parseLong(deletedAt)) {
+                deleted.add(progress.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    public List<BufferedWatchProgress> pending() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(PENDING_KEY);
+        List<BufferedWatchProgress> pending = new ArrayList<>(entries.size());
+        entries.forEach((field, value) -> {
+            try {
+                pending.add(BufferedWatchProgress.parse(field.toString(), value.toString()));
+            } catch (RuntimeException e) {
+                log.warn("Dropping malformed watch progress {}={}", field, value);
+                redisTemplate.opsForHash().delete(PENDING_KEY, field);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Removes flushed progress, except where a newer report replaced it.
+     */
+    public void acknowledge(Collection<BufferedWatchProgress> flushed) {
+        List<String> args = new ArrayList<>(flushed.size() * 2);
+        for (BufferedWatchProgress progress : flushed) {
+            args.add(progress.field());
+            args.add(progress.value());
+        }
+        redisTemplate.execute(hashCompareAndDeleteScript, List.of(PENDING_KEY), args.toArray());
+    }
+}
@@ -0,0 +1,43 @@
+package com.pbl6.cinemate.movie.client;
+
+import com.pbl6.cinemate.movie.cache.BufferedWatchProgress;
+import com.pbl6.cinemate.movie.client.dto.WatchEventRequest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Forwards flushed watch progress to the interaction recommender off the
+ * flush thread, one event per viewer and movie per flush instead of one per
+ * heartbeat.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WatchEventPublisher {
+
+    private final InteractionRecommenderClient interactionClient;
+
+    @Async
+    public void publish(List<BufferedWatchProgress> flushed) {
+        for (BufferedWatchProgress progress : flushed) {
+            // Best-effort: the recommender only learns from these
+            try {
+                interactionClient.trackWatchEvent(WatchEventRequest.create(
+                        progress.customerId(),
+                        progress.movieId(),
+                        (int) progress.totalDuration(),
+                        null,
+                        null,
+                        null,
+                        progress.progressPercent()));
+            } catch (Exception e) {
+                log.debug("Failed to send watch event: {}", e.getMessage());
+            }
+        }
+    }
+}
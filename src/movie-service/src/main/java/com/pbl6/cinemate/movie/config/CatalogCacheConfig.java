@@ -0,0 +1,31 @@
+package com.pbl6.cinemate.movie.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
+import com.pbl6.cinemate.movie.search.SuggestionIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@Configuration
+public class CatalogCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer catalogInvalidationListener(RedisConnectionFactory connectionFactory,
+            CatalogReadModel catalogReadModel, SuggestionIndex suggestionIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            UUID movieId = catalogReadModel.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8));
+            if (movieId != null) {
+                suggestionIndex.markStale(movieId);
+            }
+        }, new ChannelTopic(CatalogReadModel.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pbl6.cinemate.movie.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Server-side Lua scripts used to keep multi-field Redis updates atomic and
+ * within a single round-trip.
+ */
+@Configuration
+public class RedisScriptConfig {
+
+    @Bean
+    public RedisScript<Long> hashCompareAndDeleteScript() {
+        return RedisScript.of(new ClassPathResource("scripts/hash-compare-and-delete.lua"), Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> compareAndDeleteScript() {
+        return RedisScript.of(new ClassPathResource("scripts/compare-and-delete.lua"), Long.class);
+    }
+
+    @Bean
+    public RedisScript<Long> continueWatchingRecordScript() {
+        return RedisScript.of(new ClassPathResource("scripts/continue-watching-record.lua"), Long.class);
+    }
+}
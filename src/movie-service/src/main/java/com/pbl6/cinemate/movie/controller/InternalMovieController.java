@@ -2,8 +2,10 @@ package com.pbl6.cinemate.movie.controller;
 
 import com.pbl6.cinemate.movie.entity.Category;
 import com.pbl6.cinemate.movie.entity.MovieCategory;
+import com.pbl6.cinemate.movie.enums.TrendingSignal;
 import com.pbl6.cinemate.movie.repository.CategoryRepository;
 import com.pbl6.cinemate.movie.repository.MovieCategoryRepository;
+import com.pbl6.cinemate.movie.trending.TrendingIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +27,7 @@ public class InternalMovieController {
 
     private final MovieCategoryRepository movieCategoryRepository;
     private final CategoryRepository categoryRepository;
+    private final TrendingIndex trendingIndex;
 
     /**
      * Get all category IDs for a specific movie (for content access check)
@@ -65,4 +68,14 @@ public class InternalMovieController {
         log.info("Found {} category names", categoryNamesMap.size());
         return categoryNamesMap;
     }
+
+    /**
+     * Count a new favorite towards trending (called by customer-service)
+     *
+     * @param movieId The favorited movie ID
+     */
+    @PostMapping("/movies/{movieId}/favorites")
+    public void recordFavorite(@PathVariable UUID movieId) {
+        trendingIndex.record(movieId, TrendingSignal.FAVORITE);
+    }
 }
@@ -8,8 +8,11 @@ import com.pbl6.cinemate.movie.service.MovieDirectorService;
 import com.pbl6.cinemate.movie.service.MovieService;
 import com.pbl6.cinemate.movie.service.ReviewService;
 import com.pbl6.cinemate.movie.client.InteractionRecommenderClient;
+import com.pbl6.cinemate.movie.search.SuggestionIndex;
+import com.pbl6.cinemate.movie.trending.TrendingIndex;
 import com.pbl6.cinemate.movie.client.dto.SearchEventRequest;
 import com.pbl6.cinemate.movie.service.impl.ReviewServiceImpl;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 import com.pbl6.cinemate.shared.dto.general.ResponseData;
 import com.pbl6.cinemate.shared.security.CurrentUser;
@@ -41,17 +44,22 @@ public class MovieController {
         private final ReviewService reviewService;
         private final CustomerServiceClient customerServiceClient;
         private final InteractionRecommenderClient interactionClient;
+        private final SuggestionIndex suggestionIndex;
+        private final TrendingIndex trendingIndex;
 
         public MovieController(MovieService movieService, MovieActorService movieActorService,
                         MovieDirectorService movieDirectorService, ReviewServiceImpl reviewService,
                         CustomerServiceClient customerServiceClient,
-                        InteractionRecommenderClient interactionClient) {
+                        InteractionRecommenderClient interactionClient, SuggestionIndex suggestionIndex,
+                        TrendingIndex trendingIndex) {
                 this.movieService = movieService;
                 this.movieActorService = movieActorService;
                 this.movieDirectorService = movieDirectorService;
                 this.reviewService = reviewService;
                 this.customerServiceClient = customerServiceClient;
                 this.interactionClient = interactionClient;
+                this.suggestionIndex = suggestionIndex;
+                this.trendingIndex = trendingIndex;
         }
 
         @Operation(summary = "Get movie status", description = "Get the processing status and available qualities of a movie")
@@ -254,12 +262,25 @@ public class MovieController {
                                 httpServletRequest.getMethod()));
         }
 
-        @Operation(summary = "Get reviews for movie", description = "Retrieve all reviews for a specific movie")
+        @Operation(summary = "Get reviews for movie", description = "Retrieve reviews for a specific movie, newest first. With size or cursor the reviews are returned one keyset page at a time: pass meta.next_cursor back as cursor to get the next page. Without them all reviews are returned.")
         @GetMapping("/{movieId}/reviews")
         public ResponseEntity<ResponseData> getReviewsForMovie(
                         @Parameter(description = "Movie ID") @PathVariable UUID movieId,
+                        @Parameter(description = "Cursor from the previous page") @RequestParam(name = "cursor", required = false) String cursor,
+                        @Parameter(description = "Page size (1-100)") @RequestParam(name = "size", required = false) Integer size,
+                        @Parameter(description = "Also count all reviews of the movie") @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
                         HttpServletRequest httpServletRequest) {
 
+                if (cursor != null || size != null) {
+                        CursorPage<ReviewResponse> page = reviewService.getReviewsByMovieId(movieId, cursor,
+                                        size != null ? size : 10, includeTotal);
+                        return ResponseEntity.ok(ResponseData.successWithCursor(
+                                        page,
+                                        "Movie reviews retrieved successfully",
+                                        httpServletRequest.getRequestURI(),
+                                        httpServletRequest.getMethod()));
+                }
+
                 List<ReviewResponse> response = reviewService.getReviewsByMovieId(movieId);
 
                 return ResponseEntity.ok(ResponseData.success(
@@ -403,7 +424,7 @@ public class MovieController {
                                 httpServletRequest.getMethod()));
         }
 
-        @Operation(summary = "Get or search movies with pagination and sorting", description = "Retrieve a paginated and sorted list of movies. Optionally provide a keyword to search across title, description, country, actors, and categories. Admin users can see all movies including DRAFT and PRIVATE status.")
+        @Operation(summary = "Get or search movies with pagination and sorting", description = "Retrieve a paginated and sorted list of movies. Optionally provide a keyword to search across title, description, country, actors, directors and categories; matching ignores accents, tolerates typos and orders results by relevance instead of sortBy. Admin users can see all movies including DRAFT and PRIVATE status.")
         @GetMapping
         public ResponseEntity<ResponseData> getMovies(
                         @Parameter(description = "Optional search keyword") @RequestParam(name = "keyword", required = false) String keyword,
@@ -424,6 +445,9 @@ public class MovieController {
 
                 // Track search event if keyword provided (best-effort)
                 if (keyword != null && !keyword.isBlank()) {
+                        if (page == 1 && data.getContent() != null) {
+                                trendingIndex.recordSearch(data.getContent().stream().map(MovieResponse::id).toList());
+                        }
                         try {
                                 UUID userId = userPrincipal != null ? userPrincipal.getId() : null;
                                 // only send events for authenticated users to satisfy recommender schema
@@ -455,6 +479,57 @@ public class MovieController {
                                 httpServletRequest.getMethod()));
         }
 
+        @Operation(summary = "Scroll movies with a cursor", description = "Retrieve movies one keyset page at a time, sorted by title or createdAt. Pass meta.next_cursor back as cursor to get the next page; every page costs the same however deep it is. The total is only counted when includeTotal is set. Admin users can see all movies including DRAFT and PRIVATE status.")
+        @GetMapping("/scroll")
+        public ResponseEntity<ResponseData> scrollMovies(
+                        @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(name = "cursor", required = false) String cursor,
+                        @Parameter(description = "Page size (1-100)") @RequestParam(name = "size", defaultValue = "10") int size,
+                        @Parameter(description = "title or createdAt") @RequestParam(name = "sortBy", defaultValue = "title") String sortBy,
+                        @RequestParam(name = "sortDirection", defaultValue = "asc") @NonNull String sortDirection,
+                        @Parameter(description = "Also count all matching movies") @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
+                        @CurrentUser UserPrincipal userPrincipal,
+                        HttpServletRequest httpServletRequest) {
+
+                String userRole = (userPrincipal != null && userPrincipal.getRole() != null
+                                && userPrincipal.getRole().equalsIgnoreCase("ROLE_ADMIN")) ? "ADMIN" : "USER";
+
+                CursorPage<MovieResponse> data = movieService.scrollMovies(cursor, size, sortBy, sortDirection,
+                                userRole, includeTotal);
+
+                return ResponseEntity.ok(ResponseData.successWithCursor(
+                                data,
+                                "Movies retrieved successfully",
+                                httpServletRequest.getRequestURI(),
+                                httpServletRequest.getMethod()));
+        }
+
+        @Operation(summary = "Suggest as the user types", description = "Autocomplete over public movie titles, actor and director names and categories. Matches the start of any word, ignoring case and accents, best-ranked first. Served from memory; use the search endpoint for full results.")
+        @GetMapping("/suggestions")
+        public ResponseEntity<ResponseData> getSuggestions(
+                        @Parameter(description = "What the user has typed so far") @RequestParam(name = "q") String query,
+                        @Parameter(description = "Maximum number of suggestions (1-20)") @RequestParam(name = "limit", defaultValue = "10") int limit,
+                        HttpServletRequest httpServletRequest) {
+                List<SuggestionResponse> response = suggestionIndex.suggest(query, limit);
+                return ResponseEntity.ok(ResponseData.success(
+                                response,
+                                "Suggestions retrieved successfully",
+                                httpServletRequest.getRequestURI(),
+                                httpServletRequest.getMethod()));
+        }
+
+        @Operation(summary = "Get trending movies", description = "Retrieve the public movies people are watching, searching for and adding to favorites right now, most active first. Recent activity counts most: its weight halves every trending.half-life. Served from memory.")
+        @GetMapping("/trending")
+        public ResponseEntity<ResponseData> getTrendingMovies(
+                        @Parameter(description = "Maximum number of movies (1-50)") @RequestParam(name = "limit", defaultValue = "20") int limit,
+                        HttpServletRequest httpServletRequest) {
+                List<MovieResponse> response = trendingIndex.trending(limit);
+                return ResponseEntity.ok(ResponseData.success(
+                                response,
+                                "Trending movies retrieved successfully",
+                                httpServletRequest.getRequestURI(),
+                                httpServletRequest.getMethod()));
+        }
+
         @Operation(summary = "Get top ten movies", description = "Retrieve the top 10 movies ranked by their average review stars")
         @GetMapping("/top-ten")
         public ResponseEntity<ResponseData> getTopTenMovies(HttpServletRequest httpServletRequest) {
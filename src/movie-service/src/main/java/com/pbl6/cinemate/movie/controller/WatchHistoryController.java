@@ -4,6 +4,7 @@ import com.pbl6.cinemate.movie.dto.request.WatchProgressRequest;
 import com.pbl6.cinemate.movie.dto.response.WatchHistoryDateResponse;
 import com.pbl6.cinemate.movie.dto.response.WatchHistoryResponse;
 import com.pbl6.cinemate.movie.service.WatchHistoryService;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 import com.pbl6.cinemate.shared.dto.general.ResponseData;
 import com.pbl6.cinemate.shared.security.CurrentUser;
@@ -20,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -84,6 +86,42 @@ public class WatchHistoryController {
                                 httpServletRequest.getMethod()));
         }
 
+        @Operation(summary = "Get recent watch history", description = "Get movies the user watched, most recent first, one keyset page at a time. Pass meta.next_cursor back as cursor to get the next page.")
+        @GetMapping("/watch-history/recent")
+        public ResponseEntity<ResponseData> getRecentWatchHistory(
+                        @CurrentUser UserPrincipal userPrincipal,
+                        @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+                        @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "10") int size,
+                        @Parameter(description = "Also count all watched movies") @RequestParam(defaultValue = "false") boolean includeTotal,
+                        HttpServletRequest httpServletRequest) {
+
+                CursorPage<WatchHistoryResponse> response = watchHistoryService.getRecentWatchHistory(
+                                userPrincipal.getId(), cursor, size, includeTotal);
+
+                return ResponseEntity.ok(ResponseData.successWithCursor(
+                                response,
+                                "Watch history retrieved successfully",
+                                httpServletRequest.getRequestURI(),
+                                httpServletRequest.getMethod()));
+        }
+
+        @Operation(summary = "Get continue watching", description = "Get the movies the user watched most recently with their progress, for the continue-watching rail")
+        @GetMapping("/watch-history/continue")
+        public ResponseEntity<ResponseData> getContinueWatching(
+                        @CurrentUser UserPrincipal userPrincipal,
+                        @Parameter(description = "Maximum number of movies") @RequestParam(defaultValue = "20") int limit,
+                        HttpServletRequest httpServletRequest) {
+
+                List<WatchHistoryResponse> response = watchHistoryService.getContinueWatching(
+                                userPrincipal.getId(), limit);
+
+                return ResponseEntity.ok(ResponseData.success(
+                                response,
+                                "Continue watching retrieved successfully",
+                                httpServletRequest.getRequestURI(),
+                                httpServletRequest.getMethod()));
+        }
+
         @Operation(summary = "Delete watch history", description = "Delete watch history for a specific movie")
         @DeleteMapping("/{movieId}/watch-progress")
         public ResponseEntity<ResponseData> deleteWatchHistory(
@@ -0,0 +1,11 @@
+package com.pbl6.cinemate.movie.dto.response;
+
+import com.pbl6.cinemate.movie.enums.SuggestionType;
+
+import java.util.UUID;
+
+public record SuggestionResponse(
+        SuggestionType type,
+        UUID id,
+        String text) {
+}
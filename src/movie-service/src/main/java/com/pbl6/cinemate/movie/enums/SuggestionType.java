@@ -0,0 +1,8 @@
+package com.pbl6.cinemate.movie.enums;
+
+public enum SuggestionType {
+    MOVIE,
+    ACTOR,
+    DIRECTOR,
+    CATEGORY
+}
@@ -0,0 +1,7 @@
+package com.pbl6.cinemate.movie.enums;
+
+public enum TrendingSignal {
+    WATCH,
+    SEARCH,
+    FAVORITE
+}
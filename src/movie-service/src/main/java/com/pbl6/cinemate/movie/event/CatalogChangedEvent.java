@@ -0,0 +1,29 @@
+package com.pbl6.cinemate.movie.event;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published when data shown in the catalog documents of some movies
+ * changed, so their cached read model is rebuilt once the change is committed
+ */
+public class CatalogChangedEvent extends ApplicationEvent {
+
+    private final Set<UUID> movieIds;
+
+    public CatalogChangedEvent(Object source, Collection<UUID> movieIds) {
+        super(source);
+        this.movieIds = Set.copyOf(movieIds);
+    }
+
+    public CatalogChangedEvent(Object source, UUID movieId) {
+        this(source, Set.of(movieId));
+    }
+
+    public Set<UUID> getMovieIds() {
+        return movieIds;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pbl6.cinemate.movie.event;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
+import com.pbl6.cinemate.movie.search.SuggestionIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Event listener keeping the catalog read model in step with committed changes
+ */
+@Slf4j
+@Component
+public class CatalogEventListener {
+
+    private final CatalogReadModel catalogReadModel;
+    private final SuggestionIndex suggestionIndex;
+    private final int rerankBatchSize;
+
+    public CatalogEventListener(CatalogReadModel catalogReadModel, SuggestionIndex suggestionIndex,
+            @Value("${catalog.ranking.refresh-batch-size}") int rerankBatchSize) {
+        this.catalogReadModel = catalogReadModel;
+        this.suggestionIndex = suggestionIndex;
+        this.rerankBatchSize = rerankBatchSize;
+    }
+
+    /**
+     * Rebuild the documents once the change is committed, so the rebuild cannot
+     * read the data as it was before. Runs on the writer's thread: the next
+     * read by the same client sees the change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCatalogChanged(CatalogChangedEvent event) {
+        event.getMovieIds().forEach(suggestionIndex::markStale);
+        try {
+            catalogReadModel.refresh(event.getMovieIds());
+        } catch (Exception e) {
+            log.error("Failed to refresh catalog documents for movies: {}", event.getMovieIds(), e);
+        }
+    }
+
+    /**
+     * Rebuild reranked documents off the ranking job's thread, a bounded batch
+     * at a time, so a rerank of the whole catalog never turns into one huge
+     * refresh. Until its batch is rebuilt a document shows its previous rank.
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCatalogReranked(CatalogRerankedEvent event) {
+        List<UUID> movieIds = event.getMovieIds();
+        for (int from = 0; from < movieIds.size(); from += rerankBatchSize) {
+            List<UUID> batch = movieIds.subList(from, Math.min(movieIds.size(), from + rerankBatchSize));
+            batch.forEach(suggestionIndex::markStale);
+            try {
+                catalogReadModel.refresh(batch);
+            } catch (Exception e) {
+                log.error("Failed to refresh catalog documents for reranked movies: {}", batch, e);
+            }
+        }
+        log.debug("Refreshed catalog documents of {} reranked movies", movieIds.size());
+    }
+}
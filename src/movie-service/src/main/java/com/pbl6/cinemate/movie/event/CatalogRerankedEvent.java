@@ -0,0 +1,26 @@
+package com.pbl6.cinemate.movie.event;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published when the ranking job changed the rank of some movies. It can
+ * cover most of the catalog, so unlike {@link CatalogChangedEvent} their
+ * documents are rebuilt in the background
+ */
+public class CatalogRerankedEvent extends ApplicationEvent {
+
+    private final List<UUID> movieIds;
+
+    public CatalogRerankedEvent(Object source, Collection<UUID> movieIds) {
+        super(source);
+        this.movieIds = List.copyOf(movieIds);
+    }
+
+    public List<UUID> getMovieIds() {
+        return movieIds;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,8 +17,14 @@ public interface MovieActorRepository extends JpaRepository<MovieActor, UUID> {
     @Query("SELECT ma FROM MovieActor ma JOIN FETCH ma.actor WHERE ma.movie.id = :movieId")
     List<MovieActor> findByMovieIdWithActor(@Param("movieId") UUID movieId);
 
+    @Query("SELECT ma FROM MovieActor ma JOIN FETCH ma.actor WHERE ma.movie.id IN :movieIds")
+    List<MovieActor> findByMovieIdInWithActor(@Param("movieIds") Collection<UUID> movieIds);
+
     List<MovieActor> findByMovieId(UUID movieId);
 
+    @Query("SELECT ma.movie.id FROM MovieActor ma WHERE ma.actor.id = :actorId")
+    List<UUID> findMovieIdsByActorId(@Param("actorId") UUID actorId);
+
     @Modifying
     @Query("DELETE FROM MovieActor ma WHERE ma.movie.id = :movieId")
     void deleteByMovieId(@Param("movieId") UUID movieId);
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,10 +16,16 @@ public interface MovieCategoryRepository extends JpaRepository<MovieCategory, UU
     @Query("SELECT mc FROM MovieCategory mc JOIN FETCH mc.category WHERE mc.movie.id = :movieId")
     List<MovieCategory> findByMovieIdWithCategory(@Param("movieId") UUID movieId);
 
+    @Query("SELECT mc FROM MovieCategory mc JOIN FETCH mc.category WHERE mc.movie.id IN :movieIds")
+    List<MovieCategory> findByMovieIdInWithCategory(@Param("movieIds") Collection<UUID> movieIds);
+
     List<MovieCategory> findByMovieId(UUID movieId);
 
     List<MovieCategory> findByCategoryId(UUID categoryId);
 
+    @Query("SELECT mc.movie.id FROM MovieCategory mc WHERE mc.category.id = :categoryId")
+    List<UUID> findMovieIdsByCategoryId(@Param("categoryId") UUID categoryId);
+
     @Modifying
     @Query("DELETE FROM MovieCategory mc WHERE mc.movie.id = :movieId")
     void deleteByMovieId(@Param("movieId") UUID movieId);
@@ -0,0 +1,114 @@
+package com.pbl6.cinemate.movie.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.movie.dto.response.ActorResponse;
+import com.pbl6.cinemate.movie.dto.response.CategoryResponse;
+import com.pbl6.cinemate.movie.dto.response.DirectorResponse;
+import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads movie detail documents straight from SQL, without hydrating entities.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MovieDetailRepository {
+
+    /**
+     * One row per movie, with its categories, actors and directors aggregated
+     * into JSON arrays by correlated subqueries, so any number of movies costs
+     * one round-trip and one consistent snapshot.
+     */
+    private static final String FIND_ALL_BY_ID = """
+            SELECT m.id, m.title, m.description, m.status, m.qualities, m.vertical_poster, m.horizontal_poster,
+                m.release_date, m.trailer_url, m.age, m.year, m.country, m.is_vip, m.rank, m.duration,
+                (SELECT COALESCE(json_agg(json_build_object('id', a.id, 'fullname', a.fullname,
+                        'biography', a.biography, 'avatar', a.avatar, 'dateOfBirth', a.date_of_birth)
+                        ORDER BY a.fullname, a.id), '[]')
+                    FROM movie_actor ma JOIN actor a ON a.id = ma.actor_id
+                    WHERE ma.movie_id = m.id) AS actors,
+                (SELECT COALESCE(json_agg(json_build_object('id', d.id, 'fullname', d.fullname,
+                        'biography', d.biography, 'avatar', d.avatar, 'dateOfBirth', d.date_of_birth)
+                        ORDER BY d.fullname, d.id), '[]')
+                    FROM movie_director md JOIN director d ON d.id = md.director_id
+                    WHERE md.movie_id = m.id) AS directors,
+                (SELECT COALESCE(json_agg(json_build_object('id', c.id, 'name', c.name)
+                        ORDER BY c.name), '[]')
+                    FROM movie_categories mc JOIN categories c ON c.id = mc.category_id
+                    WHERE mc.movie_id = m.id) AS categories
+            FROM movies m
+            WHERE m.id = ANY (?)
+            """;
+    private static final TypeReference<List<ActorResponse>> ACTORS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<DirectorResponse>> DIRECTORS = new TypeReference<>() {
+    };
+    private static final TypeReference<List<CategoryResponse>> CATEGORIES = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return detail documents of the movies that exist, in no particular
+     * order and without viewer-specific data
+     */
+    public List<MovieInfoResponse> findAllById(Collection<UUID> movieIds) {
+        if (movieIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_ALL_BY_ID);
+            statement.setArray(1, connection.createArrayOf("uuid", movieIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> mapRow(rs));
+    }
+
+    private MovieInfoResponse mapRow(ResultSet rs) throws SQLException {
+        Array qualities = rs.getArray("qualities");
+        return new MovieInfoResponse(
+                rs.getObject("id", UUID.class),
+                rs.getString("title"),
+                rs.getString("description"),
+                rs.getString("status"),
+                qualities != null ? Arrays.asList((String[]) qualities.getArray()) : List.of(),
+                rs.getString("vertical_poster"),
+                rs.getString("horizontal_poster"),
+                rs.getObject("release_date", LocalDate.class),
+                rs.getString("trailer_url"),
+                rs.getObject("age", Integer.class),
+                rs.getObject("year", Integer.class),
+                rs.getString("country"),
+                rs.getObject("is_vip", Boolean.class),
+                rs.getObject("rank", Integer.class),
+                rs.getObject("duration", Long.class),
+                readJson(rs, "actors", ACTORS),
+                readJson(rs, "directors", DIRECTORS),
+                readJson(rs, "categories", CATEGORIES),
+                null);
+    }
+
+    private <T> T readJson(ResultSet rs, String column, TypeReference<T> type) throws SQLException {
+        try {
+            return objectMapper.readValue(rs.getString(column), type);
+        } catch (JsonProcessingException e) {
+            throw new SQLDataException("Unreadable " + column + " of movie " + rs.getString("id"), e);
+        }
+    }
+}
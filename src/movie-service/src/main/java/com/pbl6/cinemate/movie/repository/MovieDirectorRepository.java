@@ -1,5 +1,6 @@
 package com.pbl6.cinemate.movie.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,10 +18,16 @@ public interface MovieDirectorRepository extends JpaRepository<MovieDirector, UU
     @Query("SELECT md FROM MovieDirector md JOIN FETCH md.director WHERE md.movie.id = :movieId")
     List<MovieDirector> findByMovieIdWithDirector(@Param("movieId") UUID movieId);
 
+    @Query("SELECT md FROM MovieDirector md JOIN FETCH md.director WHERE md.movie.id IN :movieIds")
+    List<MovieDirector> findByMovieIdInWithDirector(@Param("movieIds") Collection<UUID> movieIds);
+
     List<MovieDirector> findByMovieId(UUID movieId);
 
     List<MovieDirector> findByDirectorId(UUID directorId);
 
+    @Query("SELECT md.movie.id FROM MovieDirector md WHERE md.director.id = :directorId")
+    List<UUID> findMovieIdsByDirectorId(@Param("directorId") UUID directorId);
+
     @Modifying
     @Query("DELETE FROM MovieDirector md WHERE md.movie.id = :movieId")
     void deleteByMovieId(@Param("movieId") UUID movieId);
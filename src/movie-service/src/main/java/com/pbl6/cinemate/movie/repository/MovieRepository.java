@@ -6,38 +6,83 @@ import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.enums.MovieStatus;
 
-public interface MovieRepository extends JpaRepository<Movie, UUID> {
+public interface MovieRepository extends JpaRepository<Movie, UUID>, JpaSpecificationExecutor<Movie> {
 
     @Query("SELECT m FROM Movie m WHERE :status IS NULL OR m.status = :status")
     Page<Movie> findAllByStatus(@Param("status") MovieStatus status, Pageable pageable);
 
-    @Query("""
-            SELECT DISTINCT m FROM Movie m
-            LEFT JOIN MovieActor ma ON ma.movie.id = m.id
-            LEFT JOIN Actor a ON a.id = ma.actor.id
-            LEFT JOIN MovieCategory mc ON mc.movie.id = m.id
-            LEFT JOIN Category c ON c.id = mc.category.id
-            WHERE (:status IS NULL OR m.status = :status)
-                AND (LOWER(m.title) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                OR LOWER(m.description) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                OR LOWER(m.country) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                OR LOWER(a.fullname) LIKE LOWER(CONCAT('%', :keyword, '%'))
-                OR LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%')))
-            """)
-    Page<Movie> searchMoviesByKeyword(@Param("keyword") String keyword, @Param("status") MovieStatus status,
-                                      Pageable pageable);
+    /**
+     * Searches the per-movie search documents maintained by the database (see
+     * {@code V4__create_movie_search.sql}), accent- and case-insensitively.
+     * Matches whole words and word prefixes through the full-text index, and
+     * misspelled titles and names through the trigram index; results are
+     * ordered by relevance (title over people over categories over
+     * description), so the pageable must be unsorted.
+     *
+     * @param terms   {@code to_tsquery} text built from the keyword, e.g.
+     *                {@code dat & rung:*}
+     * @param keyword the keyword as typed, for trigram similarity
+     * @param status  status name, or {@code null} for every status
+     */
+    @Query(value = """
+            SELECT m.* FROM movie_search s
+            JOIN movies m ON m.id = s.movie_id
+            WHERE (CAST(:status AS TEXT) IS NULL OR m.status = CAST(:status AS TEXT))
+                AND (s.document @@ to_tsquery('simple', search_normalize(:terms))
+                OR search_normalize(:keyword) <% s.names)
+            ORDER BY ts_rank_cd(s.document, to_tsquery('simple', search_normalize(:terms)))
+                    + word_similarity(search_normalize(:keyword), s.names) DESC,
+                m.rank ASC NULLS LAST, m.id
+            """, countQuery = """
+            SELECT COUNT(*) FROM movie_search s
+            JOIN movies m ON m.id = s.movie_id
+            WHERE (CAST(:status AS TEXT) IS NULL OR m.status = CAST(:status AS TEXT))
+                AND (s.document @@ to_tsquery('simple', search_normalize(:terms))
+                OR search_normalize(:keyword) <% s.names)
+            """, nativeQuery = true)
+    Page<Movie> searchMovies(@Param("terms") String terms, @Param("keyword") String keyword,
+                             @Param("status") String status, Pageable pageable);
 
     @Query("SELECT m FROM Movie m ORDER BY m.rank ASC NULLS LAST")
     List<Movie> findTop10ByOrderByRankAsc(Pageable pageable);
     
     List<Movie> findByStatus(MovieStatus status);
+
+    long countByStatus(MovieStatus status);
+
+    @Query("SELECT m.id FROM Movie m WHERE m.status = :status")
+    List<UUID> findIdsByStatus(@Param("status") MovieStatus status);
     
+    /**
+     * Ranks every public movie by the average of its review stars (from the
+     * {@code movie_rating} aggregates, see {@code V6__create_movie_rating.sql}),
+     * best first, ties broken by title, in one statement. Only rows whose rank
+     * changes are written.
+     *
+     * @return ids of the movies whose rank changed
+     */
+    @Query(value = """
+            UPDATE movies m SET rank = ranked.position
+            FROM (
+                SELECT mv.id, ROW_NUMBER() OVER (
+                    ORDER BY COALESCE(CAST(r.rating_sum AS DOUBLE PRECISION) / NULLIF(r.rating_count, 0), 0) DESC,
+                        lower(mv.title), mv.id) AS position
+                FROM movies mv
+                LEFT JOIN movie_rating r ON r.movie_id = mv.id
+                WHERE mv.status = 'PUBLIC'
+            ) ranked
+            WHERE m.id = ranked.id AND m.rank IS DISTINCT FROM ranked.position
+            RETURNING m.id
+            """, nativeQuery = true)
+    List<UUID> updatePublicMovieRanks();
+
     @Query("SELECT m FROM Movie m WHERE m.status = :status AND m.rank IS NOT NULL ORDER BY m.rank ASC")
     List<Movie> findTop10ByStatusOrderByRankAsc(@Param("status") MovieStatus status, Pageable pageable);
 }
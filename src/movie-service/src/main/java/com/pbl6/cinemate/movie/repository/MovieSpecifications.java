@@ -0,0 +1,52 @@
+package com.pbl6.cinemate.movie.repository;
+
+import com.pbl6.cinemate.movie.entity.Movie;
+import com.pbl6.cinemate.movie.enums.MovieStatus;
+import com.pbl6.cinemate.shared.dto.general.Cursor;
+
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.UUID;
+
+public final class MovieSpecifications {
+
+    private MovieSpecifications() {
+    }
+
+    public static Specification<Movie> hasStatus(MovieStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * Movies after {@code cursor} in {@code (title, id)} order.
+     * <p>
+     * Besides the exact row comparison, the title is bounded on its own
+     * ({@code title >= :title}) so the database can seek straight to the
+     * cursor in the {@code (title, id)} index instead of filtering every row
+     * before it.
+     */
+    public static Specification<Movie> titleAfter(Cursor cursor, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<String> title = root.get("title");
+            Path<UUID> id = root.get("id");
+            if (direction.isAscending()) {
+                return cb.and(cb.greaterThanOrEqualTo(title, cursor.key()),
+                        cb.or(cb.greaterThan(title, cursor.key()), cb.greaterThan(id, cursor.id())));
+            }
+            return cb.and(cb.lessThanOrEqualTo(title, cursor.key()),
+                    cb.or(cb.lessThan(title, cursor.key()), cb.lessThan(id, cursor.id())));
+        };
+    }
+
+    /**
+     * Movies after {@code cursor} in creation order. Ids are UUIDv7, so the
+     * primary key alone gives that order.
+     */
+    public static Specification<Movie> idAfter(Cursor cursor, Sort.Direction direction) {
+        return (root, query, cb) -> direction.isAscending()
+                ? cb.greaterThan(root.<UUID>get("id"), cursor.id())
+                : cb.lessThan(root.<UUID>get("id"), cursor.id());
+    }
+}
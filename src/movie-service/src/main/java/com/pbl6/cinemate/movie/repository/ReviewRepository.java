@@ -1,6 +1,7 @@
 package com.pbl6.cinemate.movie.repository;
 
 import com.pbl6.cinemate.movie.entity.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,6 +20,18 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
     @Query("SELECT r FROM Review r WHERE r.movie.id = :movieId AND r.deletedAt IS NULL")
     List<Review> findByMovieIdAndDeletedAtIsNull(@Param("movieId") UUID movieId);
 
+    /**
+     * First keyset page of a movie's reviews, newest first. Ids are UUIDv7, so
+     * id order is creation order; the pageable only limits the rows.
+     */
+    @Query("SELECT r FROM Review r WHERE r.movie.id = :movieId AND r.deletedAt IS NULL ORDER BY r.id DESC")
+    List<Review> findLatestByMovieId(@Param("movieId") UUID movieId, Pageable pageable);
+
+    @Query("SELECT r FROM Review r WHERE r.movie.id = :movieId AND r.deletedAt IS NULL AND r.id < :id " +
+            "ORDER BY r.id DESC")
+    List<Review> findLatestByMovieIdBefore(@Param("movieId") UUID movieId, @Param("id") UUID id,
+                                           Pageable pageable);
+
     @Query("SELECT r FROM Review r WHERE r.customerId = :customerId AND r.deletedAt IS NULL")
     List<Review> findByCustomerIdAndDeletedAtIsNull(@Param("customerId") UUID customerId);
 
@@ -0,0 +1,70 @@
+package com.pbl6.cinemate.movie.repository;
+
+import com.pbl6.cinemate.movie.cache.BufferedWatchProgress;
+import com.pbl6.cinemate.shared.utils.UuidGenerator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class WatchHistoryBatchRepository {
+
+    /**
+     * Inserts or overwrites a viewer's progress for a movie. A row already
+     * holding a later report is left alone, and progress for a movie deleted
+     * in the meantime is dropped. Reports are ordered by {@code reported_at}:
+     * the table's trigger resets {@code updated_at} to the time of the write.
+     */
+    private static final String UPSERT = """
+            INSERT INTO watch_history (id, movie_id, customer_id, last_watched_position, total_duration,
+                progress_percent, created_at, updated_at, reported_at)
+            SELECT ?, m.id, ?, ?, ?, ?, ?, ?, ?
+            FROM movies m
+            WHERE m.id = ?
+            ON CONFLICT (movie_id, customer_id) DO UPDATE
+                SET last_watched_position = EXCLUDED.last_watched_position,
+                    total_duration = EXCLUDED.total_duration,
+                    progress_percent = EXCLUDED.progress_percent,
+                    reported_at = EXCLUDED.reported_at
+                WHERE watch_history.reported_at <= EXCLUDED.reported_at
+            """;
+
+    /**
+     * Deletes a row only while it still holds the given report, so a newer one
+     * written since is kept.
+     */
+    private static final String DELETE_REPORTED = """
+            DELETE FROM watch_history
+            WHERE customer_id = ? AND movie_id = ? AND reported_at = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void upsertAll(List<BufferedWatchProgress> progress) {
+        jdbcTemplate.batchUpdate(UPSERT, progress, progress.size(), (statement, entry) -> {
+            Timestamp reportedAt = Timestamp.from(entry.updatedAt());
+            statement.setObject(1, UuidGenerator.generateV7());
+            statement.setObject(2, entry.customerId());
+            statement.setLong(3, entry.lastWatchedPosition());
+            statement.setLong(4, entry.totalDuration());
+            statement.setDouble(5, entry.progressPercent());
+            statement.setTimestamp(6, reportedAt);
+            statement.setTimestamp(7, reportedAt);
+            statement.setTimestamp(8, reportedAt);
+            statement.setObject(9, entry.movieId());
+        });
+    }
+
+    public void deleteAll(List<BufferedWatchProgress> progress) {
+        jdbcTemplate.batchUpdate(DELETE_REPORTED, progress, progress.size(), (statement, entry) -> {
+            statement.setObject(1, entry.customerId());
+            statement.setObject(2, entry.movieId());
+            statement.setTimestamp(3, Timestamp.from(entry.updatedAt()));
+        });
+    }
+}
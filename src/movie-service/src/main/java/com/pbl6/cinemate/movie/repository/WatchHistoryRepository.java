@@ -18,13 +18,36 @@ public interface WatchHistoryRepository extends JpaRepository<WatchHistory, UUID
 
         Optional<WatchHistory> findByMovieIdAndCustomerId(UUID movieId, UUID customerId);
 
-        @Query("SELECT wh FROM WatchHistory wh WHERE wh.customerId = :customerId ORDER BY wh.updatedAt DESC")
-        Page<WatchHistory> findByCustomerIdOrderByUpdatedAtDesc(@Param("customerId") UUID customerId,
+        /**
+         * First keyset page of a customer's history, most recently watched
+         * first; the pageable only limits the rows.
+         */
+        @Query("SELECT wh FROM WatchHistory wh JOIN FETCH wh.movie WHERE wh.customerId = :customerId " +
+                        "ORDER BY wh.updatedAt DESC, wh.id DESC")
+        List<WatchHistory> findRecentByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+        /**
+         * Keyset page after the row ({@code updatedAt}, {@code id}). The
+         * separate {@code updatedAt <= :updatedAt} bound lets the
+         * {@code (customer_id, updated_at DESC, id DESC)} index seek to the
+         * cursor.
+         */
+        @Query("SELECT wh FROM WatchHistory wh JOIN FETCH wh.movie WHERE wh.customerId = :customerId " +
+                        "AND wh.updatedAt <= :updatedAt AND (wh.updatedAt < :updatedAt OR wh.id < :id) " +
+                        "ORDER BY wh.updatedAt DESC, wh.id DESC")
+        List<WatchHistory> findRecentByCustomerIdBefore(
+                        @Param("customerId") UUID customerId,
+                        @Param("updatedAt") Instant updatedAt,
+                        @Param("id") UUID id,
                         Pageable pageable);
 
-        @Query("SELECT wh FROM WatchHistory wh WHERE wh.customerId = :customerId " +
+        long countByCustomerId(UUID customerId);
+
+        @Query(value = "SELECT wh FROM WatchHistory wh JOIN FETCH wh.movie WHERE wh.customerId = :customerId " +
                         "AND wh.updatedAt >= :startOfDay AND wh.updatedAt < :endOfDay " +
-                        "ORDER BY wh.updatedAt DESC")
+                        "ORDER BY wh.updatedAt DESC", countQuery = "SELECT COUNT(wh) FROM WatchHistory wh " +
+                                        "WHERE wh.customerId = :customerId " +
+                                        "AND wh.updatedAt >= :startOfDay AND wh.updatedAt < :endOfDay")
         Page<WatchHistory> findByCustomerIdAndDate(
                         @Param("customerId") UUID customerId,
                         @Param("startOfDay") Instant startOfDay,
@@ -2,70 +2,66 @@ package com.pbl6.cinemate.movie.scheduler;
 
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.enums.MovieStatus;
+import com.pbl6.cinemate.movie.event.CatalogRerankedEvent;
 import com.pbl6.cinemate.movie.repository.MovieRepository;
-import com.pbl6.cinemate.movie.repository.ReviewRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
-
+import java.util.UUID;
+
+/**
+ * Ranks public movies by average review stars.
+ * <p>
+ * Every replica fires the job, but only the one that takes the Redis lease
+ * runs it; the lease outlives the run and expires before the next one, so a
+ * replica whose clock is a little behind cannot rank the same window again,
+ * and a dead holder blocks at most one run.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class MovieRankingScheduler {
 
+    private static final String LEASE_KEY = "catalog:ranking:lease";
     private final MovieRepository movieRepository;
-    private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+
+    public MovieRankingScheduler(MovieRepository movieRepository, ApplicationEventPublisher eventPublisher,
+            StringRedisTemplate redisTemplate, @Value("${catalog.ranking.lease}") Duration lease) {
+        this.movieRepository = movieRepository;
+        this.eventPublisher = eventPublisher;
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+    }
 
     @Scheduled(cron = "0 */10 * * * *") // Run every 10 minutes
     @Transactional
     public void updateMovieRankings() {
+        Boolean leased = redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, owner, lease);
+        if (!Boolean.TRUE.equals(leased)) {
+            log.debug("Skipping movie ranking update, another instance holds the lease");
+            return;
+        }
         log.info("Starting movie ranking update for public movies");
 
         try {
-            List<Movie> allMovies = movieRepository.findByStatus(MovieStatus.PUBLIC);
-
-            // Calculate average rating for each movie and sort by rating
-            List<MovieRating> movieRatings = allMovies.stream()
-                    .map(movie -> {
-                        Double avgRating = reviewRepository.findAverageStarsByMovieId(movie.getId());
-                        return new MovieRating(movie, avgRating != null ? avgRating : 0.0);
-                    })
-                    .sorted((a, b) -> {
-                        // Primary: Sort by rating descending (highest first)
-                        int ratingCompare = Double.compare(b.averageRating(), a.averageRating());
-                        if (ratingCompare != 0) {
-                            return ratingCompare;
-                        }
-                        // Secondary: Sort by title ascending (alphabetical A-Z) when ratings are equal
-                        return a.movie().getTitle().compareToIgnoreCase(b.movie().getTitle());
-                    })
-                    .toList();
+            long start = System.nanoTime();
+            List<UUID> rerankedMovieIds = movieRepository.updatePublicMovieRanks();
 
-            // Assign ranks based on sorted order
-            int currentRank = 1;
-            int updatedCount = 0;
-
-            for (MovieRating movieRating : movieRatings) {
-                try {
-                    Movie movie = movieRating.movie();
-                    movie.setRank(currentRank);
-                    movieRepository.save(movie);
-                    updatedCount++;
-                    currentRank++;
-
-                    log.debug("Updated rank for movie {} ({}): {} (avg rating: {})",
-                            movie.getId(), movie.getTitle(), movie.getRank(), movieRating.averageRating());
-                } catch (Exception e) {
-                    log.error("Failed to update rank for movie {}: {}",
-                            movieRating.movie().getId(), e.getMessage());
-                }
+            if (!rerankedMovieIds.isEmpty()) {
+                eventPublisher.publishEvent(new CatalogRerankedEvent(this, rerankedMovieIds));
             }
-
-            log.info("Completed movie ranking update. Updated {} public movies", updatedCount);
+            log.info("Completed movie ranking update in {} ms. {} public movies changed rank",
+                    (System.nanoTime() - start) / 1_000_000, rerankedMovieIds.size());
         } catch (Exception e) {
             log.error("Failed to update movie rankings: {}", e.getMessage(), e);
         }
@@ -93,7 +89,4 @@ public class MovieRankingScheduler {
             log.error("Failed to log ranking statistics: {}", e.getMessage());
         }
     }
-
-    private record MovieRating(Movie movie, Double averageRating) {
-    }
 }
@@ -0,0 +1,115 @@
+package com.pbl6.cinemate.movie.scheduler;
+
+import com.pbl6.cinemate.movie.cache.BufferedWatchProgress;
+import com.pbl6.cinemate.movie.cache.WatchProgressBuffer;
+import com.pbl6.cinemate.movie.client.WatchEventPublisher;
+import com.pbl6.cinemate.movie.repository.WatchHistoryBatchRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes buffered watch progress to {@code watch_history}. The instance
+ * holding the Redis lease flushes for everyone; batches that fail stay
+ * buffered and are retried on the next run.
+ * <p>
+ * The lease ({@code watch-progress.flush-lease}) spans several flush
+ * intervals so a slow flush keeps it, and is released with compare-and-delete
+ * once the flush is done. Progress whose history was deleted while a flush
+ * held it is skipped, or deleted again if the deletion landed mid-write.
+ */
+@Slf4j
+@Component
+public class WatchProgressFlushScheduler {
+
+    private static final String LEASE_KEY = "watch:progress:flush:lease";
+    private final WatchProgressBuffer buffer;
+    private final WatchHistoryBatchRepository watchHistoryBatchRepository;
+    private final WatchEventPublisher watchEventPublisher;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> compareAndDeleteScript;
+    private final Duration lease;
+    private final int batchSize;
+    private final Timer flushes;
+    private final String owner = UUID.randomUUID().toString();
+
+    public WatchProgressFlushScheduler(WatchProgressBuffer buffer,
+            WatchHistoryBatchRepository watchHistoryBatchRepository, WatchEventPublisher watchEventPublisher,
+            StringRedisTemplate redisTemplate, RedisScript<Long> compareAndDeleteScript, MeterRegistry meterRegistry,
+            @Value("${watch-progress.flush-interval}") Duration interval,
+            @Value("${watch-progress.flush-lease}") Duration lease,
+            @Value("${watch-progress.flush-batch-size}") int batchSize) {
+        if (lease.compareTo(interval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("watch-progress.flush-lease must be at least two flush intervals");
+        }
+        this.buffer = buffer;
+        this.watchHistoryBatchRepository = watchHistoryBatchRepository;
+        this.watchEventPublisher = watchEventPublisher;
+        this.redisTemplate = redisTemplate;
+        this.compareAndDeleteScript = compareAndDeleteScript;
+        this.lease = lease;
+        this.batchSize = batchSize;
+        this.flushes = Timer.builder("watch.progress.flush")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${watch-progress.flush-interval}")
+    public void flush() {
+        Boolean leased = redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, owner, lease);
+        if (!Boolean.TRUE.equals(leased)) {
+            return;
+        }
+        try {
+            flushPending();
+        } finally {
+            redisTemplate.execute(compareAndDeleteScript, List.of(LEASE_KEY), owner);
+        }
+    }
+
+    private void flushPending() {
+        List<BufferedWatchProgress> pending = buffer.pending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        int flushed = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<BufferedWatchProgress> batch = List.copyOf(
+                    pending.subList(from, Math.min(from + batchSize, pending.size())));
+            try {
+                List<BufferedWatchProgress> live = without(batch, buffer.deleted(batch));
+                watchHistoryBatchRepository.upsertAll(live);
+                Set<BufferedWatchProgress> deleted = buffer.deleted(live);
+                if (!deleted.isEmpty()) {
+                    // the history was deleted while this batch was written: drop the rows written back
+                    watchHistoryBatchRepository.deleteAll(List.copyOf(deleted));
+                }
+                buffer.acknowledge(batch);
+                watchEventPublisher.publish(without(live, deleted));
+                flushed += batch.size();
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} watch progress entries: {}", batch.size(), e.getMessage());
+            }
+        }
+        sample.stop(flushes);
+        log.debug("Flushed {} of {} buffered watch progress entries", flushed, pending.size());
+    }
+
+    private static List<BufferedWatchProgress> without(List<BufferedWatchProgress> progress,
+            Collection<BufferedWatchProgress> deleted) {
+        return deleted.isEmpty() ? progress : progress.stream().filter(entry -> !deleted.contains(entry)).toList();
+    }
+}
@@ -0,0 +1,155 @@
+package com.pbl6.cinemate.movie.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable index answering "the heaviest values whose key starts with a
+ * prefix".
+ * <p>
+ * Keys are kept sorted in one array, so the keys sharing a prefix form a
+ * contiguous range found by two binary searches. A max segment tree over the
+ * weights then yields the heaviest entries of that range one at a time, so a
+ * lookup costs {@code O(log n + k log k)} however many keys match a short
+ * prefix. A value may be stored under several keys; each is returned once.
+ *
+ * @param <T> value type, compared with {@code equals}
+ */
+final class PrefixIndex<T> {
+
+    private static final PrefixIndex<?> EMPTY = new Builder<>().build();
+    private final String[] keys;
+    private final Object[] values;
+    private final double[] weights;
+    // tree[size + i] is entry i; tree[node] is the heaviest entry below node
+    private final int[] tree;
+    private final int size;
+
+    private PrefixIndex(String[] keys, Object[] values, double[] weights) {
+        this.keys = keys;
+        this.values = values;
+        this.weights = weights;
+        this.size = keys.length;
+        this.tree = new int[Math.max(2 * size, 1)];
+        for (int i = 0; i < size; i++) {
+            tree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PrefixIndex<T> empty() {
+        return (PrefixIndex<T>) EMPTY;
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return up to {@code limit} distinct values with a key starting with
+     * {@code prefix}, heaviest first
+     */
+    @SuppressWarnings("unchecked")
+    List<T> top(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        List<T> result = new ArrayList<>(limit);
+        if (from >= to || limit <= 0) {
+            return result;
+        }
+        Set<Object> seen = new HashSet<>();
+        PriorityQueue<Range> ranges = new PriorityQueue<>(
+                Comparator.comparingDouble((Range range) -> weights[range.best]).reversed());
+        ranges.add(new Range(from, to, heaviest(from, to)));
+        while (!ranges.isEmpty() && result.size() < limit) {
+            Range range = ranges.poll();
+            if (seen.add(values[range.best])) {
+                result.add((T) values[range.best]);
+            }
+            if (range.from < range.best) {
+                ranges.add(new Range(range.from, range.best, heaviest(range.from, range.best)));
+            }
+            if (range.best + 1 < range.to) {
+                ranges.add(new Range(range.best + 1, range.to, heaviest(range.best + 1, range.to)));
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Heaviest entry in {@code [from, to)}.
+     */
+    private int heaviest(int from, int to) {
+        int best = from;
+        for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = heavier(best, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                best = heavier(best, tree[--high]);
+            }
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        return weights[b] > weights[a] ? b : a;
+    }
+
+    private record Range(int from, int to, int best) {
+    }
+
+    static final class Builder<T> {
+        private final List<Entry<T>> entries = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        Builder<T> add(String key, T value, double weight) {
+            entries.add(new Entry<>(key, value, weight));
+            return this;
+        }
+
+        PrefixIndex<T> build() {
+            entries.sort(Comparator.comparing((Entry<T> entry) -> entry.key));
+            String[] keys = new String[entries.size()];
+            Object[] values = new Object[entries.size()];
+            double[] weights = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry<T> entry = entries.get(i);
+                keys[i] = entry.key;
+                values[i] = entry.value;
+                weights[i] = entry.weight;
+            }
+            return new PrefixIndex<>(keys, values, weights);
+        }
+
+        private record Entry<T>(String key, T value, double weight) {
+        }
+    }
+}
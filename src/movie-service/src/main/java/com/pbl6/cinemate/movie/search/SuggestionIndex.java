@@ -0,0 +1,181 @@
+package com.pbl6.cinemate.movie.search;
+
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
+import com.pbl6.cinemate.movie.dto.response.ActorResponse;
+import com.pbl6.cinemate.movie.dto.response.CategoryResponse;
+import com.pbl6.cinemate.movie.dto.response.DirectorResponse;
+import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
+import com.pbl6.cinemate.movie.dto.response.SuggestionResponse;
+import com.pbl6.cinemate.movie.enums.MovieStatus;
+import com.pbl6.cinemate.movie.enums.SuggestionType;
+import com.pbl6.cinemate.movie.repository.MovieRepository;
+import com.pbl6.cinemate.movie.util.MovieUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typeahead over public movie titles, actor and director names and
+ * categories, answered from memory.
+ * <p>
+ * Every suggestion is indexed under its diacritic-folded text and under each
+ * word suffix of it ("dark knight" and "knight" for "The Dark Knight"), so a
+ * prefix matches the start of any word. Movies weigh more the better their
+ * rank; a person or category weighs as much as their best-ranked movie, plus
+ * a little per movie.
+ * <p>
+ * Each public movie is kept as the few suggestions it contributes. Changed
+ * movies are only marked stale, by the write path and by catalog
+ * invalidations from other instances; every
+ * {@code catalog.suggest.refresh-interval} their documents are re-read from
+ * the {@link CatalogReadModel} and a new {@link PrefixIndex} is swapped in,
+ * so lookups never wait on a rebuild or touch the database.
+ */
+@Slf4j
+@Service
+public class SuggestionIndex {
+
+    public static final int MAX_LIMIT = 20;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final double PER_MOVIE_WEIGHT = 0.001;
+    private final CatalogReadModel catalogReadModel;
+    private final MovieRepository movieRepository;
+    private final Map<UUID, IndexedMovie> movies = new ConcurrentHashMap<>();
+    private final Set<UUID> stale = ConcurrentHashMap.newKeySet();
+    private final Timer lookups;
+    private volatile PrefixIndex<SuggestionResponse> index = PrefixIndex.empty();
+
+    public SuggestionIndex(CatalogReadModel catalogReadModel, MovieRepository movieRepository,
+            MeterRegistry meterRegistry) {
+        this.catalogReadModel = catalogReadModel;
+        this.movieRepository = movieRepository;
+        this.lookups = Timer.builder("catalog.suggest")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.keys", this, suggestions -> suggestions.index.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return up to {@code limit} suggestions whose words start with the
+     * words of {@code query}, best first
+     */
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        String prefix = query == null ? "" : MovieUtils.foldForSearch(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        Timer.Sample sample = Timer.start();
+        List<SuggestionResponse> suggestions = index.top(prefix, Math.clamp(limit, 1, MAX_LIMIT));
+        sample.stop(lookups);
+        return suggestions;
+    }
+
+    public void markStale(UUID movieId) {
+        stale.add(movieId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        stale.addAll(movieRepository.findIdsByStatus(MovieStatus.PUBLIC));
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.suggest.refresh-interval}")
+    public synchronized void refresh() {
+        if (stale.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(stale);
+        stale.removeAll(ids);
+        try {
+            for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+                List<UUID> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+                batch.forEach(movies::remove);
+                catalogReadModel.findAll(batch).stream()
+                        .filter(movie -> MovieStatus.PUBLIC.name().equals(movie.status()))
+                        .forEach(movie -> movies.put(movie.id(), IndexedMovie.of(movie)));
+            }
+        } catch (RuntimeException e) {
+            stale.addAll(ids);
+            log.error("Failed to reload {} movies for suggestions: {}", ids.size(), e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        index = build();
+        log.debug("Rebuilt suggestion index with {} keys for {} movies in {} ms after {} changes",
+                index.size(), movies.size(), (System.nanoTime() - start) / 1_000_000, ids.size());
+    }
+
+    private PrefixIndex<SuggestionResponse> build() {
+        Map<SuggestionResponse, Double> weights = new HashMap<>();
+        for (IndexedMovie movie : movies.values()) {
+            weights.put(movie.title(), movie.weight());
+            movie.related().forEach(related -> credit(weights, related, movie.weight()));
+        }
+
+        PrefixIndex.Builder<SuggestionResponse> builder = PrefixIndex.builder();
+        weights.forEach((suggestion, weight) -> {
+            if (suggestion.text() == null) {
+                return;
+            }
+            String folded = MovieUtils.foldForSearch(suggestion.text());
+            int start = folded.isEmpty() ? -1 : 0;
+            while (start >= 0) {
+                builder.add(folded.substring(start), suggestion, weight);
+                int space = folded.indexOf(' ', start);
+                start = space < 0 ? -1 : space + 1;
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * The best-ranked movie counts fully, every other one a little, so a
+     * name shared by many obscure movies does not outrank a top title.
+     */
+    private static void credit(Map<SuggestionResponse, Double> weights, SuggestionResponse suggestion,
+            double movieWeight) {
+        weights.merge(suggestion, movieWeight, (current, added) -> Math.max(current, added) + PER_MOVIE_WEIGHT);
+    }
+
+    /**
+     * What a public movie contributes to the index: its title, weighted by
+     * rank, and its people and categories.
+     */
+    private record IndexedMovie(SuggestionResponse title, double weight, List<SuggestionResponse> related) {
+
+        static IndexedMovie of(MovieInfoResponse movie) {
+            List<SuggestionResponse> related = new ArrayList<>();
+            for (ActorResponse actor : movie.actors()) {
+                related.add(new SuggestionResponse(SuggestionType.ACTOR, actor.id(), actor.fullname()));
+            }
+            for (DirectorResponse director : movie.directors()) {
+                related.add(new SuggestionResponse(SuggestionType.DIRECTOR, director.id(), director.fullname()));
+            }
+            for (CategoryResponse category : movie.categories()) {
+                related.add(new SuggestionResponse(SuggestionType.CATEGORY, category.getId(), category.getName()));
+            }
+            return new IndexedMovie(new SuggestionResponse(SuggestionType.MOVIE, movie.id(), movie.title()),
+                    movieWeight(movie.rank()), List.copyOf(related));
+        }
+
+        private static double movieWeight(Integer rank) {
+            return rank != null && rank > 0 ? 1.0 + 1.0 / rank : 1.0;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.pbl6.cinemate.movie.dto.response.MovieActorResponse;
 import com.pbl6.cinemate.movie.entity.Actor;
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.entity.MovieActor;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.ActorRepository;
 import com.pbl6.cinemate.movie.repository.MovieActorRepository;
 import com.pbl6.cinemate.movie.repository.MovieRepository;
@@ -14,6 +15,7 @@ import com.pbl6.cinemate.shared.exception.NotFoundException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +31,7 @@ public class MovieActorService {
     private final MovieRepository movieRepository;
     private final ActorRepository actorRepository;
     private final MovieActorRepository movieActorRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public MovieActorResponse addActorsToMovie(UUID movieId, MovieActorRequest request) {
@@ -55,6 +58,7 @@ public class MovieActorService {
         }
 
         movieActorRepository.saveAll(newMovieActors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         // Return all actors for the movie
         return getActorsByMovieId(movieId);
@@ -102,6 +106,7 @@ public class MovieActorService {
                 .collect(Collectors.toList());
 
         movieActorRepository.saveAll(newMovieActors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         // Return updated actors list
         return getActorsByMovieId(movieId);
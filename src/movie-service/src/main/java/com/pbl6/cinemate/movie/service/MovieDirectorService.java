@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +14,7 @@ import com.pbl6.cinemate.movie.dto.response.MovieDirectorResponse;
 import com.pbl6.cinemate.movie.entity.Director;
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.entity.MovieDirector;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.DirectorRepository;
 import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
 import com.pbl6.cinemate.movie.repository.MovieRepository;
@@ -27,6 +29,7 @@ public class MovieDirectorService {
     private final MovieRepository movieRepository;
     private final DirectorRepository directorRepository;
     private final MovieDirectorRepository movieDirectorRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public MovieDirectorResponse addDirectorsToMovie(UUID movieId, MovieDirectorRequest request) {
@@ -43,6 +46,7 @@ public class MovieDirectorService {
                 .collect(Collectors.toList());
 
         movieDirectorRepository.saveAll(newMovieDirectors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         return buildMovieDirectorResponse(movieId);
     }
@@ -74,6 +78,7 @@ public class MovieDirectorService {
                 .collect(Collectors.toList());
 
         movieDirectorRepository.saveAll(newMovieDirectors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         return buildMovieDirectorResponse(movieId);
     }
@@ -0,0 +1,116 @@
+package com.pbl6.cinemate.movie.service;
+
+import com.pbl6.cinemate.movie.dto.response.ActorResponse;
+import com.pbl6.cinemate.movie.dto.response.CategoryResponse;
+import com.pbl6.cinemate.movie.dto.response.DirectorResponse;
+import com.pbl6.cinemate.movie.dto.response.MovieResponse;
+import com.pbl6.cinemate.movie.entity.Actor;
+import com.pbl6.cinemate.movie.entity.Director;
+import com.pbl6.cinemate.movie.entity.Movie;
+import com.pbl6.cinemate.movie.repository.MovieActorRepository;
+import com.pbl6.cinemate.movie.repository.MovieCategoryRepository;
+import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
+import com.pbl6.cinemate.movie.util.MovieUtils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds {@link MovieResponse} lists with their categories, actors and
+ * directors.
+ * <p>
+ * Relations of the whole list are loaded with one query per relation type
+ * ({@code movie_id IN (...)}) and grouped in memory, so a listing costs three
+ * queries whatever its size instead of three per movie.
+ */
+@Component
+@RequiredArgsConstructor
+public class MovieResponseAssembler {
+
+    private final MovieCategoryRepository movieCategoryRepository;
+    private final MovieActorRepository movieActorRepository;
+    private final MovieDirectorRepository movieDirectorRepository;
+
+    /**
+     * Responses in the order of {@code movies}, with actors and directors as
+     * id and name only.
+     */
+    public List<MovieResponse> toResponses(List<Movie> movies) {
+        Relations relations = load(movies);
+        return movies.stream()
+                .map(movie -> MovieUtils.mapToMovieResponse(movie, relations.categories().get(movie.getId()),
+                        relations.actors().get(movie.getId()), relations.directors().get(movie.getId())))
+                .toList();
+    }
+
+    public MovieResponse toResponse(Movie movie) {
+        return toResponses(List.of(movie)).get(0);
+    }
+
+    /**
+     * @return movieId → categories, with an empty list for movies without any
+     */
+    public Map<UUID, List<CategoryResponse>> categoriesByMovie(Collection<UUID> movieIds) {
+        Set<UUID> ids = new LinkedHashSet<>(movieIds);
+        Map<UUID, List<CategoryResponse>> categories = emptyLists(ids);
+        if (ids.isEmpty()) {
+            return categories;
+        }
+        movieCategoryRepository.findByMovieIdInWithCategory(ids)
+                .forEach(mc -> categories.get(mc.getMovie().getId()).add(CategoryResponse.builder()
+                        .id(mc.getCategory().getId())
+                        .name(mc.getCategory().getName())
+                        .build()));
+        return categories;
+    }
+
+    private Relations load(List<Movie> movies) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        movies.forEach(movie -> ids.add(movie.getId()));
+        if (ids.isEmpty()) {
+            return new Relations(Map.of(), Map.of(), Map.of());
+        }
+
+        Map<UUID, List<CategoryResponse>> categories = categoriesByMovie(ids);
+        Map<UUID, List<ActorResponse>> actors = emptyLists(ids);
+        movieActorRepository.findByMovieIdInWithActor(ids)
+                .forEach(ma -> actors.get(ma.getMovie().getId()).add(summary(ma.getActor())));
+        Map<UUID, List<DirectorResponse>> directors = emptyLists(ids);
+        movieDirectorRepository.findByMovieIdInWithDirector(ids)
+                .forEach(md -> directors.get(md.getMovie().getId()).add(summary(md.getDirector())));
+        return new Relations(categories, actors, directors);
+    }
+
+    private static <T> Map<UUID, List<T>> emptyLists(Set<UUID> ids) {
+        Map<UUID, List<T>> lists = HashMap.newHashMap(ids.size());
+        ids.forEach(id -> lists.put(id, new ArrayList<>()));
+        return lists;
+    }
+
+    private record Relations(Map<UUID, List<CategoryResponse>> categories, Map<UUID, List<ActorResponse>> actors,
+            Map<UUID, List<DirectorResponse>> directors) {
+    }
+
+    private static ActorResponse summary(Actor actor) {
+        return ActorResponse.builder()
+                .id(actor.getId())
+                .fullname(actor.getFullname())
+                .build();
+    }
+
+    private static DirectorResponse summary(Director director) {
+        return DirectorResponse.builder()
+                .id(director.getId())
+                .fullname(director.getFullname())
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package com.pbl6.cinemate.movie.service;
 import com.pbl6.cinemate.movie.dto.request.MovieRequest;
 import com.pbl6.cinemate.movie.dto.request.MovieUploadRequest;
 import com.pbl6.cinemate.movie.dto.response.*;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 
 import org.springframework.lang.NonNull;
@@ -29,6 +30,9 @@ public interface MovieService {
     PaginatedResponse<MovieResponse> getMovies(String keyword, int page, int size, String sortBy,
             @NonNull String sortDirection, String userRole);
 
+    CursorPage<MovieResponse> scrollMovies(String cursor, int size, String sortBy, @NonNull String sortDirection,
+            String userRole, boolean includeTotal);
+
     List<MovieResponse> getTopTenMovies();
 
     MovieProcessStatusResponse getMovieProcessStatus(@NonNull UUID movieId);
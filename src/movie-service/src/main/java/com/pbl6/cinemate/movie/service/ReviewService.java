@@ -3,6 +3,7 @@ package com.pbl6.cinemate.movie.service;
 import com.pbl6.cinemate.movie.dto.request.ReviewCreationRequest;
 import com.pbl6.cinemate.movie.dto.request.ReviewUpdateRequest;
 import com.pbl6.cinemate.movie.dto.response.ReviewResponse;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -15,6 +16,8 @@ public interface ReviewService {
 
     List<ReviewResponse> getReviewsByMovieId(UUID movieId);
 
+    CursorPage<ReviewResponse> getReviewsByMovieId(UUID movieId, String cursor, int size, boolean includeTotal);
+
     List<ReviewResponse> getReviewsByCustomerId(UUID customerId);
 
     ReviewResponse getReviewById(UUID reviewId);
@@ -3,9 +3,11 @@ package com.pbl6.cinemate.movie.service;
 import com.pbl6.cinemate.movie.dto.request.WatchProgressRequest;
 import com.pbl6.cinemate.movie.dto.response.WatchHistoryDateResponse;
 import com.pbl6.cinemate.movie.dto.response.WatchHistoryResponse;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 import com.pbl6.cinemate.movie.dto.response.WatchProgressResponse;
 
@@ -26,6 +28,19 @@ public interface WatchHistoryService {
      */
     PaginatedResponse<WatchHistoryResponse> getWatchHistoryByDate(UUID customerId, LocalDate date, int page, int size);
 
+    /**
+     * Get watch history for a customer, most recently watched first (keyset
+     * paginated)
+     */
+    CursorPage<WatchHistoryResponse> getRecentWatchHistory(UUID customerId, String cursor, int size,
+            boolean includeTotal);
+
+    /**
+     * Get the movies a customer watched most recently, with their progress,
+     * for the continue-watching rail
+     */
+    List<WatchHistoryResponse> getContinueWatching(UUID customerId, int limit);
+
     /**
      * Get last watched position for a movie by customer
      * Returns null if no watch history exists
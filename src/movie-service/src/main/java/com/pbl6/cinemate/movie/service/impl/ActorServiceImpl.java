@@ -3,6 +3,7 @@ package com.pbl6.cinemate.movie.service.impl;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,6 +11,7 @@ import com.pbl6.cinemate.movie.dto.request.ActorCreationRequest;
 import com.pbl6.cinemate.movie.dto.request.ActorUpdateRequest;
 import com.pbl6.cinemate.movie.dto.response.ActorResponse;
 import com.pbl6.cinemate.movie.entity.Actor;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.ActorRepository;
 import com.pbl6.cinemate.movie.repository.MovieActorRepository;
 import com.pbl6.cinemate.movie.service.ActorService;
@@ -20,10 +22,13 @@ public class ActorServiceImpl implements ActorService {
 
     private final ActorRepository actorRepository;
     private final MovieActorRepository movieActorRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ActorServiceImpl(ActorRepository actorRepository, MovieActorRepository movieActorRepository) {
+    public ActorServiceImpl(ActorRepository actorRepository, MovieActorRepository movieActorRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.actorRepository = actorRepository;
         this.movieActorRepository = movieActorRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -75,6 +80,7 @@ public class ActorServiceImpl implements ActorService {
         actor.setDateOfBirth(request.dateOfBirth());
 
         Actor updatedActor = actorRepository.save(actor);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieActorRepository.findMovieIdsByActorId(id)));
 
         return mapToActorResponse(updatedActor);
     }
@@ -85,11 +91,13 @@ public class ActorServiceImpl implements ActorService {
         if (!actorRepository.existsById(id)) {
             throw new NotFoundException("Actor not found with id: " + id);
         }
+        List<UUID> movieIds = movieActorRepository.findMovieIdsByActorId(id);
         // Delete all movie-actor relationships first
         movieActorRepository.deleteByActorId(id);
         movieActorRepository.flush();
         // Then delete the actor
         actorRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieIds));
     }
 
     private ActorResponse mapToActorResponse(Actor actor) {
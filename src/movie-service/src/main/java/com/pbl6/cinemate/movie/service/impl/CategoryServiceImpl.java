@@ -1,23 +1,21 @@
 package com.pbl6.cinemate.movie.service.impl;
 
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
 import com.pbl6.cinemate.movie.dto.request.CategoryRequest;
-import com.pbl6.cinemate.movie.dto.response.ActorResponse;
 import com.pbl6.cinemate.movie.dto.response.CategoryResponse;
-import com.pbl6.cinemate.movie.dto.response.DirectorResponse;
 import com.pbl6.cinemate.movie.dto.response.MovieResponse;
 import com.pbl6.cinemate.movie.entity.Category;
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.entity.MovieCategory;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.CategoryRepository;
-import com.pbl6.cinemate.movie.repository.MovieActorRepository;
 import com.pbl6.cinemate.movie.repository.MovieCategoryRepository;
-import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
 import com.pbl6.cinemate.movie.repository.MovieRepository;
 import com.pbl6.cinemate.movie.service.CategoryService;
-import com.pbl6.cinemate.movie.util.MovieUtils;
 import com.pbl6.cinemate.shared.exception.NotFoundException;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,8 +30,8 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final MovieCategoryRepository movieCategoryRepository;
     private final MovieRepository movieRepository;
-    private final MovieActorRepository movieActorRepository;
-    private final MovieDirectorRepository movieDirectorRepository;
+    private final CatalogReadModel catalogReadModel;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     @Override
@@ -82,6 +80,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(request.getDescription());
 
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(
+                new CatalogChangedEvent(this, movieCategoryRepository.findMovieIdsByCategoryId(id)));
         return mapToResponse(updatedCategory);
     }
 
@@ -91,11 +91,13 @@ public class CategoryServiceImpl implements CategoryService {
         if (!categoryRepository.existsById(id)) {
             throw new NotFoundException("Category not found with id: " + id);
         }
+        List<UUID> movieIds = movieCategoryRepository.findMovieIdsByCategoryId(id);
         // Delete all movie-category relationships first
         movieCategoryRepository.deleteByCategoryId(id);
         movieCategoryRepository.flush();
         // Then delete the category
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieIds));
     }
 
     @Override
@@ -116,12 +118,14 @@ public class CategoryServiceImpl implements CategoryService {
                 .movie(movie)
                 .build();
         movieCategoryRepository.save(mc);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
     }
 
     @Transactional
     @Override
     public void removeMovieFromCategory(UUID categoryId, UUID movieId) {
         movieCategoryRepository.deleteByMovieIdAndCategoryId(movieId, categoryId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
     }
 
     @Override
@@ -140,39 +144,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         List<Movie> movies = movieRepository.findAllById(movieIds);
 
-        return movies.stream().map(movie -> {
-            // Get categories
-            List<CategoryResponse> categoryResponses = movieCategoryRepository
-                    .findByMovieIdWithCategory(movie.getId())
-                    .stream()
-                    .map(mc -> CategoryResponse.builder()
-                            .id(mc.getCategory().getId())
-                            .name(mc.getCategory().getName())
-                            .build())
-                    .toList();
-
-            // Get actors
-            List<ActorResponse> actorResponses = movieActorRepository.findByMovieIdWithActor(movie.getId())
-                    .stream()
-                    .map(ma -> ActorResponse.builder()
-                            .id(ma.getActor().getId())
-                            .fullname(ma.getActor().getFullname())
-                            .build())
-                    .toList();
-
-            // Get directors
-            List<DirectorResponse> directorResponses = movieDirectorRepository
-                    .findByMovieIdWithDirector(movie.getId())
-                    .stream()
-                    .map(md -> DirectorResponse.builder()
-                            .id(md.getDirector().getId())
-                            .fullname(md.getDirector().getFullname())
-                            .build())
-                    .toList();
-
-            return MovieUtils.mapToMovieResponse(movie, categoryResponses, actorResponses,
-                    directorResponses);
-        }).toList();
+        return catalogReadModel.toResponses(movies);
     }
 
     private CategoryResponse mapToResponse(Category category) {
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,6 +12,7 @@ import com.pbl6.cinemate.movie.dto.request.DirectorCreationRequest;
 import com.pbl6.cinemate.movie.dto.request.DirectorUpdateRequest;
 import com.pbl6.cinemate.movie.dto.response.DirectorResponse;
 import com.pbl6.cinemate.movie.entity.Director;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.DirectorRepository;
 import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
 import com.pbl6.cinemate.movie.service.DirectorService;
@@ -21,10 +23,13 @@ public class DirectorServiceImpl implements DirectorService {
 
     private final DirectorRepository directorRepository;
     private final MovieDirectorRepository movieDirectorRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DirectorServiceImpl(DirectorRepository directorRepository, MovieDirectorRepository movieDirectorRepository) {
+    public DirectorServiceImpl(DirectorRepository directorRepository, MovieDirectorRepository movieDirectorRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.directorRepository = directorRepository;
         this.movieDirectorRepository = movieDirectorRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -76,6 +81,8 @@ public class DirectorServiceImpl implements DirectorService {
         director.setDateOfBirth(request.dateOfBirth());
 
         Director updatedDirector = directorRepository.save(director);
+        eventPublisher.publishEvent(
+                new CatalogChangedEvent(this, movieDirectorRepository.findMovieIdsByDirectorId(id)));
 
         return mapToDirectorResponse(updatedDirector);
     }
@@ -86,11 +93,13 @@ public class DirectorServiceImpl implements DirectorService {
         if (!directorRepository.existsById(id)) {
             throw new NotFoundException("Director not found with id: " + id);
         }
+        List<UUID> movieIds = movieDirectorRepository.findMovieIdsByDirectorId(id);
         // Delete all movie-director relationships first
         movieDirectorRepository.deleteByDirectorId(id);
         movieDirectorRepository.flush();
         // Then delete the director
         directorRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieIds));
     }
 
     private DirectorResponse mapToDirectorResponse(Director director) {
@@ -1,14 +1,10 @@
 package com.pbl6.cinemate.movie.service.impl;
 
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
 import com.pbl6.cinemate.movie.client.InteractionRecommenderClient;
 import com.pbl6.cinemate.movie.client.dto.HealthResponse;
 import com.pbl6.cinemate.movie.client.dto.RecommendationResponse;
 import com.pbl6.cinemate.movie.dto.response.*;
-import com.pbl6.cinemate.movie.entity.Movie;
-import com.pbl6.cinemate.movie.repository.MovieRepository;
-import com.pbl6.cinemate.movie.repository.MovieActorRepository;
-import com.pbl6.cinemate.movie.repository.MovieCategoryRepository;
-import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
 import com.pbl6.cinemate.movie.service.InteractionService;
 import com.pbl6.cinemate.movie.util.MovieUtils;
 import lombok.RequiredArgsConstructor;
@@ -29,10 +25,7 @@ import java.util.stream.Collectors;
 public class InteractionServiceImpl implements InteractionService {
 
     private final InteractionRecommenderClient interactionClient;
-    private final MovieRepository movieRepository;
-    private final MovieCategoryRepository movieCategoryRepository;
-    private final MovieActorRepository movieActorRepository;
-    private final MovieDirectorRepository movieDirectorRepository;
+    private final CatalogReadModel catalogReadModel;
 
     // ============== Recommendations with Full Movie Details ==============
 
@@ -97,12 +90,10 @@ public class InteractionServiceImpl implements InteractionService {
             return List.of();
         }
 
-        // Fetch all movies in batch
-        List<Movie> movies = movieRepository.findAllById(movieIds);
-
-        // Create a map for quick lookup
-        Map<UUID, Movie> movieMap = movies.stream()
-                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        // Fetch all movie documents in batch from the catalog read model
+        Map<UUID, MovieResponse> responseMap = catalogReadModel.findAll(movieIds).stream()
+                .map(movie -> MovieUtils.mapToMovieResponse(movie, true))
+                .collect(Collectors.toMap(MovieResponse::id, Function.identity()));
 
         // Create score map from recommendations
         Map<UUID, RecommendationResponse.RecommendationItem> recMap = rawResponse.recommendations().stream()
@@ -112,13 +103,10 @@ public class InteractionServiceImpl implements InteractionService {
 
         // Build enriched response maintaining order from recommendations
         List<MovieWithScoreResponse> items = movieIds.stream()
-                .filter(movieMap::containsKey) // Only include movies that exist
+                .filter(responseMap::containsKey) // Only include movies that exist
                 .map(movieId -> {
-                    Movie movie = movieMap.get(movieId);
                     RecommendationResponse.RecommendationItem recItem = recMap.get(movieId);
-
-                    // Get movie details
-                    MovieResponse movieResponse = buildMovieResponse(movie);
+                    MovieResponse movieResponse = responseMap.get(movieId);
 
                     return new MovieWithScoreResponse(
                             movieResponse.id(),
@@ -146,46 +134,4 @@ public class InteractionServiceImpl implements InteractionService {
 
         return items;
     }
-
-    /**
-     * Build MovieResponse with categories, actors, directors
-     */
-    private MovieResponse buildMovieResponse(Movie movie) {
-        UUID movieId = movie.getId();
-
-        // Get categories
-        List<CategoryResponse> categories = movieCategoryRepository.findByMovieIdWithCategory(movieId)
-                .stream()
-                .map(mc -> CategoryResponse.builder()
-                        .id(mc.getCategory().getId())
-                        .name(mc.getCategory().getName())
-                        .build())
-                .toList();
-
-        // Get actors
-        List<ActorResponse> actors = movieActorRepository.findByMovieIdWithActor(movieId)
-                .stream()
-                .map(ma -> ActorResponse.builder()
-                        .id(ma.getActor().getId())
-                        .fullname(ma.getActor().getFullname())
-                        .biography(ma.getActor().getBiography())
-                        .avatar(ma.getActor().getAvatar())
-                        .dateOfBirth(ma.getActor().getDateOfBirth())
-                        .build())
-                .toList();
-
-        // Get directors
-        List<DirectorResponse> directors = movieDirectorRepository.findByMovieIdWithDirector(movieId)
-                .stream()
-                .map(md -> DirectorResponse.builder()
-                        .id(md.getDirector().getId())
-                        .fullname(md.getDirector().getFullname())
-                        .biography(md.getDirector().getBiography())
-                        .avatar(md.getDirector().getAvatar())
-                        .dateOfBirth(md.getDirector().getDateOfBirth())
-                        .build())
-                .toList();
-
-        return MovieUtils.mapToMovieResponse(movie, categories, actors, directors);
-    }
 }
@@ -1,17 +1,22 @@
 package com.pbl6.cinemate.movie.service.impl;
 
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
 import com.pbl6.cinemate.movie.dto.request.MovieRequest;
 import com.pbl6.cinemate.movie.dto.request.MovieUploadRequest;
 import com.pbl6.cinemate.movie.dto.response.*;
 import com.pbl6.cinemate.movie.entity.*;
 import com.pbl6.cinemate.movie.enums.MovieStatus;
 import com.pbl6.cinemate.movie.enums.MovieProcessStatus;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.event.MovieCreatedEvent;
 import com.pbl6.cinemate.movie.repository.*;
 import com.pbl6.cinemate.movie.service.MinioStorageService;
+import com.pbl6.cinemate.movie.service.MovieResponseAssembler;
 import com.pbl6.cinemate.movie.service.MovieService;
 import com.pbl6.cinemate.movie.service.WatchHistoryService;
 import com.pbl6.cinemate.movie.util.MovieUtils;
+import com.pbl6.cinemate.shared.dto.general.Cursor;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 import com.pbl6.cinemate.shared.exception.BadRequestException;
 import com.pbl6.cinemate.shared.exception.InternalServerException;
@@ -23,6 +28,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +36,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -45,6 +53,8 @@ public class MovieServiceImpl implements MovieService {
     private final DirectorRepository directorRepository;
     private final ApplicationEventPublisher eventPublisher;
     private final WatchHistoryService watchHistoryService;
+    private final MovieResponseAssembler movieResponseAssembler;
+    private final CatalogReadModel catalogReadModel;
 
     @Value("${minio.movie-bucket:}")
     private String movieBucket;
@@ -53,7 +63,8 @@ public class MovieServiceImpl implements MovieService {
             CategoryRepository categoryRepository, MovieCategoryRepository movieCategoryRepository,
             MovieActorRepository movieActorRepository, MovieDirectorRepository movieDirectorRepository,
             ActorRepository actorRepository, DirectorRepository directorRepository,
-            ApplicationEventPublisher eventPublisher, @Lazy WatchHistoryService watchHistoryService) {
+            ApplicationEventPublisher eventPublisher, @Lazy WatchHistoryService watchHistoryService,
+            MovieResponseAssembler movieResponseAssembler, CatalogReadModel catalogReadModel) {
         this.minio = minio;
         this.repo = repo;
         this.categoryRepository = categoryRepository;
@@ -64,6 +75,8 @@ public class MovieServiceImpl implements MovieService {
         this.directorRepository = directorRepository;
         this.eventPublisher = eventPublisher;
         this.watchHistoryService = watchHistoryService;
+        this.movieResponseAssembler = movieResponseAssembler;
+        this.catalogReadModel = catalogReadModel;
     }
 
     @Override
@@ -88,6 +101,7 @@ public class MovieServiceImpl implements MovieService {
 
         // Publish event to start transcoding after transaction commits
         eventPublisher.publishEvent(new MovieCreatedEvent(this, movie.getId(), tmp));
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movie.getId()));
 
         return new MovieUploadResponse(movie.getId(), movie.getStatus().name());
     }
@@ -102,56 +116,18 @@ public class MovieServiceImpl implements MovieService {
 
     @Override
     public MovieInfoResponse getMovieInfo(@NonNull UUID movieId, UUID customerId) {
-        Movie movie = repo.findById(movieId)
+        MovieInfoResponse movie = catalogReadModel.find(movieId)
                 .orElseThrow(() -> new NotFoundException("Movie not found with id: " + movieId));
 
-        // Fetch actors for the movie
-        List<ActorResponse> actors = movieActorRepository.findByMovieIdWithActor(movieId)
-                .stream()
-                .map(movieActor -> ActorResponse.builder()
-                        .id(movieActor.getActor().getId())
-                        .fullname(movieActor.getActor().getFullname())
-                        .biography(movieActor.getActor().getBiography())
-                        .avatar(movieActor.getActor().getAvatar())
-                        .dateOfBirth(movieActor.getActor().getDateOfBirth())
-                        .build())
-                .toList();
-
-        // Fetch directors for the movie
-        List<DirectorResponse> directors = movieDirectorRepository.findByMovieIdWithDirector(movieId)
-                .stream()
-                .map(movieDirector -> DirectorResponse.builder()
-                        .id(movieDirector.getDirector().getId())
-                        .fullname(movieDirector.getDirector().getFullname())
-                        .biography(movieDirector.getDirector().getBiography())
-                        .avatar(movieDirector.getDirector().getAvatar())
-                        .dateOfBirth(movieDirector.getDirector().getDateOfBirth())
-                        .build())
-                .toList();
-
-        // Fetch categories for the movie
-        List<CategoryResponse> categories = movieCategoryRepository.findByMovieIdWithCategory(movieId)
-                .stream()
-                .map(movieCategory -> CategoryResponse.builder()
-                        .id(movieCategory.getCategory().getId())
-                        .name(movieCategory.getCategory().getName())
-                        .build())
-                .toList();
-
         // Get last watched position if customer is logged in
         Long lastWatchedPosition = watchHistoryService.getLastWatchedPosition(movieId, customerId);
 
-        return MovieUtils.mapToMovieInfoResponse(movie, actors, directors, categories, lastWatchedPosition);
+        return MovieUtils.withLastWatchedPosition(movie, lastWatchedPosition);
     }
 
     @Override
     public List<MovieResponse> getAllMovies() {
-        return repo.findAll().stream().map(movie -> {
-            List<CategoryResponse> categories = getCategoriesForMovie(movie.getId());
-            List<ActorResponse> actors = getActorsForMovie(movie.getId());
-            List<DirectorResponse> directors = getDirectorsForMovie(movie.getId());
-            return MovieUtils.mapToMovieResponse(movie, categories, actors, directors);
-        }).toList();
+        return catalogReadModel.toResponses(repo.findAll());
     }
 
     @Override
@@ -211,6 +187,7 @@ public class MovieServiceImpl implements MovieService {
                 .map(director -> new MovieDirector(savedMovie, director))
                 .toList();
         movieDirectorRepository.saveAll(movieDirectors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, savedMovie.getId()));
 
         // Build responses
         List<CategoryResponse> categoryResponses = categories.stream()
@@ -310,6 +287,7 @@ public class MovieServiceImpl implements MovieService {
                 .map(director -> new MovieDirector(updatedMovie, director))
                 .toList();
         movieDirectorRepository.saveAll(movieDirectors);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         // Build responses
         List<CategoryResponse> categoryResponses = categories.stream()
@@ -350,6 +328,7 @@ public class MovieServiceImpl implements MovieService {
 
         // Then delete the movie
         repo.deleteById(movieId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
     }
 
     @Override
@@ -362,36 +341,60 @@ public class MovieServiceImpl implements MovieService {
         // to get only public movies
         MovieStatus statusFilter = "ADMIN".equalsIgnoreCase(userRole) ? null : MovieStatus.PUBLIC;
 
-        // Use different queries based on whether keyword exists to avoid unnecessary
-        // JOINs
+        // Keyword searches are ordered by relevance; listings use the requested sort
+        String terms = MovieUtils.toSearchTerms(keyword);
         Page<Movie> moviePage;
-        if (keyword != null && !keyword.isBlank()) {
-            // Search with JOINs when keyword is provided
-            moviePage = repo.searchMoviesByKeyword(keyword, statusFilter, pageable);
+        if (terms != null) {
+            moviePage = repo.searchMovies(terms, Normalizer.normalize(keyword.trim(), Normalizer.Form.NFC),
+                    statusFilter != null ? statusFilter.name() : null, PageRequest.of(page, size));
         } else {
-            // Simple query without JOINs when no keyword
             moviePage = repo.findAllByStatus(statusFilter, pageable);
         }
 
-        List<MovieResponse> movies = moviePage.getContent().stream().map(movie -> {
-            List<CategoryResponse> categories = getCategoriesForMovie(movie.getId());
-            List<ActorResponse> actors = getActorsForMovie(movie.getId());
-            List<DirectorResponse> directors = getDirectorsForMovie(movie.getId());
-            return MovieUtils.mapToMovieResponse(movie, categories, actors, directors);
-        }).toList();
+        List<MovieResponse> movies = catalogReadModel.toResponses(moviePage.getContent());
         return new PaginatedResponse<>(movies, moviePage.getNumber(), moviePage.getSize(), moviePage.getTotalPages());
     }
 
+    @Override
+    public CursorPage<MovieResponse> scrollMovies(String cursor, int size, String sortBy,
+            @NonNull String sortDirection, String userRole, boolean includeTotal) {
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        boolean byTitle = switch (sortBy) {
+            case "title" -> true;
+            case "createdAt" -> false;
+            default -> throw new BadRequestException("Cursor listings can only be sorted by title or createdAt");
+        };
+        int pageSize = CursorPage.clampPageSize(size);
+        MovieStatus statusFilter = "ADMIN".equalsIgnoreCase(userRole) ? null : MovieStatus.PUBLIC;
+
+        List<Specification<Movie>> filters = new ArrayList<>();
+        if (statusFilter != null) {
+            filters.add(MovieSpecifications.hasStatus(statusFilter));
+        }
+        Cursor after = Cursor.decode(cursor);
+        if (after != null) {
+            filters.add(byTitle
+                    ? MovieSpecifications.titleAfter(after, direction)
+                    : MovieSpecifications.idAfter(after, direction));
+        }
+        Sort sort = byTitle ? Sort.by(direction, "title", "id") : Sort.by(direction, "id");
+        List<Movie> rows = repo.findBy(Specification.allOf(filters),
+                query -> query.sortBy(sort).limit(pageSize + 1).all());
+
+        Long total = null;
+        if (includeTotal) {
+            total = statusFilter != null ? repo.countByStatus(statusFilter) : repo.count();
+        }
+        return CursorPage.of(rows, pageSize,
+                movie -> byTitle ? Cursor.of(movie.getTitle(), movie.getId()) : Cursor.of(movie.getId()),
+                catalogReadModel::toResponses, total);
+    }
+
     @Override
     public List<MovieResponse> getTopTenMovies() {
         var pageable = PageRequest.of(0, 10);
         List<Movie> topMovies = repo.findTop10ByStatusOrderByRankAsc(MovieStatus.PUBLIC, pageable);
-        return topMovies.stream().map(movie -> {
-            List<CategoryResponse> categories = getCategoriesForMovie(movie.getId());
-            List<ActorResponse> actors = getActorsForMovie(movie.getId());
-            List<DirectorResponse> directors = getDirectorsForMovie(movie.getId());
-            return MovieUtils.mapToMovieResponse(movie, categories, actors, directors);
-        }).toList();
+        return catalogReadModel.toResponses(topMovies);
     }
 
     private Path createTempFile() {
@@ -410,36 +413,6 @@ public class MovieServiceImpl implements MovieService {
         }
     }
 
-    private List<CategoryResponse> getCategoriesForMovie(UUID movieId) {
-        return movieCategoryRepository.findByMovieIdWithCategory(movieId)
-                .stream()
-                .map(mc -> CategoryResponse.builder()
-                        .id(mc.getCategory().getId())
-                        .name(mc.getCategory().getName())
-                        .build())
-                .toList();
-    }
-
-    private List<ActorResponse> getActorsForMovie(UUID movieId) {
-        return movieActorRepository.findByMovieIdWithActor(movieId)
-                .stream()
-                .map(ma -> ActorResponse.builder()
-                        .id(ma.getActor().getId())
-                        .fullname(ma.getActor().getFullname())
-                        .build())
-                .toList();
-    }
-
-    private List<DirectorResponse> getDirectorsForMovie(UUID movieId) {
-        return movieDirectorRepository.findByMovieIdWithDirector(movieId)
-                .stream()
-                .map(md -> DirectorResponse.builder()
-                        .id(md.getDirector().getId())
-                        .fullname(md.getDirector().getFullname())
-                        .build())
-                .toList();
-    }
-
     @Override
     public MovieProcessStatusResponse getMovieProcessStatus(@NonNull UUID movieId) {
         Movie movie = repo.findById(movieId)
@@ -476,13 +449,10 @@ public class MovieServiceImpl implements MovieService {
         // Update status
         movie.setStatus(newStatus);
         Movie updatedMovie = repo.save(movie);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
 
         // Return movie response with full details
-        List<CategoryResponse> categories = getCategoriesForMovie(movieId);
-        List<ActorResponse> actors = getActorsForMovie(movieId);
-        List<DirectorResponse> directors = getDirectorsForMovie(movieId);
-
-        return MovieUtils.mapToMovieResponse(updatedMovie, categories, actors, directors);
+        return movieResponseAssembler.toResponse(updatedMovie);
     }
 
 }
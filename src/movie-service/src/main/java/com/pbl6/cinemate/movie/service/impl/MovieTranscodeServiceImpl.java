@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.enums.MovieProcessStatus;
 import com.pbl6.cinemate.movie.enums.MovieStatus;
+import com.pbl6.cinemate.movie.event.CatalogChangedEvent;
 import com.pbl6.cinemate.movie.repository.MovieRepository;
 import com.pbl6.cinemate.movie.service.FFmpegService;
 import com.pbl6.cinemate.movie.service.MinioStorageService;
@@ -27,15 +29,17 @@ public class MovieTranscodeServiceImpl implements MovieTranscodeService {
     private final FFmpegService ffmpeg;
     private final MinioStorageService minio;
     private final MovieRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${minio.movie-bucket:}")
     private String movieBucket;
 
     public MovieTranscodeServiceImpl(FFmpegService ffmpeg, MinioStorageService minio,
-            MovieRepository repo) {
+            MovieRepository repo, ApplicationEventPublisher eventPublisher) {
         this.ffmpeg = ffmpeg;
         this.minio = minio;
         this.repo = repo;
+        this.eventPublisher = eventPublisher;
     }
 
     private void saveDurationIfPresent(Movie movie, FFmpegService.VideoMetadata metadata) {
@@ -124,5 +128,6 @@ public class MovieTranscodeServiceImpl implements MovieTranscodeService {
             movie.setProcessStatus(MovieProcessStatus.FAILED);
             repo.save(movie);
         }
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, movieId));
     }
 }
@@ -10,11 +10,14 @@ import com.pbl6.cinemate.movie.repository.ReviewRepository;
 import com.pbl6.cinemate.movie.client.InteractionRecommenderClient;
 import com.pbl6.cinemate.movie.client.dto.RatingEventRequest;
 import com.pbl6.cinemate.movie.service.ReviewService;
+import com.pbl6.cinemate.shared.dto.general.Cursor;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.exception.BadRequestException;
 import com.pbl6.cinemate.shared.exception.NotFoundException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -95,6 +98,28 @@ public class ReviewServiceImpl implements ReviewService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPage<ReviewResponse> getReviewsByMovieId(UUID movieId, String cursor, int size,
+            boolean includeTotal) {
+        log.info("Getting reviews page for movie ID: {}", movieId);
+
+        if (!movieRepository.existsById(movieId)) {
+            throw new NotFoundException("Movie not found with ID: " + movieId);
+        }
+
+        int pageSize = CursorPage.clampPageSize(size);
+        Cursor after = Cursor.decode(cursor);
+        var limit = PageRequest.of(0, pageSize + 1);
+        List<Review> rows = after == null
+                ? reviewRepository.findLatestByMovieId(movieId, limit)
+                : reviewRepository.findLatestByMovieIdBefore(movieId, after.id(), limit);
+
+        Long total = includeTotal ? reviewRepository.countByMovieIdAndDeletedAtIsNull(movieId) : null;
+        return CursorPage.of(rows, pageSize, review -> Cursor.of(review.getId()),
+                reviews -> reviews.stream().map(this::mapToReviewResponse).toList(), total);
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<ReviewResponse> getReviewsByCustomerId(UUID customerId) {
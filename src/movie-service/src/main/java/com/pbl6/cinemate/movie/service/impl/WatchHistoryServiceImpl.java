@@ -1,13 +1,20 @@
 package com.pbl6.cinemate.movie.service.impl;
 
+import com.pbl6.cinemate.movie.cache.BufferedWatchProgress;
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
+import com.pbl6.cinemate.movie.cache.ContinueWatchingRail;
+import com.pbl6.cinemate.movie.cache.WatchProgressBuffer;
 import com.pbl6.cinemate.movie.dto.request.WatchProgressRequest;
 import com.pbl6.cinemate.movie.dto.response.*;
 import com.pbl6.cinemate.movie.entity.Movie;
 import com.pbl6.cinemate.movie.entity.WatchHistory;
+import com.pbl6.cinemate.movie.enums.TrendingSignal;
 import com.pbl6.cinemate.movie.repository.*;
-import com.pbl6.cinemate.movie.client.InteractionRecommenderClient;
-import com.pbl6.cinemate.movie.client.dto.WatchEventRequest;
+import com.pbl6.cinemate.movie.service.MovieResponseAssembler;
 import com.pbl6.cinemate.movie.service.WatchHistoryService;
+import com.pbl6.cinemate.movie.trending.TrendingIndex;
+import com.pbl6.cinemate.shared.dto.general.Cursor;
+import com.pbl6.cinemate.shared.dto.general.CursorPage;
 import com.pbl6.cinemate.shared.dto.general.PaginatedResponse;
 import com.pbl6.cinemate.shared.exception.NotFoundException;
 
@@ -20,9 +27,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
 import java.time.*;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,74 +41,40 @@ import java.util.UUID;
 public class WatchHistoryServiceImpl implements WatchHistoryService {
 
         private final WatchHistoryRepository watchHistoryRepository;
-        private final MovieRepository movieRepository;
-        private final MovieCategoryRepository movieCategoryRepository;
-        private final InteractionRecommenderClient interactionClient;
-
-        @Transactional
+        private final MovieResponseAssembler movieResponseAssembler;
+        private final CatalogReadModel catalogReadModel;
+        private final WatchProgressBuffer watchProgressBuffer;
+        private final ContinueWatchingRail continueWatchingRail;
+        private final TrendingIndex trendingIndex;
+
+        /**
+         * Buffers the progress;
+         * {@link com.pbl6.cinemate.movie.scheduler.WatchProgressFlushScheduler} writes it
+         * to the database and forwards it to the recommender in batches.
+         */
         @Override
         public void saveWatchProgress(UUID movieId, UUID customerId, WatchProgressRequest request) {
-                log.info("Saving watch progress for movie ID: {} by customer ID: {}", movieId, customerId);
-
-                Movie movie = movieRepository.findById(movieId)
-                                .orElseThrow(() -> new NotFoundException("Movie not found with ID: " + movieId));
-
-                Optional<WatchHistory> existingHistory = watchHistoryRepository.findByMovieIdAndCustomerId(movieId,
-                                customerId);
-
-                WatchHistory watchHistory;
-                // Guard against null duration to avoid auto-unboxing NPEs
-                Long movieDuration = movie.getDuration();
-                long movieDurationLong = movieDuration != null ? movieDuration : 0L;
-
-                if (existingHistory.isPresent()) {
-                        if (request.lastWatchedPosition() > movieDurationLong) {
-                                request = new WatchProgressRequest(movieDurationLong);
-                        }
-
-                        watchHistory = existingHistory.get();
-                        watchHistory.setLastWatchedPosition(request.lastWatchedPosition());
-                        watchHistory.setTotalDuration(movieDurationLong);
-                } else {
-                        watchHistory = WatchHistory.builder()
-                                        .movie(movie)
-                                        .customerId(customerId)
-                                        .lastWatchedPosition(request.lastWatchedPosition())
-                                        .totalDuration(movieDurationLong)
-                                        .build();
-                }
+                log.debug("Saving watch progress for movie ID: {} by customer ID: {}", movieId, customerId);
 
-                watchHistoryRepository.save(watchHistory);
-                log.info("Watch progress saved successfully for movie ID: {} by customer ID: {}", movieId, customerId);
-
-                // Best-effort: send watch event to interaction recommender
-                try {
-                        Integer watchDuration = movie.getDuration() != null ? movie.getDuration().intValue() : null;
-                        Double progress = watchHistory.getProgressPercent();
-                        var watchReq = WatchEventRequest.create(
-                                        customerId,
-                                        movieId,
-                                        watchDuration,
-                                        null,
-                                        null,
-                                        null,
-                                        progress);
-                        interactionClient.trackWatchEvent(watchReq);
-                } catch (Exception e) {
-                        log.debug("Failed to send watch event: {}", e.getMessage());
-                }
+                long totalDuration = findDuration(movieId);
+                long position = Math.min(request.lastWatchedPosition(), totalDuration);
+
+                Instant now = Instant.now();
+                watchProgressBuffer.put(new BufferedWatchProgress(customerId, movieId, position, totalDuration, now));
+                continueWatchingRail.record(customerId,
+                                new ContinueWatchingRail.Entry(movieId, position, totalDuration, now));
+                trendingIndex.record(movieId, TrendingSignal.WATCH);
         }
 
         @Transactional(readOnly = true)
         @Override
         public WatchProgressResponse getWatchProgress(UUID movieId, UUID customerId) {
-                Movie movie = movieRepository.findById(movieId)
-                                .orElseThrow(() -> new NotFoundException("Movie not found with ID: " + movieId));
-
-                long totalDuration = movie.getDuration() != null ? movie.getDuration() : 0L;
+                long totalDuration = findDuration(movieId);
 
-                long lastWatched = watchHistoryRepository.findByMovieIdAndCustomerId(movieId, customerId)
-                                .map(WatchHistory::getLastWatchedPosition)
+                long lastWatched = watchProgressBuffer.find(customerId, movieId)
+                                .map(BufferedWatchProgress::lastWatchedPosition)
+                                .or(() -> watchHistoryRepository.findByMovieIdAndCustomerId(movieId, customerId)
+                                                .map(WatchHistory::getLastWatchedPosition))
                                 .orElse(0L);
 
                 return new WatchProgressResponse(lastWatched, totalDuration);
@@ -138,22 +115,61 @@ public class WatchHistoryServiceImpl implements WatchHistoryService {
                 Page<WatchHistory> historyPage = watchHistoryRepository.findByCustomerIdAndDate(
                                 customerId, startOfDay, endOfDay, pageable);
 
-                List<WatchHistoryResponse> historyList = historyPage.getContent().stream()
-                                .map(this::mapToWatchHistoryResponse)
-                                .toList();
+                List<WatchHistoryResponse> historyList = mapToWatchHistoryResponses(historyPage.getContent());
 
                 return new PaginatedResponse<>(historyList, historyPage.getNumber(), historyPage.getSize(),
                                 historyPage.getTotalPages());
         }
 
+        @Transactional(readOnly = true)
+        @Override
+        public CursorPage<WatchHistoryResponse> getRecentWatchHistory(UUID customerId, String cursor, int size,
+                        boolean includeTotal) {
+                int pageSize = CursorPage.clampPageSize(size);
+                Cursor after = Cursor.decode(cursor);
+                var limit = PageRequest.of(0, pageSize + 1);
+
+                List<WatchHistory> rows = after == null
+                                ? watchHistoryRepository.findRecentByCustomerId(customerId, limit)
+                                : watchHistoryRepository.findRecentByCustomerIdBefore(customerId,
+                                                after.instantKey(), after.id(), limit);
+
+                Long total = includeTotal ? watchHistoryRepository.countByCustomerId(customerId) : null;
+                return CursorPage.of(rows, pageSize,
+                                history -> Cursor.of(history.getUpdatedAt(), history.getId()),
+                                this::mapToWatchHistoryResponses, total);
+        }
+
+        /**
+         * Served from the customer's {@link ContinueWatchingRail} and the
+         * catalog read model; history is only read to rebuild a rail that is
+         * not loaded.
+         */
+        @Override
+        public List<WatchHistoryResponse> getContinueWatching(UUID customerId, int limit) {
+                int size = Math.clamp(limit, 1, continueWatchingRail.size());
+                List<ContinueWatchingRail.Entry> entries = continueWatchingRail.find(customerId, size)
+                                .orElseGet(() -> rebuildContinueWatching(customerId).stream().limit(size).toList());
+
+                Map<UUID, MovieInfoResponse> movies = catalogReadModel.findAll(
+                                entries.stream().map(ContinueWatchingRail.Entry::movieId).toList()).stream()
+                                .collect(Collectors.toMap(MovieInfoResponse::id, Function.identity()));
+                return entries.stream()
+                                .filter(entry -> movies.containsKey(entry.movieId()))
+                                .map(entry -> mapToWatchHistoryResponse(movies.get(entry.movieId()), entry))
+                                .toList();
+        }
+
         @Transactional(readOnly = true)
         @Override
         public Long getLastWatchedPosition(UUID movieId, UUID customerId) {
                 if (customerId == null) {
                         return null;
                 }
-                return watchHistoryRepository.findByMovieIdAndCustomerId(movieId, customerId)
-                                .map(WatchHistory::getLastWatchedPosition)
+                return watchProgressBuffer.find(customerId, movieId)
+                                .map(BufferedWatchProgress::lastWatchedPosition)
+                                .or(() -> watchHistoryRepository.findByMovieIdAndCustomerId(movieId, customerId)
+                                                .map(WatchHistory::getLastWatchedPosition))
                                 .orElse(null);
         }
 
@@ -161,13 +177,73 @@ public class WatchHistoryServiceImpl implements WatchHistoryService {
         @Override
         public void deleteWatchHistory(UUID movieId, UUID customerId) {
                 log.info("Deleting watch history for movie ID: {} by customer ID: {}", movieId, customerId);
+                watchProgressBuffer.discard(customerId, movieId);
+                continueWatchingRail.remove(customerId, movieId);
                 watchHistoryRepository.deleteByMovieIdAndCustomerId(movieId, customerId);
         }
 
-        private WatchHistoryResponse mapToWatchHistoryResponse(WatchHistory watchHistory) {
-                Movie movie = watchHistory.getMovie();
+        /**
+         * Loads the rail from the latest history rows plus the progress not
+         * flushed yet, which is newer wherever both have a movie.
+         *
+         * @return the loaded entries, most recently watched first
+         */
+        private List<ContinueWatchingRail.Entry> rebuildContinueWatching(UUID customerId) {
+                Map<UUID, ContinueWatchingRail.Entry> entries = new HashMap<>();
+                watchHistoryRepository.findRecentByCustomerId(customerId,
+                                PageRequest.of(0, continueWatchingRail.size()))
+                                .forEach(history -> entries.put(history.getMovie().getId(),
+                                                new ContinueWatchingRail.Entry(history.getMovie().getId(),
+                                                                history.getLastWatchedPosition(),
+                                                                history.getTotalDuration(),
+                                                                history.getUpdatedAt())));
+                watchProgressBuffer.findByCustomer(customerId)
+                                .forEach(progress -> entries.put(progress.movieId(),
+                                                new ContinueWatchingRail.Entry(progress.movieId(),
+                                                                progress.lastWatchedPosition(),
+                                                                progress.totalDuration(),
+                                                                progress.updatedAt())));
+                continueWatchingRail.load(customerId, entries.values());
+                return entries.values().stream()
+                                .sorted(Comparator.comparing(ContinueWatchingRail.Entry::watchedAt).reversed())
+                                .toList();
+        }
+
+        private long findDuration(UUID movieId) {
+                Long duration = catalogReadModel.find(movieId)
+                                .orElseThrow(() -> new NotFoundException("Movie not found with ID: " + movieId))
+                                .duration();
+                return duration != null ? duration : 0L;
+        }
 
-                List<CategoryResponse> categories = getCategoriesForMovie(movie.getId());
+        private List<WatchHistoryResponse> mapToWatchHistoryResponses(List<WatchHistory> histories) {
+                Map<UUID, List<CategoryResponse>> categories = movieResponseAssembler.categoriesByMovie(
+                                histories.stream().map(history -> history.getMovie().getId()).toList());
+                return histories.stream()
+                                .map(history -> mapToWatchHistoryResponse(history,
+                                                categories.get(history.getMovie().getId())))
+                                .toList();
+        }
+
+        private WatchHistoryResponse mapToWatchHistoryResponse(MovieInfoResponse movie,
+                        ContinueWatchingRail.Entry entry) {
+                return new WatchHistoryResponse(
+                                movie.id(),
+                                movie.title(),
+                                movie.description(),
+                                movie.qualities(),
+                                movie.horizontalPoster(),
+                                movie.age() != null ? movie.age() : 0,
+                                movie.year() != null ? movie.year() : 0,
+                                movie.categories(),
+                                entry.lastWatchedPosition(),
+                                entry.totalDuration(),
+                                entry.progressPercent());
+        }
+
+        private WatchHistoryResponse mapToWatchHistoryResponse(WatchHistory watchHistory,
+                        List<CategoryResponse> categories) {
+                Movie movie = watchHistory.getMovie();
 
                 return new WatchHistoryResponse(
                                 movie.getId(),
@@ -182,14 +258,4 @@ public class WatchHistoryServiceImpl implements WatchHistoryService {
                                 watchHistory.getTotalDuration(),
                                 watchHistory.getProgressPercent());
         }
-
-        private List<CategoryResponse> getCategoriesForMovie(UUID movieId) {
-                return movieCategoryRepository.findByMovieIdWithCategory(movieId)
-                                .stream()
-                                .map(mc -> CategoryResponse.builder()
-                                                .id(mc.getCategory().getId())
-                                                .name(mc.getCategory().getName())
-                                                .build())
-                                .toList();
-        }
 }
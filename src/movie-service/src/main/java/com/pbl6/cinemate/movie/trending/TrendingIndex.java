@@ -0,0 +1,168 @@
+package com.pbl6.cinemate.movie.trending;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.movie.cache.CatalogReadModel;
+import com.pbl6.cinemate.movie.dto.response.MovieResponse;
+import com.pbl6.cinemate.movie.enums.MovieStatus;
+import com.pbl6.cinemate.movie.enums.TrendingSignal;
+import com.pbl6.cinemate.movie.util.MovieUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * What people are watching right now, answered from memory.
+ * <p>
+ * Watch-progress heartbeats, top search results and new favorites add
+ * weighted activity to a {@link TrendingSketch} that halves every
+ * {@code trending.half-life}, so recent activity dominates and memory stays
+ * the same however many events arrive. Each instance counts the traffic it
+ * serves, which behind a load balancer is an even sample of the whole.
+ * <p>
+ * Every {@code trending.snapshot-interval} the sketch is written to Redis
+ * ({@value #SNAPSHOT_KEY}), and an instance starting up resumes from the
+ * latest snapshot instead of from nothing.
+ */
+@Slf4j
+@Service
+public class TrendingIndex {
+
+    public static final int MAX_LIMIT = 50;
+    public static final int CREDITED_SEARCH_RESULTS = 3;
+    private static final String SNAPSHOT_KEY = "trending:snapshot";
+    private final CatalogReadModel catalogReadModel;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int depth;
+    private final int width;
+    private final int capacity;
+    private final Duration halfLife;
+    private final Duration snapshotTtl;
+    private final Map<TrendingSignal, Double> weights = new EnumMap<>(TrendingSignal.class);
+    private final Map<TrendingSignal, Counter> events = new EnumMap<>(TrendingSignal.class);
+    private TrendingSketch sketch;
+
+    public TrendingIndex(CatalogReadModel catalogReadModel, StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${trending.depth}") int depth,
+            @Value("${trending.width}") int width,
+            @Value("${trending.capacity}") int capacity,
+            @Value("${trending.half-life}") Duration halfLife,
+            @Value("${trending.snapshot-ttl}") Duration snapshotTtl,
+            @Value("${trending.weights.watch}") double watchWeight,
+            @Value("${trending.weights.search}") double searchWeight,
+            @Value("${trending.weights.favorite}") double favoriteWeight) {
+        this.catalogReadModel = catalogReadModel;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.halfLife = halfLife;
+        this.snapshotTtl = snapshotTtl;
+        this.sketch = new TrendingSketch(depth, width, capacity, halfLife, Instant.now());
+        weights.put(TrendingSignal.WATCH, watchWeight);
+        weights.put(TrendingSignal.SEARCH, searchWeight);
+        weights.put(TrendingSignal.FAVORITE, favoriteWeight);
+        for (TrendingSignal signal : TrendingSignal.values()) {
+            events.put(signal, meterRegistry.counter("trending.events", "signal", signal.name().toLowerCase()));
+        }
+        Gauge.builder("trending.candidates", this, TrendingIndex::candidates)
+                .register(meterRegistry);
+    }
+
+    public void record(UUID movieId, TrendingSignal signal) {
+        Instant now = Instant.now();
+        synchronized (this) {
+            sketch.add(movieId, weights.get(signal), now);
+        }
+        events.get(signal).increment();
+    }
+
+    /**
+     * Credits the first {@value #CREDITED_SEARCH_RESULTS} results of a
+     * search, the ones people actually look at.
+     */
+    public void recordSearch(List<UUID> results) {
+        results.stream()
+                .limit(CREDITED_SEARCH_RESULTS)
+                .forEach(movieId -> record(movieId, TrendingSignal.SEARCH));
+    }
+
+    /**
+     * @return up to {@code limit} public movies with the most recent activity,
+     * most first
+     */
+    public List<MovieResponse> trending(int limit) {
+        int clamped = Math.clamp(limit, 1, MAX_LIMIT);
+        List<TrendingSketch.Trend> top;
+        synchronized (this) {
+            // a few spares stand in for candidates that are not public
+            top = sketch.top(2 * clamped, Instant.now());
+        }
+        return catalogReadModel.findAll(top.stream().map(TrendingSketch.Trend::movieId).toList()).stream()
+                .filter(movie -> MovieStatus.PUBLIC.name().equals(movie.status()))
+                .limit(clamped)
+                .map(movie -> MovieUtils.mapToMovieResponse(movie, false))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${trending.snapshot-interval}",
+            initialDelayString = "${trending.snapshot-interval}")
+    public void persist() {
+        TrendingSketch.Snapshot snapshot;
+        synchronized (this) {
+            snapshot = sketch.snapshot();
+        }
+        try {
+            redisTemplate.opsForValue().set(SNAPSHOT_KEY, objectMapper.writeValueAsString(snapshot), snapshotTtl);
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Failed to persist trending snapshot: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        TrendingSketch restored;
+        try {
+            String raw = redisTemplate.opsForValue().get(SNAPSHOT_KEY);
+            if (raw == null) {
+                return;
+            }
+            restored = TrendingSketch.restore(objectMapper.readValue(raw, TrendingSketch.Snapshot.class),
+                    depth, width, capacity, halfLife);
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Starting trending from scratch, snapshot unavailable: {}", e.getMessage());
+            return;
+        }
+        if (restored == null) {
+            log.info("Starting trending from scratch, snapshot has other dimensions");
+            return;
+        }
+        synchronized (this) {
+            sketch = restored;
+        }
+        log.info("Restored trending snapshot with {} candidates", candidates());
+    }
+
+    private synchronized int candidates() {
+        return sketch.size();
+    }
+}
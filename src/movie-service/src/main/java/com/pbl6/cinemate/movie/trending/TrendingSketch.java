@@ -0,0 +1,181 @@
+package com.pbl6.cinemate.movie.trending;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Time-decayed activity per movie in bounded memory.
+ * <p>
+ * Activity is counted in a count-min sketch ({@code depth} rows of
+ * {@code width} counters, updated conservatively), and the {@code capacity}
+ * movies with the highest estimates are kept as candidates, ordered by
+ * estimate, so the top is read without scanning every movie ever seen.
+ * <p>
+ * Counts decay exponentially with the given half-life. Decay is applied
+ * forward: an event is weighted by how far it happened after a landmark, so
+ * stored counts never need to be aged and their order stays valid. Once the
+ * weights grow large every count is scaled down and the landmark moved up.
+ * <p>
+ * Not thread-safe.
+ */
+final class TrendingSketch {
+
+    private static final Comparator<Candidate> BY_SCORE = Comparator.comparingDouble(Candidate::score)
+            .thenComparing(Candidate::movieId);
+    // e^40 is far from overflowing a double and leaves room for large weights
+    private static final double MAX_EXPONENT = 40;
+    private static final long ROW_SEED = 0x9e3779b97f4a7c15L;
+    private final int depth;
+    private final int width;
+    private final int capacity;
+    private final double decayPerMilli;
+    private final double[] counters;
+    private final int[] slots;
+    private final Map<UUID, Candidate> candidates = new HashMap<>();
+    private final NavigableSet<Candidate> ranked = new TreeSet<>(BY_SCORE);
+    private long landmark;
+
+    TrendingSketch(int depth, int width, int capacity, Duration halfLife, Instant landmark) {
+        if (depth < 1 || width < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Sketch dimensions must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+        this.counters = new double[depth * width];
+        this.slots = new int[depth];
+        this.landmark = landmark.toEpochMilli();
+    }
+
+    /**
+     * Restores a {@link #snapshot()}, or returns {@code null} if it was taken
+     * with other dimensions.
+     */
+    static TrendingSketch restore(Snapshot snapshot, int depth, int width, int capacity, Duration halfLife) {
+        if (snapshot.depth() != depth || snapshot.width() != width
+                || snapshot.counters() == null || snapshot.counters().length != depth * width) {
+            return null;
+        }
+        TrendingSketch sketch = new TrendingSketch(depth, width, capacity, halfLife,
+                Instant.ofEpochMilli(snapshot.landmark()));
+        System.arraycopy(snapshot.counters(), 0, sketch.counters, 0, sketch.counters.length);
+        if (snapshot.candidates() != null) {
+            snapshot.candidates().forEach(sketch::offer);
+        }
+        return sketch;
+    }
+
+    void add(UUID movieId, double weight, Instant at) {
+        long millis = at.toEpochMilli();
+        if ((millis - landmark) * decayPerMilli > MAX_EXPONENT) {
+            rescale(millis);
+        }
+        double scaled = weight * Math.exp((millis - landmark) * decayPerMilli);
+
+        long hash = hash(movieId);
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            slots[row] = row * width + (int) Math.floorMod(mix(hash + row * ROW_SEED), (long) width);
+            estimate = Math.min(estimate, counters[slots[row]]);
+        }
+        // Conservative update: only counters below the new estimate grow
+        double updated = estimate + scaled;
+        for (int row = 0; row < depth; row++) {
+            counters[slots[row]] = Math.max(counters[slots[row]], updated);
+        }
+        offer(movieId, updated);
+    }
+
+    /**
+     * @return up to {@code limit} movies with the most activity, most first,
+     * with their counts decayed to {@code now}
+     */
+    List<Trend> top(int limit, Instant now) {
+        double decay = Math.exp(-(now.toEpochMilli() - landmark) * decayPerMilli);
+        List<Trend> top = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Candidate candidate : ranked.descendingSet()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new Trend(candidate.movieId(), candidate.score() * decay));
+        }
+        return top;
+    }
+
+    int size() {
+        return candidates.size();
+    }
+
+    Snapshot snapshot() {
+        Map<UUID, Double> scores = HashMap.newHashMap(candidates.size());
+        candidates.values().forEach(candidate -> scores.put(candidate.movieId(), candidate.score()));
+        return new Snapshot(landmark, depth, width, counters.clone(), scores);
+    }
+
+    private void offer(UUID movieId, double score) {
+        Candidate current = candidates.get(movieId);
+        if (current != null) {
+            ranked.remove(current);
+        } else if (candidates.size() >= capacity) {
+            Candidate lowest = ranked.first();
+            if (lowest.score() >= score) {
+                return;
+            }
+            ranked.pollFirst();
+            candidates.remove(lowest.movieId());
+        }
+        Candidate candidate = new Candidate(movieId, score);
+        candidates.put(movieId, candidate);
+        ranked.add(candidate);
+    }
+
+    private void rescale(long millis) {
+        double factor = Math.exp(-(millis - landmark) * decayPerMilli);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] *= factor;
+        }
+        List<Candidate> scaled = ranked.stream()
+                .map(candidate -> new Candidate(candidate.movieId(), candidate.score() * factor))
+                .toList();
+        ranked.clear();
+        ranked.addAll(scaled);
+        scaled.forEach(candidate -> candidates.put(candidate.movieId(), candidate));
+        landmark = millis;
+    }
+
+    private static long hash(UUID movieId) {
+        return mix(movieId.getMostSignificantBits() ^ mix(movieId.getLeastSignificantBits()));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Candidate(UUID movieId, double score) {
+    }
+
+    /**
+     * A movie and its decayed activity.
+     */
+    record Trend(UUID movieId, double score) {
+    }
+
+    /**
+     * Counters and candidate scores, both relative to {@code landmark}
+     * (epoch milliseconds).
+     */
+    record Snapshot(long landmark, int depth, int width, double[] counters, Map<UUID, Double> candidates) {
+    }
+}
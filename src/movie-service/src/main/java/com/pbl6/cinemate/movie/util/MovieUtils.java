@@ -8,12 +8,36 @@ import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
 import com.pbl6.cinemate.movie.dto.response.MovieResponse;
 import com.pbl6.cinemate.movie.entity.Movie;
 
+import java.text.Normalizer;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 public final class MovieUtils {
+    private static final String NON_WORD = "[^\\p{L}\\p{N}]+";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
     private MovieUtils() {
     }
 
+    /**
+     * Builds {@code to_tsquery} text matching every word of {@code keyword},
+     * the last one as a prefix since it may still be being typed. Input is
+     * composed to NFC first, so decomposed diacritics are not word breaks.
+     *
+     * @return the query text, or {@code null} if the keyword has no words
+     */
+    public static String toSearchTerms(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        List<String> words = Arrays.stream(Normalizer.normalize(keyword, Normalizer.Form.NFC).split(NON_WORD))
+                .filter(word -> !word.isEmpty())
+                .toList();
+        return words.isEmpty() ? null : String.join(" & ", words) + ":*";
+    }
+
     public static MovieResponse mapToMovieResponse(Movie movie, List<CategoryResponse> categories,
             List<ActorResponse> actors, List<DirectorResponse> directors) {
         return new MovieResponse(
@@ -61,6 +85,71 @@ public final class MovieUtils {
                 lastWatchedPosition);
     }
 
+    /**
+     * Lower-cases {@code text}, strips diacritics ("Đất Rừng" becomes "dat
+     * rung") and collapses everything that is not a letter or digit into
+     * single spaces.
+     */
+    public static String foldForSearch(String text) {
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('\u0111', 'd')
+                .replace('\u0110', 'D');
+        return stripped.toLowerCase(Locale.ROOT).replaceAll(NON_WORD, " ").trim();
+    }
+
+    /**
+     * Listing response from a catalog document; in summary form actors and
+     * directors carry only their id and name.
+     */
+    public static MovieResponse mapToMovieResponse(MovieInfoResponse movie, boolean detailed) {
+        return new MovieResponse(
+                movie.id(),
+                movie.title(),
+                movie.description(),
+                movie.status(),
+                movie.horizontalPoster(),
+                movie.verticalPoster(),
+                movie.releaseDate(),
+                movie.trailerUrl(),
+                movie.age(),
+                movie.year(),
+                movie.country(),
+                movie.isVip(),
+                movie.rank(),
+                movie.duration(),
+                movie.categories(),
+                detailed ? movie.actors() : movie.actors().stream()
+                        .map(actor -> ActorResponse.builder().id(actor.id()).fullname(actor.fullname()).build())
+                        .toList(),
+                detailed ? movie.directors() : movie.directors().stream()
+                        .map(director -> DirectorResponse.builder().id(director.id()).fullname(director.fullname())
+                                .build())
+                        .toList());
+    }
+
+    public static MovieInfoResponse withLastWatchedPosition(MovieInfoResponse movie, Long lastWatchedPosition) {
+        return new MovieInfoResponse(
+                movie.id(),
+                movie.title(),
+                movie.description(),
+                movie.status(),
+                movie.qualities(),
+                movie.verticalPoster(),
+                movie.horizontalPoster(),
+                movie.releaseDate(),
+                movie.trailerUrl(),
+                movie.age(),
+                movie.year(),
+                movie.country(),
+                movie.isVip(),
+                movie.rank(),
+                movie.duration(),
+                movie.actors(),
+                movie.directors(),
+                movie.categories(),
+                lastWatchedPosition);
+    }
+
     public static Movie mapToMovie(MovieRequest movieRequest) {
         return Movie.builder()
                 .age(movieRequest.getAge())
@@ -0,0 +1,154 @@
+-- Flyway migration V4: Full-text and trigram search over a per-movie search document
+-- Replaces LIKE '%keyword%' over five joins with indexed lookups on one row per movie
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Lower-cased, accent-free text ("Đất Rừng Phương Nam" -> "dat rung phuong nam").
+-- unaccent() is only STABLE because its dictionary could change; pinning the dictionary
+-- makes the wrapper safe to use in indexes.
+CREATE OR REPLACE FUNCTION search_normalize(value TEXT)
+RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, value));
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Search document, one row per movie
+-- document: weighted full-text vector, A = title, B = actors and directors, C = categories and country, D = description
+-- names: title, people and categories, for typo-tolerant trigram matching
+CREATE TABLE movie_search (
+    movie_id UUID PRIMARY KEY,
+    names TEXT NOT NULL,
+    document TSVECTOR NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_movie_search_movie FOREIGN KEY (movie_id) REFERENCES movies (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_movie_search_document ON movie_search USING GIN (document);
+CREATE INDEX idx_movie_search_names_trgm ON movie_search USING GIN (names gin_trgm_ops);
+
+-- Rebuilds the search documents of the given movies
+CREATE OR REPLACE FUNCTION refresh_movie_search(movie_ids UUID[])
+RETURNS VOID AS $$
+    INSERT INTO movie_search (movie_id, names, document, updated_at)
+    SELECT m.id,
+           search_normalize(concat_ws(' ', m.title, people.names, genres.names)),
+           setweight(to_tsvector('simple', search_normalize(coalesce(m.title, ''))), 'A')
+               || setweight(to_tsvector('simple', search_normalize(coalesce(people.names, ''))), 'B')
+               || setweight(to_tsvector('simple', search_normalize(concat_ws(' ', genres.names, m.country))), 'C')
+               || setweight(to_tsvector('simple', search_normalize(coalesce(m.description, ''))), 'D'),
+           NOW()
+    FROM movies m
+    LEFT JOIN LATERAL (
+        SELECT string_agg(person.fullname, ' ') AS names
+        FROM (
+            SELECT a.fullname FROM movie_actor ma JOIN actor a ON a.id = ma.actor_id WHERE ma.movie_id = m.id
+            UNION ALL
+            SELECT d.fullname FROM movie_director md JOIN director d ON d.id = md.director_id WHERE md.movie_id = m.id
+        ) person
+    ) people ON TRUE
+    LEFT JOIN LATERAL (
+        SELECT string_agg(c.name, ' ') AS names
+        FROM movie_categories mc JOIN categories c ON c.id = mc.category_id
+        WHERE mc.movie_id = m.id
+    ) genres ON TRUE
+    WHERE m.id = ANY (movie_ids)
+    ON CONFLICT (movie_id) DO UPDATE
+        SET names = EXCLUDED.names,
+            document = EXCLUDED.document,
+            updated_at = EXCLUDED.updated_at;
+$$ LANGUAGE sql;
+
+-- Keep documents in step with the rows they are built from
+
+CREATE OR REPLACE FUNCTION refresh_movie_search_for_movie()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_movie_search(ARRAY[NEW.id]);
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER refresh_movie_search_on_movie_insert
+    AFTER INSERT ON movies
+    FOR EACH ROW
+    EXECUTE FUNCTION refresh_movie_search_for_movie();
+
+CREATE TRIGGER refresh_movie_search_on_movie_update
+    AFTER UPDATE OF title, description, country ON movies
+    FOR EACH ROW
+    WHEN (OLD.title IS DISTINCT FROM NEW.title
+        OR OLD.description IS DISTINCT FROM NEW.description
+        OR OLD.country IS DISTINCT FROM NEW.country)
+    EXECUTE FUNCTION refresh_movie_search_for_movie();
+
+CREATE OR REPLACE FUNCTION refresh_movie_search_for_link()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM refresh_movie_search(ARRAY[OLD.movie_id]);
+    ELSE
+        PERFORM refresh_movie_search(ARRAY[NEW.movie_id]);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER refresh_movie_search_on_movie_actor
+    AFTER INSERT OR DELETE ON movie_actor
+    FOR EACH ROW
+    EXECUTE FUNCTION refresh_movie_search_for_link();
+
+CREATE TRIGGER refresh_movie_search_on_movie_director
+    AFTER INSERT OR DELETE ON movie_director
+    FOR EACH ROW
+    EXECUTE FUNCTION refresh_movie_search_for_link();
+
+CREATE TRIGGER refresh_movie_search_on_movie_categories
+    AFTER INSERT OR DELETE ON movie_categories
+    FOR EACH ROW
+    EXECUTE FUNCTION refresh_movie_search_for_link();
+
+CREATE OR REPLACE FUNCTION refresh_movie_search_for_actor()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_movie_search(ARRAY(SELECT movie_id FROM movie_actor WHERE actor_id = NEW.id));
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER refresh_movie_search_on_actor_update
+    AFTER UPDATE OF fullname ON actor
+    FOR EACH ROW
+    WHEN (OLD.fullname IS DISTINCT FROM NEW.fullname)
+    EXECUTE FUNCTION refresh_movie_search_for_actor();
+
+CREATE OR REPLACE FUNCTION refresh_movie_search_for_director()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_movie_search(ARRAY(SELECT movie_id FROM movie_director WHERE director_id = NEW.id));
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER refresh_movie_search_on_director_update
+    AFTER UPDATE OF fullname ON director
+    FOR EACH ROW
+    WHEN (OLD.fullname IS DISTINCT FROM NEW.fullname)
+    EXECUTE FUNCTION refresh_movie_search_for_director();
+
+CREATE OR REPLACE FUNCTION refresh_movie_search_for_category()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_movie_search(ARRAY(SELECT movie_id FROM movie_categories WHERE category_id = NEW.id));
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER refresh_movie_search_on_category_update
+    AFTER UPDATE OF name ON categories
+    FOR EACH ROW
+    WHEN (OLD.name IS DISTINCT FROM NEW.name)
+    EXECUTE FUNCTION refresh_movie_search_for_category();
+
+-- Build documents for the existing catalog
+SELECT refresh_movie_search(ARRAY(SELECT id FROM movies));
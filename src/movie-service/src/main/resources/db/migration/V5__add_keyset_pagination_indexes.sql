@@ -0,0 +1,18 @@
+-- Flyway migration V5: Indexes matching the keyset (cursor) listings
+-- Each index has the listing's filter columns first and its full sort order, id included, after them,
+-- so the next page starts with an index seek to the cursor instead of skipping OFFSET rows
+
+-- Movies by title: (title, id) breaks ties between equal titles
+DROP INDEX IF EXISTS idx_movies_title;
+CREATE INDEX idx_movies_title_id ON movies (title, id);
+CREATE INDEX idx_movies_status_title_id ON movies (status, title, id);
+
+-- Movies by creation: UUIDv7 ids sort by creation time, the primary key covers the unfiltered listing
+CREATE INDEX idx_movies_status_id ON movies (status, id);
+
+-- Watch history, most recent first
+DROP INDEX IF EXISTS idx_watch_history_customer_updated;
+CREATE INDEX idx_watch_history_customer_updated_id ON watch_history (customer_id, updated_at DESC, id DESC);
+
+-- Reviews of a movie, newest first, skipping deleted ones
+CREATE INDEX idx_review_movie_id_active ON review (movie_id, id DESC) WHERE deleted_at IS NULL;
@@ -0,0 +1,50 @@
+-- Flyway migration V6: Per-movie rating aggregates kept up to date by review writes
+-- Lets the ranking job rank every public movie in one statement instead of one AVG query per movie
+
+-- Count and sum of the stars of a movie's active (not soft-deleted) reviews
+CREATE TABLE movie_rating (
+    movie_id UUID PRIMARY KEY,
+    rating_count INTEGER NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT fk_movie_rating_movie FOREIGN KEY (movie_id) REFERENCES movies (id) ON DELETE CASCADE
+);
+
+-- Removing a review's stars only ever updates an existing row, so it is safe while the movie itself is
+-- being deleted and its reviews cascade; adding them creates the row on a movie's first review
+CREATE OR REPLACE FUNCTION track_movie_rating()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' AND OLD.deleted_at IS NULL THEN
+        UPDATE movie_rating
+        SET rating_count = rating_count - 1,
+            rating_sum = rating_sum - OLD.stars
+        WHERE movie_id = OLD.movie_id;
+    END IF;
+    IF TG_OP <> 'DELETE' AND NEW.deleted_at IS NULL THEN
+        INSERT INTO movie_rating (movie_id, rating_count, rating_sum)
+        VALUES (NEW.movie_id, 1, NEW.stars)
+        ON CONFLICT (movie_id) DO UPDATE
+            SET rating_count = movie_rating.rating_count + 1,
+                rating_sum = movie_rating.rating_sum + EXCLUDED.rating_sum;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE 'plpgsql';
+
+CREATE TRIGGER track_movie_rating_on_review_insert_or_delete
+    AFTER INSERT OR DELETE ON review
+    FOR EACH ROW
+    EXECUTE FUNCTION track_movie_rating();
+
+CREATE TRIGGER track_movie_rating_on_review_update
+    AFTER UPDATE OF stars, deleted_at ON review
+    FOR EACH ROW
+    WHEN (OLD.stars IS DISTINCT FROM NEW.stars OR OLD.deleted_at IS DISTINCT FROM NEW.deleted_at)
+    EXECUTE FUNCTION track_movie_rating();
+
+-- Aggregates for the existing reviews
+INSERT INTO movie_rating (movie_id, rating_count, rating_sum)
+SELECT movie_id, COUNT(*), SUM(stars)
+FROM review
+WHERE deleted_at IS NULL
+GROUP BY movie_id;
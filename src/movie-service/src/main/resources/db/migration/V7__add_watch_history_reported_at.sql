@@ -0,0 +1,10 @@
+-- Flyway migration V7: When the buffered watch progress in a row was reported
+-- updated_at is reset to the write time by its trigger, so it cannot order reports flushed out of order
+-- nor tell which report a row still holds
+
+ALTER TABLE watch_history ADD COLUMN reported_at TIMESTAMP WITH TIME ZONE;
+UPDATE watch_history SET reported_at = updated_at;
+ALTER TABLE watch_history ALTER COLUMN reported_at SET DEFAULT NOW();
+ALTER TABLE watch_history ALTER COLUMN reported_at SET NOT NULL;
+
+COMMENT ON COLUMN watch_history.reported_at IS 'When the viewer reported the progress held in the row, set by the watch progress flush';
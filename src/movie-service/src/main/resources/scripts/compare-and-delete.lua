@@ -0,0 +1,7 @@
+-- Deletes KEYS[1] only if it still holds ARGV[1], e.g. to release a lease
+-- without dropping one another instance took after it expired.
+-- Returns the number of keys deleted.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
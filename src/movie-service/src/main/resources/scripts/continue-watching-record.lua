@@ -0,0 +1,18 @@
+-- Records progress on a loaded continue-watching rail and trims it.
+-- KEYS[1]: recency sorted set, KEYS[2]: progress hash (exists only while the rail is loaded)
+-- ARGV[1]: movie id, ARGV[2]: watched-at score, ARGV[3]: progress, ARGV[4]: max size, ARGV[5]: ttl in seconds
+-- Returns 1 when recorded, 0 when the rail is not loaded and will be rebuilt on its next read.
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    return 0
+end
+redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+local keep = tonumber(ARGV[4])
+local evicted = redis.call('ZRANGE', KEYS[1], 0, -(keep + 1))
+if #evicted > 0 then
+    redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(keep + 1))
+    redis.call('HDEL', KEYS[2], unpack(evicted))
+end
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+redis.call('EXPIRE', KEYS[2], ARGV[5])
+return 1
@@ -0,0 +1,9 @@
+-- Deletes each field ARGV[i] of hash KEYS[1] only if it still holds ARGV[i + 1].
+-- Returns the number of fields deleted.
+local deleted = 0
+for i = 1, #ARGV, 2 do
+    if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+        deleted = deleted + redis.call('HDEL', KEYS[1], ARGV[i])
+    end
+end
+return deleted
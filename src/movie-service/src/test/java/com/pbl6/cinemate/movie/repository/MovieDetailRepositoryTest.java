@@ -0,0 +1,126 @@
+package com.pbl6.cinemate.movie.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pbl6.cinemate.movie.dto.response.MovieInfoResponse;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the detail query against a migrated PostgreSQL and counts the
+ * statements it prepares.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MovieDetailRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+    private static final String SEED = """
+            INSERT INTO movies (title, status, process_status, qualities)
+            SELECT 'Movie ' || lpad(i::text, 2, '0'), 'PUBLIC', 'COMPLETED', ARRAY['720p', '1080p']
+            FROM generate_series(1, 50) i;
+            INSERT INTO categories (name) VALUES ('Drama'), ('Thriller');
+            INSERT INTO actor (fullname, date_of_birth)
+            SELECT 'Actor ' || i, DATE '1990-05-01' FROM generate_series(1, 3) i;
+            INSERT INTO director (fullname) VALUES ('Director');
+            INSERT INTO movie_categories (movie_id, category_id)
+            SELECT m.id, c.id FROM movies m CROSS JOIN categories c;
+            INSERT INTO movie_actor (movie_id, actor_id) SELECT m.id, a.id FROM movies m CROSS JOIN actor a;
+            INSERT INTO movie_director (movie_id, director_id) SELECT m.id, d.id FROM movies m CROSS JOIN director d;
+            """;
+    private static List<UUID> movieIds;
+    private final AtomicInteger statements = new AtomicInteger();
+    private MovieDetailRepository repository;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource());
+        jdbcTemplate.execute(SEED);
+        movieIds = jdbcTemplate.queryForList("SELECT id FROM movies ORDER BY title", UUID.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new MovieDetailRepository(new JdbcTemplate(countingStatements(dataSource())),
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void readsDetailsWithOneStatementWhateverTheNumberOfMovies(int movieCount) {
+        List<UUID> ids = movieIds.subList(0, movieCount);
+
+        List<MovieInfoResponse> movies = repository.findAllById(ids);
+
+        assertThat(statements).hasValue(1);
+        assertThat(movies).extracting(MovieInfoResponse::id).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(movies).allSatisfy(movie -> {
+            assertThat(movie.qualities()).containsExactly("720p", "1080p");
+            assertThat(movie.actors()).extracting("fullname").containsExactly("Actor 1", "Actor 2", "Actor 3");
+            assertThat(movie.actors().get(0).dateOfBirth()).isEqualTo(LocalDate.of(1990, 5, 1));
+            assertThat(movie.directors()).extracting("fullname").containsExactly("Director");
+            assertThat(movie.categories()).extracting("name").containsExactly("Drama", "Thriller");
+        });
+    }
+
+    @Test
+    void skipsTheQueryWithoutIds() {
+        assertThat(repository.findAllById(List.of())).isEmpty();
+        assertThat(statements).hasValue(0);
+    }
+
+    private static DataSource dataSource() {
+        return new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    /**
+     * Wraps connections so every statement they prepare or create is counted.
+     */
+    private DataSource countingStatements(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                                statements.incrementAndGet();
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package com.pbl6.cinemate.movie.repository;
+
+import com.pbl6.cinemate.movie.cache.BufferedWatchProgress;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flushes watch progress into a migrated PostgreSQL, whose trigger resets
+ * {@code updated_at} on every update.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class WatchHistoryBatchRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+    private static JdbcTemplate jdbcTemplate;
+    private static UUID movieId;
+    private final UUID customerId = UUID.randomUUID();
+    // reported a while ago, so every report is older than the trigger's write time
+    private final Instant reportedAt = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+    private WatchHistoryBatchRepository repository;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        movieId = jdbcTemplate.queryForObject(
+                "INSERT INTO movies (title, status, process_status) VALUES ('Movie', 'PUBLIC', 'COMPLETED') RETURNING id",
+                UUID.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new WatchHistoryBatchRepository(jdbcTemplate);
+    }
+
+    @Test
+    void appliesLaterReportsAfterTheTriggerMovedUpdatedAt() {
+        repository.upsertAll(List.of(progress(10, 0)));
+        repository.upsertAll(List.of(progress(20, 1)));
+
+        repository.upsertAll(List.of(progress(30, 2)));
+
+        assertThat(position()).isEqualTo(30);
+    }
+
+    @Test
+    void skipsReportsOlderThanTheOneHeld() {
+        repository.upsertAll(List.of(progress(20, 2)));
+
+        repository.upsertAll(List.of(progress(10, 1)));
+
+        assertThat(position()).isEqualTo(20);
+    }
+
+    @Test
+    void deletesAnUpdatedRowStillHoldingTheReport() {
+        repository.upsertAll(List.of(progress(10, 0)));
+        BufferedWatchProgress latest = progress(20, 1);
+        repository.upsertAll(List.of(latest));
+
+        repository.deleteAll(List.of(progress(10, 0)));
+        assertThat(rows()).isEqualTo(1);
+
+        repository.deleteAll(List.of(latest));
+        assertThat(rows()).isZero();
+    }
+
+    private BufferedWatchProgress progress(long position, int minutesLater) {
+        return new BufferedWatchProgress(customerId, movieId, position, 100,
+                reportedAt.plus(minutesLater, ChronoUnit.MINUTES));
+    }
+
+    private Long position() {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_watched_position FROM watch_history WHERE customer_id = ? AND movie_id = ?",
+                Long.class, customerId, movieId);
+    }
+
+    private Integer rows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM watch_history WHERE customer_id = ? AND movie_id = ?",
+                Integer.class, customerId, movieId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.pbl6.cinemate.movie.search;
+
+import com.pbl6.cinemate.movie.util.MovieUtils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    @Test
+    void returnsHeaviestDistinctValuesForPrefix() {
+        PrefixIndex<String> index = PrefixIndex.<String>builder()
+                .add("dark knight", "The Dark Knight", 2.0)
+                .add("knight", "The Dark Knight", 2.0)
+                .add("dat rung phuong nam", "Đất Rừng Phương Nam", 1.5)
+                .add("rung phuong nam", "Đất Rừng Phương Nam", 1.5)
+                .add("phuong nam", "Đất Rừng Phương Nam", 1.5)
+                .add("nam", "Đất Rừng Phương Nam", 1.5)
+                .add("da vinci code", "The Da Vinci Code", 1.1)
+                .add("drama", "Drama", 3.0)
+                .build();
+
+        assertThat(index.top("d", 10))
+                .containsExactly("Drama", "The Dark Knight", "Đất Rừng Phương Nam", "The Da Vinci Code");
+        assertThat(index.top("da", 2)).containsExactly("The Dark Knight", "Đất Rừng Phương Nam");
+        assertThat(index.top("kni", 10)).containsExactly("The Dark Knight");
+        assertThat(index.top("x", 10)).isEmpty();
+    }
+
+    @Test
+    void foldsDiacriticsLikeTheIndexedKeys() {
+        assertThat(MovieUtils.foldForSearch("  Đất Rừng-Phương Nam! ")).isEqualTo("dat rung phuong nam");
+        assertThat(PrefixIndex.empty().top(MovieUtils.foldForSearch("Đất"), 5)).isEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package com.pbl6.cinemate.movie.service;
+
+import com.pbl6.cinemate.movie.dto.response.MovieResponse;
+import com.pbl6.cinemate.movie.entity.Actor;
+import com.pbl6.cinemate.movie.entity.Category;
+import com.pbl6.cinemate.movie.entity.Movie;
+import com.pbl6.cinemate.movie.entity.MovieActor;
+import com.pbl6.cinemate.movie.entity.MovieCategory;
+import com.pbl6.cinemate.movie.repository.MovieActorRepository;
+import com.pbl6.cinemate.movie.repository.MovieCategoryRepository;
+import com.pbl6.cinemate.movie.repository.MovieDirectorRepository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class MovieResponseAssemblerTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void loadsRelationsWithOneQueryPerTypeWhateverThePageSize(int pageSize) {
+        MovieCategoryRepository categories = mock(MovieCategoryRepository.class);
+        MovieActorRepository actors = mock(MovieActorRepository.class);
+        MovieDirectorRepository directors = mock(MovieDirectorRepository.class);
+        List<Movie> movies = IntStream.range(0, pageSize)
+                .<Movie>mapToObj(i -> Movie.builder().id(UUID.randomUUID()).title("Movie " + i).build())
+                .toList();
+        Category drama = Category.builder().id(UUID.randomUUID()).name("Drama").build();
+        Actor actor = Actor.builder().id(UUID.randomUUID()).fullname("Actor").build();
+        when(categories.findByMovieIdInWithCategory(anyCollection())).thenReturn(movies.stream()
+                .map(movie -> new MovieCategory(movie, drama))
+                .toList());
+        when(actors.findByMovieIdInWithActor(anyCollection()))
+                .thenReturn(List.of(new MovieActor(movies.get(0), actor)));
+        when(directors.findByMovieIdInWithDirector(anyCollection())).thenReturn(List.of());
+
+        List<MovieResponse> responses = new MovieResponseAssembler(categories, actors, directors)
+                .toResponses(movies);
+
+        verify(categories, times(1)).findByMovieIdInWithCategory(anyCollection());
+        verify(actors, times(1)).findByMovieIdInWithActor(anyCollection());
+        verify(directors, times(1)).findByMovieIdInWithDirector(anyCollection());
+        verifyNoMoreInteractions(categories, actors, directors);
+        assertThat(responses).extracting(MovieResponse::id)
+                .containsExactlyElementsOf(movies.stream().map(Movie::getId).toList());
+        assertThat(responses).allSatisfy(response -> assertThat(response.categories()).hasSize(1));
+        assertThat(responses.get(0).actors()).extracting("fullname").containsExactly("Actor");
+        assertThat(responses).allSatisfy(response -> assertThat(response.directors()).isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.pbl6.cinemate.movie.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrendingSketchTest {
+
+    private static final Duration HALF_LIFE = Duration.ofHours(1);
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void ranksHeavyHittersAboveTheLongTailWithinCapacity() {
+        TrendingSketch sketch = new TrendingSketch(4, 256, 10, HALF_LIFE, START);
+        List<UUID> hits = IntStream.range(0, 3).mapToObj(i -> UUID.randomUUID()).toList();
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < hits.size(); i++) {
+                sketch.add(hits.get(i), 3 - i, START);
+            }
+            for (int i = 0; i < 50; i++) {
+                sketch.add(UUID.randomUUID(), 1, START);
+            }
+        }
+
+        assertThat(sketch.size()).isEqualTo(10);
+        assertThat(sketch.top(3, START)).extracting(TrendingSketch.Trend::movieId).containsExactlyElementsOf(hits);
+        // conservative updates keep the estimate close despite 5000 one-off movies in 256 counters
+        assertThat(sketch.top(1, START).get(0).score()).isCloseTo(300.0, within(30.0));
+    }
+
+    @Test
+    void recentActivityOutweighsOlderActivity() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 10, HALF_LIFE, START);
+        UUID yesterday = UUID.randomUUID();
+        UUID now = UUID.randomUUID();
+        Instant later = START.plus(Duration.ofHours(3));
+        for (int i = 0; i < 100; i++) {
+            sketch.add(yesterday, 1, START);
+        }
+        for (int i = 0; i < 20; i++) {
+            sketch.add(now, 1, later);
+        }
+
+        List<TrendingSketch.Trend> top = sketch.top(2, later);
+
+        assertThat(top).extracting(TrendingSketch.Trend::movieId).containsExactly(now, yesterday);
+        assertThat(top.get(1).score()).isCloseTo(12.5, within(0.01));
+    }
+
+    @Test
+    void keepsScoresAcrossRescalingAndSnapshots() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 10, HALF_LIFE, START);
+        UUID movie = UUID.randomUUID();
+        sketch.add(movie, 8, START);
+        // far enough ahead to move the landmark
+        Instant later = START.plus(HALF_LIFE.multipliedBy(100));
+        sketch.add(movie, 1, later);
+
+        TrendingSketch restored = TrendingSketch.restore(sketch.snapshot(), 4, 1024, 10, HALF_LIFE);
+
+        assertThat(restored).isNotNull();
+        assertThat(restored.top(1, later).get(0).score()).isCloseTo(1.0, within(1e-9));
+        assertThat(TrendingSketch.restore(sketch.snapshot(), 4, 2048, 10, HALF_LIFE)).isNull();
+    }
+}
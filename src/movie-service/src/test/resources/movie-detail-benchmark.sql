@@ -0,0 +1,81 @@
+-- Movie detail benchmark on a synthetic catalog of 20k movies with 5 categories, 10 actors and 2 directors each
+--
+-- Run against a migrated, disposable movie database:
+--   psql -h localhost -p 5932 -U "$MOVIE_POSTGRES_USER" -d movie_db -f movie-detail-benchmark.sql
+-- Everything runs in one transaction that is rolled back at the end.
+-- Catalog documents used to be built from four queries (movies, then categories, actors and directors,
+-- each hydrated into entities); MovieDetailRepository builds them with the single statement below.
+-- Compare the sum of the four "Before" timings, plus three extra round-trips, with the "After" one.
+
+BEGIN;
+
+\timing on
+
+ALTER TABLE movies DISABLE TRIGGER refresh_movie_search_on_movie_insert;
+
+INSERT INTO movies (title, status, process_status, qualities)
+SELECT 'Movie ' || md5(i::text), 'PUBLIC', 'COMPLETED', ARRAY['720p', '1080p']
+FROM generate_series(1, 20000) i;
+
+INSERT INTO categories (name) SELECT 'Benchmark category ' || i FROM generate_series(1, 50) i;
+INSERT INTO actor (fullname, biography) SELECT 'Actor ' || i, repeat('Bio ', 50) FROM generate_series(1, 5000) i;
+INSERT INTO director (fullname, biography) SELECT 'Director ' || i, repeat('Bio ', 50) FROM generate_series(1, 1000) i;
+
+CREATE TEMP TABLE bench_movies AS SELECT id, row_number() OVER (ORDER BY id) AS n FROM movies;
+CREATE TEMP TABLE bench_categories AS
+    SELECT id, row_number() OVER (ORDER BY id) AS n FROM categories WHERE name LIKE 'Benchmark category %';
+CREATE TEMP TABLE bench_actors AS SELECT id, row_number() OVER (ORDER BY id) AS n FROM actor;
+CREATE TEMP TABLE bench_directors AS SELECT id, row_number() OVER (ORDER BY id) AS n FROM director;
+
+INSERT INTO movie_categories (movie_id, category_id)
+SELECT m.id, c.id FROM bench_movies m CROSS JOIN generate_series(0, 4) k
+JOIN bench_categories c ON c.n = 1 + (m.n * 7 + k) % 50;
+INSERT INTO movie_actor (movie_id, actor_id)
+SELECT m.id, a.id FROM bench_movies m CROSS JOIN generate_series(0, 9) k
+JOIN bench_actors a ON a.n = 1 + (m.n * 13 + k) % 5000;
+INSERT INTO movie_director (movie_id, director_id)
+SELECT m.id, d.id FROM bench_movies m CROSS JOIN generate_series(0, 1) k
+JOIN bench_directors d ON d.n = 1 + (m.n * 3 + k) % 1000;
+
+ANALYZE;
+
+-- A rebuild of one document and of a 50-movie page
+CREATE TEMP TABLE one_movie AS SELECT ARRAY(SELECT id FROM bench_movies WHERE n = 1) AS ids;
+CREATE TEMP TABLE page AS SELECT ARRAY(SELECT id FROM bench_movies WHERE n % 400 = 0) AS ids;
+
+-- Before: the four queries of the entity path, for the page
+EXPLAIN (ANALYZE, BUFFERS) SELECT m.* FROM movies m WHERE m.id = ANY ((SELECT ids FROM page)::uuid[]);
+EXPLAIN (ANALYZE, BUFFERS) SELECT mc.*, c.* FROM movie_categories mc JOIN categories c ON c.id = mc.category_id
+WHERE mc.movie_id = ANY ((SELECT ids FROM page)::uuid[]);
+EXPLAIN (ANALYZE, BUFFERS) SELECT ma.*, a.* FROM movie_actor ma JOIN actor a ON a.id = ma.actor_id
+WHERE ma.movie_id = ANY ((SELECT ids FROM page)::uuid[]);
+EXPLAIN (ANALYZE, BUFFERS) SELECT md.*, d.* FROM movie_director md JOIN director d ON d.id = md.director_id
+WHERE md.movie_id = ANY ((SELECT ids FROM page)::uuid[]);
+
+-- After: the single statement, for one movie and for the page
+PREPARE movie_detail(uuid[]) AS
+SELECT m.id, m.title, m.description, m.status, m.qualities, m.vertical_poster, m.horizontal_poster,
+    m.release_date, m.trailer_url, m.age, m.year, m.country, m.is_vip, m.rank, m.duration,
+    (SELECT COALESCE(json_agg(json_build_object('id', a.id, 'fullname', a.fullname,
+            'biography', a.biography, 'avatar', a.avatar, 'dateOfBirth', a.date_of_birth)
+            ORDER BY a.fullname, a.id), '[]')
+        FROM movie_actor ma JOIN actor a ON a.id = ma.actor_id
+        WHERE ma.movie_id = m.id) AS actors,
+    (SELECT COALESCE(json_agg(json_build_object('id', d.id, 'fullname', d.fullname,
+            'biography', d.biography, 'avatar', d.avatar, 'dateOfBirth', d.date_of_birth)
+            ORDER BY d.fullname, d.id), '[]')
+        FROM movie_director md JOIN director d ON d.id = md.director_id
+        WHERE md.movie_id = m.id) AS directors,
+    (SELECT COALESCE(json_agg(json_build_object('id', c.id, 'name', c.name)
+            ORDER BY c.name), '[]')
+        FROM movie_categories mc JOIN categories c ON c.id = mc.category_id
+        WHERE mc.movie_id = m.id) AS categories
+FROM movies m
+WHERE m.id = ANY ($1);
+
+SELECT ids FROM one_movie \gset one_
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE movie_detail(:'one_ids');
+SELECT ids FROM page \gset page_
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE movie_detail(:'page_ids');
+
+ROLLBACK;
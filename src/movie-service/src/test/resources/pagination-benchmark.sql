@@ -0,0 +1,81 @@
+-- Listing benchmark: page 1 vs page 10,000 (20 rows per page), OFFSET vs keyset
+--
+-- Run against a migrated, disposable movie database:
+--   psql -h localhost -p 5932 -U "$MOVIE_POSTGRES_USER" -d movie_db -f pagination-benchmark.sql
+-- Everything runs in one transaction that is rolled back at the end.
+-- OFFSET plans read and discard every row before the page, so page 10,000 reads ~200k rows;
+-- keyset plans seek to the cursor and read 21 rows on any page.
+
+BEGIN;
+
+\timing on
+
+-- The search documents are irrelevant here; skip building them for the seeded rows
+ALTER TABLE movies DISABLE TRIGGER refresh_movie_search_on_movie_insert;
+
+-- 250k movies, one customer who watched 210k of them, one movie with 210k reviews
+INSERT INTO movies (title, description, status, process_status, year)
+SELECT 'Movie ' || md5(i::text), 'Description ' || i,
+       CASE WHEN i % 10 = 0 THEN 'PRIVATE' ELSE 'PUBLIC' END, 'COMPLETED', 1980 + i % 45
+FROM generate_series(1, 250000) i;
+
+INSERT INTO watch_history (movie_id, customer_id, last_watched_position, total_duration, updated_at)
+SELECT m.id, '00000000-0000-0000-0000-000000000001', 60, 7200,
+       NOW() - (row_number() OVER (ORDER BY m.id)) * INTERVAL '1 minute'
+FROM (SELECT id FROM movies LIMIT 210000) m;
+
+INSERT INTO review (movie_id, customer_id, content, stars, user_name)
+SELECT (SELECT id FROM movies ORDER BY id LIMIT 1), gen_random_uuid(), 'Review ' || i, 1 + i % 5, 'User ' || i
+FROM generate_series(1, 210000) i;
+
+ANALYZE movies;
+ANALYZE watch_history;
+ANALYZE review;
+
+-- Cursors pointing at the last row of page 9,999, as the previous response would have returned them
+SELECT title AS title_key, id AS title_id FROM movies WHERE status = 'PUBLIC'
+ORDER BY title, id OFFSET 199979 LIMIT 1 \gset
+SELECT updated_at AS history_key, id AS history_id FROM watch_history
+WHERE customer_id = '00000000-0000-0000-0000-000000000001'
+ORDER BY updated_at DESC, id DESC OFFSET 199979 LIMIT 1 \gset
+SELECT movie_id AS review_movie, id AS review_id FROM review
+WHERE deleted_at IS NULL ORDER BY id DESC OFFSET 199979 LIMIT 1 \gset
+
+-- Catalog by title: OFFSET (findAllByStatus)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM movies WHERE status = 'PUBLIC' ORDER BY title, id LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM movies WHERE status = 'PUBLIC' ORDER BY title, id OFFSET 199980 LIMIT 20;
+
+-- Catalog by title: keyset (scrollMovies)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM movies WHERE status = 'PUBLIC' ORDER BY title, id LIMIT 21;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM movies
+WHERE status = 'PUBLIC' AND title >= :'title_key' AND (title > :'title_key' OR id > :'title_id')
+ORDER BY title, id LIMIT 21;
+
+-- Watch history: OFFSET
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM watch_history WHERE customer_id = '00000000-0000-0000-0000-000000000001'
+ORDER BY updated_at DESC, id DESC OFFSET 199980 LIMIT 20;
+
+-- Watch history: keyset (findRecentByCustomerIdBefore)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM watch_history wh JOIN movies m ON m.id = wh.movie_id
+WHERE wh.customer_id = '00000000-0000-0000-0000-000000000001'
+    AND wh.updated_at <= :'history_key' AND (wh.updated_at < :'history_key' OR wh.id < :'history_id')
+ORDER BY wh.updated_at DESC, wh.id DESC LIMIT 21;
+
+-- Reviews: everything at once (what getReviewsByMovieId returned)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM review WHERE movie_id = :'review_movie' AND deleted_at IS NULL;
+
+-- Reviews: keyset (findLatestByMovieIdBefore)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM review WHERE movie_id = :'review_movie' AND deleted_at IS NULL ORDER BY id DESC LIMIT 21;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM review WHERE movie_id = :'review_movie' AND deleted_at IS NULL AND id < :'review_id'
+ORDER BY id DESC LIMIT 21;
+
+ROLLBACK;
@@ -0,0 +1,60 @@
+-- Movie ranking benchmark on a synthetic catalog of 100k movies and 500k reviews
+--
+-- Run against a migrated, disposable movie database:
+--   psql -h localhost -p 5932 -U "$MOVIE_POSTGRES_USER" -d movie_db -f ranking-benchmark.sql
+-- Everything runs in one transaction that is rolled back at the end.
+-- The old job ran the AVG query once per public movie and saved each movie on its own;
+-- updatePublicMovieRanks replaces all of that with the single UPDATE below.
+
+BEGIN;
+
+\timing on
+
+ALTER TABLE movies DISABLE TRIGGER refresh_movie_search_on_movie_insert;
+
+INSERT INTO movies (title, status, process_status)
+SELECT 'Movie ' || md5(i::text), CASE WHEN i % 5 = 0 THEN 'PRIVATE' ELSE 'PUBLIC' END, 'COMPLETED'
+FROM generate_series(1, 100000) i;
+
+-- Five reviews per movie; the review triggers fill movie_rating as rows arrive
+INSERT INTO review (movie_id, customer_id, content, stars, user_name)
+SELECT m.id, gen_random_uuid(), 'Review', 1 + (abs(hashtext(m.id::text)) + k) % 5, 'User'
+FROM movies m CROSS JOIN generate_series(1, 5) k;
+
+ANALYZE movies;
+ANALYZE review;
+ANALYZE movie_rating;
+
+-- Before: one of the 80k per-movie queries the old job ran
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT AVG(r.stars) FROM review r WHERE r.movie_id = (SELECT id FROM movies LIMIT 1) AND r.deleted_at IS NULL;
+
+-- After: the whole ranking, first run (every public movie gets a rank)
+EXPLAIN (ANALYZE, BUFFERS)
+UPDATE movies m SET rank = ranked.position
+FROM (
+    SELECT mv.id, ROW_NUMBER() OVER (
+        ORDER BY COALESCE(CAST(r.rating_sum AS DOUBLE PRECISION) / NULLIF(r.rating_count, 0), 0) DESC,
+            lower(mv.title), mv.id) AS position
+    FROM movies mv
+    LEFT JOIN movie_rating r ON r.movie_id = mv.id
+    WHERE mv.status = 'PUBLIC'
+) ranked
+WHERE m.id = ranked.id AND m.rank IS DISTINCT FROM ranked.position
+RETURNING m.id;
+
+-- After: a steady-state run, where only movies whose rank moved are written
+EXPLAIN (ANALYZE, BUFFERS)
+UPDATE movies m SET rank = ranked.position
+FROM (
+    SELECT mv.id, ROW_NUMBER() OVER (
+        ORDER BY COALESCE(CAST(r.rating_sum AS DOUBLE PRECISION) / NULLIF(r.rating_count, 0), 0) DESC,
+            lower(mv.title), mv.id) AS position
+    FROM movies mv
+    LEFT JOIN movie_rating r ON r.movie_id = mv.id
+    WHERE mv.status = 'PUBLIC'
+) ranked
+WHERE m.id = ranked.id AND m.rank IS DISTINCT FROM ranked.position
+RETURNING m.id;
+
+ROLLBACK;
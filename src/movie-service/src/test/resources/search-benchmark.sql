@@ -0,0 +1,114 @@
+-- Movie search benchmark on a synthetic catalog of 100k movies
+--
+-- Run against a migrated, disposable movie database:
+--   psql -h localhost -p 5932 -U "$MOVIE_POSTGRES_USER" -d movie_db -f search-benchmark.sql
+-- Everything runs in one transaction that is rolled back at the end.
+-- Compare the EXPLAIN ANALYZE timings of the LIKE query (what searchMoviesByKeyword ran)
+-- with the movie_search queries that replaced it.
+
+BEGIN;
+
+\timing on
+
+-- 100k movies, 20k actors, 2k directors, 20 categories; triggers build movie_search as rows arrive
+INSERT INTO categories (name)
+SELECT 'Thể loại ' || i FROM generate_series(1, 20) i;
+
+INSERT INTO actor (fullname)
+SELECT (ARRAY['Nguyễn', 'Trần', 'Lê', 'Phạm', 'Hoàng', 'Smith', 'Johnson', 'García'])[1 + i % 8]
+           || ' ' || (ARRAY['Văn', 'Thị', 'Minh', 'Anne', 'John', 'Đức'])[1 + i % 6]
+           || ' ' || md5(i::text)::varchar(6)
+FROM generate_series(1, 20000) i;
+
+INSERT INTO director (fullname)
+SELECT 'Đạo diễn ' || md5(i::text)::varchar(8) FROM generate_series(1, 2000) i;
+
+INSERT INTO movies (title, description, status, process_status, country, year)
+SELECT (ARRAY['Đất Rừng Phương Nam', 'Bố Già', 'Hai Phượng', 'The Dark Knight', 'Mắt Biếc', 'Interstellar',
+              'Lật Mặt', 'Spirited Away', 'Tiệc Trăng Máu', 'Parasite'])[1 + i % 10] || ' ' || i,
+       'Câu chuyện số ' || i || ' về ' || md5(i::text),
+       CASE WHEN i % 5 = 0 THEN 'PRIVATE' ELSE 'PUBLIC' END,
+       'COMPLETED',
+       (ARRAY['Việt Nam', 'USA', 'Japan', 'Korea'])[1 + i % 4],
+       1980 + i % 45
+FROM generate_series(1, 100000) i;
+
+WITH numbered AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM movies),
+     actors AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM actor),
+     shift AS (SELECT generate_series(0, 2) AS k)
+INSERT INTO movie_actor (movie_id, actor_id)
+SELECT numbered.id, actors.id
+FROM numbered CROSS JOIN shift
+JOIN actors ON actors.n = 1 + (numbered.n * 7 + shift.k * 4999) % 20000
+ON CONFLICT DO NOTHING;
+
+WITH numbered AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM movies),
+     directors AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM director)
+INSERT INTO movie_director (movie_id, director_id)
+SELECT numbered.id, directors.id
+FROM numbered JOIN directors ON directors.n = 1 + numbered.n % 2000;
+
+WITH numbered AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM movies),
+     genres AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM categories)
+INSERT INTO movie_categories (movie_id, category_id)
+SELECT numbered.id, genres.id
+FROM numbered JOIN genres ON genres.n = 1 + numbered.n % 20;
+
+ANALYZE movies;
+ANALYZE movie_actor;
+ANALYZE movie_director;
+ANALYZE movie_categories;
+ANALYZE movie_search;
+
+-- Before: LIKE over five joins
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT DISTINCT m.* FROM movies m
+LEFT JOIN movie_actor ma ON ma.movie_id = m.id
+LEFT JOIN actor a ON a.id = ma.actor_id
+LEFT JOIN movie_categories mc ON mc.movie_id = m.id
+LEFT JOIN categories c ON c.id = mc.category_id
+WHERE m.status = 'PUBLIC'
+    AND (LOWER(m.title) LIKE '%dat rung%'
+    OR LOWER(m.description) LIKE '%dat rung%'
+    OR LOWER(m.country) LIKE '%dat rung%'
+    OR LOWER(a.fullname) LIKE '%dat rung%'
+    OR LOWER(c.name) LIKE '%dat rung%')
+LIMIT 10;
+
+-- After: accent-insensitive prefix search, one page
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT m.* FROM movie_search s
+JOIN movies m ON m.id = s.movie_id
+WHERE m.status = 'PUBLIC'
+    AND (s.document @@ to_tsquery('simple', search_normalize('dat & rung:*'))
+    OR search_normalize('dat rung') <% s.names)
+ORDER BY ts_rank_cd(s.document, to_tsquery('simple', search_normalize('dat & rung:*')))
+        + word_similarity(search_normalize('dat rung'), s.names) DESC,
+    m.rank ASC NULLS LAST, m.id
+LIMIT 10;
+
+-- After: misspelled title ("Intersteller"), matched through the trigram index
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT m.* FROM movie_search s
+JOIN movies m ON m.id = s.movie_id
+WHERE m.status = 'PUBLIC'
+    AND (s.document @@ to_tsquery('simple', search_normalize('Intersteller:*'))
+    OR search_normalize('Intersteller') <% s.names)
+ORDER BY ts_rank_cd(s.document, to_tsquery('simple', search_normalize('Intersteller:*')))
+        + word_similarity(search_normalize('Intersteller'), s.names) DESC,
+    m.rank ASC NULLS LAST, m.id
+LIMIT 10;
+
+-- After: actor name with diacritics typed without them
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT m.* FROM movie_search s
+JOIN movies m ON m.id = s.movie_id
+WHERE m.status = 'PUBLIC'
+    AND (s.document @@ to_tsquery('simple', search_normalize('nguyen & duc:*'))
+    OR search_normalize('nguyen duc') <% s.names)
+ORDER BY ts_rank_cd(s.document, to_tsquery('simple', search_normalize('nguyen & duc:*')))
+        + word_similarity(search_normalize('nguyen duc'), s.names) DESC,
+    m.rank ASC NULLS LAST, m.id
+LIMIT 10;
+
+ROLLBACK;
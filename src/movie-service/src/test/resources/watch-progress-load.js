@@ -0,0 +1,41 @@
+// Watch-progress heartbeat load test: 10k concurrent viewers, one report every 5 seconds each
+//
+// Run with k6 against a running movie-service (with Redis and Postgres):
+//   k6 run -e BASE_URL=http://localhost:8080 -e TOKEN="$ACCESS_TOKEN" -e MOVIE_IDS=id1,id2,... watch-progress-load.js
+// TOKEN is any customer's access token; every virtual user reports progress on its own movie, so with
+// fewer movies than viewers the reports land on shared (customer, movie) fields and exercise last-write-wins.
+// Watch http_req_duration here, and watch.progress.flush and watch.progress.reports on /actuator/metrics.
+
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const movieIds = __ENV.MOVIE_IDS.split(',');
+
+export const options = {
+    scenarios: {
+        viewers: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '1m', target: 10000 },
+                { duration: '5m', target: 10000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(99)<50'],
+    },
+};
+
+export default function () {
+    const movieId = movieIds[__VU % movieIds.length];
+    const position = (__ITER + 1) * 5;
+    const response = http.post(
+        `${__ENV.BASE_URL}/api/v1/movies/${movieId}/watch-progress`,
+        JSON.stringify({ lastWatchedPosition: position }),
+        { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${__ENV.TOKEN}` } });
+    check(response, { 'progress saved': (r) => r.status === 200 });
+    sleep(5);
+}
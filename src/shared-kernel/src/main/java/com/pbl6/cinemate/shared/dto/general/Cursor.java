@@ -0,0 +1,59 @@
+package com.pbl6.cinemate.shared.dto.general;
+
+import com.pbl6.cinemate.shared.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a keyset page: the value of the sort key and
+ * the id breaking ties between equal keys. Ids are UUIDv7, so a listing in
+ * creation order needs the id alone and leaves {@code key} empty.
+ * <p>
+ * Clients only see the encoded form and must pass it back unchanged.
+ */
+public record Cursor(String key, UUID id) {
+
+    private static final int UUID_LENGTH = 36;
+
+    public static Cursor of(Object key, UUID id) {
+        return new Cursor(key == null ? "" : key.toString(), id);
+    }
+
+    public static Cursor of(UUID id) {
+        return new Cursor("", id);
+    }
+
+    /**
+     * @return the decoded cursor, or {@code null} for the first page
+     * @throws BadRequestException if the value was not produced by
+     *                             {@link #encode()}
+     */
+    public static Cursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            return new Cursor(decoded.substring(UUID_LENGTH), UUID.fromString(decoded.substring(0, UUID_LENGTH)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant instantKey() {
+        try {
+            return Instant.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
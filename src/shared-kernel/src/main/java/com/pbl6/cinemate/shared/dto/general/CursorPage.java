@@ -0,0 +1,55 @@
+package com.pbl6.cinemate.shared.dto.general;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset listing. Unlike {@link PaginatedResponse} it carries
+ * no page number: the next page starts after {@code nextCursor}, which is
+ * {@code null} on the last page, so fetching page 10,000 costs the same as
+ * fetching the first. The total is only counted when asked for.
+ */
+@Getter
+@Setter
+public class CursorPage<T> {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private List<T> content;
+    private String nextCursor;
+    private int pageSize;
+    private Long totalElements;
+
+    public CursorPage(List<T> content, String nextCursor, int pageSize, Long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.pageSize = pageSize;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code pageSize + 1};
+     * the extra row only tells whether another page follows.
+     *
+     * @param positionOf cursor pointing at a row
+     * @param mapper     maps the rows kept on the page, in order
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int pageSize, Function<E, Cursor> positionOf,
+            Function<List<E>, List<T>> mapper, Long totalElements) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? positionOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(mapper.apply(page), nextCursor, pageSize, totalElements);
+    }
+
+    public static int clampPageSize(int size) {
+        return Math.clamp(size, 1, MAX_PAGE_SIZE);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -6,6 +6,7 @@ import com.pbl6.cinemate.shared.constants.CommonConstant;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,6 +57,27 @@ public class ResponseData {
                 .build();
     }
 
+    public static ResponseData successWithCursor(Object data, String message, String apiPath, String method) {
+        CursorPage<?> response = (CursorPage<?>) data;
+        Map<String, Object> metaInfo = new LinkedHashMap<>();
+        metaInfo.put("next_cursor", response.getNextCursor());
+        metaInfo.put("has_next", response.hasNext());
+        metaInfo.put("limit", response.getPageSize());
+        if (response.getTotalElements() != null) {
+            metaInfo.put("total_elements", response.getTotalElements());
+        }
+
+        return ResponseData.builder()
+                .status("success")
+                .message(message)
+                .path(apiPath)
+                .method(method)
+                .data(response.getContent())
+                .meta(metaInfo)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
     public static ResponseData successWithoutMetaAndData(String message, String apiPath, String method) {
         return ResponseData.builder().status(CommonConstant.SUCCESS).message(message).path(apiPath)
                 .method(method).build();
@@ -10,10 +10,26 @@ import java.util.Objects;
  * - movie:{movieId}:quality:{qualityId}:segments - segments available for
  * specific quality
  * - movie:{movieId}:peers - peers streaming this movie (any quality)
+ * - movie:{movieId}:owner-sets - owners keys of a movie that have been
+ * written, so a movie's swarm can be loaded without scanning the keyspace
  * - movie:{movieId}:quality:{qualityId}:segment:{segmentId}:owners - peers with
  * specific segment
  * - peer:{clientId}:lastSeen - last activity timestamp
  * - p2p:metrics:{clientId} - peer performance metrics
+ * - signaling:client:{clientId}:node - signaling node currently holding the
+ * client's WebSocket
+ * - signaling:node:{nodeId}:relay - pub/sub channel for messages relayed to a
+ * signaling node
+ * - signaling:nodes - live signaling nodes scored by last heartbeat (epoch ms)
+ * - signaling:node:{nodeId}:clients - clientId → movieId for clients held by a
+ * node
+ * - signaling:node:{nodeId}:info - advertised address, session count and
+ * capacity of a node, read by the gateway for movie-affinity routing
+ * - signaling:sweeper:lock - lease for the dead-node sweeper
+ * - signaling:resume:{token} - clientId|movieId of a dropped session that may
+ * still be resumed
+ * - signaling:movie:{movieId}:availability - pub/sub channel for segment
+ * availability changes of a movie
  * <p>
  * For ABR streaming:
  * - streamId = movieId (consistent across quality switches)
@@ -27,14 +43,28 @@ public final class StreamingRedisKeys {
     private static final String PEERS_SUFFIX = ":peers";
     private static final String SEGMENTS_SUFFIX = ":segments";
     private static final String OWNERS_SUFFIX = ":owners";
+    private static final String OWNER_SETS_SUFFIX = ":owner-sets";
     private static final String PEER_PREFIX = "peer:";
     private static final String LAST_SEEN_SUFFIX = ":lastSeen";
     private static final String P2P_METRICS_PREFIX = "p2p:metrics:";
+    private static final String SIGNALING_CLIENT_PREFIX = "signaling:client:";
+    private static final String SIGNALING_NODE_PREFIX = "signaling:node:";
+    private static final String NODE_SUFFIX = ":node";
+    private static final String RELAY_SUFFIX = ":relay";
+    private static final String CLIENTS_SUFFIX = ":clients";
+    private static final String INFO_SUFFIX = ":info";
+    private static final String SIGNALING_NODES_KEY = "signaling:nodes";
+    private static final String SIGNALING_SWEEPER_LOCK_KEY = "signaling:sweeper:lock";
+    private static final String SIGNALING_RESUME_PREFIX = "signaling:resume:";
+    private static final String SIGNALING_MOVIE_PREFIX = "signaling:movie:";
+    private static final String AVAILABILITY_SUFFIX = ":availability";
 
     private static final String MOVIE_ID_NAME = "movieId";
     private static final String SEGMENT_ID_NAME = "segmentId";
     private static final String CLIENT_ID_NAME = "clientId";
     private static final String QUALITY_ID_NAME = "qualityId";
+    private static final String NODE_ID_NAME = "nodeId";
+    private static final String RESUME_TOKEN_NAME = "resumeToken";
 
     private StreamingRedisKeys() {
         // utility class
@@ -98,6 +128,14 @@ public final class StreamingRedisKeys {
         return MOVIE_PREFIX + require(movieId, MOVIE_ID_NAME) + PEERS_SUFFIX;
     }
 
+    /**
+     * Set of the segment owners keys written for a movie.
+     * Format: movie:{movieId}:owner-sets
+     */
+    public static String movieOwnerSetsKey(String movieId) {
+        return MOVIE_PREFIX + require(movieId, MOVIE_ID_NAME) + OWNER_SETS_SUFFIX;
+    }
+
     /**
      * Key for peer last seen timestamp.
      * Format: peer:{clientId}:lastSeen
@@ -114,6 +152,70 @@ public final class StreamingRedisKeys {
         return P2P_METRICS_PREFIX + require(clientId, CLIENT_ID_NAME);
     }
 
+    /**
+     * Key holding the signaling node a client is connected to.
+     * Format: signaling:client:{clientId}:node
+     */
+    public static String clientNodeKey(String clientId) {
+        return SIGNALING_CLIENT_PREFIX + require(clientId, CLIENT_ID_NAME) + NODE_SUFFIX;
+    }
+
+    /**
+     * Pub/sub channel for messages relayed to a signaling node.
+     * Format: signaling:node:{nodeId}:relay
+     */
+    public static String nodeRelayChannel(String nodeId) {
+        return SIGNALING_NODE_PREFIX + require(nodeId, NODE_ID_NAME) + RELAY_SUFFIX;
+    }
+
+    /**
+     * Sorted set of live signaling nodes scored by last heartbeat (epoch millis).
+     * Format: signaling:nodes
+     */
+    public static String signalingNodesKey() {
+        return SIGNALING_NODES_KEY;
+    }
+
+    /**
+     * Hash of clientId → movieId for clients connected to a signaling node.
+     * Format: signaling:node:{nodeId}:clients
+     */
+    public static String nodeClientsKey(String nodeId) {
+        return SIGNALING_NODE_PREFIX + require(nodeId, NODE_ID_NAME) + CLIENTS_SUFFIX;
+    }
+
+    /**
+     * Hash of a signaling node's advertised address, session count and capacity.
+     * Format: signaling:node:{nodeId}:info
+     */
+    public static String nodeInfoKey(String nodeId) {
+        return SIGNALING_NODE_PREFIX + require(nodeId, NODE_ID_NAME) + INFO_SUFFIX;
+    }
+
+    /**
+     * Lease held by the node currently sweeping dead nodes.
+     * Format: signaling:sweeper:lock
+     */
+    public static String sweeperLockKey() {
+        return SIGNALING_SWEEPER_LOCK_KEY;
+    }
+
+    /**
+     * Parked state of a dropped signaling session, claimable with its resume token.
+     * Format: signaling:resume:{token}
+     */
+    public static String resumeTokenKey(String token) {
+        return SIGNALING_RESUME_PREFIX + require(token, RESUME_TOKEN_NAME);
+    }
+
+    /**
+     * Pub/sub channel for segment availability changes of a movie.
+     * Format: signaling:movie:{movieId}:availability
+     */
+    public static String movieAvailabilityChannel(String movieId) {
+        return SIGNALING_MOVIE_PREFIX + require(movieId, MOVIE_ID_NAME) + AVAILABILITY_SUFFIX;
+    }
+
     private static String require(String value, String name) {
         String sanitized = Objects.requireNonNull(value, name + " must not be null").trim();
         if (sanitized.isEmpty()) {
@@ -2,6 +2,7 @@ package com.pbl6.cinemate.shared.utils;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -22,6 +23,9 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class JwtUtils {
     private final AppProperties appProperties;
+    // keys are fixed once properties are bound, so each parser is built once and reused
+    private volatile JwtParser accessTokenParser;
+    private volatile JwtParser refreshTokenParser;
 
     public String generateToken(String userId, String username, String role, List<String> permissions,
                                 boolean isRefreshToken) {
@@ -93,9 +97,7 @@ public class JwtUtils {
 
     public Claims verifyToken(String token, boolean isRefreshToken) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(!isRefreshToken ? getAccessTokenSecretKey() : getRefreshTokenSecretKey())
-                    .build()
+            return getParser(isRefreshToken)
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -105,6 +107,21 @@ public class JwtUtils {
         }
     }
 
+    private JwtParser getParser(boolean isRefreshToken) {
+        JwtParser parser = isRefreshToken ? refreshTokenParser : accessTokenParser;
+        if (parser == null) {
+            parser = Jwts.parserBuilder()
+                    .setSigningKey(isRefreshToken ? getRefreshTokenSecretKey() : getAccessTokenSecretKey())
+                    .build();
+            if (isRefreshToken) {
+                refreshTokenParser = parser;
+            } else {
+                accessTokenParser = parser;
+            }
+        }
+        return parser;
+    }
+
     private String getExpiredErrorMessage(boolean isRefreshToken) {
         return isRefreshToken
                 ? "Expired refresh token"
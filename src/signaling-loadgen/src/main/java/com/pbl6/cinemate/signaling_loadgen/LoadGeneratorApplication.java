@@ -0,0 +1,136 @@
+package com.pbl6.cinemate.signaling_loadgen;
+
+import com.pbl6.cinemate.signaling_loadgen.auth.AccessTokens;
+import com.pbl6.cinemate.signaling_loadgen.bench.HandshakeBenchmark;
+import com.pbl6.cinemate.signaling_loadgen.config.LoadConfig;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics;
+import com.pbl6.cinemate.signaling_loadgen.peer.SimulatedPeer;
+import com.pbl6.cinemate.signaling_loadgen.report.CapacityReport;
+import com.pbl6.cinemate.signaling_loadgen.report.StageResult;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a staged swarm against a signaling node and writes a capacity report.
+ * <p>
+ * For every stage the generator ramps the swarm to the stage's peer count at
+ * {@code ramp-rate} connections per second, then holds it for
+ * {@code stage-duration} while measuring. Only the hold phase is measured.
+ * <p>
+ * {@code handshake-bench} as the first argument runs {@link HandshakeBenchmark}
+ * instead.
+ */
+public final class LoadGeneratorApplication {
+
+    private static final int PEERS_PER_HTTP_CLIENT = 2_000;
+
+    private LoadGeneratorApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "handshake-bench".equals(args[0])) {
+            HandshakeBenchmark.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        LoadConfig config = LoadConfig.parse(args);
+        AccessTokens tokens = new AccessTokens(config.tokenSecret());
+        AtomicReference<StageMetrics> current = new AtomicReference<>(new StageMetrics());
+        int schedulerThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(schedulerThreads);
+        List<HttpClient> httpClients = new ArrayList<>();
+        List<SimulatedPeer> peers = new ArrayList<>();
+        MovieChooser movies = new MovieChooser(config.movies(), new Random(config.seed()));
+        List<StageResult> results = new ArrayList<>();
+
+        try {
+            for (int target : config.stages()) {
+                resize(peers, target, config, tokens, httpClients, scheduler, current, movies);
+                StageMetrics stage = new StageMetrics();
+                current.set(stage);
+                Thread.sleep(config.stageDuration().toMillis());
+                int connected = (int) peers.stream().filter(SimulatedPeer::isConnected).count();
+                StageResult result = StageResult.of(target, connected, stage, config.whoHasSlo(),
+                        config.maxErrorRate());
+                results.add(result);
+                System.out.printf(Locale.ROOT, "stage %d peers: connected=%d sent/s=%.0f whoHas p99=%.1fms "
+                                + "errors=%.2f%% withinSlo=%s%n",
+                        target, connected, result.sentPerSecond(),
+                        result.latencies().get(StageMetrics.Latency.WHO_HAS).p99Millis(),
+                        result.errorRate() * 100, result.withinSlo());
+            }
+        } finally {
+            peers.forEach(SimulatedPeer::stop);
+            Thread.sleep(Duration.ofSeconds(1).toMillis());
+            scheduler.shutdownNow();
+            httpClients.forEach(HttpClient::shutdownNow);
+        }
+
+        Path report = CapacityReport.write(config, results);
+        System.out.printf("capacity: %d peers, report written to %s%n", CapacityReport.capacity(results),
+                report.toAbsolutePath());
+    }
+
+    private static void resize(List<SimulatedPeer> peers, int target, LoadConfig config, AccessTokens tokens,
+            List<HttpClient> httpClients, ScheduledExecutorService scheduler,
+            AtomicReference<StageMetrics> current, MovieChooser movies) throws InterruptedException {
+        while (peers.size() > target) {
+            peers.removeLast().stop();
+        }
+        while (peers.size() < target) {
+            int batch = Math.min(config.rampRate(), target - peers.size());
+            for (int i = 0; i < batch; i++) {
+                int index = peers.size();
+                if (index / PEERS_PER_HTTP_CLIENT >= httpClients.size()) {
+                    httpClients.add(HttpClient.newBuilder()
+                            .executor(Executors.newVirtualThreadPerTaskExecutor())
+                            .connectTimeout(Duration.ofSeconds(10))
+                            .build());
+                }
+                SimulatedPeer peer = new SimulatedPeer(index, movies.next(), config, tokens,
+                        httpClients.get(index / PEERS_PER_HTTP_CLIENT), scheduler, current::get);
+                peers.add(peer);
+                peer.start();
+            }
+            Thread.sleep(1_000);
+        }
+    }
+
+    /**
+     * Spreads peers over movies with Zipf-like popularity, so a few movies get
+     * large swarms and most get small ones.
+     */
+    private static final class MovieChooser {
+        private final double[] cumulative;
+        private final Random random;
+
+        private MovieChooser(int movies, Random random) {
+            this.cumulative = new double[movies];
+            this.random = random;
+            double sum = 0;
+            for (int i = 0; i < movies; i++) {
+                sum += 1.0 / (i + 1);
+                cumulative[i] = sum;
+            }
+        }
+
+        String next() {
+            double pick = random.nextDouble() * cumulative[cumulative.length - 1];
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick <= cumulative[i]) {
+                    return "loadgen-movie-" + i;
+                }
+            }
+            return "loadgen-movie-" + (cumulative.length - 1);
+        }
+    }
+}
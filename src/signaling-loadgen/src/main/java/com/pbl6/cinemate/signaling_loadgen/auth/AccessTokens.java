@@ -0,0 +1,55 @@
+package com.pbl6.cinemate.signaling_loadgen.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mints and verifies access tokens the way the auth service and the shared
+ * kernel's {@code JwtUtils} do: HS512 over the Base64 {@code ACCESS_TOKEN_SECRET},
+ * with the same claims, verified by one parser built up front.
+ */
+public final class AccessTokens {
+
+    private static final Duration LIFETIME = Duration.ofHours(24);
+    private final Key key;
+    private final JwtParser parser;
+
+    public AccessTokens(String base64Secret) {
+        this.key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(base64Secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    /**
+     * A fresh random secret, for runs that only exercise the token check.
+     */
+    public static String randomSecret() {
+        return Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+    }
+
+    public String mint(String userId) {
+        Date now = new Date();
+        return Jwts.builder().setSubject(UUID.randomUUID().toString())
+                .claim("user_id", userId)
+                .claim("username", "loadgen-" + userId)
+                .claim("role", "ROLE_USER")
+                .claim("permissions", List.of())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + LIFETIME.toMillis()))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    public Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,106 @@
+package com.pbl6.cinemate.signaling_loadgen.bench;
+
+import com.pbl6.cinemate.signaling_loadgen.auth.AccessTokens;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Measures the per-handshake cost of the signaling token check: verifying an
+ * HS512 access token with a prebuilt parser and reading its {@code user_id},
+ * for valid tokens and for tokens with a tampered signature.
+ * <p>
+ * Single-threaded on purpose; the check holds no shared lock, so throughput
+ * scales with cores. Exits with status 1 if the p99 of valid tokens exceeds
+ * {@code max-p99-micros}.
+ */
+public final class HandshakeBenchmark {
+
+    private static final int DISTINCT_TOKENS = 1_024;
+
+    private HandshakeBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            values.put(parts[0], parts[1]);
+        }
+        int warmup = Integer.parseInt(values.getOrDefault("warmup", "200000"));
+        int iterations = Integer.parseInt(values.getOrDefault("iterations", "1000000"));
+        double maxP99Micros = Double.parseDouble(values.getOrDefault("max-p99-micros", "100"));
+        String secret = values.getOrDefault("token-secret", AccessTokens.randomSecret());
+        values.keySet().removeAll(List.of("warmup", "iterations", "max-p99-micros", "token-secret"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+
+        AccessTokens tokens = new AccessTokens(secret);
+        String[] valid = new String[DISTINCT_TOKENS];
+        String[] tampered = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            valid[i] = tokens.mint(UUID.randomUUID().toString());
+            char last = valid[i].charAt(valid[i].length() - 2);
+            tampered[i] = valid[i].substring(0, valid[i].length() - 2) + (last == 'A' ? 'B' : 'A')
+                    + valid[i].charAt(valid[i].length() - 1);
+        }
+
+        run(tokens, valid, warmup);
+        run(tokens, tampered, warmup / 4);
+        long[] accepted = run(tokens, valid, iterations);
+        long[] rejected = run(tokens, tampered, iterations / 4);
+
+        print("valid", accepted);
+        print("tampered", rejected);
+        double p99 = percentile(accepted, 0.99) / 1_000.0;
+        if (p99 > maxP99Micros) {
+            System.out.printf(Locale.ROOT, "FAIL: valid-token p99 %.2f us exceeds %.2f us%n", p99, maxP99Micros);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return per-check durations in nanoseconds, sorted
+     */
+    private static long[] run(AccessTokens tokens, String[] input, int iterations) {
+        long[] samples = new long[iterations];
+        int userIdLength = 0;
+        for (int i = 0; i < iterations; i++) {
+            String token = input[i % input.length];
+            long start = System.nanoTime();
+            try {
+                userIdLength += tokens.verify(token).get("user_id", String.class).length();
+            } catch (RuntimeException e) {
+                userIdLength--;
+            }
+            samples[i] = System.nanoTime() - start;
+        }
+        if (userIdLength == Integer.MIN_VALUE) {
+            // keeps the checks from being optimized away
+            System.out.println();
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void print(String label, long[] sorted) {
+        double meanNanos = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf(Locale.ROOT, "%-8s n=%d mean=%.2fus p50=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus "
+                        + "(%.0f checks/s per core)%n",
+                label, sorted.length, meanNanos / 1_000.0, percentile(sorted, 0.50) / 1_000.0,
+                percentile(sorted, 0.99) / 1_000.0, percentile(sorted, 0.999) / 1_000.0,
+                sorted[sorted.length - 1] / 1_000.0, 1_000_000_000.0 / meanNanos);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+}
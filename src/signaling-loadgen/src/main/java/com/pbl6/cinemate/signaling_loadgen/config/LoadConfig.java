@@ -0,0 +1,99 @@
+package com.pbl6.cinemate.signaling_loadgen.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scenario of one load run. Every value has a default so that runs without
+ * arguments are comparable across commits; override with {@code --name=value}.
+ *
+ * @param url                signaling WebSocket endpoint
+ * @param stages             peer counts held one after another; capacity is the largest stage within the SLO
+ * @param stageDuration      how long each stage is held after ramping to it
+ * @param rampRate           new connections opened per second while ramping
+ * @param movies             number of movies peers are spread over (Zipf-like popularity)
+ * @param qualities          quality ids peers pick from
+ * @param segmentInterval    mean time between segment fetches of one peer
+ * @param bufferSegments     segments a peer keeps before reporting removals
+ * @param rtcProbability     chance per fetch that the peer starts an RTC exchange with an owner
+ * @param churnPerMinute     chance per minute that a peer drops its connection
+ * @param reconnectDelay     delay before a dropped peer reconnects
+ * @param bulkReports        whether peers batch reports with {@code reportSegments}
+ * @param whoHasSlo          p99 whoHas round trip a stage must stay under
+ * @param maxErrorRate       share of failed requests a stage may have
+ * @param seed               seed for every random choice of the run
+ * @param output             directory the report is written to
+ * @param tokenSecret        Base64 access-token key of the target, used to sign each peer's token; kept out of reports
+ */
+public record LoadConfig(
+        URI url,
+        List<Integer> stages,
+        Duration stageDuration,
+        int rampRate,
+        int movies,
+        List<String> qualities,
+        Duration segmentInterval,
+        int bufferSegments,
+        double rtcProbability,
+        double churnPerMinute,
+        Duration reconnectDelay,
+        boolean bulkReports,
+        Duration whoHasSlo,
+        double maxErrorRate,
+        long seed,
+        String output,
+        @JsonIgnore String tokenSecret) {
+
+    public static LoadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            values.put(parts[0], parts[1]);
+        }
+        LoadConfig config = new LoadConfig(
+                URI.create(values.getOrDefault("url", "ws://localhost:8083/ws/signaling")),
+                intList(values.getOrDefault("stages", "1000,5000,10000,20000,40000")),
+                Duration.parse(values.getOrDefault("stage-duration", "PT2M")),
+                Integer.parseInt(values.getOrDefault("ramp-rate", "500")),
+                Integer.parseInt(values.getOrDefault("movies", "50")),
+                List.of(values.getOrDefault("qualities", "480p,720p,1080p").split(",")),
+                Duration.parse(values.getOrDefault("segment-interval", "PT4S")),
+                Integer.parseInt(values.getOrDefault("buffer-segments", "30")),
+                Double.parseDouble(values.getOrDefault("rtc-probability", "0.1")),
+                Double.parseDouble(values.getOrDefault("churn-per-minute", "0.02")),
+                Duration.parse(values.getOrDefault("reconnect-delay", "PT2S")),
+                Boolean.parseBoolean(values.getOrDefault("bulk-reports", "false")),
+                Duration.parse(values.getOrDefault("who-has-slo", "PT0.15S")),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.01")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("output", "target/loadgen-report"),
+                values.getOrDefault("token-secret", System.getenv("ACCESS_TOKEN_SECRET")));
+        if (config.tokenSecret() == null || config.tokenSecret().isBlank()) {
+            throw new IllegalArgumentException("--token-secret or ACCESS_TOKEN_SECRET is required");
+        }
+        values.keySet().removeAll(List.of("url", "stages", "stage-duration", "ramp-rate", "movies", "qualities",
+                "segment-interval", "buffer-segments", "rtc-probability", "churn-per-minute", "reconnect-delay",
+                "bulk-reports", "who-has-slo", "max-error-rate", "seed", "output", "token-secret"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        return config;
+    }
+
+    private static List<Integer> intList(String raw) {
+        List<Integer> result = new ArrayList<>();
+        for (String part : raw.split(",")) {
+            result.add(Integer.parseInt(part.trim()));
+        }
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,53 @@
+package com.pbl6.cinemate.signaling_loadgen.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything measured while one stage is held. A fresh instance is used per
+ * stage so ramp-up traffic does not leak into the stage's numbers.
+ */
+public final class StageMetrics {
+
+    public enum Latency {
+        CONNECT, WHO_HAS, REPORT_ACK, RTC_RELAY
+    }
+
+    public enum Count {
+        SENT, RECEIVED, ERRORS, TIMEOUTS, DISCONNECTS, RECONNECTS, RESUMED
+    }
+
+    private final Map<Latency, LatencyHistogram> latencies = new EnumMap<>(Latency.class);
+    private final Map<Count, AtomicLong> counts = new EnumMap<>(Count.class);
+    private final long startedAtNanos = System.nanoTime();
+
+    public StageMetrics() {
+        for (Latency latency : Latency.values()) {
+            latencies.put(latency, new LatencyHistogram());
+        }
+        for (Count count : Count.values()) {
+            counts.put(count, new AtomicLong());
+        }
+    }
+
+    public void recordNanos(Latency latency, long nanos) {
+        latencies.get(latency).recordNanos(nanos);
+    }
+
+    public void increment(Count count) {
+        counts.get(count).incrementAndGet();
+    }
+
+    public LatencyHistogram histogram(Latency latency) {
+        return latencies.get(latency);
+    }
+
+    public long count(Count count) {
+        return counts.get(count).get();
+    }
+
+    public double elapsedSeconds() {
+        return (System.nanoTime() - startedAtNanos) / 1e9;
+    }
+}
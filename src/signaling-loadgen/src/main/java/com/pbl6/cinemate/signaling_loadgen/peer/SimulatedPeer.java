@@ -0,0 +1,379 @@
+package com.pbl6.cinemate.signaling_loadgen.peer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pbl6.cinemate.signaling_loadgen.auth.AccessTokens;
+import com.pbl6.cinemate.signaling_loadgen.config.LoadConfig;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Count;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Latency;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * One simulated viewer.
+ * <p>
+ * Every tick the peer asks {@code whoHas} for its next segment, reports the
+ * download, reports removals once its buffer is full, sometimes starts an RTC
+ * exchange with a known owner and sometimes drops its connection without a
+ * close frame, reconnecting with its resume token. Round trips are matched
+ * to replies and recorded into the current stage's metrics.
+ */
+public final class SimulatedPeer implements WebSocket.Listener {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long REQUEST_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int BULK_REPORT_SIZE = 5;
+    private static final double PEER_SOURCE_SHARE = 0.6;
+    private static final int MAX_START_SEGMENT = 600;
+    private static final String INSTANCE = "lg";
+    private final String clientId;
+    private final String accessToken;
+    private final String movieId;
+    private final String qualityId;
+    private final LoadConfig config;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<StageMetrics> metrics;
+    private final Random random;
+    private final Map<String, Long> pendingWhoHas = new HashMap<>();
+    private final Deque<Long> pendingReports = new ArrayDeque<>();
+    private final Deque<Integer> buffer = new ArrayDeque<>();
+    private final List<String> knownPeers = new ArrayList<>();
+    private final List<ObjectNode> unsentReports = new ArrayList<>();
+    private final StringBuilder partial = new StringBuilder();
+    private CompletableFuture<WebSocket> sendChain;
+    private WebSocket socket;
+    private String resumeToken;
+    private long connectStartedAt;
+    private int nextSegment;
+    private int generation;
+    private volatile boolean running = true;
+
+    public SimulatedPeer(
+            long index,
+            String movieId,
+            LoadConfig config,
+            AccessTokens tokens,
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler,
+            Supplier<StageMetrics> metrics) {
+        this.random = new Random(config.seed() ^ (index * 0x9E3779B97F4A7C15L));
+        String userId = new UUID(random.nextLong(), random.nextLong()).toString();
+        // the server binds the session to {user_id}:{clientId}
+        this.clientId = userId + ":" + INSTANCE;
+        this.accessToken = tokens.mint(userId);
+        this.movieId = movieId;
+        this.qualityId = config.qualities().get(random.nextInt(config.qualities().size()));
+        this.config = config;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.nextSegment = random.nextInt(MAX_START_SEGMENT);
+    }
+
+    public void start() {
+        connect();
+    }
+
+    public synchronized boolean isConnected() {
+        return socket != null && !socket.isOutputClosed() && !socket.isInputClosed();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (socket != null) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        }
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        StringBuilder uri = new StringBuilder(config.url().toString())
+                .append("?clientId=").append(INSTANCE)
+                .append("&movieId=").append(URLEncoder.encode(movieId, StandardCharsets.UTF_8))
+                .append("&token=").append(accessToken);
+        synchronized (this) {
+            if (resumeToken != null) {
+                uri.append("&resumeToken=").append(resumeToken);
+            }
+            connectStartedAt = System.nanoTime();
+        }
+        httpClient.newWebSocketBuilder()
+                .buildAsync(URI.create(uri.toString()), this)
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        metrics.get().increment(Count.ERRORS);
+                        scheduleReconnect();
+                    }
+                });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        int current;
+        synchronized (this) {
+            socket = webSocket;
+            sendChain = CompletableFuture.completedFuture(webSocket);
+            current = ++generation;
+            metrics.get().recordNanos(Latency.CONNECT, System.nanoTime() - connectStartedAt);
+        }
+        webSocket.request(1);
+        scheduleTick(current);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        String message = null;
+        synchronized (this) {
+            partial.append(data);
+            if (last) {
+                message = partial.toString();
+                partial.setLength(0);
+            }
+        }
+        if (message != null) {
+            handle(message);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        dropped(webSocket);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        metrics.get().increment(Count.ERRORS);
+        dropped(webSocket);
+    }
+
+    private void handle(String message) {
+        StageMetrics stage = metrics.get();
+        stage.increment(Count.RECEIVED);
+        JsonNode json;
+        try {
+            json = MAPPER.readTree(message);
+        } catch (IOException e) {
+            stage.increment(Count.ERRORS);
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            switch (json.path("type").asText()) {
+                case "peerList" -> json.path("peers").forEach(peer -> rememberPeer(peer.asText()));
+                case "session" -> {
+                    resumeToken = json.path("resumeToken").asText(null);
+                    if (json.path("resumed").asBoolean()) {
+                        stage.increment(Count.RESUMED);
+                    }
+                }
+                case "whoHasReply" -> {
+                    Long sentAt = pendingWhoHas.remove(json.path("segmentId").asText());
+                    if (sentAt != null) {
+                        stage.recordNanos(Latency.WHO_HAS, now - sentAt);
+                    }
+                    json.path("peers").forEach(peer -> rememberPeer(peer.path("peerId").asText()));
+                }
+                case "reportAck", "reportSegmentsAck" -> {
+                    Long sentAt = pendingReports.pollFirst();
+                    if (sentAt != null) {
+                        stage.recordNanos(Latency.REPORT_ACK, now - sentAt);
+                    }
+                }
+                case "rtcOffer", "rtcAnswer", "iceCandidate" -> {
+                    long sentAt = json.path("sentAt").asLong(0);
+                    if (sentAt != 0) {
+                        stage.recordNanos(Latency.RTC_RELAY, now - sentAt);
+                    }
+                    if ("rtcOffer".equals(json.path("type").asText())) {
+                        send(rtc("rtcAnswer", json.path("from").asText()));
+                    }
+                }
+                case "error" -> {
+                    // targets that just churned away are expected, not a server failure
+                    if (!json.path("message").asText().startsWith("Target peer not connected")) {
+                        stage.increment(Count.ERRORS);
+                    }
+                }
+                default -> {
+                    // have and other pushes are not measured
+                }
+            }
+        }
+    }
+
+    private void tick(int tickGeneration) {
+        if (!running) {
+            return;
+        }
+        synchronized (this) {
+            if (tickGeneration != generation || !isConnected()) {
+                // this connection is gone; the next one runs its own ticks
+                return;
+            }
+            expireTimedOut();
+            int segment = nextSegment++;
+            String segmentId = segmentId(segment);
+
+            ObjectNode whoHas = MAPPER.createObjectNode()
+                    .put("type", "whoHas")
+                    .put("movieId", movieId)
+                    .put("qualityId", qualityId)
+                    .put("segmentId", segmentId);
+            pendingWhoHas.put(segmentId, System.nanoTime());
+            send(whoHas);
+
+            report(segmentId);
+            buffer.addLast(segment);
+            if (buffer.size() > config.bufferSegments()) {
+                removeOldest();
+            }
+
+            if (!knownPeers.isEmpty() && random.nextDouble() < config.rtcProbability()) {
+                send(rtc("rtcOffer", knownPeers.get(random.nextInt(knownPeers.size()))));
+            }
+
+            double churnPerTick = config.churnPerMinute() * config.segmentInterval().toMillis() / 60_000.0;
+            if (random.nextDouble() < churnPerTick) {
+                metrics.get().increment(Count.DISCONNECTS);
+                socket.abort();
+                dropped(socket);
+                return;
+            }
+        }
+        scheduleTick(tickGeneration);
+    }
+
+    private void report(String segmentId) {
+        ObjectNode report = MAPPER.createObjectNode()
+                .put("qualityId", qualityId)
+                .put("segmentId", segmentId)
+                .put("source", random.nextDouble() < PEER_SOURCE_SHARE ? "peer" : "origin")
+                .put("speed", 1 + random.nextDouble() * 9)
+                .put("latency", 20 + random.nextInt(200));
+        if (!config.bulkReports()) {
+            report.put("type", "reportSegment").put("movieId", movieId);
+            pendingReports.addLast(System.nanoTime());
+            send(report);
+            return;
+        }
+        unsentReports.add(report);
+        if (unsentReports.size() >= BULK_REPORT_SIZE) {
+            ObjectNode bulk = MAPPER.createObjectNode().put("type", "reportSegments");
+            ArrayNode segments = bulk.putArray("segments");
+            unsentReports.forEach(segments::add);
+            unsentReports.clear();
+            pendingReports.addLast(System.nanoTime());
+            send(bulk);
+        }
+    }
+
+    private void removeOldest() {
+        String segmentId = segmentId(buffer.pollFirst());
+        if (config.bulkReports()) {
+            ObjectNode bulk = MAPPER.createObjectNode().put("type", "reportSegments");
+            bulk.putArray("removed").addObject().put("qualityId", qualityId).put("segmentId", segmentId);
+            pendingReports.addLast(System.nanoTime());
+            send(bulk);
+        } else {
+            send(MAPPER.createObjectNode()
+                    .put("type", "removeSegment")
+                    .put("movieId", movieId)
+                    .put("qualityId", qualityId)
+                    .put("segmentId", segmentId));
+        }
+    }
+
+    private ObjectNode rtc(String type, String to) {
+        return MAPPER.createObjectNode()
+                .put("type", type)
+                .put("to", to)
+                .put("sdp", "v=0")
+                .put("sentAt", System.nanoTime());
+    }
+
+    private void expireTimedOut() {
+        long deadline = System.nanoTime() - REQUEST_TIMEOUT_NANOS;
+        Iterator<Long> pending = pendingWhoHas.values().iterator();
+        while (pending.hasNext()) {
+            if (pending.next() < deadline) {
+                pending.remove();
+                metrics.get().increment(Count.TIMEOUTS);
+            }
+        }
+        while (!pendingReports.isEmpty() && pendingReports.peekFirst() < deadline) {
+            pendingReports.pollFirst();
+            metrics.get().increment(Count.TIMEOUTS);
+        }
+    }
+
+    private void send(ObjectNode message) {
+        String text = message.toString();
+        metrics.get().increment(Count.SENT);
+        sendChain = sendChain.thenCompose(ws -> ws.sendText(text, true))
+                .exceptionally(error -> socket);
+    }
+
+    private void rememberPeer(String peerId) {
+        if (!peerId.isEmpty() && !peerId.equals(clientId) && knownPeers.size() < 64 && !knownPeers.contains(peerId)) {
+            knownPeers.add(peerId);
+        }
+    }
+
+    private void dropped(WebSocket webSocket) {
+        synchronized (this) {
+            if (socket != webSocket) {
+                return;
+            }
+            socket = null;
+            pendingWhoHas.clear();
+            pendingReports.clear();
+            unsentReports.clear();
+        }
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        if (running) {
+            metrics.get().increment(Count.RECONNECTS);
+            scheduler.schedule(this::connect, config.reconnectDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scheduleTick(int tickGeneration) {
+        long mean = config.segmentInterval().toMillis();
+        long delay = mean / 2 + (long) (random.nextDouble() * mean);
+        scheduler.schedule(() -> tick(tickGeneration), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static String segmentId(int index) {
+        return String.format("seg_%04d.m4s", index);
+    }
+}
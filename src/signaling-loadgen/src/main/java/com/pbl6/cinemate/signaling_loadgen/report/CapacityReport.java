@@ -0,0 +1,92 @@
+package com.pbl6.cinemate.signaling_loadgen.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pbl6.cinemate.signaling_loadgen.config.LoadConfig;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Count;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Latency;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes {@code report.json} (for diffing runs across commits) and
+ * {@code report.md} (for reading) of a finished run.
+ */
+public final class CapacityReport {
+
+    private CapacityReport() {
+    }
+
+    /**
+     * @return the largest stage that stayed within the SLO, 0 if none did
+     */
+    public static int capacity(List<StageResult> stages) {
+        return stages.stream().filter(StageResult::withinSlo).mapToInt(StageResult::targetPeers).max().orElse(0);
+    }
+
+    public static Path write(LoadConfig config, List<StageResult> stages) throws IOException {
+        Path directory = Path.of(config.output());
+        Files.createDirectories(directory);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("commit", System.getenv().getOrDefault("GIT_COMMIT", "unknown"));
+        json.put("finishedAt", Instant.now().toString());
+        json.put("config", config);
+        json.put("capacityPeers", capacity(stages));
+        json.put("stages", stages);
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), json);
+
+        Files.writeString(directory.resolve("report.md"), markdown(config, stages));
+        return directory;
+    }
+
+    private static String markdown(LoadConfig config, List<StageResult> stages) {
+        StringBuilder md = new StringBuilder("# Signaling capacity report\n\n");
+        md.append(String.format(Locale.ROOT, "- Target: `%s`%n- Seed: `%d`, movies: %d, segment interval: %s, "
+                        + "bulk reports: %s%n- whoHas SLO: p99 <= %d ms, max error rate %.2f%%%n- **Capacity: %d peers**%n%n",
+                config.url(), config.seed(), config.movies(), config.segmentInterval(), config.bulkReports(),
+                config.whoHasSlo().toMillis(), config.maxErrorRate() * 100, capacity(stages)));
+
+        md.append("| Peers | Connected | Sent/s | Received/s | Errors | ");
+        for (Latency latency : Latency.values()) {
+            md.append(latency).append(" p50/p99 ms | ");
+        }
+        md.append("Within SLO |\n|");
+        md.append("---|".repeat(5 + Latency.values().length + 1)).append('\n');
+        for (StageResult stage : stages) {
+            md.append(String.format(Locale.ROOT, "| %d | %d | %.0f | %.0f | %.2f%% | ", stage.targetPeers(),
+                    stage.connectedPeers(), stage.sentPerSecond(), stage.receivedPerSecond(),
+                    stage.errorRate() * 100));
+            for (Latency latency : Latency.values()) {
+                StageResult.LatencySummary summary = stage.latencies().get(latency);
+                md.append(String.format(Locale.ROOT, "%.1f / %.1f | ", summary.p50Millis(), summary.p99Millis()));
+            }
+            md.append(stage.withinSlo() ? "yes" : "no").append(" |\n");
+        }
+
+        md.append("\n| Peers | ");
+        for (Count count : Count.values()) {
+            md.append(count).append(" | ");
+        }
+        md.append("\n|").append("---|".repeat(Count.values().length + 1)).append('\n');
+        for (StageResult stage : stages) {
+            md.append("| ").append(stage.targetPeers()).append(" | ");
+            for (Count count : Count.values()) {
+                md.append(stage.counts().get(count)).append(" | ");
+            }
+            md.append('\n');
+        }
+        return md.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pbl6.cinemate.signaling_loadgen.report;
+
+import com.pbl6.cinemate.signaling_loadgen.metrics.LatencyHistogram;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Count;
+import com.pbl6.cinemate.signaling_loadgen.metrics.StageMetrics.Latency;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Summary of one held stage.
+ *
+ * @param targetPeers    peers the stage asked for
+ * @param connectedPeers peers connected when the stage ended
+ * @param seconds        how long the stage was measured
+ * @param sentPerSecond  client → server messages per second
+ * @param receivedPerSecond server → client messages per second
+ * @param errorRate      errors and timeouts per message sent
+ * @param withinSlo      whether whoHas p99 and the error rate stayed within the configured limits
+ */
+public record StageResult(
+        int targetPeers,
+        int connectedPeers,
+        double seconds,
+        double sentPerSecond,
+        double receivedPerSecond,
+        Map<Latency, LatencySummary> latencies,
+        Map<Count, Long> counts,
+        double errorRate,
+        boolean withinSlo) {
+
+    public static StageResult of(int targetPeers, int connectedPeers, StageMetrics metrics, Duration whoHasSlo,
+            double maxErrorRate) {
+        double seconds = metrics.elapsedSeconds();
+        Map<Latency, LatencySummary> latencies = new EnumMap<>(Latency.class);
+        for (Latency latency : Latency.values()) {
+            latencies.put(latency, LatencySummary.of(metrics.histogram(latency)));
+        }
+        Map<Count, Long> counts = new EnumMap<>(Count.class);
+        for (Count count : Count.values()) {
+            counts.put(count, metrics.count(count));
+        }
+        long sent = counts.get(Count.SENT);
+        double errorRate = sent == 0 ? 0 : (double) (counts.get(Count.ERRORS) + counts.get(Count.TIMEOUTS)) / sent;
+        boolean withinSlo = latencies.get(Latency.WHO_HAS).p99Millis() <= whoHasSlo.toNanos() / 1e6
+                && errorRate <= maxErrorRate
+                && connectedPeers >= targetPeers * (1 - maxErrorRate);
+        return new StageResult(targetPeers, connectedPeers, seconds, sent / seconds,
+                counts.get(Count.RECEIVED) / seconds, latencies, counts, errorRate, withinSlo);
+    }
+
+    public record LatencySummary(long count, double p50Millis, double p90Millis, double p99Millis,
+            double p999Millis, double maxMillis) {
+
+        static LatencySummary of(LatencyHistogram histogram) {
+            return new LatencySummary(histogram.count(),
+                    histogram.percentileMicros(0.50) / 1e3,
+                    histogram.percentileMicros(0.90) / 1e3,
+                    histogram.percentileMicros(0.99) / 1e3,
+                    histogram.percentileMicros(0.999) / 1e3,
+                    histogram.maxMicros() / 1e3);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "com.pbl6.cinemate.streaming_signaling",
@@ -15,6 +16,7 @@ import org.springframework.kafka.annotation.EnableKafka;
         HibernateJpaAutoConfiguration.class
 })
 @EnableKafka
+@EnableScheduling
 @ConfigurationPropertiesScan(basePackages = {
         "com.pbl6.cinemate.streaming_signaling",
         "com.pbl6.cinemate.shared"
@@ -1,6 +1,8 @@
 package com.pbl6.cinemate.streaming_signaling.config;
 
 import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,4 +13,13 @@ public class AppConfig {
     public Clock clock() {
         return Clock.systemUTC();
     }
+
+    /**
+     * Runs the per-session drain tasks of outbound WebSocket queues. Virtual
+     * threads keep a blocked write to a slow client from tying up a platform thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService signalingOutboundExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-out-", 0).factory());
+    }
 }
@@ -0,0 +1,26 @@
+package com.pbl6.cinemate.streaming_signaling.config;
+
+import com.pbl6.cinemate.streaming_signaling.service.RtcRelayService;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisPubSubConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            RtcRelayService rtcRelayService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // listeners only enqueue to local sessions, so dispatching on the subscriber thread keeps relay batches in order
+        container.setTaskExecutor(new SyncTaskExecutor());
+        container.addMessageListener(rtcRelayService, new ChannelTopic(rtcRelayService.relayChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pbl6.cinemate.streaming_signaling.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Server-side Lua scripts used to keep multi-key signaling updates atomic
+ * and within a single Redis round-trip.
+ */
+@Configuration
+public class RedisScriptConfig {
+
+    @Bean
+    public RedisScript<Long> compareAndDeleteScript() {
+        return RedisScript.of(new ClassPathResource("scripts/compare-and-delete.lua"), Long.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.pbl6.cinemate.streaming_signaling.config;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identity of this signaling replica. Taken from {@code streaming.signaling.node-id}
+ * (defaults to the container hostname) or generated when not configured.
+ */
+@Component
+public class SignalingNode {
+
+    private static final Logger log = LoggerFactory.getLogger(SignalingNode.class);
+    private final String id;
+
+    public SignalingNode(SignalingProperties properties) {
+        String configured = properties.signaling().nodeId();
+        this.id = configured == null || configured.isBlank()
+                ? UUID.randomUUID().toString()
+                : configured.trim();
+        log.info("Signaling node id: {}", id);
+    }
+
+    public String id() {
+        return id;
+    }
+}
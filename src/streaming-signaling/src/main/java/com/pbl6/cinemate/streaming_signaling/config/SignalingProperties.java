@@ -1,6 +1,9 @@
 package com.pbl6.cinemate.streaming_signaling.config;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import java.time.Duration;
 
@@ -12,6 +15,30 @@ public record SignalingProperties(Signaling signaling) {
     public record Signaling(
             @NotNull Duration redisTtlSegmentKeys,
             @NotNull Duration peerLastSeenTtl,
-            @NotNull Duration peerMetricsTtl) {
+            @NotNull Duration peerMetricsTtl,
+            String nodeId,
+            @NotNull Duration clientRegistryRefreshInterval,
+            @NotNull Duration relayFlushInterval,
+            @Positive int relayMaxBatchSize,
+            @Positive int outboundQueueCapacity,
+            @NotNull Duration outboundMaxLag,
+            @NotNull Duration availabilityTick,
+            @Positive int availabilityMaxWindow,
+            @NotBlank String localityTable,
+            @Positive int whoHasMaxPeers,
+            @PositiveOrZero int whoHasDiversitySlots,
+            @NotNull Duration livenessTick,
+            @NotNull Duration nodeHeartbeatInterval,
+            @NotNull Duration nodeDeadAfter,
+            @NotNull Duration resumeGracePeriod,
+            @NotNull Duration reportFlushInterval,
+            @Positive int reportMaxBatchSize,
+            @NotNull Duration metricsPublishInterval,
+            @NotNull Duration metricsHalfLife,
+            @Positive int reportRateLimit,
+            @Positive int reportBurst,
+            @NotBlank String advertisedUrl,
+            @Positive int nodeCapacity,
+            @Positive int trustedProxyHops) {
     }
 }
@@ -0,0 +1,14 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+import java.util.List;
+
+/**
+ * Availability changes of one movie accumulated during a tick, published on
+ * the movie's availability channel so every node can fan them out to its own
+ * subscribers.
+ */
+public record AvailabilityDelta(List<Change> changes, List<String> departed) {
+
+    public record Change(String qualityId, String peerId, int segment, boolean have) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment availability pushed to a subscribed client. Segments are numeric
+ * indices; {@code snapshot} is true for the full state sent on subscribe and
+ * false for incremental deltas.
+ *
+ * @param added    peerId → segments the peer now has
+ * @param removed  peerId → segments the peer no longer has
+ * @param departed peers that left the movie entirely
+ */
+public record HaveMessage(
+        String type,
+        String qualityId,
+        boolean snapshot,
+        Map<String, List<Integer>> added,
+        Map<String, List<Integer>> removed,
+        List<String> departed) {
+
+    public HaveMessage(String qualityId, boolean snapshot, Map<String, List<Integer>> added,
+            Map<String, List<Integer>> removed, List<String> departed) {
+        this("have", qualityId, snapshot, added, removed, departed);
+    }
+}
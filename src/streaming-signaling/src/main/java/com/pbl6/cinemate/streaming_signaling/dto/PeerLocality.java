@@ -0,0 +1,59 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+import java.util.Objects;
+
+/**
+ * Coarse network position of a peer, used to prefer nearby sources.
+ *
+ * @param networkPrefix client network prefix (/24 for IPv4, /48 for IPv6), may be null
+ * @param asn           client-reported ASN bucket, may be null
+ * @param region        region from the bundled IP lookup table, may be null
+ */
+public record PeerLocality(String networkPrefix, String asn, String region) {
+
+    public static final PeerLocality UNKNOWN = new PeerLocality(null, null, null);
+    private static final String SEPARATOR = "|";
+
+    /**
+     * How close {@code other} is: 3 same network prefix, 2 same ASN, 1 same
+     * region, 0 unknown or unrelated.
+     */
+    public int affinity(PeerLocality other) {
+        if (other == null) {
+            return 0;
+        }
+        if (networkPrefix != null && networkPrefix.equals(other.networkPrefix)) {
+            return 3;
+        }
+        if (asn != null && asn.equals(other.asn)) {
+            return 2;
+        }
+        if (region != null && region.equals(other.region)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    public String encode() {
+        return nullToEmpty(networkPrefix) + SEPARATOR + nullToEmpty(asn) + SEPARATOR + nullToEmpty(region);
+    }
+
+    public static PeerLocality decode(Object raw) {
+        if (raw == null) {
+            return UNKNOWN;
+        }
+        String[] parts = raw.toString().split("\\|", -1);
+        if (parts.length != 3) {
+            return UNKNOWN;
+        }
+        return new PeerLocality(emptyToNull(parts[0]), emptyToNull(parts[1]), emptyToNull(parts[2]));
+    }
+
+    private static String nullToEmpty(String value) {
+        return Objects.requireNonNullElse(value, "");
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -1,4 +1,36 @@
 package com.pbl6.cinemate.streaming_signaling.dto;
 
+import java.util.Locale;
+
+/**
+ * Ranking signals of a peer, stored in Redis as one compact field by the node
+ * that owns the peer's session.
+ */
 public record PeerMetrics(double uploadSpeed, int latency, double successRate, long lastActive) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        return String.format(Locale.ROOT, "%.3f%s%d%s%.4f%s%d",
+                uploadSpeed, SEPARATOR, latency, SEPARATOR, successRate, SEPARATOR, lastActive);
+    }
+
+    /**
+     * @return the decoded metrics, or {@code null} if {@code raw} is missing or malformed
+     */
+    public static PeerMetrics decode(Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        String[] parts = raw.toString().split("\\|", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new PeerMetrics(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]),
+                    Double.parseDouble(parts[2]), Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
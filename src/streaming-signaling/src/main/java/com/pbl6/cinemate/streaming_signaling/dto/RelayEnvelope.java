@@ -0,0 +1,10 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+/**
+ * A signaling message forwarded to the node that holds the target client.
+ *
+ * @param to      target clientId
+ * @param message serialized JSON message to deliver verbatim
+ */
+public record RelayEnvelope(String to, String message) {
+}
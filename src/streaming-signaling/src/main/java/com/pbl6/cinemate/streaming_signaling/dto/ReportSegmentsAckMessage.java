@@ -0,0 +1,8 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+public record ReportSegmentsAckMessage(String type, int reported, int removed) {
+
+    public ReportSegmentsAckMessage(int reported, int removed) {
+        this("reportSegmentsAck", reported, removed);
+    }
+}
@@ -0,0 +1,8 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+/**
+ * A segment of one quality variant, as listed in the removals of a bulk
+ * {@code reportSegments} message.
+ */
+public record SegmentRef(String qualityId, String segmentId) {
+}
@@ -0,0 +1,7 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+/**
+ * One entry of a bulk {@code reportSegments} message.
+ */
+public record SegmentReport(String qualityId, String segmentId, String source, double speed, long latency) {
+}
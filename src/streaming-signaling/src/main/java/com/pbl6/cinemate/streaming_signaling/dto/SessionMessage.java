@@ -0,0 +1,16 @@
+package com.pbl6.cinemate.streaming_signaling.dto;
+
+/**
+ * Sent after {@code peerList} on every connect. {@code clientId} is the peer
+ * id bound to this connection ({@code {userId}:{instance}}). {@code resumeToken} lets the
+ * client reconnect within {@code resumeGraceSeconds} of a dropped connection
+ * without re-reporting its buffer; {@code resumed} tells it whether this
+ * connection restored a previous session.
+ */
+public record SessionMessage(String type, String clientId, String resumeToken, boolean resumed,
+        long resumeGraceSeconds) {
+
+    public SessionMessage(String clientId, String resumeToken, boolean resumed, long resumeGraceSeconds) {
+        this("session", clientId, resumeToken, resumed, resumeGraceSeconds);
+    }
+}
@@ -6,10 +6,14 @@ import java.util.Optional;
 public enum MessageType {
     WHO_HAS("whoHas"),
     REPORT_SEGMENT("reportSegment"),
+    REPORT_SEGMENTS("reportSegments"),
     REMOVE_SEGMENT("removeSegment"),
     RTC_OFFER("rtcOffer"),
     RTC_ANSWER("rtcAnswer"),
-    ICE_CANDIDATE("iceCandidate");
+    ICE_CANDIDATE("iceCandidate"),
+    SUBSCRIBE("subscribe"),
+    UNSUBSCRIBE("unsubscribe"),
+    HEARTBEAT("heartbeat");
 
     public final String value;
 
@@ -0,0 +1,294 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.dto.AvailabilityDelta;
+import com.pbl6.cinemate.streaming_signaling.dto.HaveMessage;
+import com.pbl6.cinemate.streaming_signaling.util.SegmentIds;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.OutboundSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Pushes segment availability to clients that subscribed to a window of
+ * segments, replacing repeated {@code whoHas} polling.
+ * <p>
+ * Ownership changes seen by this node are buffered per movie and published
+ * once per tick on the movie's availability channel. Nodes subscribe to that
+ * channel only while they have local subscribers for the movie, and forward
+ * each subscriber the changes that fall inside its window. Snapshots come
+ * from the node's in-memory swarm state.
+ * <p>
+ * Subscribing and unsubscribing a channel talks to Redis, so it happens
+ * outside the map updates that track local subscribers.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final LocalSessionRegistry sessionRegistry;
+    private final SignalingProperties properties;
+    private final SwarmStateService swarmState;
+    private final ObjectMapper objectMapper;
+    private final Map<String, MovieChannel> channels = new ConcurrentHashMap<>();
+    private final Map<String, PendingDelta> pending = new ConcurrentHashMap<>();
+
+    public AvailabilityService(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            LocalSessionRegistry sessionRegistry,
+            SignalingProperties properties,
+            SwarmStateService swarmState,
+            ObjectMapper objectMapper) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.listenerContainer = Objects.requireNonNull(listenerContainer, "listenerContainer must not be null");
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry, "sessionRegistry must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.swarmState = Objects.requireNonNull(swarmState, "swarmState must not be null");
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+    }
+
+    /**
+     * Subscribes {@code clientId} to {@code count} segments starting at
+     * {@code fromSegment}, replacing any previous window, and returns the current
+     * owners of that window as a snapshot.
+     */
+    public HaveMessage subscribe(
+            @NonNull String clientId,
+            @NonNull String movieId,
+            String qualityId,
+            int fromSegment,
+            int count) {
+        if (fromSegment < 0 || count <= 0) {
+            throw new IllegalArgumentException("Invalid subscription window");
+        }
+        int window = Math.min(count, properties.signaling().availabilityMaxWindow());
+        Subscription subscription = new Subscription(qualityId, fromSegment, fromSegment + window);
+
+        MovieChannel channel = channels.compute(movieId, (id, current) -> {
+            MovieChannel movieChannel = current != null ? current : new MovieChannel(id);
+            movieChannel.subscribers.put(clientId, subscription);
+            return movieChannel;
+        });
+        channel.listen();
+        return snapshot(movieId, subscription);
+    }
+
+    public void unsubscribe(@NonNull String clientId, @NonNull String movieId) {
+        MovieChannel[] emptied = new MovieChannel[1];
+        channels.computeIfPresent(movieId, (id, channel) -> {
+            channel.subscribers.remove(clientId);
+            if (!channel.subscribers.isEmpty()) {
+                return channel;
+            }
+            emptied[0] = channel;
+            return null;
+        });
+        if (emptied[0] != null) {
+            emptied[0].retire();
+        }
+    }
+
+    public void segmentAdded(String movieId, String qualityId, String segmentId, String clientId) {
+        record(movieId, qualityId, segmentId, clientId, true);
+    }
+
+    public void segmentRemoved(String movieId, String qualityId, String segmentId, String clientId) {
+        record(movieId, qualityId, segmentId, clientId, false);
+    }
+
+    public void peerLeft(@NonNull String movieId, @NonNull String clientId) {
+        unsubscribe(clientId, movieId);
+        while (!pending.computeIfAbsent(movieId, k -> new PendingDelta()).departed(clientId)) {
+            // raced with a tick that drained the buffer; retry on a fresh one
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.signaling.availability-tick}")
+    public void publishPending() {
+        for (String movieId : pending.keySet()) {
+            PendingDelta delta = pending.remove(movieId);
+            if (delta == null) {
+                continue;
+            }
+            AvailabilityDelta payload = delta.drain();
+            try {
+                redisTemplate.convertAndSend(StreamingRedisKeys.movieAvailabilityChannel(movieId),
+                        objectMapper.writeValueAsString(payload));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize availability delta for movie {}: {}", movieId, e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(String movieId, Map<String, Subscription> subscribers, Message message) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        AvailabilityDelta delta;
+        try {
+            delta = objectMapper.readValue(message.getBody(), AvailabilityDelta.class);
+        } catch (IOException e) {
+            log.warn("Dropping malformed availability delta for movie {}: {}", movieId, e.getMessage());
+            return;
+        }
+
+        subscribers.forEach((clientId, subscription) -> {
+            HaveMessage have = subscription.filter(delta, clientId);
+            if (have == null) {
+                return;
+            }
+            OutboundSession target = sessionRegistry.get(clientId);
+            if (target == null || !target.isOpen()) {
+                return;
+            }
+            try {
+                target.send(new TextMessage(objectMapper.writeValueAsString(have)));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize availability for {}: {}", clientId, e.getMessage());
+            }
+        });
+    }
+
+    private void record(String movieId, String qualityId, String segmentId, String clientId, boolean have) {
+        OptionalInt index = SegmentIds.toIndex(segmentId);
+        if (index.isEmpty()) {
+            return;
+        }
+        AvailabilityDelta.Change change = new AvailabilityDelta.Change(qualityId, clientId, index.getAsInt(), have);
+        while (!pending.computeIfAbsent(movieId, k -> new PendingDelta()).change(change)) {
+            // raced with a tick that drained the buffer; retry on a fresh one
+        }
+    }
+
+    private HaveMessage snapshot(String movieId, Subscription subscription) {
+        Map<String, List<Integer>> added = swarmState.windowOwners(movieId, subscription.qualityId(),
+                subscription.from(), subscription.to());
+        return new HaveMessage(subscription.qualityId(), true, added, Map.of(), List.of());
+    }
+
+    private ChannelTopic topic(String movieId) {
+        return new ChannelTopic(StreamingRedisKeys.movieAvailabilityChannel(movieId));
+    }
+
+    /**
+     * Local subscribers of one movie and this node's subscription to its
+     * availability channel. The channel is subscribed by the first
+     * {@link #listen()} and unsubscribed by {@link #retire()} once the last
+     * subscriber has left; a new subscriber after that gets a new instance.
+     */
+    private final class MovieChannel {
+        private final Map<String, Subscription> subscribers = new ConcurrentHashMap<>();
+        private final MessageListener listener;
+        private final ChannelTopic topic;
+        private final AtomicBoolean listening = new AtomicBoolean();
+        private volatile boolean retired;
+
+        private MovieChannel(String movieId) {
+            this.listener = (message, pattern) -> dispatch(movieId, subscribers, message);
+            this.topic = topic(movieId);
+        }
+
+        void listen() {
+            if (!listening.compareAndSet(false, true)) {
+                return;
+            }
+            listenerContainer.addMessageListener(listener, topic);
+            if (retired) {
+                // the last subscriber left while we were subscribing
+                listenerContainer.removeMessageListener(listener, topic);
+            }
+        }
+
+        void retire() {
+            retired = true;
+            if (listening.get()) {
+                listenerContainer.removeMessageListener(listener, topic);
+            }
+        }
+    }
+
+    private record Subscription(String qualityId, int from, int to) {
+
+        HaveMessage filter(AvailabilityDelta delta, String self) {
+            Map<String, List<Integer>> added = new LinkedHashMap<>();
+            Map<String, List<Integer>> removed = new LinkedHashMap<>();
+            for (AvailabilityDelta.Change change : delta.changes()) {
+                if (change.peerId().equals(self)
+                        || !Objects.equals(change.qualityId(), qualityId)
+                        || change.segment() < from
+                        || change.segment() >= to) {
+                    continue;
+                }
+                (change.have() ? added : removed)
+                        .computeIfAbsent(change.peerId(), k -> new ArrayList<>())
+                        .add(change.segment());
+            }
+            List<String> departed = delta.departed().stream().filter(peer -> !peer.equals(self)).toList();
+            if (added.isEmpty() && removed.isEmpty() && departed.isEmpty()) {
+                return null;
+            }
+            return new HaveMessage(qualityId, false, added, removed, departed);
+        }
+    }
+
+    /**
+     * Changes buffered for one movie until the next tick. A later change for the
+     * same peer/segment supersedes an earlier one.
+     */
+    private static final class PendingDelta {
+        private final Map<String, AvailabilityDelta.Change> changes = new LinkedHashMap<>();
+        private final Set<String> departed = new LinkedHashSet<>();
+        private boolean drained;
+
+        synchronized boolean change(AvailabilityDelta.Change change) {
+            if (drained) {
+                return false;
+            }
+            changes.put(change.qualityId() + '|' + change.peerId() + '|' + change.segment(), change);
+            return true;
+        }
+
+        synchronized boolean departed(String peerId) {
+            if (drained) {
+                return false;
+            }
+            changes.values().removeIf(change -> change.peerId().equals(peerId));
+            departed.add(peerId);
+            return true;
+        }
+
+        synchronized AvailabilityDelta drain() {
+            drained = true;
+            return new AvailabilityDelta(List.copyOf(changes.values()), List.copyOf(departed));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerLocality;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves a connecting client's coarse locality: its network prefix, the ASN
+ * bucket it reports, and a region from the bundled offline IPv4 table.
+ * <p>
+ * The table holds non-overlapping {@code cidr,region} lines and is loaded once
+ * into sorted arrays, so a lookup is a binary search with no I/O.
+ */
+@Service
+public class LocalityService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalityService.class);
+    private static final int MAX_ASN_LENGTH = 16;
+    private final long[] rangeStarts;
+    private final long[] rangeEnds;
+    private final String[] regions;
+
+    public LocalityService(SignalingProperties properties, ResourceLoader resourceLoader) {
+        List<Range> ranges = load(resourceLoader.getResource(properties.signaling().localityTable()));
+        ranges.sort(Comparator.comparingLong(Range::start));
+        this.rangeStarts = ranges.stream().mapToLong(Range::start).toArray();
+        this.rangeEnds = ranges.stream().mapToLong(Range::end).toArray();
+        this.regions = ranges.stream().map(Range::region).toArray(String[]::new);
+        log.info("Loaded {} locality ranges", ranges.size());
+    }
+
+    public PeerLocality resolve(InetAddress address, String asn) {
+        String sanitizedAsn = asn == null || asn.isBlank() || asn.length() > MAX_ASN_LENGTH ? null : asn.trim();
+        if (address == null) {
+            return new PeerLocality(null, sanitizedAsn, null);
+        }
+        return new PeerLocality(networkPrefix(address), sanitizedAsn, region(address));
+    }
+
+    private String region(InetAddress address) {
+        if (!(address instanceof Inet4Address)) {
+            return null;
+        }
+        long ip = toLong(address.getAddress());
+        int idx = Arrays.binarySearch(rangeStarts, ip);
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        return idx >= 0 && ip <= rangeEnds[idx] ? regions[idx] : null;
+    }
+
+    private static String networkPrefix(InetAddress address) {
+        byte[] raw = address.getAddress();
+        if (address instanceof Inet4Address) {
+            return (raw[0] & 0xFF) + "." + (raw[1] & 0xFF) + "." + (raw[2] & 0xFF) + ".0/24";
+        }
+        if (address instanceof Inet6Address) {
+            StringBuilder prefix = new StringBuilder();
+            for (int i = 0; i < 6; i += 2) {
+                prefix.append(Integer.toHexString(((raw[i] & 0xFF) << 8) | (raw[i + 1] & 0xFF))).append(':');
+            }
+            return prefix.append(":/48").toString();
+        }
+        return null;
+    }
+
+    private static List<Range> load(Resource resource) {
+        List<Range> ranges = new ArrayList<>();
+        if (!resource.exists()) {
+            log.warn("Locality table {} not found; region matching disabled", resource.getDescription());
+            return ranges;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Range range = parse(line);
+                if (range != null) {
+                    ranges.add(range);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read locality table {}: {}", resource.getDescription(), e.getMessage());
+        }
+        return ranges;
+    }
+
+    private static Range parse(String line) {
+        String[] parts = line.split(",", 2);
+        String[] cidr = parts[0].trim().split("/", 2);
+        if (parts.length != 2 || cidr.length != 2) {
+            log.debug("Skipping malformed locality line: {}", line);
+            return null;
+        }
+        try {
+            InetAddress base = InetAddress.getByName(cidr[0]);
+            int bits = Integer.parseInt(cidr[1]);
+            if (!(base instanceof Inet4Address) || bits < 0 || bits > 32) {
+                return null;
+            }
+            long mask = bits == 0 ? 0L : (0xFFFFFFFFL << (32 - bits)) & 0xFFFFFFFFL;
+            long start = toLong(base.getAddress()) & mask;
+            long end = start | (~mask & 0xFFFFFFFFL);
+            return new Range(start, end, parts[1].trim());
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Skipping malformed locality line: {}", line);
+            return null;
+        }
+    }
+
+    private static long toLong(byte[] ipv4) {
+        return ((ipv4[0] & 0xFFL) << 24) | ((ipv4[1] & 0xFFL) << 16) | ((ipv4[2] & 0xFFL) << 8) | (ipv4[3] & 0xFFL);
+    }
+
+    private record Range(long start, long end, String region) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingNode;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cluster membership of signaling nodes.
+ * <p>
+ * Every node heartbeats into {@code signaling:nodes} and records which clients
+ * it holds. A sweeper, run by whichever node holds a short lease, reclaims the
+ * swarm state of nodes whose heartbeat is older than {@code node-dead-after}
+ * so that a crashed node's peers stop showing up in {@code whoHas} without
+ * waiting for every segment key's TTL.
+ * <p>
+ * The heartbeat also refreshes {@code signaling:node:{nodeId}:info} with the
+ * node's advertised address, session count and capacity; the gateway routes
+ * each movie's connections to a node chosen from these entries.
+ */
+@Service
+public class NodeMembershipService {
+
+    public static final String FIELD_ADDRESS = "address";
+    public static final String FIELD_SESSIONS = "sessions";
+    public static final String FIELD_CAPACITY = "capacity";
+    private static final Logger log = LoggerFactory.getLogger(NodeMembershipService.class);
+    private final StringRedisTemplate redisTemplate;
+    private final SignalingService signalingService;
+    private final RtcRelayService rtcRelayService;
+    private final SignalingNode node;
+    private final SignalingProperties properties;
+    private final LocalSessionRegistry sessionRegistry;
+    private final Clock clock;
+
+    public NodeMembershipService(
+            StringRedisTemplate redisTemplate,
+            SignalingService signalingService,
+            RtcRelayService rtcRelayService,
+            SignalingNode node,
+            SignalingProperties properties,
+            LocalSessionRegistry sessionRegistry,
+            Clock clock) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.signalingService = Objects.requireNonNull(signalingService, "signalingService must not be null");
+        this.rtcRelayService = Objects.requireNonNull(rtcRelayService, "rtcRelayService must not be null");
+        this.node = Objects.requireNonNull(node, "node must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry, "sessionRegistry must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    public void trackClient(@NonNull String clientId, @NonNull String movieId) {
+        redisTemplate.opsForHash().put(StreamingRedisKeys.nodeClientsKey(node.id()), clientId, movieId);
+    }
+
+    public void untrackClients(@NonNull List<String> clientIds) {
+        if (!clientIds.isEmpty()) {
+            redisTemplate.opsForHash().delete(StreamingRedisKeys.nodeClientsKey(node.id()), clientIds.toArray());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.signaling.node-heartbeat-interval}")
+    public void heartbeatAndSweep() {
+        long now = clock.millis();
+        String infoKey = StreamingRedisKeys.nodeInfoKey(node.id());
+        Map<String, String> info = Map.of(
+                FIELD_ADDRESS, properties.signaling().advertisedUrl(),
+                FIELD_SESSIONS, Integer.toString(sessionRegistry.clientIds().size()),
+                FIELD_CAPACITY, Integer.toString(properties.signaling().nodeCapacity()));
+        long infoTtl = properties.signaling().nodeDeadAfter().toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zAdd(StreamingRedisKeys.signalingNodesKey(), now, node.id());
+            stringConnection.hMSet(infoKey, info);
+            stringConnection.expire(infoKey, infoTtl);
+            return null;
+        });
+
+        Boolean leased = redisTemplate.opsForValue().setIfAbsent(StreamingRedisKeys.sweeperLockKey(), node.id(),
+                properties.signaling().nodeHeartbeatInterval());
+        if (!Boolean.TRUE.equals(leased)) {
+            return;
+        }
+        long deadline = now - properties.signaling().nodeDeadAfter().toMillis();
+        Set<String> deadNodes = redisTemplate.opsForZSet()
+                .rangeByScore(StreamingRedisKeys.signalingNodesKey(), 0, deadline);
+        if (deadNodes == null) {
+            return;
+        }
+        for (String deadNode : deadNodes) {
+            reclaim(deadNode);
+        }
+    }
+
+    private void reclaim(String deadNode) {
+        String clientsKey = StreamingRedisKeys.nodeClientsKey(deadNode);
+        Map<Object, Object> clients = redisTemplate.opsForHash().entries(clientsKey);
+        List<String> clientIds = clients.keySet().stream().map(Object::toString).toList();
+        List<String> currentNodes = rtcRelayService.locate(clientIds);
+        Map<String, List<String>> byMovie = new HashMap<>();
+        int reclaimed = 0;
+        for (int i = 0; i < clientIds.size(); i++) {
+            String currentNode = currentNodes.get(i);
+            if (currentNode != null && !currentNode.equals(deadNode)) {
+                // resumed its session on a live node
+                continue;
+            }
+            String clientId = clientIds.get(i);
+            byMovie.computeIfAbsent(clients.get(clientId).toString(), k -> new ArrayList<>()).add(clientId);
+            reclaimed++;
+        }
+        byMovie.forEach(signalingService::removePeers);
+
+        redisTemplate.delete(List.of(clientsKey, StreamingRedisKeys.nodeInfoKey(deadNode)));
+        redisTemplate.opsForZSet().remove(StreamingRedisKeys.signalingNodesKey(), deadNode);
+        log.warn("Reclaimed {} peers of dead signaling node {}", reclaimed, deadNode);
+    }
+}
@@ -0,0 +1,180 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.util.TimingWheel;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.OutboundSession;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+
+/**
+ * Tracks heartbeat deadlines of locally connected peers in a hierarchical
+ * timing wheel. Any inbound message counts as a heartbeat. Peers that miss
+ * their deadline are cleaned up in one batch per movie and their sessions
+ * are closed, instead of waiting for Redis TTLs or a close callback that may
+ * never arrive for a half-open connection.
+ * <p>
+ * A peer whose connection dropped stays in the wheel, detached, until its
+ * resume grace period ends. If by then it has reconnected to another node
+ * only the local leftovers are dropped; otherwise it is removed like any
+ * other stale peer.
+ * <p>
+ * Heartbeats arrive on every inbound frame, so they take no lock: they only
+ * record the peer's new deadline. The wheel belongs to the {@link #expireStale()}
+ * task. It learns about new peers and shortened deadlines from a queue that
+ * the task drains, and checks extended deadlines lazily. A peer that comes due
+ * with a later deadline is put back in the wheel instead of being expired.
+ */
+@Service
+public class PeerLivenessService {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerLivenessService.class);
+    private static final CloseStatus HEARTBEAT_TIMEOUT = CloseStatus.SESSION_NOT_RELIABLE
+            .withReason("Heartbeat timeout");
+    private static final int SLOT_BITS = 6;
+    private static final int LEVELS = 3;
+    private final SignalingService signalingService;
+    private final RtcRelayService rtcRelayService;
+    private final NodeMembershipService nodeMembershipService;
+    private final LocalSessionRegistry sessionRegistry;
+    private final SignalingProperties properties;
+    private final Clock clock;
+    // only touched by expireStale
+    private final TimingWheel<String> wheel;
+    private final Map<String, Liveness> tracked = new ConcurrentHashMap<>();
+    private final Queue<String> rescheduled = new ConcurrentLinkedQueue<>();
+
+    public PeerLivenessService(
+            SignalingService signalingService,
+            RtcRelayService rtcRelayService,
+            NodeMembershipService nodeMembershipService,
+            LocalSessionRegistry sessionRegistry,
+            SignalingProperties properties,
+            Clock clock) {
+        this.signalingService = Objects.requireNonNull(signalingService, "signalingService must not be null");
+        this.rtcRelayService = Objects.requireNonNull(rtcRelayService, "rtcRelayService must not be null");
+        this.nodeMembershipService = Objects.requireNonNull(nodeMembershipService,
+                "nodeMembershipService must not be null");
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry, "sessionRegistry must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.wheel = new TimingWheel<>(properties.signaling().livenessTick().toMillis(), SLOT_BITS, LEVELS,
+                clock.millis());
+    }
+
+    public void heartbeat(@NonNull String clientId, @NonNull String movieId) {
+        Liveness previous = tracked.put(clientId,
+                new Liveness(movieId, clock.millis() + properties.signaling().peerLastSeenTtl().toMillis()));
+        if (previous == null) {
+            rescheduled.add(clientId);
+        }
+    }
+
+    /**
+     * Keeps a peer whose connection dropped alive for {@code grace} so it can resume.
+     *
+     * @return {@code false} if the peer was already expired (and cleaned up) by the wheel
+     */
+    public boolean detach(@NonNull String clientId, @NonNull Duration grace) {
+        long deadline = clock.millis() + grace.toMillis();
+        if (tracked.computeIfPresent(clientId, (id, liveness) -> new Liveness(liveness.movieId(), deadline)) == null) {
+            return false;
+        }
+        // the grace period may end before the last heartbeat deadline
+        rescheduled.add(clientId);
+        return true;
+    }
+
+    /**
+     * Stops tracking {@code clientId}.
+     *
+     * @return {@code false} if the peer was already expired (and cleaned up) by the wheel
+     */
+    public boolean forget(@NonNull String clientId) {
+        // the wheel drops the entry when it comes due
+        return tracked.remove(clientId) != null;
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.signaling.liveness-tick}")
+    public void expireStale() {
+        String clientId;
+        while ((clientId = rescheduled.poll()) != null) {
+            Liveness liveness = tracked.get(clientId);
+            if (liveness != null) {
+                wheel.schedule(clientId, liveness.deadline());
+            } else {
+                wheel.cancel(clientId);
+            }
+        }
+
+        long now = clock.millis();
+        Map<String, List<String>> expiredByMovie = new HashMap<>();
+        for (String due : wheel.advance(now)) {
+            Liveness liveness = tracked.get(due);
+            if (liveness == null) {
+                continue;
+            }
+            if (liveness.deadline() > now) {
+                // heartbeats moved the deadline since it was scheduled
+                wheel.schedule(due, liveness.deadline());
+            } else if (tracked.remove(due, liveness)) {
+                expiredByMovie.computeIfAbsent(liveness.movieId(), k -> new ArrayList<>()).add(due);
+            }
+        }
+        expiredByMovie.forEach(this::expire);
+    }
+
+    private void expire(String movieId, List<String> clientIds) {
+        List<String> nodes = rtcRelayService.locate(clientIds);
+        List<String> stale = new ArrayList<>(clientIds.size());
+        for (int i = 0; i < clientIds.size(); i++) {
+            String clientId = clientIds.get(i);
+            OutboundSession session = sessionRegistry.get(clientId);
+            if (session == null && nodes.get(i) != null) {
+                // detached here, but resumed on another node which now owns its state
+                signalingService.handOff(clientId, movieId);
+            } else {
+                stale.add(clientId);
+            }
+        }
+        nodeMembershipService.untrackClients(clientIds);
+        if (stale.isEmpty()) {
+            return;
+        }
+        log.info("Expiring {} stale peers of movie {}", stale.size(), movieId);
+        signalingService.removePeers(movieId, stale);
+        stale.forEach(this::closeSession);
+    }
+
+    private void closeSession(String clientId) {
+        OutboundSession session = sessionRegistry.get(clientId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.delegate().close(HEARTBEAT_TIMEOUT);
+        } catch (IOException e) {
+            log.debug("Failed to close stale session of {}: {}", clientId, e.getMessage());
+        }
+    }
+
+    private record Liveness(String movieId, long deadline) {
+    }
+}
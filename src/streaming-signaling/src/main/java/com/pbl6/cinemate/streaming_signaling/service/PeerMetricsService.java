@@ -2,34 +2,45 @@ package com.pbl6.cinemate.streaming_signaling.service;
 
 import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
 import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
+import com.pbl6.cinemate.streaming_signaling.util.Ewma;
 
 import java.time.Clock;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * Peer quality metrics.
+ * <p>
+ * The node that holds a peer's session tracks its upload speed, latency and
+ * peer success rate as time-decayed moving averages in memory. Peers whose
+ * averages changed are published once per {@code metrics-publish-interval}
+ * as a single encoded {@value #FIELD_QUALITY} field of the peer's metrics
+ * hash, which every node reads when ranking {@code whoHas} owners.
+ */
 @Component
 public class PeerMetricsService {
 
-    private static final Logger log = LoggerFactory.getLogger(PeerMetricsService.class);
-    private static final String FIELD_TOTAL_SEGMENTS = "totalSegments";
-    private static final String FIELD_PEER_SUCCESS_SEGMENTS = "peerSuccessSegments";
-    private static final String FIELD_SUCCESS_RATE = "successRate";
-    private static final String FIELD_LAST_ACTIVE = "lastActive";
-    private static final String CLIENT_ID_REQUIRED_MESSAGE = "clientId must not be null";
-    private static final String PEER_METRICS_TTL_REQUIRED = "Peer metrics TTL must not be null";
+    public static final String FIELD_QUALITY = "quality";
+    private static final double MIN_SAMPLE_WEIGHT = 0.05;
+    private static final double PRIOR_SUCCESS_RATE = 0.5;
     private final StringRedisTemplate redisTemplate;
     private final SignalingProperties properties;
     private final Clock clock;
+    private final Map<String, PeerQuality> local = new ConcurrentHashMap<>();
 
     public PeerMetricsService(StringRedisTemplate redisTemplate, SignalingProperties properties, Clock clock) {
         this.redisTemplate = redisTemplate;
@@ -37,89 +48,117 @@ public class PeerMetricsService {
         this.clock = clock;
     }
 
-    public double updateReliability(@NonNull String clientId, String source) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED_MESSAGE);
-        String metricsKey = StreamingRedisKeys.peerMetricsKey(sanitizedClientId);
-        if (metricsKey == null) {
-            log.warn("Metrics key is null for clientId: {}", sanitizedClientId);
-            return 0.0;
-        }
-        HashOperations<String, Object, Object> hashOps = redisTemplate.opsForHash();
-        long totalSegments = nullSafeLong(hashOps.increment(metricsKey, FIELD_TOTAL_SEGMENTS, 1L));
-        if (totalSegments < 1) {
-            totalSegments = 1;
-        }
+    /**
+     * Folds one segment download of a local peer into its averages.
+     *
+     * @param fromPeer whether the segment came from another peer rather than origin
+     */
+    public void record(@NonNull String clientId, boolean fromPeer, double speed, long latency) {
+        long now = clock.millis();
+        local.computeIfAbsent(clientId, k -> new PeerQuality(properties.signaling().metricsHalfLife(), now))
+                .record(fromPeer, speed, latency, now);
+    }
 
-        boolean successfulPeerTransfer = source == null || !"origin".equalsIgnoreCase(source);
-        long successfulSegments = successfulPeerTransfer
-                ? nullSafeLong(hashOps.increment(metricsKey, FIELD_PEER_SUCCESS_SEGMENTS, 1L))
-                : getLongField(metricsKey, FIELD_PEER_SUCCESS_SEGMENTS);
-
-        double successRate = successfulSegments <= 0 ? 0.0 : successfulSegments / (double) totalSegments;
-        String successRateValue = String.valueOf(successRate);
-        String lastActiveValue = String.valueOf(clock.instant().getEpochSecond());
-        hashOps.put(metricsKey, FIELD_SUCCESS_RATE, Objects.requireNonNull(successRateValue));
-        hashOps.put(metricsKey, FIELD_LAST_ACTIVE, Objects.requireNonNull(lastActiveValue));
-
-        Duration ttl = Objects.requireNonNull(
-                properties.signaling().peerMetricsTtl(),
-                PEER_METRICS_TTL_REQUIRED);
-        redisTemplate.expire(metricsKey, ttl);
-
-        log.debug(
-                "Updated reliability for client {} (source={}): total={}, success={}, rate={}",
-                sanitizedClientId,
-                source,
-                totalSegments,
-                successfulSegments,
-                successRate);
-        return successRate;
+    /**
+     * @return current averages of a local peer, {@code null} if it has not
+     * reported a download yet
+     */
+    public PeerMetrics current(@NonNull String clientId) {
+        PeerQuality quality = local.get(clientId);
+        return quality != null ? quality.snapshot() : null;
     }
 
-    public Map<Object, Object> loadAll(@NonNull String clientId) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED_MESSAGE);
-        String metricsKey = StreamingRedisKeys.peerMetricsKey(sanitizedClientId);
-        if (metricsKey == null) {
-            log.warn("Metrics key is null for clientId: {}", sanitizedClientId);
-            return Collections.emptyMap();
-        }
-        return redisTemplate.opsForHash().entries(metricsKey);
+    public void forget(@NonNull Collection<String> clientIds) {
+        clientIds.forEach(local::remove);
     }
 
-    public long markLastActive(@NonNull String clientId) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED_MESSAGE);
-        long epochSecond = Instant.now(clock).getEpochSecond();
-        String lastActiveValue = String.valueOf(epochSecond);
-        String metricsKey = StreamingRedisKeys.peerMetricsKey(sanitizedClientId);
-        if (metricsKey == null || lastActiveValue == null) {
-            log.warn("Metrics key or lastActiveValue is null for clientId: {}", sanitizedClientId);
-        } else {
-            log.debug("Marking last active for client {}: {}", sanitizedClientId, lastActiveValue);
-            redisTemplate.opsForHash().put(metricsKey, FIELD_LAST_ACTIVE, lastActiveValue);
-
-            Duration ttl = Objects.requireNonNull(
-                    properties.signaling().peerMetricsTtl(),
-                    PEER_METRICS_TTL_REQUIRED);
-            redisTemplate.expire(metricsKey, ttl);
+    @Scheduled(fixedDelayString = "${streaming.signaling.metrics-publish-interval}")
+    public void publish() {
+        List<Map.Entry<String, String>> changed = new ArrayList<>();
+        local.forEach((clientId, quality) -> {
+            PeerMetrics snapshot = quality.takeIfDirty();
+            if (snapshot != null) {
+                changed.add(Map.entry(clientId, snapshot.encode()));
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
         }
-
-        return epochSecond;
+        long metricsTtl = properties.signaling().peerMetricsTtl().toSeconds();
+        long lastSeenTtl = properties.signaling().peerLastSeenTtl().toSeconds();
+        String now = Long.toString(clock.millis() / 1000);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Map.Entry<String, String> entry : changed) {
+                String metricsKey = StreamingRedisKeys.peerMetricsKey(entry.getKey());
+                stringConnection.hSet(metricsKey, FIELD_QUALITY, entry.getValue());
+                stringConnection.expire(metricsKey, metricsTtl);
+                stringConnection.setEx(StreamingRedisKeys.peerLastSeenKey(entry.getKey()), lastSeenTtl, now);
+            }
+            return null;
+        });
     }
 
-    private long getLongField(@NonNull String key, @NonNull String hashKey) {
-        Object value = redisTemplate.opsForHash().get(key, hashKey);
-        if (value == null) {
-            return 0L;
+    /**
+     * Loads the metrics of several peers in one pipelined round-trip.
+     *
+     * @return clientId → metrics hash (empty map for peers without metrics)
+     */
+    public Map<String, Map<Object, Object>> loadAll(@NonNull List<String> clientIds) {
+        if (clientIds.isEmpty()) {
+            return Collections.emptyMap();
         }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException ex) {
-            log.warn("Unexpected number format for {}#{}: {}", key, hashKey, value, ex);
-            return 0L;
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String clientId : clientIds) {
+                stringConnection.hGetAll(StreamingRedisKeys.peerMetricsKey(clientId));
+            }
+            return null;
+        });
+        Map<String, Map<Object, Object>> metrics = new HashMap<>(clientIds.size() * 2);
+        for (int i = 0; i < clientIds.size(); i++) {
+            Object result = i < results.size() ? results.get(i) : null;
+            Map<Object, Object> hash = new HashMap<>();
+            if (result instanceof Map<?, ?> map) {
+                map.forEach(hash::put);
+            }
+            metrics.put(clientIds.get(i), hash);
         }
+        return metrics;
     }
 
-    private long nullSafeLong(Long value) {
-        return value != null ? value : 0L;
+    private static final class PeerQuality {
+        private final Ewma uploadSpeed;
+        private final Ewma latency;
+        private final Ewma successRate;
+        private long lastActiveSeconds;
+        private boolean dirty;
+
+        private PeerQuality(Duration halfLife, long nowMillis) {
+            this.uploadSpeed = new Ewma(halfLife, MIN_SAMPLE_WEIGHT);
+            this.latency = new Ewma(halfLife, MIN_SAMPLE_WEIGHT);
+            this.successRate = new Ewma(halfLife, MIN_SAMPLE_WEIGHT, PRIOR_SUCCESS_RATE, nowMillis);
+        }
+
+        synchronized void record(boolean fromPeer, double speed, long latencyMillis, long nowMillis) {
+            uploadSpeed.update(speed, nowMillis);
+            latency.update(latencyMillis, nowMillis);
+            successRate.update(fromPeer ? 1.0 : 0.0, nowMillis);
+            lastActiveSeconds = nowMillis / 1000;
+            dirty = true;
+        }
+
+        synchronized PeerMetrics takeIfDirty() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return snapshot();
+        }
+
+        synchronized PeerMetrics snapshot() {
+            return new PeerMetrics(uploadSpeed.value(), (int) Math.round(latency.value()), successRate.value(),
+                    lastActiveSeconds);
+        }
     }
 }
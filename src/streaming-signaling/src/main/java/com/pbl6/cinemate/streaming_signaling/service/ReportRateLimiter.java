@@ -0,0 +1,45 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.util.TokenBucket;
+
+import java.util.Objects;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-session limits on segment reports and removals.
+ * <p>
+ * Each session gets its own bucket of {@code report-burst} reports refilled at
+ * {@code report-rate-limit} per second; a batch costs one permit per segment
+ * it reports or removes. Rejected batches are dropped before they reach the
+ * report buffer and counted in {@code signaling.reports.rejected}.
+ */
+@Service
+public class ReportRateLimiter {
+
+    private final SignalingProperties properties;
+    private final Counter rejected;
+
+    public ReportRateLimiter(SignalingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.rejected = Objects.requireNonNull(meterRegistry, "meterRegistry must not be null")
+                .counter("signaling.reports.rejected");
+    }
+
+    public TokenBucket newBucket() {
+        return new TokenBucket(properties.signaling().reportRateLimit(), properties.signaling().reportBurst(),
+                System.nanoTime());
+    }
+
+    public boolean tryAcquire(@NonNull TokenBucket bucket, int reports) {
+        if (bucket.tryAcquire(reports, System.nanoTime())) {
+            return true;
+        }
+        rejected.increment(reports);
+        return false;
+    }
+}
@@ -0,0 +1,275 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingNode;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.dto.RelayEnvelope;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.OutboundSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Delivers WebRTC signaling messages ({@code rtcOffer}, {@code rtcAnswer},
+ * {@code iceCandidate}) to clients connected to any signaling node.
+ * <p>
+ * Each node publishes {@code clientId → nodeId} in Redis for its local
+ * sessions and subscribes to its own relay channel. Messages for remote
+ * clients are queued per target node and published in batches.
+ * <p>
+ * Only one thread publishes to a given node at a time, so batches reach it in
+ * the order they were queued. A batch that fails to publish is retried first
+ * on the next flush. The queue of a node that has had nothing queued or
+ * published for {@code node-dead-after} is dropped; relaying to a crashed node
+ * stops once its clients' registry entries expire.
+ */
+@Service
+public class RtcRelayService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RtcRelayService.class);
+    private static final TypeReference<List<RelayEnvelope>> BATCH_TYPE = new TypeReference<>() {
+    };
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> compareAndDeleteScript;
+    private final LocalSessionRegistry sessionRegistry;
+    private final SignalingNode node;
+    private final SignalingProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Map<String, Outbox> outbound = new ConcurrentHashMap<>();
+
+    public RtcRelayService(
+            StringRedisTemplate redisTemplate,
+            RedisScript<Long> compareAndDeleteScript,
+            LocalSessionRegistry sessionRegistry,
+            SignalingNode node,
+            SignalingProperties properties,
+            ObjectMapper objectMapper,
+            Clock clock) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.compareAndDeleteScript = Objects.requireNonNull(compareAndDeleteScript,
+                "compareAndDeleteScript must not be null");
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry, "sessionRegistry must not be null");
+        this.node = Objects.requireNonNull(node, "node must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    public String relayChannel() {
+        return StreamingRedisKeys.nodeRelayChannel(node.id());
+    }
+
+    public void registerLocalClient(@NonNull String clientId) {
+        redisTemplate.opsForValue().set(StreamingRedisKeys.clientNodeKey(clientId), node.id(), registryTtl());
+    }
+
+    public void unregisterLocalClient(@NonNull String clientId) {
+        redisTemplate.execute(compareAndDeleteScript,
+                List.of(StreamingRedisKeys.clientNodeKey(clientId)), node.id());
+    }
+
+    /**
+     * Looks up the node currently holding each client, in one round trip.
+     *
+     * @return node ids in the order of {@code clientIds}; {@code null} for clients not connected anywhere
+     */
+    public List<String> locate(@NonNull List<String> clientIds) {
+        if (clientIds.isEmpty()) {
+            return List.of();
+        }
+        List<String> nodes = redisTemplate.opsForValue()
+                .multiGet(clientIds.stream().map(StreamingRedisKeys::clientNodeKey).toList());
+        return nodes != null ? nodes : Collections.nCopies(clientIds.size(), null);
+    }
+
+    /**
+     * Routes a serialized message to {@code to}, wherever it is connected.
+     *
+     * @return {@code false} if the target is not connected to any node
+     */
+    public boolean relay(@NonNull String to, @NonNull String message) {
+        OutboundSession local = sessionRegistry.get(to);
+        if (local != null && local.isOpen()) {
+            local.send(new TextMessage(message));
+            return true;
+        }
+
+        String targetNode = redisTemplate.opsForValue().get(StreamingRedisKeys.clientNodeKey(to));
+        if (targetNode == null || targetNode.equals(node.id())) {
+            return false;
+        }
+
+        RelayEnvelope envelope = new RelayEnvelope(to, message);
+        // queued inside compute so a concurrent prune cannot drop the outbox in between
+        Outbox outbox = outbound.compute(targetNode, (k, current) -> {
+            Outbox target = current != null ? current : new Outbox();
+            target.queue.add(envelope);
+            target.lastActive = clock.millis();
+            return target;
+        });
+        if (outbox.queue.size() >= properties.signaling().relayMaxBatchSize()) {
+            flush(targetNode, outbox);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.signaling.relay-flush-interval}")
+    public void flushOutbound() {
+        outbound.forEach(this::flush);
+        long staleBefore = clock.millis() - properties.signaling().nodeDeadAfter().toMillis();
+        for (String targetNode : outbound.keySet()) {
+            outbound.computeIfPresent(targetNode, (k, outbox) -> {
+                if (outbox.lastActive >= staleBefore) {
+                    return outbox;
+                }
+                if (outbox.hasPending()) {
+                    log.warn("Dropping relay queue of unreachable node {}", targetNode);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Keeps the {@code clientId → nodeId} entries of local sessions alive; entries
+     * of a crashed node expire on their own.
+     */
+    @Scheduled(fixedDelayString = "${streaming.signaling.client-registry-refresh-interval}")
+    public void refreshLocalClients() {
+        List<String> clientIds = List.copyOf(sessionRegistry.clientIds());
+        if (clientIds.isEmpty()) {
+            return;
+        }
+        String nodeId = node.id();
+        long ttlSeconds = registryTtl().toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String clientId : clientIds) {
+                stringConnection.setEx(StreamingRedisKeys.clientNodeKey(clientId), ttlSeconds, nodeId);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        List<RelayEnvelope> batch;
+        try {
+            batch = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), BATCH_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping malformed relay batch: {}", e.getMessage());
+            return;
+        }
+        for (RelayEnvelope envelope : batch) {
+            OutboundSession target = sessionRegistry.get(envelope.to());
+            if (target == null || !target.isOpen()) {
+                log.debug("Relay target {} no longer connected to node {}", envelope.to(), node.id());
+                continue;
+            }
+            target.send(new TextMessage(envelope.message()));
+        }
+    }
+
+    private void flush(String targetNode, Outbox outbox) {
+        // re-check after unlocking: a message queued while the last holder was finishing has no one else to send it
+        while (outbox.hasPending()) {
+            if (!outbox.lock.tryLock()) {
+                // the thread holding the lock publishes everything queued so far
+                return;
+            }
+            try {
+                if (!publish(targetNode, outbox)) {
+                    return;
+                }
+            } finally {
+                outbox.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Publishes everything queued for {@code targetNode}; called with the outbox lock held.
+     *
+     * @return {@code false} if a batch could not be published and was kept for the next flush
+     */
+    private boolean publish(String targetNode, Outbox outbox) {
+        int max = properties.signaling().relayMaxBatchSize();
+        String channel = StreamingRedisKeys.nodeRelayChannel(targetNode);
+        while (true) {
+            List<RelayEnvelope> batch = outbox.unsent;
+            outbox.unsent = null;
+            if (batch == null) {
+                batch = new ArrayList<>(max);
+                RelayEnvelope next;
+                while (batch.size() < max && (next = outbox.queue.poll()) != null) {
+                    batch.add(next);
+                }
+                if (batch.isEmpty()) {
+                    return true;
+                }
+            }
+            try {
+                redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(batch));
+                outbox.lastActive = clock.millis();
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize relay batch for node {}: {}", targetNode, e.getMessage());
+            } catch (DataAccessException e) {
+                outbox.unsent = batch;
+                log.warn("Failed to publish relay batch to node {}, retrying on next flush: {}", targetNode,
+                        e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Messages waiting for one target node.
+     */
+    private static final class Outbox {
+
+        final Queue<RelayEnvelope> queue = new ConcurrentLinkedQueue<>();
+        final ReentrantLock lock = new ReentrantLock();
+        // written with the lock held, read by hasPending without it
+        volatile List<RelayEnvelope> unsent;
+        volatile long lastActive;
+
+        boolean hasPending() {
+            return !queue.isEmpty() || unsent != null;
+        }
+    }
+
+    private Duration registryTtl() {
+        return Objects.requireNonNull(properties.signaling().peerLastSeenTtl(),
+                "Peer last seen TTL must not be null");
+    }
+}
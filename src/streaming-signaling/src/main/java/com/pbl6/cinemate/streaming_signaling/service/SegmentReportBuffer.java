@@ -0,0 +1,277 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind buffer for segment reports and removals from every session on
+ * this node.
+ * <p>
+ * Ownership changes are deduplicated per owners set (a later add or remove of
+ * the same peer supersedes an earlier one), then everything buffered is
+ * written in one pipelined batch every
+ * {@code report-flush-interval}, which bounds how long a report can take to
+ * reach Redis, the replication log behind {@link SwarmStateService}.
+ * <p>
+ * Each movie's changes are applied in one MULTI/EXEC transaction, so other
+ * nodes never see half of a batch. If the pipeline fails, the drained batches
+ * are merged back under anything buffered since and retried on the next
+ * flush.
+ */
+@Service
+public class SegmentReportBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentReportBuffer.class);
+    private final StringRedisTemplate redisTemplate;
+    private final SignalingProperties properties;
+    private final Map<String, MovieBatch> pending = new ConcurrentHashMap<>();
+
+    public SegmentReportBuffer(StringRedisTemplate redisTemplate, SignalingProperties properties) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+    }
+
+    public void report(@NonNull String movieId, @NonNull String clientId, String qualityId, @NonNull String segmentId) {
+        String ownersKey = StreamingRedisKeys.segmentOwnersKey(movieId, qualityId, segmentId);
+        while (!pending.computeIfAbsent(movieId, k -> new MovieBatch(k)).report(ownersKey, clientId)) {
+            // raced with a flush that drained the batch; retry on a fresh one
+        }
+    }
+
+    public void remove(@NonNull String movieId, @NonNull String clientId, String qualityId, @NonNull String segmentId) {
+        String ownersKey = StreamingRedisKeys.segmentOwnersKey(movieId, qualityId, segmentId);
+        while (!pending.computeIfAbsent(movieId, k -> new MovieBatch(k)).remove(ownersKey, clientId)) {
+            // raced with a flush that drained the batch; retry on a fresh one
+        }
+    }
+
+    /**
+     * Drops anything still buffered for peers that are leaving, so a later flush
+     * cannot re-add ownership that was just removed.
+     */
+    public void discard(@NonNull String movieId, @NonNull Collection<String> clientIds) {
+        while (!pending.computeIfAbsent(movieId, k -> new MovieBatch(k)).discard(clientIds)) {
+            // raced with a flush that drained the batch; retry on a fresh one
+        }
+    }
+
+    /**
+     * Queues the removal of leaving peers from the movie's peer set and of
+     * their metrics and last-seen keys. Their ownership removals are expected
+     * through {@link #remove}; anything else still buffered for them is dropped.
+     */
+    public void depart(@NonNull String movieId, @NonNull Collection<String> clientIds) {
+        while (!pending.computeIfAbsent(movieId, k -> new MovieBatch(k)).depart(clientIds)) {
+            // raced with a flush that drained the batch; retry on a fresh one
+        }
+    }
+
+    /**
+     * Cancels a pending departure of a peer that reconnected before the flush.
+     */
+    public void rejoin(@NonNull String movieId, @NonNull String clientId) {
+        while (!pending.computeIfAbsent(movieId, k -> new MovieBatch(k)).rejoin(clientId)) {
+            // raced with a flush that drained the batch; retry on a fresh one
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.signaling.report-flush-interval}")
+    public void flush() {
+        List<MovieBatch> drained = new ArrayList<>();
+        for (String movieId : pending.keySet()) {
+            MovieBatch batch = pending.remove(movieId);
+            if (batch != null) {
+                batch.drain();
+                drained.add(batch);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        long segmentTtl = properties.signaling().redisTtlSegmentKeys().toSeconds();
+
+        try {
+            write(drained, segmentTtl);
+        } catch (DataAccessException e) {
+            log.warn("Failed to flush segment reports for {} movies, retrying on next flush: {}", drained.size(),
+                    e.getMessage());
+            for (MovieBatch batch : drained) {
+                while (!pending.computeIfAbsent(batch.movieId, k -> new MovieBatch(k)).absorb(batch)) {
+                    // raced with another flush; retry on a fresh one
+                }
+            }
+            return;
+        }
+        log.debug("Flushed segment reports for {} movies", drained.size());
+    }
+
+    private void write(List<MovieBatch> drained, long segmentTtl) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (MovieBatch batch : drained) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                stringConnection.multi();
+                List<String> ownerSets = new ArrayList<>();
+                batch.ownership.forEach((ownersKey, members) -> {
+                    List<String> added = new ArrayList<>();
+                    List<String> removed = new ArrayList<>();
+                    members.forEach((clientId, have) -> (have ? added : removed).add(clientId));
+                    if (!added.isEmpty()) {
+                        stringConnection.sAdd(ownersKey, added.toArray(String[]::new));
+                        stringConnection.expire(ownersKey, segmentTtl);
+                        ownerSets.add(ownersKey);
+                    }
+                    if (!removed.isEmpty()) {
+                        stringConnection.sRem(ownersKey, removed.toArray(String[]::new));
+                    }
+                });
+                if (!ownerSets.isEmpty()) {
+                    // lets a node taking over the movie find its owners sets without a SCAN
+                    String ownerSetsKey = StreamingRedisKeys.movieOwnerSetsKey(batch.movieId);
+                    stringConnection.sAdd(ownerSetsKey, ownerSets.toArray(String[]::new));
+                    stringConnection.expire(ownerSetsKey, segmentTtl);
+                }
+                if (!batch.reporters.isEmpty()) {
+                    String peersKey = StreamingRedisKeys.moviePeersKey(batch.movieId);
+                    stringConnection.sAdd(peersKey, batch.reporters.toArray(String[]::new));
+                    stringConnection.expire(peersKey, segmentTtl);
+                }
+                if (!batch.departed.isEmpty()) {
+                    stringConnection.sRem(StreamingRedisKeys.moviePeersKey(batch.movieId),
+                            batch.departed.toArray(String[]::new));
+                    List<String> peerKeys = new ArrayList<>(batch.departed.size() * 2);
+                    for (String clientId : batch.departed) {
+                        peerKeys.add(StreamingRedisKeys.peerMetricsKey(clientId));
+                        peerKeys.add(StreamingRedisKeys.peerLastSeenKey(clientId));
+                    }
+                    stringConnection.del(peerKeys.toArray(String[]::new));
+                }
+                stringConnection.exec();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reports and removals buffered for one movie until the next flush, plus
+     * the peers discarded or rejoined since it was started, which decide what
+     * survives when a failed flush is merged back in.
+     */
+    private static final class MovieBatch {
+        private final String movieId;
+        private final Map<String, Map<String, Boolean>> ownership = new LinkedHashMap<>();
+        private final Set<String> reporters = new LinkedHashSet<>();
+        private final Set<String> departed = new LinkedHashSet<>();
+        private final Set<String> discarded = new LinkedHashSet<>();
+        private final Set<String> rejoined = new LinkedHashSet<>();
+        private boolean drained;
+
+        private MovieBatch(String movieId) {
+            this.movieId = movieId;
+        }
+
+        synchronized boolean report(String ownersKey, String clientId) {
+            if (drained) {
+                return false;
+            }
+            ownership.computeIfAbsent(ownersKey, k -> new LinkedHashMap<>()).put(clientId, Boolean.TRUE);
+            reporters.add(clientId);
+            departed.remove(clientId);
+            return true;
+        }
+
+        synchronized boolean remove(String ownersKey, String clientId) {
+            if (drained) {
+                return false;
+            }
+            ownership.computeIfAbsent(ownersKey, k -> new LinkedHashMap<>()).put(clientId, Boolean.FALSE);
+            return true;
+        }
+
+        synchronized boolean discard(Collection<String> clientIds) {
+            if (drained) {
+                return false;
+            }
+            ownership.values().forEach(members -> members.keySet().removeAll(clientIds));
+            reporters.removeAll(clientIds);
+            discarded.addAll(clientIds);
+            return true;
+        }
+
+        synchronized boolean depart(Collection<String> clientIds) {
+            if (drained) {
+                return false;
+            }
+            ownership.values().forEach(members ->
+                    members.entrySet().removeIf(entry -> entry.getValue() && clientIds.contains(entry.getKey())));
+            reporters.removeAll(clientIds);
+            departed.addAll(clientIds);
+            rejoined.removeAll(clientIds);
+            return true;
+        }
+
+        synchronized boolean rejoin(String clientId) {
+            if (drained) {
+                return false;
+            }
+            departed.remove(clientId);
+            rejoined.add(clientId);
+            return true;
+        }
+
+        /**
+         * Merges a batch that failed to flush under this newer one: entries
+         * buffered here win, and ownership or membership of peers that have
+         * since been discarded or departed is not brought back.
+         */
+        synchronized boolean absorb(MovieBatch older) {
+            if (drained) {
+                return false;
+            }
+            older.ownership.forEach((ownersKey, members) -> members.forEach((clientId, have) -> {
+                if (!have || !left(clientId)) {
+                    ownership.computeIfAbsent(ownersKey, k -> new LinkedHashMap<>()).putIfAbsent(clientId, have);
+                }
+            }));
+            older.reporters.stream().filter(clientId -> !left(clientId)).forEach(reporters::add);
+            older.departed.stream()
+                    .filter(clientId -> !reporters.contains(clientId) && !rejoined.contains(clientId))
+                    .forEach(departed::add);
+            return true;
+        }
+
+        synchronized boolean isEmpty() {
+            return ownership.isEmpty() && reporters.isEmpty() && departed.isEmpty();
+        }
+
+        synchronized void drain() {
+            drained = true;
+        }
+
+        private boolean left(String clientId) {
+            return discarded.contains(clientId) || departed.contains(clientId);
+        }
+    }
+}
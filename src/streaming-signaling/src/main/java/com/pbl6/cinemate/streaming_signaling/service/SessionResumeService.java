@@ -0,0 +1,90 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resume tokens for signaling sessions.
+ * <p>
+ * Every connection is issued an opaque token. When the connection drops
+ * without a deliberate close, its ownership state is kept for the grace period
+ * and the token is parked in Redis; a reconnect on any node that presents the
+ * token claims it (single use) and keeps the peer's segment ownership instead
+ * of re-reporting every buffered segment.
+ */
+@Service
+public class SessionResumeService {
+
+    private static final int TOKEN_BYTES = 24;
+    private static final char SEPARATOR = '|';
+    private final SecureRandom random = new SecureRandom();
+    private final StringRedisTemplate redisTemplate;
+    private final SignalingProperties properties;
+    private final Counter resumed;
+
+    public SessionResumeService(
+            StringRedisTemplate redisTemplate,
+            SignalingProperties properties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
+        this.resumed = Objects.requireNonNull(meterRegistry, "meterRegistry must not be null")
+                .counter("signaling.sessions.resumed");
+    }
+
+    public String issueToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public Duration gracePeriod() {
+        return Objects.requireNonNull(properties.signaling().resumeGracePeriod(),
+                "Resume grace period must not be null");
+    }
+
+    /**
+     * Makes {@code token} claimable for the grace period.
+     */
+    public void park(@NonNull String token, @NonNull String clientId, @NonNull String movieId) {
+        redisTemplate.opsForValue().set(StreamingRedisKeys.resumeTokenKey(token),
+                clientId + SEPARATOR + movieId, gracePeriod());
+    }
+
+    /**
+     * Checks {@code token} against the token of the client's still-open local
+     * session, if any (the old connection may not have noticed the drop yet),
+     * and otherwise consumes it from Redis; a parked token is only valid for the
+     * same client and movie.
+     */
+    public boolean claim(
+            @Nullable String token,
+            @Nullable String localToken,
+            @NonNull String clientId,
+            @NonNull String movieId) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
+        boolean valid = token.equals(localToken);
+        if (!valid) {
+            String parked = redisTemplate.opsForValue().getAndDelete(StreamingRedisKeys.resumeTokenKey(token));
+            valid = (clientId + SEPARATOR + movieId).equals(parked);
+        }
+        if (valid) {
+            resumed.increment();
+        }
+        return valid;
+    }
+}
@@ -4,29 +4,38 @@ import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
 import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
 import com.pbl6.cinemate.streaming_signaling.dto.PeerInfo;
 import com.pbl6.cinemate.streaming_signaling.dto.PeerListMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerLocality;
 import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
 import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentsAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.SegmentRef;
+import com.pbl6.cinemate.streaming_signaling.dto.SegmentReport;
 import com.pbl6.cinemate.streaming_signaling.dto.WhoHasReplyMessage;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.lang.NonNull;
@@ -42,15 +51,23 @@ public class SignalingService {
     private static final String SOURCE_REQUIRED = "source must not be null";
     private static final String SEGMENT_TTL_REQUIRED = "Segment TTL must not be null";
     private static final String LAST_SEEN_TTL_REQUIRED = "Peer last seen TTL must not be null";
+    private static final String METRICS_TTL_REQUIRED = "Peer metrics TTL must not be null";
     private static final String KEY_COMMANDS_REQUIRED = "Redis key commands must not be null";
     private static final String SCAN_CURSOR_REQUIRED = "Redis scan cursor must not be null";
     private static final String PEER_KEY_NULL_FOR_MOVIE = "Peer key is null for movieId: {}";
-    private static final String SEGMENT_KEY_NULL = "Segment key is null for movieId: {} qualityId: {} segmentId: {}";
+    static final String FIELD_LOCALITY = "locality";
     private final StringRedisTemplate redisTemplate;
     private final RedisConnectionFactory connectionFactory;
     private final SignalingProperties properties;
     private final PeerMetricsService peerMetricsService;
+    private final SegmentReportBuffer segmentReportBuffer;
+    private final AvailabilityService availabilityService;
+    private final SwarmStateService swarmState;
     private final Clock clock;
+    private final Counter whoHasOwners;
+    private final Counter whoHasStaleOwners;
+    private final Counter whoHasUnprovenOwners;
+    private final Timer whoHasLatency;
     private final Map<String, String> activeClients = new ConcurrentHashMap<>();
 
     public SignalingService(
@@ -58,40 +75,42 @@ public class SignalingService {
             RedisConnectionFactory connectionFactory,
             SignalingProperties properties,
             PeerMetricsService peerMetricsService,
-            Clock clock) {
+            SegmentReportBuffer segmentReportBuffer,
+            AvailabilityService availabilityService,
+            SwarmStateService swarmState,
+            Clock clock,
+            MeterRegistry meterRegistry) {
         this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
         this.connectionFactory = Objects.requireNonNull(connectionFactory, "connectionFactory must not be null");
         this.properties = Objects.requireNonNull(properties, "signalingProperties must not be null");
         this.peerMetricsService = Objects.requireNonNull(peerMetricsService, "peerMetricsService must not be null");
+        this.segmentReportBuffer = Objects.requireNonNull(segmentReportBuffer, "segmentReportBuffer must not be null");
+        this.availabilityService = Objects.requireNonNull(availabilityService, "availabilityService must not be null");
+        this.swarmState = Objects.requireNonNull(swarmState, "swarmState must not be null");
         this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.whoHasOwners = meterRegistry.counter("signaling.whohas.owners");
+        this.whoHasStaleOwners = meterRegistry.counter("signaling.whohas.owners.stale");
+        this.whoHasUnprovenOwners = meterRegistry.counter("signaling.whohas.owners.unproven");
+        this.whoHasLatency = meterRegistry.timer("signaling.whohas.latency");
     }
 
     /**
      * Registers a client for a movie stream (movieId = streamId for ABR).
-     * Returns list of peers watching the same movie (across all qualities).
+     * Returns list of peers watching the same movie (across all qualities),
+     * as known to this node's swarm state.
      */
-    public PeerListMessage registerClient(@NonNull String clientId, @NonNull String movieId) {
+    public PeerListMessage registerClient(
+            @NonNull String clientId,
+            @NonNull String movieId,
+            @NonNull PeerLocality locality) {
         String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED);
         String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
         log.info("Client {} connected for movie {}", sanitizedClientId, sanitizedMovieId);
         activeClients.put(sanitizedClientId, sanitizedMovieId);
-        touchLastSeen(sanitizedClientId);
-
-        String peerKey = StreamingRedisKeys.moviePeersKey(sanitizedMovieId);
-        if (peerKey == null) {
-            log.warn(PEER_KEY_NULL_FOR_MOVIE, sanitizedMovieId);
-            return new PeerListMessage(sanitizedMovieId, Collections.emptySet());
-        }
-
-        redisTemplate.opsForSet().add(peerKey, sanitizedClientId);
-        Duration ttl = Objects.requireNonNull(
-                properties.signaling().redisTtlSegmentKeys(),
-                SEGMENT_TTL_REQUIRED);
-        redisTemplate.expire(peerKey, ttl);
-
-        Set<String> peers = Optional
-                .ofNullable(redisTemplate.opsForSet().members(peerKey))
-                .orElseGet(Collections::emptySet);
+        Set<String> peers = swarmState.join(sanitizedMovieId, sanitizedClientId, locality);
+        segmentReportBuffer.rejoin(sanitizedMovieId, sanitizedClientId);
+        publishPeer(sanitizedClientId, sanitizedMovieId, locality);
         return new PeerListMessage(sanitizedMovieId, peers);
     }
 
@@ -101,36 +120,41 @@ public class SignalingService {
      * @param movieId   the movie identifier
      * @param qualityId the quality variant (can be null for master playlist)
      * @param segmentId the segment identifier
+     * @param requester locality of the asking client; owners closer to it are listed first
      */
-    public WhoHasReplyMessage handleWhoHas(@NonNull String movieId, String qualityId, @NonNull String segmentId) {
+    public WhoHasReplyMessage handleWhoHas(
+            @NonNull String movieId,
+            String qualityId,
+            @NonNull String segmentId,
+            @NonNull PeerLocality requester) {
         String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
         String sanitizedSegmentId = Objects.requireNonNull(segmentId, SEGMENT_ID_REQUIRED);
 
-        String segmentKey = StreamingRedisKeys.segmentOwnersKey(sanitizedMovieId, qualityId, sanitizedSegmentId);
-        if (segmentKey == null) {
-            log.warn(SEGMENT_KEY_NULL, sanitizedMovieId, qualityId, sanitizedSegmentId);
-            return new WhoHasReplyMessage(qualityId, sanitizedSegmentId, List.of());
-        }
-
-        Set<String> peerIds = Optional
-                .ofNullable(redisTemplate.opsForSet().members(segmentKey))
-                .orElseGet(Collections::emptySet);
-
-        if (peerIds.isEmpty()) {
+        long started = System.nanoTime();
+        List<SwarmStateService.Owner> owners = swarmState.owners(sanitizedMovieId, qualityId, sanitizedSegmentId);
+        if (owners.isEmpty()) {
             log.debug("No peers found for movie {} quality {} segment {}",
                     sanitizedMovieId, qualityId, sanitizedSegmentId);
+            whoHasLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
             return new WhoHasReplyMessage(qualityId, sanitizedSegmentId, List.of());
         }
 
-        List<PeerInfo> peerInfos = new ArrayList<>(peerIds.size());
-        for (String peerId : peerIds) {
-            if (peerId == null) {
-                continue;
+        List<RankedPeer> candidates = new ArrayList<>(owners.size());
+        for (SwarmStateService.Owner owner : owners) {
+            if (owner.metrics() == null) {
+                whoHasStaleOwners.increment();
+            }
+            if (owner.unproven()) {
+                // mirrored from another node and not confirmed by its metrics yet
+                whoHasUnprovenOwners.increment();
             }
-            Map<Object, Object> metricsData = peerMetricsService.loadAll(peerId);
-            PeerMetrics metrics = mapMetrics(metricsData);
-            peerInfos.add(new PeerInfo(peerId, metrics));
+            PeerMetrics metrics = owner.metrics() != null ? owner.metrics() : neutralMetrics();
+            int affinity = requester.affinity(owner.locality());
+            candidates.add(new RankedPeer(new PeerInfo(owner.peerId(), metrics), affinity));
         }
+        whoHasOwners.increment(owners.size());
+        List<PeerInfo> peerInfos = selectPeers(candidates);
+        whoHasLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
         log.debug("Found {} peers for movie {} quality {} segment {}",
                 peerInfos.size(), sanitizedMovieId, qualityId, sanitizedSegmentId);
         return new WhoHasReplyMessage(qualityId, sanitizedSegmentId, peerInfos);
@@ -157,46 +181,41 @@ public class SignalingService {
         String sanitizedSegmentId = Objects.requireNonNull(segmentId, SEGMENT_ID_REQUIRED);
         String sanitizedSource = Objects.requireNonNull(source, SOURCE_REQUIRED);
 
-        String segmentKey = StreamingRedisKeys.segmentOwnersKey(sanitizedMovieId, qualityId, sanitizedSegmentId);
-        if (segmentKey == null) {
-            log.warn(SEGMENT_KEY_NULL, sanitizedMovieId, qualityId, sanitizedSegmentId);
-            return new ReportSegmentAckMessage(sanitizedSegmentId);
-        }
-
-        Duration ttl = Objects.requireNonNull(
-                properties.signaling().redisTtlSegmentKeys(),
-                SEGMENT_TTL_REQUIRED);
-        redisTemplate.opsForSet().add(segmentKey, sanitizedClientId);
-        redisTemplate.expire(segmentKey, ttl);
+        boolean peerTransfer = !"origin".equalsIgnoreCase(sanitizedSource);
+
+        // The swarm state in memory is updated first; ownership and peer membership
+        // are written behind in the node's next pipelined flush and quality
+        // averages are published on their own interval.
+        swarmState.segmentAdded(sanitizedMovieId, sanitizedClientId, qualityId, sanitizedSegmentId);
+        segmentReportBuffer.report(sanitizedMovieId, sanitizedClientId, qualityId, sanitizedSegmentId);
+        peerMetricsService.record(sanitizedClientId, peerTransfer, speed, latency);
+        availabilityService.segmentAdded(sanitizedMovieId, qualityId, sanitizedSegmentId, sanitizedClientId);
+        log.debug("[Metrics] {} now has {} (movie={}, quality={}, source={}, latency={}ms, speed={}MB/s)",
+                sanitizedClientId, sanitizedSegmentId, sanitizedMovieId, qualityId, sanitizedSource, latency, speed);
+        return new ReportSegmentAckMessage(sanitizedSegmentId);
+    }
 
-        String peerKey = StreamingRedisKeys.moviePeersKey(sanitizedMovieId);
-        if (peerKey == null) {
-            log.warn(PEER_KEY_NULL_FOR_MOVIE, sanitizedMovieId);
-            return new ReportSegmentAckMessage(sanitizedSegmentId);
+    /**
+     * Reports several downloaded segments and cache removals in one message.
+     * Each entry goes through the same write-behind buffer as a single report.
+     */
+    public ReportSegmentsAckMessage handleReportSegments(
+            @NonNull String clientId,
+            @NonNull String movieId,
+            @NonNull List<SegmentReport> reports,
+            @NonNull List<SegmentRef> removals) {
+        int maxBatchSize = properties.signaling().reportMaxBatchSize();
+        if (reports.size() + removals.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Too many segments in one report, max " + maxBatchSize);
         }
-        redisTemplate.opsForSet().add(peerKey, sanitizedClientId);
-        redisTemplate.expire(peerKey, ttl);
-
-        double successRate = peerMetricsService.updateReliability(sanitizedClientId, sanitizedSource);
-        long lastActive = peerMetricsService.markLastActive(sanitizedClientId);
-
-        String metricsKey = StreamingRedisKeys.peerMetricsKey(sanitizedClientId);
-        if (metricsKey == null) {
-            log.warn("Metrics key is null for clientId: {}", sanitizedClientId);
-            return new ReportSegmentAckMessage(sanitizedSegmentId);
+        for (SegmentReport report : reports) {
+            handleReportSegment(clientId, movieId, report.qualityId(), report.segmentId(), report.source(),
+                    report.speed(), report.latency());
         }
-        String uploadSpeedValue = Double.toString(speed);
-        String latencyValue = Long.toString(latency);
-        String successRateValue = Double.toString(successRate);
-        String lastActiveValue = Long.toString(lastActive);
-        redisTemplate.opsForHash().put(metricsKey, "uploadSpeed", Objects.requireNonNull(uploadSpeedValue));
-        redisTemplate.opsForHash().put(metricsKey, "latency", Objects.requireNonNull(latencyValue));
-        redisTemplate.opsForHash().put(metricsKey, "successRate", Objects.requireNonNull(successRateValue));
-        redisTemplate.opsForHash().put(metricsKey, "lastActive", Objects.requireNonNull(lastActiveValue));
-
-        log.info("[Metrics] {} now has {} (movie={}, quality={}, latency={}ms, speed={}MB/s)",
-                sanitizedClientId, sanitizedSegmentId, sanitizedMovieId, qualityId, latency, speed);
-        return new ReportSegmentAckMessage(sanitizedSegmentId);
+        for (SegmentRef removal : removals) {
+            handleRemoveSegment(clientId, movieId, removal.qualityId(), removal.segmentId());
+        }
+        return new ReportSegmentsAckMessage(reports.size(), removals.size());
     }
 
     /**
@@ -217,66 +236,82 @@ public class SignalingService {
         String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
         String sanitizedSegmentId = Objects.requireNonNull(segmentId, SEGMENT_ID_REQUIRED);
 
-        String segmentKey = StreamingRedisKeys.segmentOwnersKey(sanitizedMovieId, qualityId, sanitizedSegmentId);
-        if (segmentKey == null) {
-            log.warn(SEGMENT_KEY_NULL, sanitizedMovieId, qualityId, sanitizedSegmentId);
-            return;
-        }
-
-        Long removed = redisTemplate.opsForSet().remove(segmentKey, sanitizedClientId);
-        if (removed != null && removed > 0) {
-            log.info("Client {} removed segment {} (movie={}, quality={})",
-                    sanitizedClientId, sanitizedSegmentId, sanitizedMovieId, qualityId);
-        } else {
-            log.debug("Client {} attempted to remove segment {} but was not listed as owner (movie={}, quality={})",
-                    sanitizedClientId, sanitizedSegmentId, sanitizedMovieId, qualityId);
-        }
+        swarmState.segmentRemoved(sanitizedMovieId, sanitizedClientId, qualityId, sanitizedSegmentId);
+        segmentReportBuffer.remove(sanitizedMovieId, sanitizedClientId, qualityId, sanitizedSegmentId);
+        availabilityService.segmentRemoved(sanitizedMovieId, qualityId, sanitizedSegmentId, sanitizedClientId);
+        log.debug("Client {} removed segment {} (movie={}, quality={})",
+                sanitizedClientId, sanitizedSegmentId, sanitizedMovieId, qualityId);
     }
 
     public void handleDisconnect(@NonNull String clientId, @NonNull String movieId) {
         String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED);
         String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
         log.info("Client {} disconnected from movie {}", sanitizedClientId, sanitizedMovieId);
-        activeClients.remove(sanitizedClientId);
-        removeClientFromSegments(sanitizedClientId, sanitizedMovieId);
+        removePeers(sanitizedMovieId, List.of(sanitizedClientId));
+    }
+
+    /**
+     * Drops this node's local state for a peer that resumed its session on
+     * another node, leaving its shared ownership in Redis untouched. The swarm
+     * keeps the peer, now mirrored from the node that holds it.
+     */
+    public void handOff(@NonNull String clientId, @NonNull String movieId) {
+        activeClients.remove(clientId);
+        swarmState.handOff(movieId, clientId);
+        peerMetricsService.forget(List.of(clientId));
+        availabilityService.unsubscribe(clientId, movieId);
+    }
+
+    /**
+     * Removes several peers of one movie at once. When this node hosts the
+     * movie, the segments they owned are known from memory and removed through
+     * the write-behind buffer; otherwise one segment key scan covers the whole
+     * batch, with multi-member removals instead of a scan per peer.
+     */
+    public void removePeers(@NonNull String movieId, @NonNull Collection<String> clientIds) {
+        String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
+        if (clientIds.isEmpty()) {
+            return;
+        }
+        clientIds.forEach(activeClients::remove);
+        peerMetricsService.forget(clientIds);
+        Map<String, Set<SegmentRef>> owned = swarmState.leave(sanitizedMovieId, clientIds);
+        if (owned != null) {
+            segmentReportBuffer.discard(sanitizedMovieId, clientIds);
+            owned.forEach((clientId, segments) -> segments.forEach(segment -> segmentReportBuffer.remove(
+                    sanitizedMovieId, clientId, segment.qualityId(), segment.segmentId())));
+            segmentReportBuffer.depart(sanitizedMovieId, clientIds);
+            clientIds.forEach(clientId -> availabilityService.peerLeft(sanitizedMovieId, clientId));
+            return;
+        }
+
+        Object[] members = clientIds.toArray();
+        segmentReportBuffer.discard(sanitizedMovieId, clientIds);
+        removeClientsFromSegments(members, sanitizedMovieId);
+        clientIds.forEach(clientId -> availabilityService.peerLeft(sanitizedMovieId, clientId));
 
         String peerKey = StreamingRedisKeys.moviePeersKey(sanitizedMovieId);
         if (peerKey == null) {
             log.warn(PEER_KEY_NULL_FOR_MOVIE, sanitizedMovieId);
             return;
         }
-        redisTemplate.opsForSet().remove(peerKey, sanitizedClientId);
+        redisTemplate.opsForSet().remove(peerKey, members);
 
         // Clean up peer-specific keys
-        cleanupPeerKeys(sanitizedClientId);
+        cleanupPeerKeys(clientIds);
     }
 
-    private void cleanupPeerKeys(@NonNull String clientId) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED);
-
-        // Delete peer metrics key
-        String metricsKey = StreamingRedisKeys.peerMetricsKey(sanitizedClientId);
-        if (metricsKey != null) {
-            Boolean deleted = redisTemplate.delete(metricsKey);
-            if (Boolean.TRUE.equals(deleted)) {
-                log.debug("Deleted metrics key for client {}", sanitizedClientId);
-            }
-        }
-
-        // Delete peer last seen key
-        String lastSeenKey = StreamingRedisKeys.peerLastSeenKey(sanitizedClientId);
-        if (lastSeenKey != null) {
-            Boolean deleted = redisTemplate.delete(lastSeenKey);
-            if (Boolean.TRUE.equals(deleted)) {
-                log.debug("Deleted last seen key for client {}", sanitizedClientId);
-            }
+    private void cleanupPeerKeys(@NonNull Collection<String> clientIds) {
+        List<String> keys = new ArrayList<>(clientIds.size() * 2);
+        for (String clientId : clientIds) {
+            keys.add(StreamingRedisKeys.peerMetricsKey(clientId));
+            keys.add(StreamingRedisKeys.peerLastSeenKey(clientId));
         }
-
-        log.info("Cleaned up Redis keys for disconnected client {}", sanitizedClientId);
+        Long deleted = redisTemplate.delete(keys);
+        log.info("Cleaned up {} Redis keys for {} disconnected clients", deleted, clientIds.size());
     }
 
-    private void removeClientFromSegments(@NonNull String clientId, @NonNull String movieId) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED);
+    private void removeClientsFromSegments(@NonNull Object[] clientIds, @NonNull String movieId) {
         String sanitizedMovieId = Objects.requireNonNull(movieId, MOVIE_ID_REQUIRED);
 
         // Pattern to match all segments for this movie across all qualities
@@ -296,58 +331,82 @@ public class SignalingService {
                     continue;
                 }
                 String key = new String(rawKey, StandardCharsets.UTF_8);
-                redisTemplate.opsForSet().remove(key, sanitizedClientId);
+                redisTemplate.opsForSet().remove(key, clientIds);
             }
         } catch (DataAccessResourceFailureException ex) {
             log.warn("Failed to scan Redis keys for movie {}: {}", sanitizedMovieId, ex.getMessage());
         }
     }
 
-    private PeerMetrics mapMetrics(Map<Object, Object> metricsData) {
-        Map<Object, Object> safeData = metricsData != null ? metricsData : Collections.emptyMap();
-        double uploadSpeed = parseDouble(safeData.get("uploadSpeed"), 0.0);
-        int latency = (int) parseDouble(safeData.get("latency"), 999.0);
-        double successRate = parseDouble(safeData.get("successRate"), 0.5);
-        long lastActive = parseLong(safeData.get("lastActive"), 0L);
-        if (lastActive == 0L) {
-            lastActive = Instant.now(clock).getEpochSecond();
+    /**
+     * Orders owners by locality affinity, then success rate and upload speed, and
+     * caps the reply at {@code whoHasMaxPeers}. When capping, the last
+     * {@code whoHasDiversitySlots} entries go to peers outside the closest
+     * locality tier so a client is never left with only one network to try.
+     */
+    private List<PeerInfo> selectPeers(List<RankedPeer> candidates) {
+        candidates.sort(Comparator
+                .comparingInt(RankedPeer::affinity).reversed()
+                .thenComparing(Comparator.comparingDouble(
+                        (RankedPeer r) -> r.peer().metrics().successRate()).reversed())
+                .thenComparing(Comparator.comparingDouble(
+                        (RankedPeer r) -> r.peer().metrics().uploadSpeed()).reversed()));
+
+        int max = properties.signaling().whoHasMaxPeers();
+        if (candidates.size() <= max) {
+            return candidates.stream().map(RankedPeer::peer).toList();
         }
-        return new PeerMetrics(uploadSpeed, latency, successRate, lastActive);
-    }
 
-    private double parseDouble(Object value, double defaultValue) {
-        if (value == null) {
-            return defaultValue;
+        int diversity = Math.min(properties.signaling().whoHasDiversitySlots(), max);
+        int topAffinity = candidates.get(0).affinity();
+        List<RankedPeer> selected = new ArrayList<>(candidates.subList(0, max - diversity));
+        List<RankedPeer> remaining = candidates.subList(max - diversity, candidates.size());
+        for (RankedPeer candidate : remaining) {
+            if (selected.size() < max && candidate.affinity() < topAffinity) {
+                selected.add(candidate);
+            }
         }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException ex) {
-            return defaultValue;
+        for (RankedPeer candidate : remaining) {
+            if (selected.size() >= max) {
+                break;
+            }
+            if (!selected.contains(candidate)) {
+                selected.add(candidate);
+            }
         }
+        return selected.stream().map(RankedPeer::peer).toList();
     }
 
-    private long parseLong(Object value, long defaultValue) {
-        if (value == null) {
-            return defaultValue;
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException ex) {
-            return defaultValue;
-        }
+    /**
+     * Writes a joining peer's last-seen, locality and movie membership to Redis
+     * in one pipelined round-trip, for other nodes and the seeder.
+     */
+    private void publishPeer(String clientId, String movieId, PeerLocality locality) {
+        long lastSeenTtl = Objects.requireNonNull(properties.signaling().peerLastSeenTtl(), LAST_SEEN_TTL_REQUIRED)
+                .toSeconds();
+        long metricsTtl = Objects.requireNonNull(properties.signaling().peerMetricsTtl(), METRICS_TTL_REQUIRED)
+                .toSeconds();
+        long segmentTtl = Objects.requireNonNull(properties.signaling().redisTtlSegmentKeys(), SEGMENT_TTL_REQUIRED)
+                .toSeconds();
+        String metricsKey = StreamingRedisKeys.peerMetricsKey(clientId);
+        String peersKey = StreamingRedisKeys.moviePeersKey(movieId);
+        String lastSeen = Long.toString(Instant.now(clock).getEpochSecond());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.setEx(StreamingRedisKeys.peerLastSeenKey(clientId), lastSeenTtl, lastSeen);
+            stringConnection.hSet(metricsKey, FIELD_LOCALITY, locality.encode());
+            stringConnection.expire(metricsKey, metricsTtl);
+            stringConnection.sAdd(peersKey, clientId);
+            stringConnection.expire(peersKey, segmentTtl);
+            return null;
+        });
     }
 
-    private void touchLastSeen(@NonNull String clientId) {
-        String sanitizedClientId = Objects.requireNonNull(clientId, CLIENT_ID_REQUIRED);
-        Duration ttl = Objects.requireNonNull(
-                properties.signaling().peerLastSeenTtl(),
-                LAST_SEEN_TTL_REQUIRED);
-        String key = StreamingRedisKeys.peerLastSeenKey(sanitizedClientId);
-        if (key == null) {
-            log.warn("Last seen key is null for clientId: {}", sanitizedClientId);
-            return;
-        }
-        String lastSeenValue = Long.toString(Instant.now(clock).getEpochSecond());
-        redisTemplate.opsForValue().set(key, Objects.requireNonNull(lastSeenValue), ttl);
+    private PeerMetrics neutralMetrics() {
+        // not published yet: neutral defaults so new peers are still tried
+        return new PeerMetrics(0.0, 999, 0.5, Instant.now(clock).getEpochSecond());
+    }
+
+    private record RankedPeer(PeerInfo peer, int affinity) {
     }
 }
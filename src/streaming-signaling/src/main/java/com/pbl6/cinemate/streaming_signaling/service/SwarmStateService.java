@@ -0,0 +1,560 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.dto.AvailabilityDelta;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerLocality;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
+import com.pbl6.cinemate.streaming_signaling.dto.SegmentRef;
+import com.pbl6.cinemate.streaming_signaling.util.SegmentIds;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Authoritative swarm state of the movies this node hosts, held in memory.
+ * <p>
+ * A node hosts a movie while it holds at least one of the movie's sessions.
+ * Its local peers' joins, reports and removals are applied here first and
+ * written to Redis behind ({@link SegmentReportBuffer}), so {@code whoHas}, the
+ * peer list and availability snapshots never wait on Redis. Peers of the same
+ * movie on other nodes (after a spill or a resume elsewhere) are mirrored from
+ * the movie's availability channel, and their locality and quality are
+ * refreshed from their metrics hashes every {@code metrics-publish-interval}.
+ * <p>
+ * Redis stays the replication log: when a node starts hosting a movie, e.g.
+ * after the node that held it failed, it hydrates the movie from the peers set
+ * and the owners sets listed in the movie's owner-sets index once and then
+ * follows the channel. Hydration reads Redis outside the movie lock; the first
+ * joiner loads the snapshot, deltas arriving meanwhile are held back and
+ * replayed on top of it, and later joiners wait for the result. Hydration time
+ * is recorded in {@code signaling.swarm.hydration}.
+ */
+@Service
+public class SwarmStateService {
+
+    private static final Logger log = LoggerFactory.getLogger(SwarmStateService.class);
+    private static final String OWNERS_SUFFIX = ":owners";
+    private static final String QUALITY_PREFIX = "quality:";
+    private static final String SEGMENT_INFIX = "segment:";
+    private static final int HYDRATION_BATCH = 512;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final PeerMetricsService peerMetricsService;
+    private final ObjectMapper objectMapper;
+    private final Timer hydration;
+    private final Map<String, MovieSwarm> movies = new ConcurrentHashMap<>();
+
+    public SwarmStateService(
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            PeerMetricsService peerMetricsService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate, "redisTemplate must not be null");
+        this.listenerContainer = Objects.requireNonNull(listenerContainer, "listenerContainer must not be null");
+        this.peerMetricsService = Objects.requireNonNull(peerMetricsService, "peerMetricsService must not be null");
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.hydration = meterRegistry.timer("signaling.swarm.hydration");
+        meterRegistry.gaugeMapSize("signaling.swarm.movies", List.of(), movies);
+    }
+
+    /**
+     * Adds a local peer, hosting (and hydrating) the movie if needed.
+     *
+     * @return every peer of the movie known to this node, including the new one
+     */
+    public Set<String> join(@NonNull String movieId, @NonNull String clientId, @NonNull PeerLocality locality) {
+        while (true) {
+            MovieSwarm swarm = hosted(movieId);
+            synchronized (swarm) {
+                if (!swarm.retired) {
+                    swarm.join(clientId, locality);
+                    return new LinkedHashSet<>(swarm.peers.keySet());
+                }
+            }
+        }
+    }
+
+    public void segmentAdded(@NonNull String movieId, @NonNull String clientId, String qualityId,
+            @NonNull String segmentId) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm != null) {
+            synchronized (swarm) {
+                swarm.own(clientId, segment(qualityId, segmentId), true);
+            }
+        }
+    }
+
+    public void segmentRemoved(@NonNull String movieId, @NonNull String clientId, String qualityId,
+            @NonNull String segmentId) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm != null) {
+            synchronized (swarm) {
+                swarm.own(clientId, segment(qualityId, segmentId), false);
+            }
+        }
+    }
+
+    /**
+     * Removes peers of a movie and stops hosting it once no local peer is left.
+     *
+     * @return the segments each removed peer owned, or {@code null} if this
+     * node does not host the movie and the caller has to find them in Redis
+     */
+    @Nullable
+    public Map<String, Set<SegmentRef>> leave(@NonNull String movieId, @NonNull Collection<String> clientIds) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm == null) {
+            return null;
+        }
+        synchronized (swarm) {
+            if (swarm.retired) {
+                return null;
+            }
+            Map<String, Set<SegmentRef>> owned = new HashMap<>();
+            for (String clientId : clientIds) {
+                owned.put(clientId, swarm.leave(clientId));
+            }
+            retireIfIdle(swarm);
+            return owned;
+        }
+    }
+
+    /**
+     * A local peer resumed its session on another node: it stays in the swarm,
+     * now as a remote peer whose changes arrive over the availability channel.
+     */
+    public void handOff(@NonNull String movieId, @NonNull String clientId) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm == null) {
+            return;
+        }
+        synchronized (swarm) {
+            Peer peer = swarm.peers.get(clientId);
+            if (peer != null && peer.local) {
+                peer.local = false;
+                swarm.localPeers--;
+            }
+            retireIfIdle(swarm);
+        }
+    }
+
+    /**
+     * @return current owners of a segment, or an empty list if this node does
+     * not host the movie
+     */
+    public List<Owner> owners(@NonNull String movieId, String qualityId, @NonNull String segmentId) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm == null) {
+            return List.of();
+        }
+        List<Owner> owners;
+        List<String> localOwners = new ArrayList<>();
+        synchronized (swarm) {
+            Set<String> ids = swarm.owners.get(segment(qualityId, segmentId));
+            if (ids == null) {
+                return List.of();
+            }
+            owners = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Peer peer = swarm.peers.get(id);
+                if (peer.local) {
+                    localOwners.add(id);
+                } else {
+                    owners.add(new Owner(id, peer.locality, peer.metrics, peer.metrics == null));
+                }
+            }
+            for (String id : localOwners) {
+                owners.add(new Owner(id, swarm.peers.get(id).locality, null, false));
+            }
+        }
+        // local averages are read outside the movie lock
+        int firstLocal = owners.size() - localOwners.size();
+        for (int i = firstLocal; i < owners.size(); i++) {
+            Owner owner = owners.get(i);
+            owners.set(i, new Owner(owner.peerId(), owner.locality(),
+                    peerMetricsService.current(owner.peerId()), false));
+        }
+        return owners;
+    }
+
+    /**
+     * @return peerId → indexes of the segments in {@code [from, to)} it owns
+     */
+    public Map<String, List<Integer>> windowOwners(@NonNull String movieId, String qualityId, int from, int to) {
+        MovieSwarm swarm = movies.get(movieId);
+        if (swarm == null) {
+            return Map.of();
+        }
+        Map<String, List<Integer>> owners = new LinkedHashMap<>();
+        synchronized (swarm) {
+            for (int i = from; i < to; i++) {
+                Set<String> ids = swarm.owners.get(segment(qualityId, SegmentIds.fromIndex(i)));
+                if (ids != null) {
+                    for (String id : ids) {
+                        owners.computeIfAbsent(id, k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Refreshes locality and quality of mirrored peers in one pipelined
+     * round-trip and drops those whose metrics hash is gone, which means they
+     * left and this node missed the departure.
+     */
+    @Scheduled(fixedDelayString = "${streaming.signaling.metrics-publish-interval}")
+    public void refreshRemotePeers() {
+        for (MovieSwarm swarm : movies.values()) {
+            refreshRemotePeers(swarm);
+        }
+    }
+
+    private void refreshRemotePeers(MovieSwarm swarm) {
+        List<String> remote;
+        synchronized (swarm) {
+            remote = swarm.peers.entrySet().stream()
+                    .filter(entry -> !entry.getValue().local)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+        if (remote.isEmpty()) {
+            return;
+        }
+        Map<String, Map<Object, Object>> hashes = peerMetricsService.loadAll(remote);
+        synchronized (swarm) {
+            hashes.forEach((clientId, hash) -> {
+                Peer peer = swarm.peers.get(clientId);
+                if (peer == null || peer.local) {
+                    return;
+                }
+                if (hash.isEmpty()) {
+                    swarm.leave(clientId);
+                    return;
+                }
+                peer.locality = PeerLocality.decode(hash.get(SignalingService.FIELD_LOCALITY));
+                peer.metrics = PeerMetrics.decode(hash.get(PeerMetricsService.FIELD_QUALITY));
+            });
+        }
+    }
+
+    private MovieSwarm hosted(String movieId) {
+        while (true) {
+            MovieSwarm swarm = movies.computeIfAbsent(movieId, MovieSwarm::new);
+            boolean claimed;
+            synchronized (swarm) {
+                if (swarm.retired) {
+                    continue;
+                }
+                claimed = !swarm.hydrating;
+                swarm.hydrating = true;
+            }
+            if (claimed) {
+                hydrate(swarm);
+            }
+            swarm.ready.join();
+            return swarm;
+        }
+    }
+
+    /**
+     * Loads a movie's swarm from Redis without holding its lock. The channel
+     * is followed before the snapshot is read so no change falls between the
+     * two; changes that arrive while the snapshot loads are replayed after it.
+     */
+    private void hydrate(MovieSwarm swarm) {
+        long started = System.nanoTime();
+        MessageListener listener = (message, pattern) -> mirror(swarm, message);
+        Set<String> peers = null;
+        Map<SegmentRef, Collection<?>> owners = Map.of();
+        boolean retired;
+        try {
+            listenerContainer.addMessageListener(listener, topic(swarm.movieId));
+            peers = redisTemplate.opsForSet().members(StreamingRedisKeys.moviePeersKey(swarm.movieId));
+            owners = loadOwners(swarm.movieId);
+        } catch (DataAccessException e) {
+            // the swarm rebuilds itself from reports and the channel
+            log.warn("Failed to hydrate swarm of movie {}: {}", swarm.movieId, e.getMessage());
+        } finally {
+            synchronized (swarm) {
+                retired = swarm.retired;
+                if (!retired) {
+                    apply(swarm, peers, owners);
+                    swarm.listener = listener;
+                }
+                swarm.backlog = null;
+                swarm.hydrated = true;
+            }
+            swarm.ready.complete(null);
+        }
+        if (retired) {
+            // its last local peer left before hydration finished
+            listenerContainer.removeMessageListener(listener, topic(swarm.movieId));
+            return;
+        }
+        long elapsed = System.nanoTime() - started;
+        hydration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Hosting movie {}: hydrated {} peers and {} segments in {} ms", swarm.movieId,
+                peers == null ? 0 : peers.size(), owners.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Reads the owners sets listed in the movie's owner-sets index in pipelined
+     * batches. Sets that expired since they were listed come back empty and
+     * are skipped.
+     *
+     * @return segment → owners of every segment that still has one
+     */
+    private Map<SegmentRef, Collection<?>> loadOwners(String movieId) {
+        Set<String> ownerSets = redisTemplate.opsForSet().members(StreamingRedisKeys.movieOwnerSetsKey(movieId));
+        if (ownerSets == null || ownerSets.isEmpty()) {
+            return Map.of();
+        }
+        String prefix = "movie:" + movieId + ":";
+        List<String> keys = ownerSets.stream().filter(key -> key.startsWith(prefix)).toList();
+        Map<SegmentRef, Collection<?>> owners = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += HYDRATION_BATCH) {
+            List<String> batch = keys.subList(from, Math.min(keys.size(), from + HYDRATION_BATCH));
+            List<Object> members = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                batch.forEach(stringConnection::sMembers);
+                return null;
+            });
+            for (int i = 0; i < batch.size() && i < members.size(); i++) {
+                SegmentRef segment = parseOwnersKey(batch.get(i).substring(prefix.length()));
+                if (segment != null && members.get(i) instanceof Collection<?> ids && !ids.isEmpty()) {
+                    owners.put(segment, ids);
+                }
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Applies a hydration snapshot, then the deltas held back while it loaded.
+     * Called with the movie lock held.
+     */
+    private static void apply(MovieSwarm swarm, Set<String> peers, Map<SegmentRef, Collection<?>> owners) {
+        if (peers != null) {
+            peers.forEach(swarm::remote);
+        }
+        owners.forEach((segment, ids) -> ids.forEach(id -> swarm.own(swarm.remote(id.toString()).id, segment, true)));
+        swarm.backlog.forEach(delta -> apply(swarm, delta));
+    }
+
+    /**
+     * Applies another node's changes; this node's own changes come back on the
+     * same channel and are skipped because they were applied when made.
+     */
+    private void mirror(MovieSwarm swarm, Message message) {
+        AvailabilityDelta delta;
+        try {
+            delta = objectMapper.readValue(message.getBody(), AvailabilityDelta.class);
+        } catch (IOException e) {
+            log.warn("Dropping malformed availability delta for movie {}: {}", swarm.movieId, e.getMessage());
+            return;
+        }
+        synchronized (swarm) {
+            if (swarm.retired) {
+                return;
+            }
+            if (!swarm.hydrated) {
+                swarm.backlog.add(delta);
+                return;
+            }
+            apply(swarm, delta);
+        }
+    }
+
+    private static void apply(MovieSwarm swarm, AvailabilityDelta delta) {
+        for (AvailabilityDelta.Change change : delta.changes()) {
+            Peer peer = swarm.peers.get(change.peerId());
+            if (peer != null && peer.local) {
+                continue;
+            }
+            if (change.have()) {
+                swarm.remote(change.peerId());
+            } else if (peer == null) {
+                continue;
+            }
+            swarm.own(change.peerId(), segment(change.qualityId(), SegmentIds.fromIndex(change.segment())),
+                    change.have());
+        }
+        for (String departed : delta.departed()) {
+            Peer peer = swarm.peers.get(departed);
+            if (peer != null && !peer.local) {
+                swarm.leave(departed);
+            }
+        }
+    }
+
+    private void retireIfIdle(MovieSwarm swarm) {
+        if (swarm.localPeers > 0) {
+            return;
+        }
+        swarm.retired = true;
+        movies.remove(swarm.movieId, swarm);
+        if (swarm.listener != null) {
+            listenerContainer.removeMessageListener(swarm.listener, topic(swarm.movieId));
+        }
+        log.info("No longer hosting movie {}", swarm.movieId);
+    }
+
+    private static SegmentRef segment(String qualityId, String segmentId) {
+        return new SegmentRef(qualityId == null || qualityId.isBlank() ? null : qualityId, segmentId);
+    }
+
+    /**
+     * Parses {@code quality:{qualityId}:segment:{segmentId}:owners} or
+     * {@code segment:{segmentId}:owners}, the movie prefix already stripped.
+     */
+    private static SegmentRef parseOwnersKey(String rest) {
+        if (!rest.endsWith(OWNERS_SUFFIX)) {
+            return null;
+        }
+        String body = rest.substring(0, rest.length() - OWNERS_SUFFIX.length());
+        String qualityId = null;
+        if (body.startsWith(QUALITY_PREFIX)) {
+            int segmentAt = body.indexOf(":" + SEGMENT_INFIX);
+            if (segmentAt < 0) {
+                return null;
+            }
+            qualityId = body.substring(QUALITY_PREFIX.length(), segmentAt);
+            body = body.substring(segmentAt + 1);
+        }
+        if (!body.startsWith(SEGMENT_INFIX) || body.length() == SEGMENT_INFIX.length()) {
+            return null;
+        }
+        return segment(qualityId, body.substring(SEGMENT_INFIX.length()));
+    }
+
+    private ChannelTopic topic(String movieId) {
+        return new ChannelTopic(StreamingRedisKeys.movieAvailabilityChannel(movieId));
+    }
+
+    /**
+     * An owner of a segment as seen by this node.
+     *
+     * @param metrics  last known quality, {@code null} if not published yet
+     * @param unproven a mirrored peer whose metrics have not been loaded yet
+     */
+    public record Owner(String peerId, PeerLocality locality, PeerMetrics metrics, boolean unproven) {
+    }
+
+    private static final class Peer {
+        private final String id;
+        private boolean local;
+        private PeerLocality locality = PeerLocality.UNKNOWN;
+        private PeerMetrics metrics;
+
+        private Peer(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * One hosted movie. Guarded by its own monitor.
+     */
+    private static final class MovieSwarm {
+        private final String movieId;
+        private final Map<String, Peer> peers = new LinkedHashMap<>();
+        private final Map<SegmentRef, Set<String>> owners = new HashMap<>();
+        private final Map<String, Set<SegmentRef>> owned = new HashMap<>();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private int localPeers;
+        private boolean hydrating;
+        private boolean hydrated;
+        private boolean retired;
+        private MessageListener listener;
+        // deltas received while hydrating, replayed on top of the snapshot
+        private List<AvailabilityDelta> backlog = new ArrayList<>();
+
+        private MovieSwarm(String movieId) {
+            this.movieId = movieId;
+        }
+
+        void join(String clientId, PeerLocality locality) {
+            Peer peer = peers.computeIfAbsent(clientId, Peer::new);
+            if (!peer.local) {
+                peer.local = true;
+                localPeers++;
+            }
+            peer.locality = locality;
+        }
+
+        Peer remote(String clientId) {
+            return peers.computeIfAbsent(clientId, Peer::new);
+        }
+
+        void own(String clientId, SegmentRef segment, boolean have) {
+            if (have) {
+                if (!peers.containsKey(clientId)) {
+                    // a report racing the peer's removal
+                    return;
+                }
+                owners.computeIfAbsent(segment, k -> new HashSet<>()).add(clientId);
+                owned.computeIfAbsent(clientId, k -> new HashSet<>()).add(segment);
+                return;
+            }
+            Set<String> segmentOwners = owners.get(segment);
+            if (segmentOwners != null && segmentOwners.remove(clientId) && segmentOwners.isEmpty()) {
+                owners.remove(segment);
+            }
+            Set<SegmentRef> peerSegments = owned.get(clientId);
+            if (peerSegments != null) {
+                peerSegments.remove(segment);
+            }
+        }
+
+        Set<SegmentRef> leave(String clientId) {
+            Peer peer = peers.remove(clientId);
+            if (peer != null && peer.local) {
+                localPeers--;
+            }
+            Set<SegmentRef> segments = owned.remove(clientId);
+            if (segments == null) {
+                return Set.of();
+            }
+            for (SegmentRef segment : segments) {
+                Set<String> segmentOwners = owners.get(segment);
+                if (segmentOwners != null && segmentOwners.remove(clientId) && segmentOwners.isEmpty()) {
+                    owners.remove(segment);
+                }
+            }
+            return segments;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pbl6.cinemate.streaming_signaling.util;
+
+import java.time.Duration;
+
+/**
+ * Exponentially weighted moving average over irregularly spaced samples.
+ * <p>
+ * The previous average loses half its weight every {@code halfLife} of
+ * elapsed time, so a peer's history fades while it is idle; every sample also
+ * carries at least {@code minWeight}, so a burst of samples arriving together
+ * still moves the average.
+ * <p>
+ * Not thread-safe on its own; callers synchronize.
+ */
+public final class Ewma {
+
+    private final double decayPerMilli;
+    private final double minWeight;
+    private double value;
+    private long updatedAt;
+    private boolean initialized;
+
+    public Ewma(Duration halfLife, double minWeight) {
+        if (halfLife.isZero() || halfLife.isNegative() || minWeight <= 0 || minWeight > 1) {
+            throw new IllegalArgumentException("Invalid EWMA parameters");
+        }
+        this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+        this.minWeight = minWeight;
+    }
+
+    /**
+     * Starts from {@code prior} instead of taking the first sample as is.
+     */
+    public Ewma(Duration halfLife, double minWeight, double prior, long nowMillis) {
+        this(halfLife, minWeight);
+        this.value = prior;
+        this.updatedAt = nowMillis;
+        this.initialized = true;
+    }
+
+    public void update(double sample, long nowMillis) {
+        if (!initialized) {
+            value = sample;
+            initialized = true;
+        } else {
+            double elapsed = Math.max(0L, nowMillis - updatedAt);
+            double weight = Math.max(1 - Math.exp(-decayPerMilli * elapsed), minWeight);
+            value += weight * (sample - value);
+        }
+        updatedAt = nowMillis;
+    }
+
+    public double value() {
+        return value;
+    }
+}
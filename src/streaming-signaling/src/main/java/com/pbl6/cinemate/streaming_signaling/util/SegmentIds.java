@@ -0,0 +1,44 @@
+package com.pbl6.cinemate.streaming_signaling.util;
+
+import java.util.OptionalInt;
+
+/**
+ * Converts between media segment file names ({@code seg_0005.m4s}) and their
+ * numeric index, which is what compact protocols put on the wire.
+ */
+public final class SegmentIds {
+
+    private static final String SEGMENT_PREFIX = "seg_";
+    private static final String M4S_EXTENSION = ".m4s";
+
+    private SegmentIds() {
+    }
+
+    public static String fromIndex(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Segment index must not be negative: " + index);
+        }
+        return SEGMENT_PREFIX + String.format("%04d", index) + M4S_EXTENSION;
+    }
+
+    public static OptionalInt toIndex(String segmentId) {
+        if (segmentId == null
+                || !segmentId.startsWith(SEGMENT_PREFIX)
+                || !segmentId.endsWith(M4S_EXTENSION)) {
+            return OptionalInt.empty();
+        }
+        String digits = segmentId.substring(SEGMENT_PREFIX.length(), segmentId.length() - M4S_EXTENSION.length());
+        if (digits.isEmpty()) {
+            return OptionalInt.empty();
+        }
+        int value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int d = digits.charAt(i) - '0';
+            if (d < 0 || d > 9 || value > (Integer.MAX_VALUE - d) / 10) {
+                return OptionalInt.empty();
+            }
+            value = value * 10 + d;
+        }
+        return OptionalInt.of(value);
+    }
+}
@@ -0,0 +1,137 @@
+package com.pbl6.cinemate.streaming_signaling.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel tracking one deadline per key.
+ * <p>
+ * Level 0 has {@code slots} buckets of one tick each; every further level
+ * covers {@code slots} times the span of the previous one. Scheduling,
+ * rescheduling and cancelling are O(1); {@link #advance(long)} touches only
+ * the buckets that come due, cascading higher-level buckets down as the lower
+ * wheel wraps. Deadlines are therefore honoured with tick resolution.
+ * <p>
+ * Not thread-safe on its own; callers synchronize.
+ *
+ * @param <K> key type
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int slotMask;
+    private final List<List<Set<K>>> levels;
+    private final Map<K, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param slotBits   log2 of the number of buckets per level
+     * @param levelCount number of levels; deadlines beyond the last level's span
+     *                   are parked in its farthest bucket and re-cascaded
+     * @param nowMillis  current time
+     */
+    public TimingWheel(long tickMillis, int slotBits, int levelCount, long nowMillis) {
+        if (tickMillis <= 0 || slotBits <= 0 || levelCount <= 0 || slotBits * levelCount > 62) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.slotBits = slotBits;
+        this.slotMask = (1 << slotBits) - 1;
+        this.levels = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            List<Set<K>> buckets = new ArrayList<>(1 << slotBits);
+            for (int slot = 0; slot <= slotMask; slot++) {
+                buckets.add(new HashSet<>());
+            }
+            levels.add(buckets);
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Sets (or moves) the deadline of {@code key}.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        place(key, deadlineTick);
+    }
+
+    public void cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            levels.get(entry.level).get(entry.slot).remove(key);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and returns every key whose deadline
+     * has passed; returned keys are no longer tracked.
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            Set<K> due = levels.get(0).get((int) (currentTick & slotMask));
+            for (K key : due) {
+                entries.remove(key);
+                expired.add(key);
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    private void cascade(int level) {
+        if (level >= levels.size()) {
+            return;
+        }
+        long lowerSpanMask = (1L << (slotBits * level)) - 1;
+        if ((currentTick & lowerSpanMask) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        int slot = (int) ((currentTick >>> (slotBits * level)) & slotMask);
+        Set<K> bucket = levels.get(level).get(slot);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<K> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : moving) {
+            Entry entry = entries.remove(key);
+            place(key, entry.deadlineTick);
+        }
+    }
+
+    private void place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels.size() - 1 && delta >= (1L << (slotBits * (level + 1)))) {
+            level++;
+        }
+        long effectiveTick = deadlineTick;
+        long maxSpan = 1L << (slotBits * levels.size());
+        if (delta >= maxSpan) {
+            effectiveTick = currentTick + maxSpan - 1;
+        }
+        int slot = (int) ((effectiveTick >>> (slotBits * level)) & slotMask);
+        levels.get(level).get(slot).add(key);
+        entries.put(key, new Entry(deadlineTick, level, slot));
+    }
+
+    private record Entry(long deadlineTick, int level, int slot) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.pbl6.cinemate.streaming_signaling.util;
+
+/**
+ * Token bucket holding up to {@code capacity} permits, refilled continuously
+ * at {@code permitsPerSecond}. A full bucket absorbs a burst of
+ * {@code capacity} permits; afterwards callers are held to the refill rate.
+ */
+public final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private final double capacity;
+    private final double permitsPerNano;
+    private double available;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, double capacity, long nowNanos) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Invalid token bucket parameters");
+        }
+        this.capacity = capacity;
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.available = capacity;
+        this.refilledAt = nowNanos;
+    }
+
+    /**
+     * Takes {@code permits} if that many are available; takes nothing otherwise.
+     */
+    public synchronized boolean tryAcquire(int permits, long nowNanos) {
+        long elapsed = nowNanos - refilledAt;
+        if (elapsed > 0) {
+            available = Math.min(capacity, available + elapsed * permitsPerNano);
+            refilledAt = nowNanos;
+        }
+        if (available < permits) {
+            return false;
+        }
+        available -= permits;
+        return true;
+    }
+}
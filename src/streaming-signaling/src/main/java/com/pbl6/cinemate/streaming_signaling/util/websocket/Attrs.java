@@ -13,4 +13,9 @@ public final class Attrs {
         }
         throw new IllegalStateException("Missing attribute " + key);
     }
+
+    public static <T> T getOrDefault(WebSocketSession s, String key, Class<T> type, T defaultValue) {
+        Object v = s.getAttributes().get(key);
+        return type.isInstance(v) ? type.cast(v) : defaultValue;
+    }
 }
@@ -0,0 +1,19 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.codec;
+
+/**
+ * Decoded client frames of the binary signaling sub-protocol.
+ * Only the high-frequency message types have a binary form; everything else
+ * stays JSON text even on binary sessions.
+ */
+public sealed interface BinaryFrame {
+
+    record WhoHas(String qualityId, int segmentIndex) implements BinaryFrame {
+    }
+
+    record ReportSegment(String qualityId, int segmentIndex, boolean fromPeer, long latency, double speed)
+            implements BinaryFrame {
+    }
+
+    record RemoveSegment(String qualityId, int segmentIndex) implements BinaryFrame {
+    }
+}
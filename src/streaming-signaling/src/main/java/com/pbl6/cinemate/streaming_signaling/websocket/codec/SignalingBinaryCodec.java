@@ -0,0 +1,235 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.codec;
+
+import com.pbl6.cinemate.streaming_signaling.dto.PeerInfo;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
+import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.WhoHasReplyMessage;
+import com.pbl6.cinemate.streaming_signaling.util.SegmentIds;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed-layout encoding for the {@value #SUB_PROTOCOL} WebSocket sub-protocol.
+ * <p>
+ * Every frame starts with a one byte opcode. Integers are unsigned LEB128
+ * varints (at most 5 bytes for ints and 10 for longs; values that decode
+ * negative are rejected), strings are a varint length followed by UTF-8
+ * bytes, floats are big-endian IEEE-754 32-bit. Segments are sent as their
+ * numeric index ({@code seg_0005.m4s} → 5).
+ * <p>
+ * Client → server:
+ * <ul>
+ * <li>{@code 0x01 whoHas}: quality, segmentIndex</li>
+ * <li>{@code 0x02 reportSegment}: quality, segmentIndex, source (0 origin, 1 peer), latency, speed(float)</li>
+ * <li>{@code 0x03 removeSegment}: quality, segmentIndex</li>
+ * </ul>
+ * Server → client:
+ * <ul>
+ * <li>{@code 0x81 whoHasReply}: quality, segmentIndex, peerCount, then per peer:
+ * peerId, uploadSpeed(float), latency, successRate(float), lastActive</li>
+ * <li>{@code 0x82 reportAck}: segmentIndex</li>
+ * </ul>
+ * Peer IDs are {@code {userId}:{instance}}. When the user id is a UUID they
+ * are written as {@code 0x00}, the user id as 16 raw bytes and the instance
+ * as a string; anything else is written as {@code 0x01} and the whole id as a
+ * string.
+ */
+@Component
+public class SignalingBinaryCodec {
+
+    public static final String SUB_PROTOCOL = "cinemate-signaling.bin.v1";
+
+    static final byte OP_WHO_HAS = 0x01;
+    static final byte OP_REPORT_SEGMENT = 0x02;
+    static final byte OP_REMOVE_SEGMENT = 0x03;
+    static final byte OP_WHO_HAS_REPLY = (byte) 0x81;
+    static final byte OP_REPORT_ACK = (byte) 0x82;
+
+    private static final byte PEER_ID_UUID = 0x00;
+    private static final byte PEER_ID_TEXT = 0x01;
+    private static final int MAX_STRING_BYTES = 256;
+
+    public BinaryFrame decode(ByteBuffer buffer) {
+        try {
+            byte op = buffer.get();
+            return switch (op) {
+                case OP_WHO_HAS -> new BinaryFrame.WhoHas(readString(buffer), readVarInt(buffer));
+                case OP_REPORT_SEGMENT -> new BinaryFrame.ReportSegment(
+                        readString(buffer),
+                        readVarInt(buffer),
+                        buffer.get() == 1,
+                        readVarLong(buffer),
+                        buffer.getFloat());
+                case OP_REMOVE_SEGMENT -> new BinaryFrame.RemoveSegment(readString(buffer), readVarInt(buffer));
+                default -> throw new IllegalArgumentException("Unsupported binary opcode: " + op);
+            };
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        }
+    }
+
+    public ByteBuffer encode(WhoHasReplyMessage reply) {
+        List<PeerInfo> peers = reply.peers();
+        Writer w = new Writer(16 + peers.size() * 32);
+        w.writeByte(OP_WHO_HAS_REPLY);
+        w.writeString(reply.qualityId());
+        w.writeVarLong(segmentIndex(reply.segmentId()));
+        w.writeVarLong(peers.size());
+        for (PeerInfo peer : peers) {
+            PeerMetrics metrics = peer.metrics();
+            w.writePeerId(peer.peerId());
+            w.writeFloat((float) metrics.uploadSpeed());
+            w.writeVarLong(Math.max(0, metrics.latency()));
+            w.writeFloat((float) metrics.successRate());
+            w.writeVarLong(Math.max(0L, metrics.lastActive()));
+        }
+        return w.toBuffer();
+    }
+
+    public ByteBuffer encode(ReportSegmentAckMessage ack) {
+        Writer w = new Writer(8);
+        w.writeByte(OP_REPORT_ACK);
+        w.writeVarLong(segmentIndex(ack.segmentId()));
+        return w.toBuffer();
+    }
+
+    private static int segmentIndex(String segmentId) {
+        return SegmentIds.toIndex(segmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Segment is not index-addressable: " + segmentId));
+    }
+
+    /**
+     * Reads a varint of at most 5 bytes holding a non-negative {@code int}.
+     */
+    private static int readVarInt(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Varint out of range");
+                }
+                return (int) result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads a varint of at most 10 bytes holding a non-negative {@code long}.
+     */
+    private static long readVarLong(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IllegalArgumentException("Varint out of range");
+                }
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > MAX_STRING_BYTES || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] raw = new byte[length];
+        buffer.get(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static final class Writer {
+        private byte[] bytes;
+        private int size;
+
+        Writer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeFloat(float value) {
+            int bits = Float.floatToIntBits(value);
+            ensure(4);
+            bytes[size++] = (byte) (bits >>> 24);
+            bytes[size++] = (byte) (bits >>> 16);
+            bytes[size++] = (byte) (bits >>> 8);
+            bytes[size++] = (byte) bits;
+        }
+
+        void writeString(String value) {
+            byte[] raw = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(raw.length);
+            ensure(raw.length);
+            System.arraycopy(raw, 0, bytes, size, raw.length);
+            size += raw.length;
+        }
+
+        void writePeerId(String peerId) {
+            int separator = peerId == null ? -1 : peerId.indexOf(':');
+            UUID userId = separator < 0 ? null : parseUuid(peerId.substring(0, separator));
+            if (userId == null) {
+                writeByte(PEER_ID_TEXT);
+                writeString(peerId);
+                return;
+            }
+            writeByte(PEER_ID_UUID);
+            writeLong(userId.getMostSignificantBits());
+            writeLong(userId.getLeastSignificantBits());
+            writeString(peerId.substring(separator + 1));
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
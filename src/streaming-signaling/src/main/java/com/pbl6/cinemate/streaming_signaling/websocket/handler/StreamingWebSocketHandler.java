@@ -5,28 +5,48 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.pbl6.cinemate.streaming_signaling.enums.MessageType;
 import com.pbl6.cinemate.streaming_signaling.dto.ErrorMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.HaveMessage;
 import com.pbl6.cinemate.streaming_signaling.dto.PeerListMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerLocality;
 import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentsAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.SegmentRef;
+import com.pbl6.cinemate.streaming_signaling.dto.SegmentReport;
+import com.pbl6.cinemate.streaming_signaling.dto.SessionMessage;
 import com.pbl6.cinemate.streaming_signaling.dto.WhoHasReplyMessage;
+import com.pbl6.cinemate.streaming_signaling.service.AvailabilityService;
+import com.pbl6.cinemate.streaming_signaling.service.NodeMembershipService;
+import com.pbl6.cinemate.streaming_signaling.service.PeerLivenessService;
+import com.pbl6.cinemate.streaming_signaling.service.ReportRateLimiter;
+import com.pbl6.cinemate.streaming_signaling.service.RtcRelayService;
+import com.pbl6.cinemate.streaming_signaling.service.SessionResumeService;
 import com.pbl6.cinemate.streaming_signaling.service.SignalingService;
+import com.pbl6.cinemate.streaming_signaling.websocket.codec.BinaryFrame;
+import com.pbl6.cinemate.streaming_signaling.websocket.codec.SignalingBinaryCodec;
 import com.pbl6.cinemate.streaming_signaling.websocket.interceptor.SignalingHandshakeInterceptor;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.OutboundSession;
 import com.pbl6.cinemate.streaming_signaling.util.JsonHelper;
+import com.pbl6.cinemate.streaming_signaling.util.SegmentIds;
+import com.pbl6.cinemate.streaming_signaling.util.TokenBucket;
 import com.pbl6.cinemate.streaming_signaling.util.websocket.Attrs;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 @Component
-public class StreamingWebSocketHandler extends TextWebSocketHandler {
+public class StreamingWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
     private static final String CLIENT_ID_NULL = "Client ID cannot be null";
     private static final String MOVIE_ID_NULL = "Movie ID cannot be null";
     private static final String QUALITY_ID_NULL = "Quality ID cannot be null";
@@ -39,18 +59,54 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
     private static final String QUALITY_ID_KEY = "qualityId";
     private static final String SEGMENT_ID_KEY = "segmentId";
     private static final String TO_KEY = "to";
+    private static final String ATTR_ISSUED_RESUME_TOKEN = "issuedResumeToken";
+    private static final String ATTR_REPORT_BUCKET = "reportBucket";
+    private static final String REPORT_RATE_LIMITED = "Report rate limit exceeded";
     private final SignalingService signalingService;
     private final ObjectMapper objectMapper;
     private final JsonHelper jsonHelper;
-    private final ConcurrentMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final SignalingBinaryCodec binaryCodec;
+    private final RtcRelayService rtcRelayService;
+    private final LocalSessionRegistry sessionRegistry;
+    private final AvailabilityService availabilityService;
+    private final PeerLivenessService peerLivenessService;
+    private final NodeMembershipService nodeMembershipService;
+    private final SessionResumeService sessionResumeService;
+    private final ReportRateLimiter reportRateLimiter;
 
     public StreamingWebSocketHandler(
             SignalingService signalingService,
             ObjectMapper objectMapper,
-            JsonHelper jsonHelper) {
+            JsonHelper jsonHelper,
+            SignalingBinaryCodec binaryCodec,
+            RtcRelayService rtcRelayService,
+            LocalSessionRegistry sessionRegistry,
+            AvailabilityService availabilityService,
+            PeerLivenessService peerLivenessService,
+            NodeMembershipService nodeMembershipService,
+            SessionResumeService sessionResumeService,
+            ReportRateLimiter reportRateLimiter) {
         this.signalingService = signalingService;
         this.objectMapper = objectMapper;
         this.jsonHelper = jsonHelper;
+        this.binaryCodec = binaryCodec;
+        this.rtcRelayService = rtcRelayService;
+        this.sessionRegistry = sessionRegistry;
+        this.availabilityService = availabilityService;
+        this.peerLivenessService = peerLivenessService;
+        this.nodeMembershipService = nodeMembershipService;
+        this.sessionResumeService = sessionResumeService;
+        this.reportRateLimiter = reportRateLimiter;
+    }
+
+    /**
+     * Clients that request the binary sub-protocol at handshake may send the hot
+     * message types as binary frames; clients that request nothing keep JSON.
+     */
+    @Override
+    @NonNull
+    public List<String> getSubProtocols() {
+        return List.of(SignalingBinaryCodec.SUB_PROTOCOL);
     }
 
     @Override
@@ -60,14 +116,25 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         String movieId = Objects.requireNonNull(Attrs.get(session, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
                 MOVIE_ID_NULL);
 
-        sessions.put(clientId, session);
+        boolean resumed = resume(session, clientId, movieId);
+        String resumeToken = sessionResumeService.issueToken();
+        session.getAttributes().put(ATTR_ISSUED_RESUME_TOKEN, resumeToken);
+        session.getAttributes().put(ATTR_REPORT_BUCKET, reportRateLimiter.newBucket());
 
-        PeerListMessage peerList = signalingService.registerClient(clientId, movieId);
+        sessionRegistry.register(clientId, session);
+        rtcRelayService.registerLocalClient(clientId);
+        nodeMembershipService.trackClient(clientId, movieId);
+        peerLivenessService.heartbeat(clientId, movieId);
+
+        PeerListMessage peerList = signalingService.registerClient(clientId, movieId, locality(session));
         send(session, peerList);
+        send(session, new SessionMessage(clientId, resumeToken, resumed,
+                sessionResumeService.gracePeriod().toSeconds()));
     }
 
     @Override
     protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage msg) throws Exception {
+        heartbeat(session);
         JsonNode json = objectMapper.readTree(msg.getPayload());
 
         String typeRaw = json.path("type").textValue();
@@ -82,8 +149,56 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         switch (type) {
             case WHO_HAS -> handleWhoHas(session, json);
             case REPORT_SEGMENT -> handleReportSegment(session, json);
+            case REPORT_SEGMENTS -> handleReportSegments(session, json);
             case REMOVE_SEGMENT -> handleRemoveSegment(session, json);
             case RTC_OFFER, RTC_ANSWER, ICE_CANDIDATE -> handleRtcRelay(session, json);
+            case SUBSCRIBE -> handleSubscribe(session, json);
+            case UNSUBSCRIBE -> handleUnsubscribe(session);
+            case HEARTBEAT -> {
+                // liveness already refreshed above
+            }
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(@NonNull WebSocketSession session, @NonNull BinaryMessage msg)
+            throws Exception {
+        heartbeat(session);
+        if (!SignalingBinaryCodec.SUB_PROTOCOL.equals(session.getAcceptedProtocol())) {
+            send(session, new ErrorMessage("Binary frames require sub-protocol " + SignalingBinaryCodec.SUB_PROTOCOL));
+            return;
+        }
+        try {
+            String clientId = Objects.requireNonNull(Attrs.get(session, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
+                    CLIENT_ID_NULL);
+            String movieId = Objects.requireNonNull(Attrs.get(session, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                    MOVIE_ID_NULL);
+
+            switch (binaryCodec.decode(msg.getPayload())) {
+                case BinaryFrame.WhoHas f -> {
+                    WhoHasReplyMessage reply = signalingService.handleWhoHas(movieId, f.qualityId(),
+                            SegmentIds.fromIndex(f.segmentIndex()), locality(session));
+                    sessionRegistry.outbound(session).send(whoHasCoalesceKey(reply),
+                            new BinaryMessage(binaryCodec.encode(reply)));
+                }
+                case BinaryFrame.ReportSegment f -> {
+                    if (!allowReports(session, 1)) {
+                        return;
+                    }
+                    ReportSegmentAckMessage ack = signalingService.handleReportSegment(clientId, movieId,
+                            f.qualityId(), SegmentIds.fromIndex(f.segmentIndex()),
+                            f.fromPeer() ? "peer" : "origin", f.speed(), f.latency());
+                    sessionRegistry.outbound(session).send(new BinaryMessage(binaryCodec.encode(ack)));
+                }
+                case BinaryFrame.RemoveSegment f -> {
+                    if (allowReports(session, 1)) {
+                        signalingService.handleRemoveSegment(clientId, movieId, f.qualityId(),
+                                SegmentIds.fromIndex(f.segmentIndex()));
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            send(session, new ErrorMessage(e.getMessage()));
         }
     }
 
@@ -94,8 +209,25 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         String movieId = Objects.requireNonNull(Attrs.get(session, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
                 MOVIE_ID_NULL);
 
-        signalingService.handleDisconnect(clientId, movieId);
-        sessions.remove(clientId);
+        sessionRegistry.unregister(clientId, session);
+        if (sessionRegistry.get(clientId) != null) {
+            // the client already reconnected to this node; the newer session owns its state
+            return;
+        }
+        rtcRelayService.unregisterLocalClient(clientId);
+
+        if (CloseStatus.NORMAL.equalsCode(status) || CloseStatus.GOING_AWAY.equalsCode(status)) {
+            // a peer expired by the liveness wheel has already been removed in its batch
+            if (peerLivenessService.forget(clientId)) {
+                signalingService.handleDisconnect(clientId, movieId);
+                nodeMembershipService.untrackClients(List.of(clientId));
+            }
+        } else if (peerLivenessService.detach(clientId, sessionResumeService.gracePeriod())) {
+            String resumeToken = Attrs.getOrDefault(session, ATTR_ISSUED_RESUME_TOKEN, String.class, null);
+            if (resumeToken != null) {
+                sessionResumeService.park(resumeToken, clientId, movieId);
+            }
+        }
     }
 
     private void handleWhoHas(WebSocketSession s, JsonNode json) throws IOException {
@@ -104,8 +236,9 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
             String qualityId = Objects.requireNonNull(jsonHelper.getText(json, QUALITY_ID_KEY, true), QUALITY_ID_NULL);
             String segmentId = Objects.requireNonNull(jsonHelper.getText(json, SEGMENT_ID_KEY, true), SEGMENT_ID_NULL);
 
-            WhoHasReplyMessage reply = signalingService.handleWhoHas(movieId, qualityId, segmentId);
-            send(s, reply);
+            WhoHasReplyMessage reply = signalingService.handleWhoHas(movieId, qualityId, segmentId,
+                    locality(s));
+            send(s, whoHasCoalesceKey(reply), reply);
         } catch (IllegalArgumentException e) {
             send(s, new ErrorMessage(e.getMessage()));
         }
@@ -115,9 +248,12 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         try {
             String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
                     CLIENT_ID_NULL);
-            String movieId = Objects.requireNonNull(jsonHelper.getText(json, MOVIE_ID_KEY, false), MOVIE_ID_NULL);
+            String movieId = sessionMovie(s, json);
             String qualityId = Objects.requireNonNull(jsonHelper.getText(json, QUALITY_ID_KEY, true), QUALITY_ID_NULL);
             String segmentId = Objects.requireNonNull(jsonHelper.getText(json, SEGMENT_ID_KEY, true), SEGMENT_ID_NULL);
+            if (!allowReports(s, 1)) {
+                return;
+            }
 
             String source = Objects.requireNonNull(jsonHelper.getText(json, "source", true), SOURCE_NULL);
             long latency = Objects.requireNonNull(jsonHelper.getLong(json, "latency", 0), LATENCY_NULL);
@@ -132,14 +268,51 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void handleReportSegments(WebSocketSession s, JsonNode json) throws IOException {
+        try {
+            String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
+                    CLIENT_ID_NULL);
+            String movieId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                    MOVIE_ID_NULL);
+            if (!allowReports(s, Math.max(1, json.path("segments").size() + json.path("removed").size()))) {
+                return;
+            }
+
+            List<SegmentReport> reports = new ArrayList<>();
+            for (JsonNode item : json.path("segments")) {
+                reports.add(new SegmentReport(
+                        Objects.requireNonNull(jsonHelper.getText(item, QUALITY_ID_KEY, true), QUALITY_ID_NULL),
+                        Objects.requireNonNull(jsonHelper.getText(item, SEGMENT_ID_KEY, true), SEGMENT_ID_NULL),
+                        Objects.requireNonNull(jsonHelper.getText(item, "source", true), SOURCE_NULL),
+                        jsonHelper.getDouble(item, "speed", 0.0),
+                        jsonHelper.getLong(item, "latency", 0)));
+            }
+            List<SegmentRef> removals = new ArrayList<>();
+            for (JsonNode item : json.path("removed")) {
+                removals.add(new SegmentRef(
+                        Objects.requireNonNull(jsonHelper.getText(item, QUALITY_ID_KEY, true), QUALITY_ID_NULL),
+                        Objects.requireNonNull(jsonHelper.getText(item, SEGMENT_ID_KEY, true), SEGMENT_ID_NULL)));
+            }
+
+            ReportSegmentsAckMessage ack = signalingService.handleReportSegments(clientId, movieId, reports,
+                    removals);
+            send(s, ack);
+        } catch (IllegalArgumentException e) {
+            send(s, new ErrorMessage(e.getMessage()));
+        }
+    }
+
     private void handleRemoveSegment(WebSocketSession s, JsonNode json) throws IOException {
         try {
             String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
                     CLIENT_ID_NULL);
 
-            String movieId = Objects.requireNonNull(jsonHelper.getText(json, MOVIE_ID_KEY, false), MOVIE_ID_NULL);
+            String movieId = sessionMovie(s, json);
             String qualityId = Objects.requireNonNull(jsonHelper.getText(json, QUALITY_ID_KEY, true), QUALITY_ID_NULL);
             String segmentId = Objects.requireNonNull(jsonHelper.getText(json, SEGMENT_ID_KEY, true), SEGMENT_ID_NULL);
+            if (!allowReports(s, 1)) {
+                return;
+            }
 
             signalingService.handleRemoveSegment(clientId, movieId, qualityId, segmentId);
         } catch (IllegalArgumentException e) {
@@ -147,22 +320,43 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void handleSubscribe(WebSocketSession s, JsonNode json) throws IOException {
+        try {
+            String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
+                    CLIENT_ID_NULL);
+            String movieId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                    MOVIE_ID_NULL);
+            String qualityId = Objects.requireNonNull(jsonHelper.getText(json, QUALITY_ID_KEY, true), QUALITY_ID_NULL);
+            int fromSegment = (int) jsonHelper.getLong(json, "fromSegment", -1);
+            int count = (int) jsonHelper.getLong(json, "count", 0);
+
+            HaveMessage snapshot = availabilityService.subscribe(clientId, movieId, qualityId, fromSegment, count);
+            send(s, snapshot);
+        } catch (IllegalArgumentException e) {
+            send(s, new ErrorMessage(e.getMessage()));
+        }
+    }
+
+    private void handleUnsubscribe(WebSocketSession s) {
+        String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
+                CLIENT_ID_NULL);
+        String movieId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                MOVIE_ID_NULL);
+        availabilityService.unsubscribe(clientId, movieId);
+    }
+
     private void handleRtcRelay(WebSocketSession session, JsonNode json) throws IOException {
         try {
             String from = Objects.requireNonNull(Attrs.get(session, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
                     CLIENT_ID_NULL);
             String to = Objects.requireNonNull(jsonHelper.getText(json, TO_KEY, true), TO_NULL);
 
-            WebSocketSession target = sessions.get(to);
-            if (target == null || !target.isOpen()) {
-                send(session, new ErrorMessage("Target peer not connected: " + to));
-                return;
-            }
-
             ((ObjectNode) json).put("from", from);
             String jsonString = Objects.requireNonNull(objectMapper.writeValueAsString(json),
                     "JSON string cannot be null");
-            target.sendMessage(new TextMessage(jsonString));
+            if (!rtcRelayService.relay(to, jsonString)) {
+                send(session, new ErrorMessage("Target peer not connected: " + to));
+            }
 
         } catch (IllegalArgumentException e) {
             send(session, new ErrorMessage(e.getMessage()));
@@ -170,8 +364,75 @@ public class StreamingWebSocketHandler extends TextWebSocketHandler {
     }
 
     private <T> void send(WebSocketSession s, T obj) throws IOException {
+        send(s, null, obj);
+    }
+
+    private <T> void send(WebSocketSession s, String coalesceKey, T obj) throws IOException {
         String jsonString = Objects.requireNonNull(objectMapper.writeValueAsString(obj),
                 "JSON string cannot be null");
-        s.sendMessage(new TextMessage(jsonString));
+        sessionRegistry.outbound(s).send(coalesceKey, new TextMessage(jsonString));
+    }
+
+    /**
+     * Reports always apply to the session's movie; a {@code movieId} in the
+     * message, if present, must match it.
+     */
+    private String sessionMovie(WebSocketSession s, JsonNode json) {
+        String movieId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                MOVIE_ID_NULL);
+        String requested = jsonHelper.getText(json, MOVIE_ID_KEY, false);
+        if (requested != null && !requested.equals(movieId)) {
+            throw new IllegalArgumentException("movieId does not match the session");
+        }
+        return movieId;
+    }
+
+    /**
+     * Charges {@code reports} against the session's rate limit and tells the
+     * client when the batch is dropped.
+     */
+    private boolean allowReports(WebSocketSession s, int reports) throws IOException {
+        TokenBucket bucket = Objects.requireNonNull(
+                Attrs.getOrDefault(s, ATTR_REPORT_BUCKET, TokenBucket.class, null), "Report bucket cannot be null");
+        if (reportRateLimiter.tryAcquire(bucket, reports)) {
+            return true;
+        }
+        send(s, new ErrorMessage(REPORT_RATE_LIMITED));
+        return false;
+    }
+
+    /**
+     * A client reconnecting with the token of its previous session keeps that
+     * session's segment ownership instead of re-reporting its buffer.
+     */
+    private boolean resume(WebSocketSession s, String clientId, String movieId) {
+        String token = Attrs.getOrDefault(s, SignalingHandshakeInterceptor.ATTR_RESUME_TOKEN, String.class, null);
+        OutboundSession previous = sessionRegistry.get(clientId);
+        String previousToken = null;
+        if (previous != null && movieId.equals(previous.delegate().getAttributes()
+                .get(SignalingHandshakeInterceptor.ATTR_MOVIE_ID))) {
+            previousToken = Attrs.getOrDefault(previous.delegate(), ATTR_ISSUED_RESUME_TOKEN, String.class, null);
+        }
+        return sessionResumeService.claim(token, previousToken, clientId, movieId);
+    }
+
+    private void heartbeat(WebSocketSession s) {
+        String clientId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_CLIENT_ID),
+                CLIENT_ID_NULL);
+        String movieId = Objects.requireNonNull(Attrs.get(s, SignalingHandshakeInterceptor.ATTR_MOVIE_ID),
+                MOVIE_ID_NULL);
+        peerLivenessService.heartbeat(clientId, movieId);
+    }
+
+    private static PeerLocality locality(WebSocketSession s) {
+        return Attrs.getOrDefault(s, SignalingHandshakeInterceptor.ATTR_LOCALITY, PeerLocality.class,
+                PeerLocality.UNKNOWN);
+    }
+
+    /**
+     * A newer whoHas reply for the same segment supersedes one still waiting in the queue.
+     */
+    private static String whoHasCoalesceKey(WhoHasReplyMessage reply) {
+        return "whoHasReply:" + reply.qualityId() + ":" + reply.segmentId();
     }
 }
@@ -1,10 +1,23 @@
 package com.pbl6.cinemate.streaming_signaling.websocket.interceptor;
 
+import com.pbl6.cinemate.shared.exception.UnauthenticatedException;
+import com.pbl6.cinemate.shared.utils.JwtUtils;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.service.LocalityService;
+import io.jsonwebtoken.Claims;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.lang.NonNull;
@@ -15,12 +28,43 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 import org.springframework.web.util.UriComponentsBuilder;
 
+/**
+ * Authenticates signaling connections.
+ * <p>
+ * The access token is verified locally with the shared access-token key, so a
+ * handshake costs no call to the auth service. The session's {@code clientId}
+ * is {@code {userId}:{instance}}, where the user id comes from the token and
+ * the instance is the {@code clientId} query parameter; a user can therefore
+ * only act as their own peers. Browsers cannot set headers on a WebSocket
+ * handshake, so the token is read from {@code Authorization: Bearer} or the
+ * {@code token} query parameter.
+ */
 @Component
 public class SignalingHandshakeInterceptor implements HandshakeInterceptor {
 
     public static final String ATTR_CLIENT_ID = "clientId";
+    public static final String ATTR_USER_ID = "userId";
     public static final String ATTR_MOVIE_ID = "movieId";
+    public static final String ATTR_LOCALITY = "locality";
+    public static final String ATTR_RESUME_TOKEN = "resumeToken";
+    private static final String PARAM_ASN = "asn";
+    private static final String PARAM_TOKEN = "token";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String CLAIM_USER_ID = "user_id";
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String HEADER_FORWARDED_FOR = "X-Forwarded-For";
+    private static final Pattern IP_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
     private static final Logger log = LoggerFactory.getLogger(SignalingHandshakeInterceptor.class);
+    private final LocalityService localityService;
+    private final JwtUtils jwtUtils;
+    private final int trustedProxyHops;
+
+    public SignalingHandshakeInterceptor(LocalityService localityService, JwtUtils jwtUtils,
+            SignalingProperties properties) {
+        this.localityService = localityService;
+        this.jwtUtils = jwtUtils;
+        this.trustedProxyHops = properties.signaling().trustedProxyHops();
+    }
 
     @Override
     public boolean beforeHandshake(
@@ -33,21 +77,83 @@ public class SignalingHandshakeInterceptor implements HandshakeInterceptor {
                 .build()
                 .getQueryParams();
 
-        // Accept clientId
-        Optional.ofNullable(queryParams.getFirst(ATTR_CLIENT_ID))
-                .ifPresent(clientId -> attributes.put(ATTR_CLIENT_ID, clientId));
-
-        // Accept movieId
-        Optional.ofNullable(queryParams.getFirst(ATTR_MOVIE_ID))
-                .ifPresent(movieId -> attributes.put(ATTR_MOVIE_ID, movieId));
+        String instance = queryParams.getFirst(ATTR_CLIENT_ID);
+        String movieId = queryParams.getFirst(ATTR_MOVIE_ID);
+        if (instance == null || movieId == null || !ID.matcher(instance).matches() || !ID.matcher(movieId).matches()) {
+            log.warn("Handshake rejected: missing or malformed clientId or movieId. uri={}", request.getURI().getPath());
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
 
-        if (!attributes.containsKey(ATTR_CLIENT_ID) || !attributes.containsKey(ATTR_MOVIE_ID)) {
-            log.warn("Handshake rejected: missing clientId or movieId. uri={}", request.getURI());
+        String userId = authenticate(request, queryParams);
+        if (userId == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
             return false;
         }
+        attributes.put(ATTR_USER_ID, userId);
+        attributes.put(ATTR_CLIENT_ID, userId + ":" + instance);
+        attributes.put(ATTR_MOVIE_ID, movieId);
+
+        // Optional token of a dropped session to resume
+        Optional.ofNullable(queryParams.getFirst(ATTR_RESUME_TOKEN))
+                .ifPresent(token -> attributes.put(ATTR_RESUME_TOKEN, token));
+
+        attributes.put(ATTR_LOCALITY, localityService.resolve(clientAddress(request), queryParams.getFirst(PARAM_ASN)));
         return true;
     }
 
+    /**
+     * @return the token's user id, or {@code null} when the token is missing or invalid
+     */
+    private String authenticate(ServerHttpRequest request, MultiValueMap<String, String> queryParams) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        String token = header != null && header.startsWith(BEARER_PREFIX)
+                ? header.substring(BEARER_PREFIX.length())
+                : queryParams.getFirst(PARAM_TOKEN);
+        if (token == null || token.isBlank()) {
+            log.warn("Handshake rejected: missing access token. uri={}", request.getURI().getPath());
+            return null;
+        }
+        try {
+            Claims claims = jwtUtils.verifyToken(token, false);
+            String userId = claims.get(CLAIM_USER_ID, String.class);
+            if (userId == null || !ID.matcher(userId).matches()) {
+                log.warn("Handshake rejected: token without a usable user id");
+                return null;
+            }
+            return userId;
+        } catch (UnauthenticatedException e) {
+            log.warn("Handshake rejected: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Each of our {@code trusted-proxy-hops} proxies (the gateway, and an edge
+     * proxy if there is one) appends the address it received the request from
+     * to X-Forwarded-For, so the client is that many entries from the end;
+     * anything before it was supplied by the client and cannot be trusted.
+     * Only IP literals are accepted to avoid DNS lookups.
+     */
+    private InetAddress clientAddress(ServerHttpRequest request) {
+        List<String> forwarded = request.getHeaders().get(HEADER_FORWARDED_FOR);
+        if (forwarded != null && !forwarded.isEmpty()) {
+            String[] hops = String.join(",", forwarded).split(",");
+            if (hops.length >= trustedProxyHops) {
+                String client = hops[hops.length - trustedProxyHops].trim();
+                if (IP_LITERAL.matcher(client).matches()) {
+                    try {
+                        return InetAddress.getByName(client);
+                    } catch (UnknownHostException e) {
+                        log.debug("Ignoring unparsable forwarded address {}", client);
+                    }
+                }
+            }
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        return remote != null ? remote.getAddress() : null;
+    }
+
     @Override
     public void afterHandshake(
             @NonNull ServerHttpRequest request,
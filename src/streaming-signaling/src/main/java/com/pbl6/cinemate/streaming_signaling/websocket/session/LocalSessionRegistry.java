@@ -0,0 +1,80 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.session;
+
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * WebSocket sessions connected to this signaling node, keyed by clientId.
+ * Every registered session gets an {@link OutboundSession}; all writes to a
+ * client must go through it.
+ */
+@Component
+public class LocalSessionRegistry {
+
+    private static final String ATTR_OUTBOUND = "outboundSession";
+    private final ConcurrentMap<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+    private final Executor writer;
+    private final Clock clock;
+    private final SignalingProperties properties;
+
+    public LocalSessionRegistry(
+            @Qualifier("signalingOutboundExecutor") Executor writer,
+            Clock clock,
+            SignalingProperties properties) {
+        this.writer = writer;
+        this.clock = clock;
+        this.properties = properties;
+    }
+
+    public OutboundSession register(@NonNull String clientId, @NonNull WebSocketSession session) {
+        OutboundSession outbound = outbound(session);
+        sessions.put(clientId, outbound);
+        return outbound;
+    }
+
+    /**
+     * Removes the mapping only if it still points at {@code session}, so a late
+     * close of an old connection cannot evict the client's newer one.
+     */
+    public void unregister(@NonNull String clientId, @NonNull WebSocketSession session) {
+        sessions.computeIfPresent(clientId, (id, current) -> current.delegate() == session ? null : current);
+    }
+
+    public OutboundSession get(@NonNull String clientId) {
+        return sessions.get(clientId);
+    }
+
+    /**
+     * Returns the outbound queue bound to {@code session}, creating it on first use.
+     */
+    public OutboundSession outbound(@NonNull WebSocketSession session) {
+        return (OutboundSession) session.getAttributes().computeIfAbsent(ATTR_OUTBOUND,
+                k -> new OutboundSession(session, writer, clock,
+                        properties.signaling().outboundQueueCapacity(),
+                        properties.signaling().outboundMaxLag()));
+    }
+
+    public Set<String> clientIds() {
+        return sessions.keySet();
+    }
+
+    /**
+     * Closes sessions whose writer has been stuck for longer than
+     * {@code outbound-max-lag}, even if nothing new is queued for them.
+     */
+    @Scheduled(fixedDelayString = "${streaming.signaling.outbound-max-lag}")
+    public void closeLaggingSessions() {
+        sessions.values().forEach(OutboundSession::closeIfLagging);
+    }
+}
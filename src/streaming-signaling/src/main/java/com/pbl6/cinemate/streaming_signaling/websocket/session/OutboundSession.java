@@ -0,0 +1,178 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.session;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Bounded outbound queue for one WebSocket session.
+ * <p>
+ * Any thread may enqueue; a single drain task on the shared writer executor
+ * performs the actual {@code sendMessage} calls, so sends on a session are never
+ * concurrent and a slow client only ever blocks its own drain task. Messages
+ * enqueued with a coalesce key replace a still-pending message with the same
+ * key. A session whose queue overflows, or whose oldest pending message waits
+ * longer than the allowed lag, is closed as a slow consumer. Lag is checked on
+ * enqueue, by the drain task before each send, and by
+ * {@link #closeIfLagging()} for sessions that receive nothing while their
+ * writer is stuck.
+ */
+public class OutboundSession {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundSession.class);
+    private static final CloseStatus SLOW_CONSUMER = CloseStatus.SESSION_NOT_RELIABLE.withReason("Slow consumer");
+    private final WebSocketSession delegate;
+    private final Executor writer;
+    private final Clock clock;
+    private final int capacity;
+    private final long maxLagMillis;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> pendingByKey = new HashMap<>();
+    private boolean draining;
+    private boolean closed;
+
+    public OutboundSession(WebSocketSession delegate, Executor writer, Clock clock, int capacity, Duration maxLag) {
+        this.delegate = delegate;
+        this.writer = writer;
+        this.clock = clock;
+        this.capacity = capacity;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    public WebSocketSession delegate() {
+        return delegate;
+    }
+
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    public void send(@NonNull WebSocketMessage<?> message) {
+        send(null, message);
+    }
+
+    /**
+     * Enqueues {@code message}. If a message with the same {@code coalesceKey} is
+     * still waiting, it is replaced in place instead of queueing another one.
+     */
+    public void send(@Nullable String coalesceKey, @NonNull WebSocketMessage<?> message) {
+        boolean startDrain = false;
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Pending existing = coalesceKey != null ? pendingByKey.get(coalesceKey) : null;
+            if (existing != null) {
+                existing.message = message;
+                return;
+            }
+            long now = clock.millis();
+            if (queue.size() >= capacity || lagging(queue.peekFirst(), now)) {
+                overflow = true;
+                discard();
+            } else {
+                Pending pending = new Pending(coalesceKey, message, now);
+                queue.addLast(pending);
+                if (coalesceKey != null) {
+                    pendingByKey.put(coalesceKey, pending);
+                }
+                startDrain = !draining;
+                draining = true;
+            }
+        }
+        if (overflow) {
+            closeSlowConsumer();
+        } else if (startDrain) {
+            writer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Closes the session if its oldest pending message has waited longer than
+     * the allowed lag.
+     */
+    public void closeIfLagging() {
+        synchronized (this) {
+            if (closed || !lagging(queue.peekFirst(), clock.millis())) {
+                return;
+            }
+            discard();
+        }
+        closeSlowConsumer();
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                if (lagging(queue.peekFirst(), clock.millis())) {
+                    // the previous send blocked long enough that the rest is stale
+                    discard();
+                    draining = false;
+                    break;
+                }
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+                if (next.coalesceKey != null) {
+                    pendingByKey.remove(next.coalesceKey);
+                }
+            }
+            try {
+                if (delegate.isOpen()) {
+                    delegate.sendMessage(next.message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Failed to send to session {}: {}", delegate.getId(), e.getMessage());
+            }
+        }
+        closeSlowConsumer();
+    }
+
+    private boolean lagging(@Nullable Pending head, long now) {
+        return head != null && now - head.enqueuedAt > maxLagMillis;
+    }
+
+    // called with the monitor held
+    private void discard() {
+        closed = true;
+        queue.clear();
+        pendingByKey.clear();
+    }
+
+    private void closeSlowConsumer() {
+        log.warn("Closing slow consumer session {}", delegate.getId());
+        try {
+            delegate.close(SLOW_CONSUMER);
+        } catch (IOException e) {
+            log.debug("Failed to close session {}: {}", delegate.getId(), e.getMessage());
+        }
+    }
+
+    private static final class Pending {
+        private final String coalesceKey;
+        private final long enqueuedAt;
+        private WebSocketMessage<?> message;
+
+        private Pending(String coalesceKey, WebSocketMessage<?> message, long enqueuedAt) {
+            this.coalesceKey = coalesceKey;
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
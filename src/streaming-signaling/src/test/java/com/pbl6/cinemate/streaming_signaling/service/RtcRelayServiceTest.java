@@ -0,0 +1,200 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingNode;
+import com.pbl6.cinemate.streaming_signaling.config.SignalingProperties;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.LocalSessionRegistry;
+import com.pbl6.cinemate.streaming_signaling.websocket.session.OutboundSession;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two relay services connected through an in-memory stand-in for Redis
+ * pub/sub that, like a subscriber connection, delivers each channel's
+ * messages in publish order on one thread.
+ */
+class RtcRelayServiceTest {
+
+    private static final String SENDER_NODE = "node-a";
+    private static final String TARGET_NODE = "node-b";
+    private static final String TARGET = "user-1:tab-1";
+    private static final int MAX_BATCH = 64;
+    private static final Duration DEAD_AFTER = Duration.ofSeconds(30);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RtcRelayService> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService subscriberThread = Executors.newSingleThreadExecutor();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean redisDown = new AtomicBoolean();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private RtcRelayService sender;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = redis();
+        sender = relay(SENDER_NODE, redisTemplate, mock(LocalSessionRegistry.class));
+        LocalSessionRegistry targetSessions = mock(LocalSessionRegistry.class);
+        OutboundSession targetSession = mock(OutboundSession.class);
+        when(targetSession.isOpen()).thenReturn(true);
+        doAnswer(call -> {
+            String payload = ((WebSocketMessage<?>) call.getArgument(0)).getPayload().toString();
+            received.add(payload);
+            return null;
+        }).when(targetSession).send(any(WebSocketMessage.class));
+        when(targetSessions.get(TARGET)).thenReturn(targetSession);
+        relay(TARGET_NODE, redisTemplate, targetSessions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriberThread.shutdownNow();
+    }
+
+    @Test
+    void deliversEverythingAcrossNodesInOrder() throws Exception {
+        int senders = 4;
+        int perSender = 5_000;
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(sender::flushOutbound, 5, 5, TimeUnit.MILLISECONDS);
+        ExecutorService threads = Executors.newFixedThreadPool(senders);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int s = 0; s < senders; s++) {
+                int id = s;
+                threads.submit(() -> {
+                    start.await();
+                    for (int seq = 0; seq < perSender; seq++) {
+                        assertThat(sender.relay(TARGET, id + ":" + seq)).isTrue();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            awaitReceived(senders * perSender, Duration.ofSeconds(30));
+        } finally {
+            threads.shutdownNow();
+            flusher.shutdownNow();
+        }
+
+        int[] last = new int[senders];
+        Arrays.fill(last, -1);
+        for (String message : received) {
+            String[] parts = message.split(":");
+            int id = Integer.parseInt(parts[0]);
+            int seq = Integer.parseInt(parts[1]);
+            assertThat(seq).as("order of sender %d", id).isEqualTo(last[id] + 1);
+            last[id] = seq;
+        }
+        assertThat(last).containsOnly(perSender - 1);
+    }
+
+    @Test
+    void retriesABatchThatFailedToPublish() throws Exception {
+        redisDown.set(true);
+        for (int i = 0; i < 3; i++) {
+            sender.relay(TARGET, "m" + i);
+        }
+        sender.flushOutbound();
+        redisDown.set(false);
+        sender.relay(TARGET, "m3");
+        sender.flushOutbound();
+
+        awaitReceived(4, Duration.ofSeconds(5));
+        assertThat(received).containsExactly("m0", "m1", "m2", "m3");
+    }
+
+    @Test
+    void dropsTheQueueOfANodeUnreachableForDeadAfter() throws Exception {
+        redisDown.set(true);
+        sender.relay(TARGET, "lost");
+        sender.flushOutbound();
+        now.addAndGet(DEAD_AFTER.toMillis() + 1);
+        sender.flushOutbound();
+        redisDown.set(false);
+        sender.flushOutbound();
+        sender.relay(TARGET, "fresh");
+        sender.flushOutbound();
+
+        awaitReceived(1, Duration.ofSeconds(5));
+        assertThat(received).containsExactly("fresh");
+    }
+
+    private void awaitReceived(int count, Duration timeout) throws Exception {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // everything published so far has been handed to the subscriber thread
+        subscriberThread.submit(() -> { }).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        assertThat(received).hasSize(count);
+    }
+
+    private RtcRelayService relay(String nodeId, StringRedisTemplate redisTemplate, LocalSessionRegistry sessions) {
+        SignalingNode node = mock(SignalingNode.class);
+        when(node.id()).thenReturn(nodeId);
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(call -> now.get());
+        RtcRelayService service = new RtcRelayService(redisTemplate, mock(), sessions, node, properties(),
+                objectMapper, clock);
+        subscribers.put(service.relayChannel(), service);
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(StreamingRedisKeys.clientNodeKey(TARGET))).thenReturn(TARGET_NODE);
+        doAnswer(call -> {
+            if (redisDown.get()) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+            String channel = call.getArgument(0);
+            byte[] body = call.<String>getArgument(1).getBytes(StandardCharsets.UTF_8);
+            subscriberThread.execute(() -> subscribers.get(channel)
+                    .onMessage(new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8), body), null));
+            return null;
+        }).when(redisTemplate).convertAndSend(anyString(), anyString());
+        return redisTemplate;
+    }
+
+    private static SignalingProperties properties() {
+        SignalingProperties.Signaling signaling = mock(SignalingProperties.Signaling.class);
+        when(signaling.relayMaxBatchSize()).thenReturn(MAX_BATCH);
+        when(signaling.nodeDeadAfter()).thenReturn(DEAD_AFTER);
+        SignalingProperties properties = mock(SignalingProperties.class);
+        when(properties.signaling()).thenReturn(signaling);
+        return properties;
+    }
+}
@@ -0,0 +1,120 @@
+package com.pbl6.cinemate.streaming_signaling.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.shared.streaming.StreamingRedisKeys;
+import com.pbl6.cinemate.streaming_signaling.dto.AvailabilityDelta;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerLocality;
+import com.pbl6.cinemate.streaming_signaling.util.SegmentIds;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SwarmStateServiceTest {
+
+    private static final String MOVIE = "movie-1";
+    private static final String QUALITY = "720p";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService joiners = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch snapshotRequested = new CountDownLatch(1);
+    private final CountDownLatch releaseSnapshot = new CountDownLatch(1);
+    private final AtomicReference<MessageListener> listener = new AtomicReference<>();
+    private SetOperations<String, String> sets;
+    private SwarmStateService swarmState;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        sets = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(sets);
+        when(sets.members(StreamingRedisKeys.moviePeersKey(MOVIE))).thenAnswer(call -> {
+            snapshotRequested.countDown();
+            releaseSnapshot.await();
+            return Set.of("remote-a");
+        });
+        when(sets.members(StreamingRedisKeys.movieOwnerSetsKey(MOVIE))).thenReturn(new LinkedHashSet<>(List.of(
+                ownersKey(1), ownersKey(9))));
+        // segment 9 expired after it was listed
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(Set.of("remote-a"), Set.of()));
+
+        RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+        doAnswer(call -> {
+            listener.set(call.getArgument(0));
+            return null;
+        }).when(listenerContainer).addMessageListener(any(MessageListener.class), any(Topic.class));
+        swarmState = new SwarmStateService(redisTemplate, listenerContainer, mock(PeerMetricsService.class),
+                objectMapper, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSnapshot.countDown();
+        joiners.shutdownNow();
+    }
+
+    @Test
+    void mirrorsDeltasWhileHydratingAndReplaysThemOnTheSnapshot() throws Exception {
+        Future<Set<String>> first = joiners.submit(() -> swarmState.join(MOVIE, "local-1", PeerLocality.UNKNOWN));
+        Future<Set<String>> second = joiners.submit(() -> swarmState.join(MOVIE, "local-2", PeerLocality.UNKNOWN));
+        assertThat(snapshotRequested.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // delivered on the subscriber thread while the snapshot is still loading
+        DefaultMessage delta = delta(new AvailabilityDelta.Change(QUALITY, "remote-b", 2, true));
+        Future<?> mirrored = joiners.submit(() -> listener.get().onMessage(delta, null));
+        mirrored.get(1, TimeUnit.SECONDS);
+        assertThat(second.isDone()).isFalse();
+        releaseSnapshot.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).contains("remote-a", "remote-b", "local-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).contains("remote-a", "remote-b", "local-2");
+        assertThat(owners(1)).containsExactly("remote-a");
+        assertThat(owners(2)).containsExactly("remote-b");
+        assertThat(owners(9)).isEmpty();
+        verify(sets, times(1)).members(StreamingRedisKeys.moviePeersKey(MOVIE));
+    }
+
+    private List<String> owners(int segment) {
+        return swarmState.owners(MOVIE, QUALITY, SegmentIds.fromIndex(segment)).stream()
+                .map(SwarmStateService.Owner::peerId)
+                .toList();
+    }
+
+    private DefaultMessage delta(AvailabilityDelta.Change change) throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(new AvailabilityDelta(List.of(change), List.of()));
+        return new DefaultMessage(StreamingRedisKeys.movieAvailabilityChannel(MOVIE).getBytes(StandardCharsets.UTF_8),
+                body);
+    }
+
+    private static String ownersKey(int segment) {
+        return StreamingRedisKeys.segmentOwnersKey(MOVIE, QUALITY, SegmentIds.fromIndex(segment));
+    }
+}
@@ -0,0 +1,89 @@
+package com.pbl6.cinemate.streaming_signaling.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    // 4 buckets per level and 3 levels: levels span 4, 16 and 64 ticks
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, 2, 3, 0);
+
+    @Test
+    void expiresEveryKeyOnItsOwnTickAfterCascading() {
+        Map<String, Long> deadlines = Map.of(
+                "level0", 3L,
+                "level1", 5L,
+                "level1-far", 15L,
+                "level2", 17L,
+                "level2-mid", 40L,
+                "level2-last", 63L);
+        deadlines.forEach((key, tick) -> wheel.schedule(key, tick * TICK));
+
+        assertThat(runUntil(100)).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void parksDeadlinesBeyondTheLastLevelUntilTheyAreInRange() {
+        wheel.schedule("far", 200 * TICK);
+        wheel.schedule("farther", 1_000 * TICK + 7);
+
+        assertThat(runUntil(1_100)).containsExactlyInAnyOrderEntriesOf(Map.of("far", 200L, "farther", 1_000L));
+    }
+
+    @Test
+    void cancelledKeysNeverExpireAndRescheduledKeysMove() {
+        wheel.schedule("cancelled", 5 * TICK);
+        wheel.schedule("earlier", 20 * TICK);
+        wheel.schedule("later", 30 * TICK);
+        wheel.schedule("cascaded-then-cancelled", 40 * TICK);
+
+        wheel.cancel("cancelled");
+        wheel.schedule("earlier", 8 * TICK);
+        wheel.schedule("later", 50 * TICK);
+        assertThat(wheel.size()).isEqualTo(3);
+        // moved down to level 1 by the time it is cancelled
+        assertThat(runUntil(33)).isEqualTo(Map.of("earlier", 8L));
+        wheel.cancel("cascaded-then-cancelled");
+
+        assertThat(runUntil(100)).isEqualTo(Map.of("later", 50L));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesInThePastExpireOnTheNextTick() {
+        wheel.advance(10 * TICK);
+        wheel.schedule("overdue", 2 * TICK);
+
+        assertThat(wheel.advance(10 * TICK + TICK - 1)).isEmpty();
+        assertThat(wheel.advance(11 * TICK)).containsExactly("overdue");
+    }
+
+    @Test
+    void advancingManyTicksAtOnceReturnsEverythingDue() {
+        wheel.schedule("a", 7 * TICK);
+        wheel.schedule("b", 45 * TICK);
+        wheel.schedule("c", 46 * TICK);
+
+        assertThat(wheel.advance(45 * TICK)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    /**
+     * Advances one tick at a time up to {@code lastTick} and records on which tick each key expired.
+     */
+    private Map<String, Long> runUntil(long lastTick) {
+        Map<String, Long> expiredAt = new HashMap<>();
+        for (long tick = 1; tick <= lastTick; tick++) {
+            long at = tick;
+            wheel.advance(tick * TICK).forEach(key -> assertThat(expiredAt.put(key, at)).isNull());
+        }
+        return expiredAt;
+    }
+}
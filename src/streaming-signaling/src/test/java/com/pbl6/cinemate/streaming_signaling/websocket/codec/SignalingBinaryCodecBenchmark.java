@@ -0,0 +1,90 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerInfo;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
+import com.pbl6.cinemate.streaming_signaling.dto.WhoHasReplyMessage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Per-message cost of the JSON and binary sub-protocols for the hot
+ * messages: encoding a {@code whoHasReply} with 10 peers and decoding a
+ * {@code reportSegment}.
+ * <p>
+ * Opt-in, as timings depend on the machine:
+ * {@code mvn -pl streaming-signaling test -Dtest=SignalingBinaryCodecBenchmark -Dbench=true}
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class SignalingBinaryCodecBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final String REPORT_JSON = """
+            {"type":"reportSegment","movieId":"movie-456","qualityId":"720p","segmentId":"seg_0123.m4s",\
+            "source":"peer","latency":42,"speed":2.5}""";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SignalingBinaryCodec codec = new SignalingBinaryCodec();
+    // results are accumulated so the JIT cannot drop the work
+    private long sink;
+
+    @Test
+    void whoHasReply() throws Exception {
+        WhoHasReplyMessage reply = new WhoHasReplyMessage("720p", "seg_0123.m4s", IntStream.range(0, 10)
+                .mapToObj(i -> new PeerInfo(UUID.randomUUID() + ":tab-" + i,
+                        new PeerMetrics(1.5 + i, 20 + i, 0.75, 1_700_000_000_000L + i)))
+                .toList());
+
+        report("whoHasReply encode", "json", objectMapper.writeValueAsBytes(reply).length, () -> {
+            sink += objectMapper.writeValueAsBytes(reply).length;
+        });
+        report("whoHasReply encode", "binary", codec.encode(reply).remaining(), () -> {
+            sink += codec.encode(reply).remaining();
+        });
+    }
+
+    @Test
+    void reportSegment() throws Exception {
+        ByteBuffer binary = ByteBuffer.allocate(64)
+                .put(SignalingBinaryCodec.OP_REPORT_SEGMENT)
+                .put((byte) 4).put("720p".getBytes(StandardCharsets.UTF_8))
+                .put((byte) 123)
+                .put((byte) 1)
+                .put((byte) 42)
+                .putFloat(2.5f)
+                .flip();
+
+        report("reportSegment decode", "json", REPORT_JSON.getBytes(StandardCharsets.UTF_8).length, () -> {
+            JsonNode json = objectMapper.readTree(REPORT_JSON);
+            sink += json.get("latency").asLong() + json.get("segmentId").asText().length()
+                    + json.get("source").asText().length() + (long) json.get("speed").asDouble();
+        });
+        report("reportSegment decode", "binary", binary.remaining(), () -> {
+            sink += codec.decode(binary.duplicate()).hashCode();
+        });
+    }
+
+    private void report(String message, String protocol, int bytes, Operation operation) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        double nanosPerOp = (double) (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf("%-22s %-7s %6d bytes %10.1f ns/op%n", message, protocol, bytes, nanosPerOp);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,158 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.codec;
+
+import com.pbl6.cinemate.streaming_signaling.dto.PeerInfo;
+import com.pbl6.cinemate.streaming_signaling.dto.PeerMetrics;
+import com.pbl6.cinemate.streaming_signaling.dto.ReportSegmentAckMessage;
+import com.pbl6.cinemate.streaming_signaling.dto.WhoHasReplyMessage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignalingBinaryCodecTest {
+
+    private final SignalingBinaryCodec codec = new SignalingBinaryCodec();
+
+    @Test
+    void decodesClientFrames() {
+        assertThat(codec.decode(frame(SignalingBinaryCodec.OP_WHO_HAS).string("720p").varint(5).build()))
+                .isEqualTo(new BinaryFrame.WhoHas("720p", 5));
+        assertThat(codec.decode(frame(SignalingBinaryCodec.OP_REPORT_SEGMENT)
+                .string("1080p").varint(300).raw(1).varint(42).float32(2.5f).build()))
+                .isEqualTo(new BinaryFrame.ReportSegment("1080p", 300, true, 42, 2.5));
+        assertThat(codec.decode(frame(SignalingBinaryCodec.OP_REMOVE_SEGMENT).string("480p").varint(0).build()))
+                .isEqualTo(new BinaryFrame.RemoveSegment("480p", 0));
+    }
+
+    @Test
+    void encodesWhoHasReplyThatReadsBack() {
+        UUID userId = UUID.randomUUID();
+        WhoHasReplyMessage reply = new WhoHasReplyMessage("720p", "seg_0123.m4s", List.of(
+                new PeerInfo(userId + ":tab-1", new PeerMetrics(1.5, 20, 0.75, 1_700_000_000_000L)),
+                new PeerInfo("user-7:tab-2", new PeerMetrics(0.25, 300, 1.0, 0))));
+
+        Reader r = new Reader(codec.encode(reply));
+
+        assertThat(r.buffer.get()).isEqualTo(SignalingBinaryCodec.OP_WHO_HAS_REPLY);
+        assertThat(r.string()).isEqualTo("720p");
+        assertThat(r.varint()).isEqualTo(123);
+        assertThat(r.varint()).isEqualTo(2);
+        assertThat(r.buffer.get()).isZero();
+        assertThat(new UUID(r.buffer.getLong(), r.buffer.getLong())).isEqualTo(userId);
+        assertThat(r.string()).isEqualTo("tab-1");
+        assertThat(r.buffer.getFloat()).isEqualTo(1.5f);
+        assertThat(r.varint()).isEqualTo(20);
+        assertThat(r.buffer.getFloat()).isEqualTo(0.75f);
+        assertThat(r.varint()).isEqualTo(1_700_000_000_000L);
+        assertThat(r.buffer.get()).isEqualTo((byte) 1);
+        assertThat(r.string()).isEqualTo("user-7:tab-2");
+        assertThat(r.buffer.getFloat()).isEqualTo(0.25f);
+        assertThat(r.varint()).isEqualTo(300);
+        assertThat(r.buffer.getFloat()).isEqualTo(1.0f);
+        assertThat(r.varint()).isZero();
+        assertThat(r.buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void encodesReportAck() {
+        Reader r = new Reader(codec.encode(new ReportSegmentAckMessage("seg_70000.m4s")));
+
+        assertThat(r.buffer.get()).isEqualTo(SignalingBinaryCodec.OP_REPORT_ACK);
+        assertThat(r.varint()).isEqualTo(70_000);
+        assertThat(r.buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedFramesWithIllegalArgument() {
+        // a 10-byte varint decoding to a negative long, as a string length
+        ByteBuffer negativeLength = frame(SignalingBinaryCodec.OP_WHO_HAS)
+                .raw(0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01).build();
+        // six bytes for an int
+        ByteBuffer longIntVarint = frame(SignalingBinaryCodec.OP_WHO_HAS)
+                .string("720p").raw(0x80, 0x80, 0x80, 0x80, 0x80, 0x01).build();
+        // five bytes, but above Integer.MAX_VALUE
+        ByteBuffer oversizedInt = frame(SignalingBinaryCodec.OP_WHO_HAS)
+                .string("720p").raw(0xFF, 0xFF, 0xFF, 0xFF, 0x0F).build();
+        ByteBuffer negativeLatency = frame(SignalingBinaryCodec.OP_REPORT_SEGMENT).string("720p").varint(1).raw(0)
+                .raw(0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01).float32(1f).build();
+        ByteBuffer truncated = frame(SignalingBinaryCodec.OP_WHO_HAS).string("720p").build();
+        ByteBuffer unknownOpcode = frame((byte) 0x7F).build();
+
+        for (ByteBuffer malformed : List.of(negativeLength, longIntVarint, oversizedInt, negativeLatency, truncated,
+                unknownOpcode)) {
+            assertThatThrownBy(() -> codec.decode(malformed)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static FrameBuilder frame(byte opcode) {
+        return new FrameBuilder().raw(opcode);
+    }
+
+    private static final class FrameBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        FrameBuilder raw(int... bytes) {
+            for (int b : bytes) {
+                out.write(b);
+            }
+            return this;
+        }
+
+        FrameBuilder varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+            return this;
+        }
+
+        FrameBuilder string(String value) {
+            byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+            varint(raw.length);
+            out.writeBytes(raw);
+            return this;
+        }
+
+        FrameBuilder float32(float value) {
+            out.writeBytes(ByteBuffer.allocate(4).putFloat(value).array());
+            return this;
+        }
+
+        ByteBuffer build() {
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long varint() {
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+        }
+
+        String string() {
+            byte[] raw = new byte[(int) varint()];
+            buffer.get(raw);
+            return new String(raw, StandardCharsets.UTF_8);
+        }
+    }
+}
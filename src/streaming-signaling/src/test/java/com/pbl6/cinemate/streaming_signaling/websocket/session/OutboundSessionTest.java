@@ -0,0 +1,150 @@
+package com.pbl6.cinemate.streaming_signaling.websocket.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboundSessionTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    private final ExecutorService writer = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final Clock clock = clock();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        writer.shutdownNow();
+    }
+
+    @Test
+    void slowClientDoesNotHoldBackOthers() throws Exception {
+        WebSocketSession slow = session("slow");
+        CountDownLatch slowBlocked = new CountDownLatch(1);
+        doAnswer(call -> {
+            slowBlocked.countDown();
+            unblock.await();
+            return null;
+        }).when(slow).sendMessage(any());
+        OutboundSession slowOutbound = new OutboundSession(slow, writer, clock, 256, MAX_LAG);
+        slowOutbound.send(new TextMessage("stuck"));
+        assertThat(slowBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        int clients = 50;
+        int perClient = 200;
+        List<CountDownLatch> done = new ArrayList<>();
+        List<OutboundSession> fast = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            WebSocketSession session = session("fast-" + c);
+            CountDownLatch received = new CountDownLatch(perClient);
+            doAnswer(call -> {
+                received.countDown();
+                return null;
+            }).when(session).sendMessage(any());
+            done.add(received);
+            fast.add(new OutboundSession(session, writer, clock, 256, MAX_LAG));
+        }
+        for (int i = 0; i < perClient; i++) {
+            // the slow client keeps receiving traffic too
+            slowOutbound.send(new TextMessage("more"));
+            for (OutboundSession outbound : fast) {
+                outbound.send(new TextMessage(Integer.toString(i)));
+            }
+        }
+        for (CountDownLatch received : done) {
+            assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // everything above was delivered while the slow client's first send is still blocked
+        assertThat(unblock.getCount()).isOne();
+        verify(slow, times(1)).sendMessage(any());
+        verify(slow, never()).close(any());
+    }
+
+    @Test
+    void timerClosesAStuckSessionThatReceivesNothingNew() throws Exception {
+        WebSocketSession slow = session("slow");
+        CountDownLatch slowBlocked = new CountDownLatch(1);
+        doAnswer(call -> {
+            slowBlocked.countDown();
+            unblock.await();
+            return null;
+        }).when(slow).sendMessage(any());
+        OutboundSession outbound = new OutboundSession(slow, writer, clock, 256, MAX_LAG);
+        outbound.send(new TextMessage("stuck"));
+        outbound.send(new TextMessage("waiting"));
+        assertThat(slowBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        outbound.closeIfLagging();
+        verify(slow, never()).close(any());
+
+        now.addAndGet(MAX_LAG.toMillis() + 1);
+        outbound.closeIfLagging();
+
+        verify(slow).close(argThat(status -> status.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()));
+    }
+
+    @Test
+    void writerDropsMessagesThatWaitedLongerThanTheLag() throws Exception {
+        WebSocketSession slow = session("slow");
+        CountDownLatch slowBlocked = new CountDownLatch(1);
+        List<String> sent = new ArrayList<>();
+        doAnswer(call -> {
+            sent.add(((WebSocketMessage<?>) call.getArgument(0)).getPayload().toString());
+            slowBlocked.countDown();
+            unblock.await();
+            return null;
+        }).when(slow).sendMessage(any());
+        OutboundSession outbound = new OutboundSession(slow, writer, clock, 256, MAX_LAG);
+        outbound.send(new TextMessage("first"));
+        outbound.send(new TextMessage("stale"));
+        assertThat(slowBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        now.addAndGet(MAX_LAG.toMillis() + 1);
+        unblock.countDown();
+
+        verify(slow, timeout(5_000)).close(argThat(status ->
+                status.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()));
+        verify(slow, after(100).times(1)).sendMessage(any());
+        assertThat(sent).containsExactly("first");
+    }
+
+    private Clock clock() {
+        Clock mock = mock(Clock.class);
+        when(mock.millis()).thenAnswer(call -> now.get());
+        return mock;
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}